@@ -80,7 +80,7 @@ public class DefaultObjectFactory implements IObjectFactory {
         //
         // Note that we cannot use TeakConfiguration here because this happens before it is initialized.
         try {
-            final ApplicationInfo appInfo = context.getPackageManager().getApplicationInfo(context.getPackageName(), PackageManager.GET_META_DATA);
+            final ApplicationInfo appInfo = Helpers.getApplicationInfo(context);
             if (appInfo.metaData.getBoolean("io_teak_no_auto_track_purchase", false)) {
                 Teak.log.i("factory.istore", "Automatic purchase tracking disabled (io_teak_no_auto_track_purchase).");
                 return null;
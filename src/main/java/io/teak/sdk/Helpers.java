@@ -22,6 +22,7 @@ import java.util.concurrent.TimeUnit;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import io.teak.sdk.core.CoreHelpers;
 import io.teak.sdk.json.JSONArray;
 import io.teak.sdk.json.JSONException;
 import io.teak.sdk.json.JSONObject;
@@ -159,9 +160,7 @@ public class Helpers implements Unobfuscable {
     }
 
     public static boolean is_equal(final @Nullable Object a, final @Nullable Object b) {
-        return (a == b) ||
-            (a != null && a.equals(b)) ||
-            (b != null && b.equals(a));
+        return CoreHelpers.is_equal(a, b);
     }
 
     public static JSONObject bundleToJson(Bundle bundle) {
@@ -212,16 +211,16 @@ public class Helpers implements Unobfuscable {
         return bundle;
     }
 
-    private static int targetSDKVersion = 0;
+    /**
+     * @return The ApplicationInfo, including meta-data, of the application, or null if it is unavailable.
+     */
+    @Nullable
+    public static ApplicationInfo getApplicationInfo(@NonNull Context context) {
+        return PackageMetadata.get(context).getApplicationInfo(context);
+    }
+
     public static int getTargetSDKVersion(@NonNull Context context) {
-        if (targetSDKVersion == 0) {
-            try {
-                ApplicationInfo appInfo = context.getPackageManager().getApplicationInfo(context.getPackageName(), PackageManager.GET_META_DATA);
-                targetSDKVersion = appInfo.targetSdkVersion;
-            } catch (Exception ignored) {
-            }
-        }
-        return targetSDKVersion;
+        return PackageMetadata.get(context).getTargetSdkVersion(context);
     }
 
     public static String formatSig(Signature sig, String hashType) throws java.security.NoSuchAlgorithmException {
@@ -261,15 +260,8 @@ public class Helpers implements Unobfuscable {
     }
 
     // https://stackoverflow.com/questions/9655181/how-to-convert-a-byte-array-to-a-hex-string-in-java
-    private static final char[] HEX_ARRAY = "0123456789abcdef".toCharArray();
     public static String bytesToHex(byte[] bytes) {
-        char[] hexChars = new char[bytes.length * 2];
-        for (int j = 0; j < bytes.length; j++) {
-            int v = bytes[j] & 0xFF;
-            hexChars[j * 2] = HEX_ARRAY[v >>> 4];
-            hexChars[j * 2 + 1] = HEX_ARRAY[v & 0x0F];
-        }
-        return new String(hexChars);
+        return CoreHelpers.bytesToHex(bytes);
     }
 
     public static <T> Future<T> futureForValue(final T value) {
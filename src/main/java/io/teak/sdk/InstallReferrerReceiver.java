@@ -5,7 +5,6 @@ import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.ActivityInfo;
-import android.content.pm.PackageManager;
 import android.os.Bundle;
 import androidx.annotation.NonNull;
 import io.teak.sdk.Helpers.mm;
@@ -25,7 +24,7 @@ public class InstallReferrerReceiver extends BroadcastReceiver implements Unobfu
         }
 
         try {
-            ActivityInfo ai = context.getPackageManager().getReceiverInfo(new ComponentName(context, "io.teak.sdk.InstallReferrerReceiver"), PackageManager.GET_META_DATA);
+            ActivityInfo ai = PackageMetadata.get(context).getReceiverInfo(context, new ComponentName(context, "io.teak.sdk.InstallReferrerReceiver"));
             Bundle bundle = ai.metaData;
             for (String key : bundle.keySet()) {
                 try {
@@ -5,8 +5,6 @@ import android.app.Activity;
 import android.app.AlertDialog;
 import android.content.ComponentName;
 import android.content.pm.ActivityInfo;
-import android.content.pm.ApplicationInfo;
-import android.content.pm.PackageManager;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
@@ -67,6 +65,13 @@ public class IntegrationChecker {
         AppConfiguration.TEAK_API_KEY_RESOURCE,
         AppConfiguration.TEAK_APP_ID_RESOURCE};
 
+    // AndroidManifest.xml queries, compiled once
+    private static final ManifestParser.Query FcmServiceQuery = ManifestParser.Query.compile("service.intent-filter.action", "name", "com.google.firebase.MESSAGING_EVENT");
+    private static final ManifestParser.Query TeakSchemeQuery = ManifestParser.Query.compile("(activity|activity\\-alias).intent-filter.data", "scheme", "teak\\d+");
+    private static final ManifestParser.Query TeakSchemeActionQuery = ManifestParser.Query.compile("intent-filter.action", "name", "android.intent.action.VIEW");
+    private static final ManifestParser.Query TeakSchemeCategoryQuery = ManifestParser.Query.compile("intent-filter.category", "name", "android.intent.category.(DEFAULT|BROWSABLE)");
+    private static final ManifestParser.Query HttpSchemeQuery = ManifestParser.Query.compile("data", "scheme", "(http|https)");
+
     public static void requireDependency(@NonNull String fullyQualifiedClassName) throws MissingDependencyException {
         addDependency(fullyQualifiedClassName, true);
     }
@@ -169,8 +174,7 @@ public class IntegrationChecker {
         // Check for configuration strings
         try {
             final String packageName = this.activity.getPackageName();
-            final ApplicationInfo appInfo = this.activity.getPackageManager().getApplicationInfo(this.activity.getPackageName(), PackageManager.GET_META_DATA);
-            final Bundle metaData = appInfo.metaData;
+            final Bundle metaData = PackageMetadata.get(this.activity).getMetaData(this.activity);
 
             for (String configString : configurationStrings) {
                 try {
@@ -219,7 +223,7 @@ public class IntegrationChecker {
         try {
             Teak.log.i("integration.launchMode", "Checking android:launchMode for main <activity>.");
             ComponentName cn = new ComponentName(this.activity, this.activity.getClass());
-            ActivityInfo ai = this.activity.getPackageManager().getActivityInfo(cn, PackageManager.GET_META_DATA);
+            ActivityInfo ai = PackageMetadata.get(this.activity).getActivityInfo(this.activity, cn);
             // (LAUNCH_SINGLE_INSTANCE == LAUNCH_SINGLE_TASK | LAUNCH_SINGLE_TOP) but let's not
             // assume that those values will stay the same
             if ((ai.launchMode & ActivityInfo.LAUNCH_SINGLE_INSTANCE) == 0 &&
@@ -238,7 +242,7 @@ public class IntegrationChecker {
             final ManifestParser manifestParser = new ManifestParser(this.activity);
 
             // Check to make sure there is only one <application>
-            final List<ManifestParser.XmlTag> applications = manifestParser.tags.find("$.application");
+            final List<ManifestParser.XmlTag> applications = manifestParser.getTagsOfType("application");
             if (applications.size() > 1) {
                 addErrorToReport("application.count", "There is more than one <application> defined in your AndroidManifest.xml, only one is allowed by Android.");
             } else if (applications.size() == 0) {
@@ -249,11 +253,10 @@ public class IntegrationChecker {
             // Make sure the Teak FCM service is present
             {
                 Teak.log.i("integration.manifest.fcm", "Checking AndroidManifest.xml for push notification integration issues.");
-                final List<ManifestParser.XmlTag> fcmServices = applications.get(0).find("service.intent-filter.action",
-                    new HashMap.SimpleEntry<>("name", "com.google.firebase.MESSAGING_EVENT"));
+                final List<ManifestParser.XmlTag> fcmServices = FcmServiceQuery.find(applications.get(0));
                 ManifestParser.XmlTag teakFcmService = null;
                 for (ManifestParser.XmlTag tag : fcmServices) {
-                    final String checkServiceClass = tag.attributes.get("name");
+                    final String checkServiceClass = tag.getAttribute("name");
                     try {
                         Class.forName(checkServiceClass);
                     } catch (Exception ignored) {
@@ -275,28 +278,24 @@ public class IntegrationChecker {
             // Find the teakXXXX:// scheme
             {
                 Teak.log.i("integration.manifest.teak_scheme", "Checking AndroidManifest.xml for teakXXX:// scheme");
-                final List<ManifestParser.XmlTag> teakScheme = applications.get(0).find("(activity|activity\\-alias).intent\\-filter.data",
-                    new HashMap.SimpleEntry<>("scheme", "teak\\d+"));
+                final List<ManifestParser.XmlTag> teakScheme = TeakSchemeQuery.find(applications.get(0));
                 if (teakScheme.size() < 1) {
                     addErrorToReport("activity.intent-filter.data.scheme", "Deep linking will not work because there is no <intent-filter> in any <activity> or <activity-alias> has the \"teak\" data scheme.\n\nAdd <data android:scheme=\"teak" + teakConfiguration.appConfiguration.appId + "\" android:host=\"*\" /> to the <intent-filter> for your main activity.");
                 } else {
                     // Make sure the <intent-filter> for the teakXXXX:// scheme has <action android:name="android.intent.action.VIEW" />
-                    final List<ManifestParser.XmlTag> teakSchemeAction = teakScheme.get(0).find("intent\\-filter.action",
-                        new HashMap.SimpleEntry<>("name", "android.intent.action.VIEW"));
+                    final List<ManifestParser.XmlTag> teakSchemeAction = TeakSchemeActionQuery.find(teakScheme.get(0));
                     if (teakSchemeAction.size() < 1) {
                         addErrorToReport("activity.intent-filter.data.scheme", "the <intent-filter> with the \"teak\" data scheme should have <action android:name=\"android.intent.action.VIEW\" />");
                     }
 
                     // Make sure the <intent-filter> for the teakXXXX:// scheme has <category android:name="android.intent.category.DEFAULT" /> and <category android:name="android.intent.category.BROWSABLE" />
-                    final List<ManifestParser.XmlTag> teakSchemeCategories = teakScheme.get(0).find("intent\\-filter.category",
-                        new HashMap.SimpleEntry<>("name", "android.intent.category.(DEFAULT|BROWSABLE)"));
+                    final List<ManifestParser.XmlTag> teakSchemeCategories = TeakSchemeCategoryQuery.find(teakScheme.get(0));
                     if (teakSchemeCategories.size() < 2) {
                         addErrorToReport("activity.intent-filter.data.scheme", "the <intent-filter> with the \"teak\" data scheme should have <category android:name=\"android.intent.category.DEFAULT\" /> and <category android:name=\"android.intent.category.BROWSABLE\" />");
                     }
 
                     // Make sure the <intent-filter> for the teakXXXX:// scheme does *not* also contain any http(s) schemes
-                    final List<ManifestParser.XmlTag> teakSchemeOtherSchemes = teakScheme.get(0).find("data",
-                        new HashMap.SimpleEntry<>("scheme", "(http|https)"));
+                    final List<ManifestParser.XmlTag> teakSchemeOtherSchemes = HttpSchemeQuery.find(teakScheme.get(0));
                     if (teakSchemeOtherSchemes.size() > 0) {
                         addErrorToReport("activity.intent-filter.data.scheme", "the <intent-filter> with the \"teak\" data scheme *should not* contain any http or https schemes.\n\nPut the \"teak\" data scheme in its own <intent-filter>");
                     }
@@ -305,10 +304,10 @@ public class IntegrationChecker {
 
             // Make sure per-feature permissions are included
             {
-                final List<ManifestParser.XmlTag> usesPermissions = manifestParser.tags.find("$.uses-permission");
+                final List<ManifestParser.XmlTag> usesPermissions = manifestParser.getTagsOfType("uses-permission");
                 final Map<String, Boolean> permissionsAsMap = new HashMap<>();
                 for (ManifestParser.XmlTag permission : usesPermissions) {
-                    permissionsAsMap.put(permission.attributes.get("name"), true);
+                    permissionsAsMap.put(permission.getAttribute("name"), true);
                 }
 
                 for (int i = 0; i < IntegrationChecker.permissionFeatures.length; i++) {
@@ -5,13 +5,10 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.net.URL;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.Locale;
 import java.util.Map;
-import java.util.TimeZone;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicLong;
@@ -21,8 +18,10 @@ import javax.net.ssl.HttpsURLConnection;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import io.teak.sdk.core.Executors;
+import io.teak.sdk.io.ILogSink;
+import io.teak.sdk.io.Platform;
 import io.teak.sdk.json.JSONObject;
-import io.teak.sdk.raven.Raven;
+import io.teak.sdk.raven.Throwables;
 
 // Things I assume
 // - Remote log space is not an issue
@@ -49,11 +48,16 @@ import io.teak.sdk.raven.Raven;
 // - Ask that future logs send more information for a specific log event or exception
 
 public class Log {
+    /**
+     * The SDK log, which is also {@link Teak#log}.
+     */
+    public static final Log Shared = new Log("Teak", 0);
+
     // region Log Level enum
     private enum Level {
-        Info("INFO", android.util.Log.INFO),
-        Warn("WARN", android.util.Log.WARN),
-        Error("ERROR", android.util.Log.ERROR);
+        Info("INFO", ILogSink.INFO),
+        Warn("WARN", ILogSink.WARN),
+        Error("ERROR", ILogSink.ERROR);
 
         public final String name;
         public final int androidLogPriority;
@@ -156,18 +160,19 @@ public class Log {
             this.exceptionDepth.set(depth);
 
             // Send to Raven
-            if (reportToRaven && Teak.Instance != null && Teak.Instance.sdkRaven != null) {
-                Teak.Instance.sdkRaven.reportException(t, extras);
+            final ExceptionReporter exceptionReporter = this.exceptionReporter;
+            if (reportToRaven && exceptionReporter != null) {
+                exceptionReporter.reportException(t, extras);
             }
 
             // Do the logging
-            this.log(Level.Error, "exception", Raven.throwableToMap(t));
+            this.log(Level.Error, "exception", Throwables.throwableToMap(t));
 
             // Decrement, and assign
             depth--;
             this.exceptionDepth.set(depth);
         } else {
-            android.util.Log.e(this.androidLogTag, "");
+            Platform.logSink().println(ILogSink.ERROR, this.androidLogTag, "");
         }
     }
     // endregion
@@ -184,9 +189,18 @@ public class Log {
     private boolean logTrace = false;
     private boolean sendToRapidIngestion;
 
-    private Teak.LogListener logListener;
+    private Listener logListener;
+    private volatile ExceptionReporter exceptionReporter;
     // endregion
 
+    public interface Listener {
+        void logEvent(String logEvent, String logLevel, Map<String, Object> logData);
+    }
+
+    public interface ExceptionReporter {
+        void reportException(Throwable t, Map<String, Object> extras);
+    }
+
     private final ExecutorService remoteLogQueue = Executors.newSingleThreadExecutor();
 
     public Log(String androidLogTag, int jsonIndentation) {
@@ -195,42 +209,23 @@ public class Log {
         this.runId = UUID.randomUUID().toString().replace("-", "");
         this.commonPayload.put("run_id", this.runId);
         this.eventCounter = new AtomicLong(0);
+    }
 
-        TeakConfiguration.addEventListener(configuration -> {
-            synchronized (commonPayload) {
-                // Add sdk version to common payload, and log init message
-                commonPayload.put("sdk_version", Teak.Version);
-
-                // Log ISO8601 format timestamp at init
-                final SimpleDateFormat iso8601 = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
-                iso8601.setTimeZone(TimeZone.getTimeZone("UTC"));
-                final Map<String, Object> dateTime = new HashMap<>();
-                dateTime.put("at", iso8601.format(new Date()));
-                log(Level.Info, "sdk_init", dateTime);
-
-                // Log full device configuration, then add common payload after
-                log(Level.Info, "configuration.device", configuration.deviceConfiguration.toMap());
-                commonPayload.put("device_id", configuration.deviceConfiguration.deviceId);
-
-                // Log full app configuration, then add common payload after
-                log(Level.Info, "configuration.app", configuration.appConfiguration.toMap());
-                commonPayload.put("bundle_id", configuration.appConfiguration.bundleId);
-                commonPayload.put("app_id", configuration.appConfiguration.appId);
-                commonPayload.put("client_app_version", configuration.appConfiguration.appVersion);
-                commonPayload.put("client_app_version_name", configuration.appConfiguration.appVersionName);
-
-                // Log data collection configuration
-                log(Level.Info, "configuration.data_collection", configuration.dataCollectionConfiguration.toMap());
-
-                synchronized (queuedLogEvents) {
+    /**
+     * Send the log events queued so far, and every one after, with values added to each event.
+     *
+     * @param commonPayload Values added to every log event, such as the SDK version and device id.
+     */
+    public void start(@NonNull Map<String, Object> commonPayload) {
+        synchronized (queuedLogEvents) {
+            this.commonPayload.putAll(commonPayload);
             for (LogEvent event : queuedLogEvents) {
                 logEvent(event);
             }
+            queuedLogEvents.clear();
             processedQueuedLogEvents = true;
-                }
+        }
     }
-});
-}
 
 public void useRapidIngestionEndpoint(boolean useRapidIngestionEndpoint) {
     this.sendToRapidIngestion = useRapidIngestionEndpoint;
@@ -245,10 +240,14 @@ public void setLogTrace(boolean logTrace) {
     this.logTrace = logTrace;
 }
 
-public void setLogListener(Teak.LogListener logListener) {
+public void setLogListener(Listener logListener) {
     this.logListener = logListener;
 }
 
+public void setExceptionReporter(@Nullable ExceptionReporter exceptionReporter) {
+    this.exceptionReporter = exceptionReporter;
+}
+
 protected static class LogEvent {
     final Level logLevel;
     final String eventType;
@@ -290,21 +289,25 @@ private void logEvent(final @NonNull LogEvent logEvent) {
     }
 
     // Log to Android log
-    if (this.logLocally && android.util.Log.isLoggable(this.androidLogTag, logEvent.logLevel.androidLogPriority)) {
+    String compactJson = null;
+    if (this.logLocally && Platform.logSink().isLoggable(this.androidLogTag, logEvent.logLevel.androidLogPriority)) {
         String jsonStringForAndroidLog = "{}";
         try {
             if (this.jsonIndentation > 0) {
-                jsonStringForAndroidLog = new JSONObject(payload).toString(this.jsonIndentation);
+                jsonStringForAndroidLog = JSONObject.view(payload).toString(this.jsonIndentation);
             } else {
-                jsonStringForAndroidLog = new JSONObject(payload).toString();
+                compactJson = JSONObject.view(payload).toString();
+                jsonStringForAndroidLog = compactJson;
             }
         } catch (Exception ignored) {
         }
-        android.util.Log.println(logEvent.logLevel.androidLogPriority, this.androidLogTag, jsonStringForAndroidLog);
+        Platform.logSink().println(logEvent.logLevel.androidLogPriority, this.androidLogTag, jsonStringForAndroidLog);
     }
 
     // Remote logging
     if (this.logRemotely) {
+        // Reuse the local log output if it is already in the right format
+        final String remoteJson = compactJson;
         this.remoteLogQueue.execute(() -> {
             HttpsURLConnection connection = null;
             try {
@@ -319,7 +322,7 @@ private void logEvent(final @NonNull LogEvent logEvent) {
 
                 //GZIPOutputStream wr = new GZIPOutputStream(connection.getOutputStream());
                 OutputStream wr = connection.getOutputStream();
-                wr.write(new JSONObject(payload).toString().getBytes());
+                wr.write((remoteJson != null ? remoteJson : JSONObject.view(payload).toString()).getBytes());
                 wr.flush();
                 wr.close();
 
@@ -55,11 +55,13 @@ import io.teak.sdk.configuration.RemoteConfiguration;
 import io.teak.sdk.core.Result;
 import io.teak.sdk.json.JSONArray;
 import io.teak.sdk.json.JSONObject;
+import io.teak.sdk.metrics.Metrics;
 
 import android.service.notification.StatusBarNotification;
 
 public class NotificationBuilder {
     public static final String DEFAULT_NOTIFICATION_CHANNEL_ID = "teak";
+
     public static class AssetLoadException extends Exception {
         AssetLoadException(String assetName, Exception cause) {
             super("Failed to load asset: " + assetName, cause);
@@ -73,16 +75,11 @@ public class NotificationBuilder {
         public ResourceHelper(@NonNull final Context context) {
             this.context = context;
             // Get app icon
-            int tempAppIconResourceId;
-            try {
-                PackageManager pm = context.getPackageManager();
-                ApplicationInfo ai = pm.getApplicationInfo(context.getPackageName(), 0);
-                tempAppIconResourceId = ai.icon;
-            } catch (Exception e) {
+            final ApplicationInfo ai = Helpers.getApplicationInfo(context);
+            if (ai == null) {
                 Teak.log.e("notification_builder", "Unable to load app icon resource for Notification.");
-                tempAppIconResourceId = -1;
             }
-            this.appIconResourceId = tempAppIconResourceId;
+            this.appIconResourceId = ai == null ? -1 : ai.icon;
         }
 
         public int id(String identifier) {
@@ -232,11 +229,9 @@ public class NotificationBuilder {
         final int notificationCount = notifications.size();
         final PackageManager pm = context.getPackageManager();
         String applicationName = "";
-        try {
-            final ApplicationInfo ai = pm.getApplicationInfo(context.getPackageName(), 0);
+        final ApplicationInfo ai = Helpers.getApplicationInfo(context);
+        if (ai != null) {
             applicationName = pm.getApplicationLabel(ai).toString();
-        } catch (PackageManager.NameNotFoundException e) {
-            Teak.log.exception(e);
         }
 
         final String contentTitleTemplate = null;
@@ -289,8 +284,11 @@ public class NotificationBuilder {
             return null;
         }
 
+        final long startTime = System.nanoTime();
         try {
-            return createNativeNotificationV1Plus(context, teakNotificaton);
+            final Notification notification = createNativeNotificationV1Plus(context, teakNotificaton);
+            Metrics.recordMicrosSince("notification.build_us", startTime);
+            return notification;
         } catch (AssetLoadException e) {
             throw e;
         } catch (Exception e) {
@@ -409,12 +407,7 @@ public class NotificationBuilder {
         // like in the case of Unity et. al.
         final ResourceHelper R = new ResourceHelper(context); // Declaring local as 'R' ensures we don't accidentally use the other R
         // Logic for the Android 12 notification style
-        int targetSdkVersion = 0; // Do not use TeakConfiguration.get()
-        try {
-            ApplicationInfo appInfo = context.getPackageManager().getApplicationInfo(context.getPackageName(), PackageManager.GET_META_DATA);
-            targetSdkVersion = appInfo.targetSdkVersion;
-        } catch (Exception ignored) {
-        }
+        final int targetSdkVersion = Helpers.getTargetSDKVersion(context); // Do not use TeakConfiguration.get()
         final boolean isRunningOn12Plus = Build.VERSION.SDK_INT >= Build.VERSION_CODES.S;
         final boolean isTargeting12Plus = targetSdkVersion >= 31;
         final boolean willAutomaticallyUse12PlusStyle = isRunningOn12Plus && isTargeting12Plus;
@@ -0,0 +1,148 @@
+package io.teak.sdk;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.pm.ActivityInfo;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.os.Bundle;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Snapshot of the PackageManager information the SDK reads about its own app.
+ *
+ * Every PackageManager lookup is a Binder call into the system, so each piece of information is
+ * looked up once, the first time it is needed, and shared by every caller for the life of the
+ * process. Android restarts the process when the app is updated, so the snapshot cannot go stale.
+ * Failed lookups are not cached, and are tried again by the next caller.
+ */
+public class PackageMetadata {
+    private static final AtomicInteger binderCallCount = new AtomicInteger();
+    private static PackageMetadata Instance;
+
+    /**
+     * @param context Any Context.
+     * @return The snapshot for the package of the Context.
+     */
+    @NonNull
+    public static synchronized PackageMetadata get(@NonNull Context context) {
+        final String packageName = context.getPackageName();
+        if (Instance == null || (packageName != null && !packageName.equals(Instance.packageName))) {
+            Instance = new PackageMetadata(packageName);
+        }
+        return Instance;
+    }
+
+    /**
+     * @return The number of PackageManager calls made so far by this process.
+     */
+    public static int getBinderCallCount() {
+        return binderCallCount.get();
+    }
+
+    private final String packageName;
+    private ApplicationInfo applicationInfo;
+    private PackageInfo packageInfo;
+    private final Map<ComponentName, ActivityInfo> activityInfo = new HashMap<>();
+    private final Map<ComponentName, ActivityInfo> receiverInfo = new HashMap<>();
+
+    private PackageMetadata(String packageName) {
+        this.packageName = packageName;
+    }
+
+    /**
+     * @param context Any Context.
+     * @return The ApplicationInfo, including meta-data, of the application, or null if it is unavailable.
+     */
+    @Nullable
+    public synchronized ApplicationInfo getApplicationInfo(@NonNull Context context) {
+        if (this.applicationInfo == null) {
+            try {
+                binderCallCount.incrementAndGet();
+                this.applicationInfo = context.getPackageManager().getApplicationInfo(this.packageName, PackageManager.GET_META_DATA);
+            } catch (Exception ignored) {
+            }
+        }
+        return this.applicationInfo;
+    }
+
+    /**
+     * @param context Any Context.
+     * @return The meta-data of the application, or null if it has none.
+     */
+    @Nullable
+    public Bundle getMetaData(@NonNull Context context) {
+        final ApplicationInfo appInfo = this.getApplicationInfo(context);
+        return appInfo == null ? null : appInfo.metaData;
+    }
+
+    /**
+     * @param context Any Context.
+     * @return The targetSdkVersion of the application, or 0 if it is unavailable.
+     */
+    public int getTargetSdkVersion(@NonNull Context context) {
+        final ApplicationInfo appInfo = this.getApplicationInfo(context);
+        return appInfo == null ? 0 : appInfo.targetSdkVersion;
+    }
+
+    /**
+     * @param context Any Context.
+     * @return The PackageInfo of the application, without any optional fields, or null if it is unavailable.
+     */
+    @Nullable
+    public synchronized PackageInfo getPackageInfo(@NonNull Context context) {
+        if (this.packageInfo == null) {
+            try {
+                binderCallCount.incrementAndGet();
+                this.packageInfo = context.getPackageManager().getPackageInfo(this.packageName, 0);
+            } catch (Exception ignored) {
+            }
+        }
+        return this.packageInfo;
+    }
+
+    /**
+     * @param context   Any Context.
+     * @param component An activity of the application.
+     * @return The ActivityInfo, including meta-data, of the activity, or null if it is unavailable.
+     */
+    @Nullable
+    public synchronized ActivityInfo getActivityInfo(@NonNull Context context, @NonNull ComponentName component) {
+        ActivityInfo info = this.activityInfo.get(component);
+        if (info == null) {
+            try {
+                binderCallCount.incrementAndGet();
+                info = context.getPackageManager().getActivityInfo(component, PackageManager.GET_META_DATA);
+                this.activityInfo.put(component, info);
+            } catch (Exception ignored) {
+            }
+        }
+        return info;
+    }
+
+    /**
+     * @param context   Any Context.
+     * @param component A broadcast receiver of the application.
+     * @return The ActivityInfo, including meta-data, of the receiver, or null if it is unavailable.
+     */
+    @Nullable
+    public synchronized ActivityInfo getReceiverInfo(@NonNull Context context, @NonNull ComponentName component) {
+        ActivityInfo info = this.receiverInfo.get(component);
+        if (info == null) {
+            try {
+                binderCallCount.incrementAndGet();
+                info = context.getPackageManager().getReceiverInfo(component, PackageManager.GET_META_DATA);
+                this.receiverInfo.put(component, info);
+            } catch (Exception ignored) {
+            }
+        }
+        return info;
+    }
+}
@@ -19,25 +19,32 @@ import javax.crypto.spec.SecretKeySpec;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import io.teak.sdk.configuration.RemoteConfiguration;
+import io.teak.sdk.configuration.EndpointConfiguration;
+import io.teak.sdk.core.CoreHelpers;
 import io.teak.sdk.core.Executors;
-import io.teak.sdk.core.Session;
-import io.teak.sdk.event.RemoteConfigurationEvent;
+import io.teak.sdk.core.ISession;
 import io.teak.sdk.event.TrackEventEvent;
-import io.teak.sdk.io.DefaultHttpRequest;
 import io.teak.sdk.io.IHttpRequest;
+import io.teak.sdk.io.Platform;
 import io.teak.sdk.json.JSONObject;
+import io.teak.sdk.metrics.Metrics;
+import io.teak.sdk.metrics.Trace;
 
 public class Request implements Runnable {
     public static final int DEFAULT_PORT = 443;
     public static final int MOCKED_PORT = 8080;
+    public static final String METRICS_REPORT_ENDPOINT = "/sdk_metrics";
     private final String endpoint;
+    protected final String metricsLabel;
     private final String hostname;
     private final String method;
     protected final Map<String, Object> payload;
-    private final Session session;
+    private final ISession session;
     private final String requestId;
-    private final Callback callback;
+    private final Map<String, String> headers;
+    private final ResponseCallback callback;
+    private Map<String, List<String>> responseHeaders;
+    private final long spanId;
     protected boolean sent;
 
     @SuppressWarnings("WeakerAccess")
@@ -79,6 +86,10 @@ public class Request implements Runnable {
         void onRequestCompleted(int responseCode, String responseBody);
     }
 
+    public interface ResponseCallback {
+        void onRequestCompleted(int responseCode, String responseBody, @Nullable Map<String, List<String>> responseHeaders);
+    }
+
     ///// Common configuration
 
     private static String teakApiKey;
@@ -91,45 +102,35 @@ public class Request implements Runnable {
 
     private static final Map<String, Object> configurationPayload = new HashMap<>();
 
-    // TODO: Can't do this as a static-init block, will screw up unit tests
-    static {
-        TeakConfiguration.addEventListener(configuration -> {
-            Request.teakApiKey = configuration.appConfiguration.apiKey;
-
-            configurationPayload.put("sdk_version", Teak.Version);
-            configurationPayload.put("game_id", configuration.appConfiguration.appId);
-            configurationPayload.put("app_version", String.valueOf(configuration.appConfiguration.appVersion));
-            configurationPayload.put("app_version_name", String.valueOf(configuration.appConfiguration.appVersionName));
-            configurationPayload.put("bundle_id", configuration.appConfiguration.bundleId);
-            configurationPayload.put("appstore_name", configuration.appConfiguration.storeId);
-            if (configuration.appConfiguration.installerPackage != null) {
-                configurationPayload.put("installer_package", configuration.appConfiguration.installerPackage);
-            }
+    /**
+     * @param payload Values, such as the game and device ids, added to every request.
+     */
+    public static void addConfigurationPayload(@NonNull Map<String, Object> payload) {
+        Request.configurationPayload.putAll(payload);
+    }
 
-            configurationPayload.put("device_id", configuration.deviceConfiguration.deviceId);
-            configurationPayload.put("sdk_platform", configuration.deviceConfiguration.platformString);
-            configurationPayload.put("device_manufacturer", configuration.deviceConfiguration.deviceManufacturer);
-            configurationPayload.put("device_model", configuration.deviceConfiguration.deviceModel);
-            configurationPayload.put("device_fallback", configuration.deviceConfiguration.deviceFallback);
-            configurationPayload.put("device_memory_class", configuration.deviceConfiguration.memoryClass);
+    ///// Client errors
 
-            if (configuration.debugConfiguration.isDebug()) {
-                configurationPayload.put("debug", true);
-            }
-        });
+    public interface ClientErrorListener {
+        void onClientError(@NonNull String title, @NonNull String message);
     }
 
-    ///// Remote Configuration
+    private static volatile ClientErrorListener clientErrorListener;
 
-    protected static RemoteConfiguration remoteConfiguration;
+    /**
+     * @param listener Called when the server replies with an error to show to the developer.
+     */
+    public static void setClientErrorListener(@Nullable ClientErrorListener listener) {
+        Request.clientErrorListener = listener;
+    }
 
-    public static void registerStaticEventListeners() {
-        TeakEvent.addEventListener(event -> {
-            if (event.eventType.equals(RemoteConfigurationEvent.Type)) {
-                Request.remoteConfiguration = ((RemoteConfigurationEvent) event).remoteConfiguration;
-                configurationPayload.putAll(Request.remoteConfiguration.dynamicParameters);
-            }
-        });
+    ///// Endpoint Configuration
+
+    protected static EndpointConfiguration endpointConfiguration;
+
+    public static void setEndpointConfiguration(@NonNull EndpointConfiguration endpointConfiguration) {
+        Request.endpointConfiguration = endpointConfiguration;
+        configurationPayload.putAll(endpointConfiguration.dynamicParameters);
     }
 
     ///// Batching
@@ -137,10 +138,11 @@ public class Request implements Runnable {
     private static abstract class BatchedRequest extends Request {
         private ScheduledFuture<?> scheduledFuture;
         private final List<Callback> callbacks = new LinkedList<>();
+        private final List<Long> spanIds = new LinkedList<>();
         final List<Map<String, Object>> batchContents = new LinkedList<>();
         long firstAddTime = 0L;
 
-        BatchedRequest(@Nullable String hostname, @NonNull String endpoint, @NonNull Session session, boolean addStandardAttributes) {
+        BatchedRequest(@Nullable String hostname, @NonNull String endpoint, @NonNull ISession session, boolean addStandardAttributes) {
             super(hostname, endpoint, new HashMap<>(), session, null, addStandardAttributes);
         }
 
@@ -174,6 +176,12 @@ public class Request implements Runnable {
                 this.batchContents.add(payload);
             }
 
+            final long spanId = Trace.current();
+            if (spanId != Trace.NoSpan) {
+                Trace.mark(spanId, "Request.batched");
+                this.spanIds.add(spanId);
+            }
+
             if (this.batch.time == 0.0f) {
                 Request.requestExecutor.execute(this);
             } else {
@@ -186,12 +194,26 @@ public class Request implements Runnable {
         public synchronized void run() {
             final long elapsedSinceFirstAdd = System.nanoTime() - this.firstAddTime;
             this.payload.put("ms_since_first_event", TimeUnit.NANOSECONDS.toMillis(elapsedSinceFirstAdd));
+            if (this.metricsLabel != null) {
+                Metrics.histogram("request.batch_size" + this.metricsLabel).record(this.batchContents.size());
+            }
             super.run();
         }
 
+        @Override
+        protected void markSpans(@NonNull String name) {
+            for (Long spanId : this.spanIds) {
+                Trace.mark(spanId, name);
+            }
+        }
+
         @Override
         protected void onRequestCompleted(int responseCode, String responseBody) {
+            // Like a single request, the batch's callbacks only hear the reply to its final attempt
+            final boolean willRetry = this.willRetry(responseCode);
             super.onRequestCompleted(responseCode, responseBody);
+            if (willRetry) return;
+
             for (Callback callback : this.callbacks) {
                 callback.onRequestCompleted(responseCode, responseBody);
             }
@@ -202,7 +224,7 @@ public class Request implements Runnable {
         private static final Object mutex = new Object();
         private static BatchedParsnipRequest currentBatch;
 
-        static BatchedParsnipRequest getCurrentBatch(@Nullable String hostname, @NonNull Session session) {
+        static BatchedParsnipRequest getCurrentBatch(@Nullable String hostname, @NonNull ISession session) {
             synchronized (mutex) {
                 if (currentBatch == null || currentBatch.sent) {
                     currentBatch = new BatchedParsnipRequest(hostname, session);
@@ -211,7 +233,7 @@ public class Request implements Runnable {
             }
         }
 
-        BatchedParsnipRequest(@Nullable String hostname, @NonNull Session session) {
+        BatchedParsnipRequest(@Nullable String hostname, @NonNull ISession session) {
             super(hostname, "/batch", session, false);
         }
 
@@ -242,7 +264,7 @@ public class Request implements Runnable {
         private static final Object mutex = new Object();
         private static BatchedTrackEventRequest currentBatch;
 
-        static BatchedTrackEventRequest getCurrentBatch(@Nullable String hostname, @NonNull Session session) {
+        static BatchedTrackEventRequest getCurrentBatch(@Nullable String hostname, @NonNull ISession session) {
             synchronized (mutex) {
                 if (currentBatch == null || currentBatch.sent) {
                     currentBatch = new BatchedTrackEventRequest(hostname, session);
@@ -251,7 +273,7 @@ public class Request implements Runnable {
             }
         }
 
-        private BatchedTrackEventRequest(@Nullable String hostname, @NonNull Session session) {
+        private BatchedTrackEventRequest(@Nullable String hostname, @NonNull ISession session) {
             super(hostname, "/me/events", session, true);
         }
 
@@ -324,27 +346,32 @@ public class Request implements Runnable {
 
     static final ScheduledExecutorService requestExecutor = Executors.newSingleThreadScheduledExecutor();
 
-    public static void submit(@NonNull String endpoint, @NonNull Map<String, Object> payload, @NonNull Session session) {
+    static {
+        Metrics.registerGauge("request.queue_depth", () -> Executors.queueDepth(requestExecutor));
+    }
+
+    public static void submit(@NonNull String endpoint, @NonNull Map<String, Object> payload, @NonNull ISession session) {
         submit(endpoint, payload, session, null);
     }
 
-    public static void submit(@NonNull String endpoint, @NonNull Map<String, Object> payload, @NonNull Session session, @Nullable Callback callback) {
+    public static void submit(@NonNull String endpoint, @NonNull Map<String, Object> payload, @NonNull ISession session, @Nullable Callback callback) {
         submit(null, endpoint, payload, session, callback);
     }
 
-    public static void submit(@Nullable String hostname, @NonNull String endpoint, @NonNull Map<String, Object> payload, @NonNull Session session) {
+    public static void submit(@Nullable String hostname, @NonNull String endpoint, @NonNull Map<String, Object> payload, @NonNull ISession session) {
         submit(hostname, endpoint, payload, session, null);
     }
 
-    public static void submit(@Nullable String hostname, final @NonNull String endpoint, final @NonNull Map<String, Object> payload, final @NonNull Session session, final @Nullable Callback callback) {
+    public static void submit(@Nullable String hostname, final @NonNull String endpoint, final @NonNull Map<String, Object> payload, final @NonNull ISession session, final @Nullable Callback callback) {
         submit(hostname, "POST", endpoint, payload, session, callback);
     }
 
-    public static void submit(@Nullable String hostname, final @NonNull String method, final @NonNull String endpoint, final @NonNull Map<String, Object> payload, final @NonNull Session session, final @Nullable Callback callback) {
+    public static void submit(@Nullable String hostname, final @NonNull String method, final @NonNull String endpoint, final @NonNull Map<String, Object> payload, final @NonNull ISession session, final @Nullable Callback callback) {
         if (hostname == null) {
-            hostname = RemoteConfiguration.getHostnameForEndpoint(endpoint, Request.remoteConfiguration);
+            hostname = EndpointConfiguration.getHostnameForEndpoint(endpoint, Request.endpointConfiguration);
         }
         final String finalHostname = hostname;
+        Trace.mark(Trace.current(), "Request.submit");
 
         BatchedRequest batch = null;
 
@@ -357,20 +384,42 @@ public class Request implements Runnable {
 
         if (batch != null) {
             if (!batch.add(endpoint, payload, callback)) {
-                requestExecutor.execute(() -> submit(finalHostname, endpoint, payload, session, callback));
+                final long spanId = Trace.current();
+                requestExecutor.execute(() -> Trace.run(spanId, "Request.resubmit", () -> submit(finalHostname, endpoint, payload, session, callback)));
             }
         } else {
             requestExecutor.execute(new Request(hostname, method, endpoint, payload, session, callback, true));
         }
     }
 
+    /**
+     * Submit a request with additional HTTP headers, which will never be batched.
+     *
+     * @param hostname The hostname to send the request to.
+     * @param method   The HTTP method.
+     * @param endpoint The endpoint, starting with '/'.
+     * @param payload  The request payload.
+     * @param session  The Session the request is associated with.
+     * @param headers  Additional HTTP headers to send with the request.
+     * @param callback Callback which is given the reply, including the response headers.
+     */
+    public static void submit(@NonNull String hostname, @NonNull String method, @NonNull String endpoint, @NonNull Map<String, Object> payload, @NonNull ISession session, @Nullable Map<String, String> headers, @Nullable ResponseCallback callback) {
+        requestExecutor.execute(new Request(hostname, method, endpoint, payload, session, headers, callback, true));
+    }
+
     /////
 
-    public Request(@Nullable String hostname, @NonNull String endpoint, @NonNull Map<String, Object> payload, @NonNull Session session, @Nullable Callback callback, boolean addStandardAttributes) {
+    public Request(@Nullable String hostname, @NonNull String endpoint, @NonNull Map<String, Object> payload, @NonNull ISession session, @Nullable Callback callback, boolean addStandardAttributes) {
         this(hostname, "POST", endpoint, payload, session, callback, addStandardAttributes);
     }
 
-    public Request(@Nullable String hostname, @NonNull String method, @NonNull String endpoint, @NonNull Map<String, Object> payload, @NonNull Session session, @Nullable Callback callback, boolean addStandardAttributes) {
+    public Request(@Nullable String hostname, @NonNull String method, @NonNull String endpoint, @NonNull Map<String, Object> payload, @NonNull ISession session, @Nullable Callback callback, boolean addStandardAttributes) {
+        this(hostname, method, endpoint, payload, session, null,
+            callback == null ? null : (responseCode, responseBody, responseHeaders) -> callback.onRequestCompleted(responseCode, responseBody),
+            addStandardAttributes);
+    }
+
+    public Request(@Nullable String hostname, @NonNull String method, @NonNull String endpoint, @NonNull Map<String, Object> payload, @NonNull ISession session, @Nullable Map<String, String> headers, @Nullable ResponseCallback callback, boolean addStandardAttributes) {
         if (!endpoint.startsWith("/")) {
             throw new IllegalArgumentException("Parameter 'endpoint' must start with '/' or things will break, and you will lose an hour of your life debugging. Number of times this exception has saved an ass: 1.");
         }
@@ -378,10 +427,13 @@ public class Request implements Runnable {
         this.hostname = hostname;
         this.method = method;
         this.endpoint = endpoint;
+        this.metricsLabel = metricsLabelFor(endpoint);
         this.payload = new HashMap<>(payload);
         this.session = session;
         this.requestId = UUID.randomUUID().toString().replace("-", "");
+        this.headers = headers;
         this.callback = callback;
+        this.spanId = Trace.current();
         this.sent = false;
 
         if (addStandardAttributes) {
@@ -399,8 +451,8 @@ public class Request implements Runnable {
 
         // Configure if possible
         try {
-            if (Request.remoteConfiguration != null) {
-                Object objHost = Request.remoteConfiguration.endpointConfigurations.containsKey(hostname) ? Request.remoteConfiguration.endpointConfigurations.get(hostname) : null;
+            if (Request.endpointConfiguration != null) {
+                Object objHost = Request.endpointConfiguration.endpointConfigurations.containsKey(hostname) ? Request.endpointConfiguration.endpointConfigurations.get(hostname) : null;
                 @SuppressWarnings("unchecked")
                 Map<String, Object> host = (objHost instanceof Map) ? (Map<String, Object>) objHost : null;
                 if (host != null && host.containsKey(endpoint) && host.get(endpoint) instanceof Map) {
@@ -480,7 +532,7 @@ public class Request implements Runnable {
                 }
             }
         } catch (Exception e) {
-            Teak.log.exception(e);
+            Log.Shared.exception(e);
         }
 
         // Assign to the finals
@@ -495,12 +547,18 @@ public class Request implements Runnable {
 
         if (this.blackhole) return;
 
-        final boolean isMockedRequest = Request.remoteConfiguration != null && Request.remoteConfiguration.isMocked;
+        this.markSpans("Request.send");
+
+        final boolean isMockedRequest = Request.endpointConfiguration != null && Request.endpointConfiguration.isMocked;
 
         final SecretKeySpec keySpec = new SecretKeySpec(Request.teakApiKey.getBytes(), "HmacSHA256");
         String sig;
-        final JSONObject jsonPayload = new JSONObject(this.payload);
-        final String requestBody = jsonPayload.toString();
+        final long encodeStartTime = System.nanoTime();
+        final String requestBody = JSONObject.view(this.payload).toString();
+        final byte[] requestBodyBytes = requestBody.getBytes();
+        if (this.metricsLabel != null) {
+            Metrics.recordMicrosSince("json.encode_us", encodeStartTime);
+        }
 
         try {
             if (this.hostname == null) {
@@ -514,40 +572,50 @@ public class Request implements Runnable {
                 {
                     final Mac mac = Mac.getInstance("HmacSHA256");
                     mac.init(keySpec);
-                    final byte[] result = mac.doFinal(requestBody.getBytes());
-                    requestBodyHash = Helpers.bytesToHex(result);
+                    final byte[] result = mac.doFinal(requestBodyBytes);
+                    requestBodyHash = CoreHelpers.bytesToHex(result);
                 }
                 {
                     final String stringToSign = "TeakV2-HMAC-SHA256\n" + this.method + "\n" + this.hostname + "\n" + this.endpoint + "\n" + requestBodyHash + "\n";
                     final Mac mac = Mac.getInstance("HmacSHA256");
                     mac.init(keySpec);
                     final byte[] result = mac.doFinal(stringToSign.getBytes());
-                    sig = Helpers.bytesToHex(result);
+                    sig = CoreHelpers.bytesToHex(result);
                 }
             }
         } catch (Exception e) {
-            Teak.log.exception(e);
+            Log.Shared.exception(e);
             return;
         }
 
         try {
-            Teak.log.i("request.send", this.toMap());
+            Log.Shared.i("request.send", this.toMap());
             final long startTime = System.nanoTime();
             final URL url = new URL(isMockedRequest ? "http" : "https",
                 this.hostname,
                 isMockedRequest ? Request.MOCKED_PORT : Request.DEFAULT_PORT,
                 this.endpoint);
-            final IHttpRequest request = new DefaultHttpRequest();
-            final IHttpRequest.Response response = request.synchronousRequest(url, this.method, requestBody, sig);
+            final IHttpRequest request = Platform.httpRequest();
+            final IHttpRequest.Response response = request.synchronousRequest(url, this.method, requestBody, sig, this.headers);
 
             final int statusCode = response == null ? 0 : response.statusCode;
             final String body = response == null ? null : response.body;
 
+            this.markSpans("Request.response");
+            if (this.metricsLabel != null) {
+                Metrics.recordMicrosSince("request.latency_us" + this.metricsLabel, startTime);
+                Metrics.counter("request.bytes_sent").add(requestBodyBytes.length);
+                if (statusCode >= 500 || statusCode == 0) {
+                    Metrics.counter("request.failures" + this.metricsLabel).increment();
+                }
+            }
+
             final Map<String, Object> h = this.toMap();
             h.remove("payload");
             h.put("response_time", (System.nanoTime() - startTime) / 1000000.0);
-            if (response != null && response.headers != null) {
-                h.put("response_headers", response.headers);
+            this.responseHeaders = response == null ? null : response.headers;
+            if (this.responseHeaders != null) {
+                h.put("response_headers", this.responseHeaders);
             }
 
             Map<String, Object> responseAsMap = null;
@@ -559,7 +627,7 @@ public class Request implements Runnable {
                 }
             }
 
-            Teak.log.i("request.reply", h);
+            Log.Shared.i("request.reply", h);
 
             // The server can reply with a 'report_client_error' key and then we will display it
             // in a dialog box, if enhanced integration checks are enabled
@@ -569,29 +637,92 @@ public class Request implements Runnable {
                 final Map<String, Object> clientError = (Map<String, Object>) responseAsMap.get("report_client_error");
                 final String title = clientError.containsKey("title") ? (String) clientError.get("title") : "client.error";
                 final String message = clientError.containsKey("message") ? (String) clientError.get("message") : null;
-                if (message != null) {
-                    IntegrationChecker.addErrorToReport(title, message);
+                final ClientErrorListener listener = Request.clientErrorListener;
+                if (message != null && listener != null) {
+                    listener.onClientError(title, message);
                 }
             }
 
             this.onRequestCompleted(statusCode, body);
         } catch (Exception e) {
-            Teak.log.exception(e);
+            Log.Shared.exception(e);
+        }
+    }
+
+    /**
+     * The endpoint as it is named in metrics, with ids replaced so that every game and reward
+     * shares one label, e.g. '/games/<appId>/settings.json'.
+     *
+     * @param endpoint The endpoint, starting with '/'.
+     * @return The label, or null for the metrics report itself, which is not measured so that
+     *         reporting never produces more metrics to report.
+     */
+    @Nullable
+    static String metricsLabelFor(@NonNull String endpoint) {
+        if (METRICS_REPORT_ENDPOINT.equals(endpoint)) return null;
+
+        final String[] segments = endpoint.split("/", -1);
+        final StringBuilder label = new StringBuilder();
+        for (int i = 1; i < segments.length; i++) {
+            label.append('/');
+            if (!containsDigit(segments[i])) {
+                label.append(segments[i]);
+            } else if ("games".equals(segments[i - 1])) {
+                label.append("<appId>");
+            } else {
+                label.append("<id>");
+            }
+        }
+        return label.toString();
+    }
+
+    private static boolean containsDigit(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            if (Character.isDigit(segment.charAt(i))) return true;
         }
+        return false;
+    }
+
+    /**
+     * Mark the span, or spans, this request is carrying.
+     *
+     * @param name Name of the step.
+     */
+    protected void markSpans(@NonNull String name) {
+        Trace.mark(this.spanId, name);
+    }
+
+    /**
+     * @param responseCode Status of the reply to the latest attempt.
+     * @return True if a reply with this status will be retried, rather than passed to the callback.
+     */
+    protected boolean willRetry(int responseCode) {
+        return responseCode >= 500 && this.retry.retryIndex < this.retry.times.length;
+    }
+
+    /**
+     * Start the retry schedule over, for a Request which is sent more than once.
+     */
+    protected void resetRetries() {
+        this.retry.retryIndex = 0;
     }
 
     protected void onRequestCompleted(int responseCode, String responseBody) {
-        if (responseCode >= 500 && this.retry.retryIndex < this.retry.times.length) {
+        if (this.willRetry(responseCode)) {
             // Retry with delay + jitter
             float jitter = (new Random().nextFloat() * 2.0f - 1.0f) * this.retry.jitter;
             float delay = this.retry.times[this.retry.retryIndex] + jitter;
             if (delay < 0.0f) delay = 0.0f;
 
             this.retry.retryIndex++;
+            if (this.metricsLabel != null) {
+                Metrics.counter("request.retries" + this.metricsLabel).increment();
+            }
+            this.markSpans("Request.retry");
 
             Request.requestExecutor.schedule(this, (long) (delay * 1000.0f), TimeUnit.MILLISECONDS);
         } else if (this.callback != null) {
-            this.callback.onRequestCompleted(responseCode, responseBody);
+            this.callback.onRequestCompleted(responseCode, responseBody, this.responseHeaders);
         }
     }
 
@@ -609,7 +740,7 @@ public class Request implements Runnable {
     @NonNull
     public String toString() {
         try {
-            return String.format(Locale.US, "%s: %s", super.toString(), Teak.formatJSONForLogging(new JSONObject(this.toMap())));
+            return String.format(Locale.US, "%s: %s", super.toString(), JSONObject.view(this.toMap()).toString());
         } catch (Exception ignored) {
             return super.toString();
         }
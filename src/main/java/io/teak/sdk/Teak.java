@@ -13,14 +13,18 @@ import android.os.StrictMode;
 
 import java.lang.reflect.Method;
 import java.net.URI;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.TimeZone;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -40,8 +44,10 @@ import io.teak.sdk.event.DeepLinksReadyEvent;
 import io.teak.sdk.event.PushNotificationEvent;
 import io.teak.sdk.io.AndroidResources;
 import io.teak.sdk.json.JSONArray;
+import io.teak.sdk.json.JSONCodec;
 import io.teak.sdk.json.JSONException;
 import io.teak.sdk.json.JSONObject;
+import io.teak.sdk.metrics.Trace;
 
 /**
  * Teak
@@ -200,6 +206,21 @@ public class Teak extends BroadcastReceiver implements Unobfuscable {
             if (traceLog != null) {
                 Teak.log.setLogTrace(traceLog);
             }
+
+            // Check for span tracing
+            final Boolean traceSpans = androidResources.getTeakBoolResource(AppConfiguration.TEAK_TRACE_SPANS_RESOURCE, false);
+            if (traceSpans != null && traceSpans) {
+                Trace.setSampleRate(1.0);
+            }
+
+            // Check for lock contention profiling, which is sampled per process
+            final String lockProfileRate = androidResources.getTeakStringResource(AppConfiguration.TEAK_LOCK_PROFILE_RATE_RESOURCE);
+            if (lockProfileRate != null) {
+                try {
+                    InstrumentableReentrantLock.setContentionProfileRate(Double.parseDouble(lockProfileRate));
+                } catch (Exception ignored) {
+                }
+            }
         }
 
         // Create Instance last
@@ -795,7 +816,8 @@ public class Teak extends BroadcastReceiver implements Unobfuscable {
         Teak.log.trace("Teak.trackEvent", "actionId", actionId, "objectTypeId", objectTypeId, "objectInstanceId", objectInstanceId);
 
         if (Instance != null) {
-            asyncExecutor.submit(() -> Instance.trackEvent(actionId, objectTypeId, objectInstanceId));
+            final long spanId = Trace.begin("Teak.trackEvent");
+            asyncExecutor.submit(() -> Trace.run(spanId, "TeakInstance.trackEvent", () -> Instance.trackEvent(actionId, objectTypeId, objectInstanceId)));
         }
     }
 
@@ -948,8 +970,12 @@ public class Teak extends BroadcastReceiver implements Unobfuscable {
      *
      * @note Set the count to 0 to remove the badge.
      *
+     * The badge is updated on a background thread; if the count is set again before the update
+     * happens, only the most recent count is applied.
+     *
      * @param count The value to set as the badge number.
-     * @return <code>true</code> if Teak was able to set the badge number, <code>false</code> otherwise.
+     * @return <code>true</code> if Teak will set the badge number, <code>false</code> if an earlier
+     *         attempt found that the launcher does not support badges.
      */
     @SuppressWarnings({"unused", "UnusedReturnValue", "SameParameterValue"})
     public static boolean setApplicationBadgeNumber(int count) {
@@ -1087,6 +1113,15 @@ public class Teak extends BroadcastReceiver implements Unobfuscable {
      * Base class for providing data about the launch of the app.
      */
     public static class LaunchData implements Unobfuscable {
+        static {
+            JSONObject.registerCodec(LaunchData.class, new JSONCodec<LaunchData>() {
+                @Override
+                public void encode(LaunchData launchData, Map<String, Object> properties) {
+                    properties.putAll(launchData.toMap());
+                }
+            });
+        }
+
         /**
          * If this launch is not attributed to anything, this constant is used instead of
          * a null LaunchData.
@@ -1476,6 +1511,15 @@ public class Teak extends BroadcastReceiver implements Unobfuscable {
      * Base class for Teak events
      */
     public static class Event implements Unobfuscable {
+        static {
+            JSONObject.registerCodec(Event.class, new JSONCodec<Event>() {
+                @Override
+                public void encode(Event event, Map<String, Object> properties) {
+                    putJSON(event.toJSON(), properties);
+                }
+            });
+        }
+
         /**
          * Data associated with this launch.
          */
@@ -1627,6 +1671,15 @@ public class Teak extends BroadcastReceiver implements Unobfuscable {
      * Event sent when data about the user becomes available, or gets updated.
      */
     public static class UserDataEvent implements Unobfuscable {
+        static {
+            JSONObject.registerCodec(UserDataEvent.class, new JSONCodec<UserDataEvent>() {
+                @Override
+                public void encode(UserDataEvent event, Map<String, Object> properties) {
+                    putJSON(event.toJSON(), properties);
+                }
+            });
+        }
+
         /**
          * A JSON object containing user-defined data received from the Teak server, or null.
          */
@@ -1690,7 +1743,7 @@ public class Teak extends BroadcastReceiver implements Unobfuscable {
     /**
      * Used to listen for Teak log events.
      */
-    public static abstract class LogListener {
+    public static abstract class LogListener implements io.teak.sdk.Log.Listener {
         /**
          * A log event sent by the Teak SDK.
          *
@@ -1738,7 +1791,51 @@ public class Teak extends BroadcastReceiver implements Unobfuscable {
     ///// Logging
     /// @cond hide_from_doxygen
     public static int jsonLogIndentation = 0;
-    public static io.teak.sdk.Log log = new io.teak.sdk.Log(Teak.LOG_TAG, Teak.jsonLogIndentation);
+    public static io.teak.sdk.Log log = io.teak.sdk.Log.Shared;
+
+    static {
+        Teak.log.setExceptionReporter((t, extras) -> {
+            if (Teak.Instance != null && Teak.Instance.sdkRaven != null) {
+                Teak.Instance.sdkRaven.reportException(t, extras);
+            }
+        });
+
+        TeakConfiguration.addEventListener(configuration -> {
+            final Map<String, Object> commonPayload = new HashMap<>();
+
+            // Add sdk version to common payload, and log init message
+            commonPayload.put("sdk_version", Teak.Version);
+
+            // Log ISO8601 format timestamp at init
+            final SimpleDateFormat iso8601 = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
+            iso8601.setTimeZone(TimeZone.getTimeZone("UTC"));
+            final Map<String, Object> dateTime = new HashMap<>();
+            dateTime.put("at", iso8601.format(new Date()));
+            Teak.log.i("sdk_init", dateTime);
+
+            // Log full device configuration, then add common payload after
+            Teak.log.i("configuration.device", configuration.deviceConfiguration.toMap());
+            commonPayload.put("device_id", configuration.deviceConfiguration.deviceId);
+
+            // Log full app configuration, then add common payload after
+            Teak.log.i("configuration.app", configuration.appConfiguration.toMap());
+            commonPayload.put("bundle_id", configuration.appConfiguration.bundleId);
+            commonPayload.put("app_id", configuration.appConfiguration.appId);
+            commonPayload.put("client_app_version", configuration.appConfiguration.appVersion);
+            commonPayload.put("client_app_version_name", configuration.appConfiguration.appVersionName);
+
+            // Log data collection configuration
+            Teak.log.i("configuration.data_collection", configuration.dataCollectionConfiguration.toMap());
+
+            Teak.log.start(commonPayload);
+        });
+    }
+
+    private static void putJSON(JSONObject json, Map<String, Object> properties) {
+        for (String key : json.keySet()) {
+            properties.put(key, json.opt(key));
+        }
+    }
 
     public static String formatJSONForLogging(JSONObject obj) throws JSONException {
         if (Teak.jsonLogIndentation > 0) {
@@ -1,17 +1,23 @@
 package io.teak.sdk;
 
 import android.content.Context;
+import android.content.pm.ApplicationInfo;
 import androidx.annotation.NonNull;
 import io.teak.sdk.configuration.AppConfiguration;
 import io.teak.sdk.configuration.DataCollectionConfiguration;
 import io.teak.sdk.configuration.DebugConfiguration;
 import io.teak.sdk.configuration.DeviceConfiguration;
 import io.teak.sdk.configuration.RemoteConfiguration;
+import io.teak.sdk.core.Executors;
+import io.teak.sdk.core.StartupTimeline;
 import io.teak.sdk.event.RemoteConfigurationEvent;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 public class TeakConfiguration {
     public static boolean initialize(@NonNull Context context, @NonNull IObjectFactory objectFactory) {
+        StartupTimeline.mark("configuration.start");
         try {
             TeakConfiguration teakConfiguration = new TeakConfiguration(context.getApplicationContext(), objectFactory);
 
@@ -22,6 +28,12 @@ public class TeakConfiguration {
                         e.onConfigurationReady(teakConfiguration);
                     }
                 }
+                StartupTimeline.mark("configuration.ready");
+
+                // Optimistically use the last remote configuration the server sent, so that the
+                // Session does not need to wait for settings.json before identifying the user.
+                // The request for settings.json will revalidate it.
+                RemoteConfiguration.applyLastKnown(teakConfiguration.appConfiguration);
             }
         } catch (IntegrationChecker.InvalidConfigurationException e) {
             android.util.Log.e(IntegrationChecker.LOG_TAG, e.getMessage());
@@ -37,10 +49,34 @@ public class TeakConfiguration {
     public DataCollectionConfiguration dataCollectionConfiguration;
 
     private TeakConfiguration(@NonNull Context context, @NonNull IObjectFactory objectFactory) throws IntegrationChecker.InvalidConfigurationException {
+        // DeviceConfiguration does not depend on anything else, and waits on device info, so build it
+        // while the rest of the configuration is read.
+        final Future<DeviceConfiguration> deviceConfigurationFuture = Executors.sharedExecutor().submit(() -> {
+            final DeviceConfiguration deviceConfiguration = new DeviceConfiguration(context, objectFactory);
+            StartupTimeline.mark("configuration.device");
+            return deviceConfiguration;
+        });
+
+        // Read the application info, and meta-data, once for every configuration that needs it
+        final ApplicationInfo applicationInfo = Helpers.getApplicationInfo(context);
+
         this.debugConfiguration = new DebugConfiguration(context);
-        this.appConfiguration = new AppConfiguration(context, objectFactory.getAndroidResources());
-        this.deviceConfiguration = new DeviceConfiguration(context, objectFactory);
-        this.dataCollectionConfiguration = new DataCollectionConfiguration(context, objectFactory.getAndroidResources());
+        this.appConfiguration = new AppConfiguration(context, objectFactory.getAndroidResources(), applicationInfo);
+        StartupTimeline.mark("configuration.app");
+        this.dataCollectionConfiguration = new DataCollectionConfiguration(objectFactory.getAndroidResources(), applicationInfo);
+        StartupTimeline.mark("configuration.data_collection");
+
+        try {
+            this.deviceConfiguration = deviceConfigurationFuture.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
     }
 
     private static TeakConfiguration Instance;
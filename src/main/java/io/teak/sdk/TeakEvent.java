@@ -8,14 +8,30 @@ import java.util.concurrent.LinkedBlockingQueue;
 import androidx.annotation.NonNull;
 import io.teak.sdk.core.Executors;
 import io.teak.sdk.core.ThreadFactory;
+import io.teak.sdk.io.ILogSink;
+import io.teak.sdk.io.Platform;
+import io.teak.sdk.metrics.Metrics;
+import io.teak.sdk.metrics.Trace;
 
 public class TeakEvent {
     public final String eventType;
+    public final long spanId;
 
     public static final TeakEvent StopEvent = new TeakEvent(null);
 
     protected TeakEvent(String eventType) {
         this.eventType = eventType;
+
+        // Events continue the span of the work which posts them, or start their own
+        final long currentSpan = Trace.current();
+        if (eventType == null) {
+            this.spanId = Trace.NoSpan;
+        } else if (currentSpan == Trace.NoSpan) {
+            this.spanId = Trace.begin(eventType);
+        } else {
+            this.spanId = currentSpan;
+            Trace.mark(currentSpan, eventType);
+        }
     }
 
     public static boolean postEvent(@NonNull TeakEvent event) {
@@ -25,10 +41,11 @@ public class TeakEvent {
                     try {
                         TeakEvent event1;
                         while ((event1 = eventQueue.take()).eventType != null) {
+                            Trace.mark(event1.spanId, "TeakEvent.dispatch");
                             TeakEvent.eventListeners.processEvent(event1);
                         }
                     } catch (Exception e) {
-                        Teak.log.exception(e);
+                        Log.Shared.exception(e);
                     }
                 });
             }
@@ -96,7 +113,7 @@ public class TeakEvent {
             synchronized (this.eventExecutor) {
                 for (EventListener e : listeners) {
                     final EventListener currentListener = e;
-                    this.eventExecutor.execute(() -> currentListener.onNewEvent(event));
+                    this.eventExecutor.execute(() -> Trace.run(event.spanId, "TeakEvent.listener", () -> currentListener.onNewEvent(event)));
                 }
             }
         }
@@ -123,16 +140,18 @@ public class TeakEvent {
                     String errorText = "Took too long processing '" + event.eventType + "' in:" + backTrace;
 
                     // TODO: Probably shouldn't throw here, but report it somehow
-                    if (android.os.Debug.isDebuggerConnected()) {
-                        android.util.Log.e(Teak.LOG_TAG, errorText);
-                    } else {
-                        thread.interrupt();
-                        throw new IllegalStateException(errorText);
-                    }
+                    Platform.logSink().println(ILogSink.ERROR, "Teak", errorText);
+                    thread.interrupt();
+                    throw new IllegalStateException(errorText);
                 }
             }
         }
     }
 
     private static final EventListeners eventListeners = new EventListeners();
+
+    static {
+        Metrics.registerGauge("event.queue_depth", () -> eventQueue.size());
+        Metrics.registerGauge("event.listener_queue_depth", () -> Executors.queueDepth(eventListeners.eventExecutor));
+    }
 }
@@ -25,10 +25,15 @@ import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
 import io.teak.sdk.configuration.RemoteConfiguration;
+import io.teak.sdk.core.Executors;
+import io.teak.sdk.core.KeyValueStore;
+import io.teak.sdk.core.PurchaseJournal;
 import io.teak.sdk.core.Session;
 import io.teak.sdk.core.TeakCore;
 import io.teak.sdk.core.ThreadFactory;
@@ -66,7 +71,9 @@ public class TeakInstance implements Unobfuscable {
         this.activityHashCode = activity.hashCode();
         this.objectFactory = objectFactory;
         this.teakCore = TeakCore.get();
+        KeyValueStore.init(this.context.getFilesDir());
         PushState.init(this.context);
+        PurchaseJournal.init(this.context);
 
         // Ravens
         TeakConfiguration.addEventListener(configuration -> {
@@ -464,12 +471,40 @@ public class TeakInstance implements Unobfuscable {
 
     ///// Application icon badge
 
+    private final AtomicReference<Integer> pendingBadgeNumber = new AtomicReference<>();
+    private final AtomicBoolean badgeUpdateScheduled = new AtomicBoolean(false);
+
     boolean setApplicationBadgeNumber(int count) {
-        try {
-            ShortcutBadger.applyCountOrThrow(this.context, count);
-            return true;
-        } catch (Exception ignored) {
-            return false;
+        // Games often set the badge repeatedly, so only the most recent count is applied
+        this.pendingBadgeNumber.set(count);
+        if (this.badgeUpdateScheduled.compareAndSet(false, true)) {
+            Executors.sharedExecutor().execute(this::applyPendingBadgeNumber);
+        }
+
+        // The update is still attempted, in case the launcher has changed since
+        return !ShortcutBadger.isKnownToBeUnsupported();
+    }
+
+    private void applyPendingBadgeNumber() {
+        Integer count;
+        Integer appliedCount = null;
+        while ((count = this.pendingBadgeNumber.getAndSet(null)) != null) {
+            try {
+                ShortcutBadger.applyCountOrThrow(this.context, count);
+                appliedCount = count;
+            } catch (Exception e) {
+                Teak.log.w("application.badge", "Unable to set application badge number.", Helpers.mm.h("count", count, "error", e.getMessage()));
+            }
+        }
+        this.badgeUpdateScheduled.set(false);
+
+        if (appliedCount != null) {
+            Teak.log.i("application.badge", Helpers.mm.h("count", appliedCount, "latency", ShortcutBadger.getLatencyHistogram()));
+        }
+
+        // A count which was set after the loop finished, but before the flag was cleared
+        if (this.pendingBadgeNumber.get() != null && this.badgeUpdateScheduled.compareAndSet(false, true)) {
+            Executors.sharedExecutor().execute(this::applyPendingBadgeNumber);
         }
     }
 
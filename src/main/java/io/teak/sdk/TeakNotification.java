@@ -12,8 +12,6 @@ import java.util.Random;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import androidx.annotation.NonNull;
 import io.teak.sdk.Helpers.mm;
@@ -22,6 +20,7 @@ import io.teak.sdk.core.ThreadFactory;
 import io.teak.sdk.json.JSONArray;
 import io.teak.sdk.json.JSONException;
 import io.teak.sdk.json.JSONObject;
+import io.teak.sdk.push.PushPayload;
 
 /**
  * An app-to-user notification received from Teak via GCM.
@@ -677,6 +676,7 @@ public class TeakNotification implements Unobfuscable {
     public boolean isAnimated;
 
     public final Bundle bundle;
+    public final PushPayload payload;
 
     public enum NotificationPlacement {
         Background("background"),
@@ -691,6 +691,12 @@ public class TeakNotification implements Unobfuscable {
     public final NotificationPlacement notificationPlacement;
 
     public TeakNotification(Bundle bundle, boolean appInForeground) {
+        this(new PushPayload(bundle), appInForeground);
+    }
+
+    public TeakNotification(PushPayload payload, boolean appInForeground) {
+        final Bundle bundle = payload.bundle;
+        this.payload = payload;
         this.message = bundle.getString("message");
         this.title = bundle.getString("title");
         this.longText = bundle.getString("longText");
@@ -708,12 +714,7 @@ public class TeakNotification implements Unobfuscable {
         this.bundle = bundle;
         this.notificationPlacement = appInForeground ? NotificationPlacement.Foreground : NotificationPlacement.Background;
 
-        JSONObject tempExtras = null;
-        try {
-            tempExtras = bundle.getString("extras") == null ? null : new JSONObject(bundle.getString("extras"));
-        } catch (Exception ignored) {
-        }
-        this.extras = tempExtras;
+        this.extras = payload.getExtras();
 
         try {
             this.notificationVersion = Integer.parseInt(bundle.getString("version"));
@@ -721,49 +722,10 @@ public class TeakNotification implements Unobfuscable {
             this.notificationVersion = TEAK_NOTIFICATION_V0;
         }
 
-        JSONObject tempDisplay = null;
-
-        // Check for content specified by SDK version
-        if (bundle.getString("versioned_content") != null) {
-            try {
-                final JSONArray versionedContent = new JSONArray(bundle.getString("versioned_content"));
-                for (Object content : versionedContent) {
-                    if (!(content instanceof JSONObject)) continue;
-                    final JSONObject jsonContent = (JSONObject) content;
-
-                    final String contentVersionString = jsonContent.getString("version");
-                    if (contentVersionString == null) continue;
-
-                    Matcher m = Pattern.compile("(\\d+)\\.(\\d+)\\.(\\d+).*").matcher(contentVersionString);
-                    if (m.matches()) {
-                        int[] contentMajorMinorRevision = new int[] {
-                            Integer.parseInt(m.group(1)), // major
-                            Integer.parseInt(m.group(2)), // minor
-                            Integer.parseInt(m.group(3))  // revision
-                        };
-
-                        if (compareMajorMinorRevision(Teak.MajorMinorRevision, contentMajorMinorRevision) >= 0) {
-                            tempDisplay = jsonContent;
-                        } else {
-                            break;
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                Teak.log.exception(e);
-            }
-        }
-
-        // Fall back to display
-        if (tempDisplay == null && bundle.getString("display") != null) {
-            try {
-                tempDisplay = new JSONObject(bundle.getString("display"));
-            } catch (Exception e) {
-                Teak.log.exception(e);
-                this.notificationVersion = TEAK_NOTIFICATION_V0;
-            }
+        this.display = payload.getDisplay();
+        if (this.display == null && payload.isDisplayInvalid()) {
+            this.notificationVersion = TEAK_NOTIFICATION_V0;
         }
-        this.display = tempDisplay;
 
         long tempTeakNotifId = 0;
         try {
@@ -780,21 +742,5 @@ public class TeakNotification implements Unobfuscable {
         bundle.putInt("platformId", platformId);
         bundle.putString("teakNotificationPlacement", notificationPlacement.name);
     }
-
-    private int compareMajorMinorRevision(int[] version, int[] otherVersion) {
-        if (version[0] != otherVersion[0]) {
-            return version[0] - otherVersion[0];
-        }
-
-        if (version[1] != otherVersion[1]) {
-            return version[1] - otherVersion[1];
-        }
-
-        if (version[2] != otherVersion[2]) {
-            return version[2] - otherVersion[2];
-        }
-
-        return 0;
-    }
     // @endcond
 }
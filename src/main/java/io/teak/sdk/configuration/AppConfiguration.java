@@ -15,8 +15,10 @@ import java.util.Map;
 import java.util.Set;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import io.teak.sdk.Helpers;
 import io.teak.sdk.IntegrationChecker;
+import io.teak.sdk.PackageMetadata;
 import io.teak.sdk.Teak;
 import io.teak.sdk.io.AndroidResources;
 import io.teak.sdk.io.IAndroidResources;
@@ -59,6 +61,10 @@ public class AppConfiguration {
     @SuppressWarnings("WeakerAccess")
     public static final String TEAK_TRACE_LOG_RESOURCE = "io_teak_log_trace";
     @SuppressWarnings("WeakerAccess")
+    public static final String TEAK_TRACE_SPANS_RESOURCE = "io_teak_trace_spans";
+    @SuppressWarnings("WeakerAccess")
+    public static final String TEAK_LOCK_PROFILE_RATE_RESOURCE = "io_teak_lock_profile_rate";
+    @SuppressWarnings("WeakerAccess")
     public static final String TEAK_SDK_5_BEHAVIORS = "io_teak_sdk5_behaviors";
 
     @SuppressWarnings("WeakerAccess")
@@ -74,18 +80,14 @@ public class AppConfiguration {
         SamsungStoreId)));
 
     public AppConfiguration(@NonNull Context context, @NonNull IAndroidResources iAndroidResources) throws IntegrationChecker.InvalidConfigurationException {
+        this(context, iAndroidResources, Helpers.getApplicationInfo(context));
+    }
+
+    public AppConfiguration(@NonNull Context context, @NonNull IAndroidResources iAndroidResources, @Nullable ApplicationInfo appInfo) throws IntegrationChecker.InvalidConfigurationException {
         this.applicationContext = context.getApplicationContext();
 
         // Target SDK Version
-        {
-            int tempTargetSdkVersion = 0;
-            try {
-                ApplicationInfo appInfo = context.getPackageManager().getApplicationInfo(context.getPackageName(), PackageManager.GET_META_DATA);
-                tempTargetSdkVersion = appInfo.targetSdkVersion;
-            } catch (Exception ignored) {
-            }
-            this.targetSdkVersion = tempTargetSdkVersion;
-        }
+        this.targetSdkVersion = appInfo == null ? 0 : appInfo.targetSdkVersion;
 
         final AndroidResources androidResources = new AndroidResources(context, iAndroidResources);
 
@@ -148,7 +150,10 @@ public class AppConfiguration {
             long tempAppVersion = 0;
             String tempAppVersionName = null;
             try {
-                final PackageInfo info = this.packageManager.getPackageInfo(this.bundleId, 0);
+                final PackageInfo info = PackageMetadata.get(context).getPackageInfo(context);
+                if (info == null) {
+                    throw new PackageManager.NameNotFoundException(this.bundleId);
+                }
                 tempAppVersion = getVersionCodeFromPackageInfo(info);
                 tempAppVersionName = info.versionName;
             } catch (Exception e) {
@@ -211,7 +216,7 @@ public class AppConfiguration {
     @NonNull
     public String toString() {
         try {
-            return String.format(Locale.US, "%s: %s", super.toString(), Teak.formatJSONForLogging(new JSONObject(this.toMap())));
+            return String.format(Locale.US, "%s: %s", super.toString(), Teak.formatJSONForLogging(JSONObject.view(this.toMap())));
         } catch (Exception ignored) {
             return super.toString();
         }
@@ -2,7 +2,6 @@ package io.teak.sdk.configuration;
 
 import android.content.Context;
 import android.content.pm.ApplicationInfo;
-import android.content.pm.PackageManager;
 import android.os.Bundle;
 
 import java.util.HashMap;
@@ -11,6 +10,7 @@ import java.util.Map;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import io.teak.sdk.Helpers;
 import io.teak.sdk.Teak;
 import io.teak.sdk.TeakEvent;
 import io.teak.sdk.event.AdvertisingInfoEvent;
@@ -31,12 +31,11 @@ public class DataCollectionConfiguration {
     public static final String TEAK_ENABLE_PUSH_KEY_RESOURCE = "io_teak_enable_push_key";
 
     public DataCollectionConfiguration(@NonNull Context context, @NonNull IAndroidResources androidResources) {
-        Bundle metaData = null;
-        try {
-            ApplicationInfo appInfo = context.getPackageManager().getApplicationInfo(context.getPackageName(), PackageManager.GET_META_DATA);
-            metaData = appInfo.metaData;
-        } catch (Exception ignored) {
-        }
+        this(androidResources, Helpers.getApplicationInfo(context));
+    }
+
+    public DataCollectionConfiguration(@NonNull IAndroidResources androidResources, @Nullable ApplicationInfo appInfo) {
+        final Bundle metaData = appInfo == null ? null : appInfo.metaData;
 
         // IDFA
         this.enableIDFA = checkFeatureConfiguration(TEAK_ENABLE_IDFA_RESOURCE, androidResources, metaData);
@@ -86,7 +85,7 @@ public class DataCollectionConfiguration {
     @NonNull
     public String toString() {
         try {
-            return String.format(Locale.US, "%s: %s", super.toString(), Teak.formatJSONForLogging(new JSONObject(this.toMap())));
+            return String.format(Locale.US, "%s: %s", super.toString(), Teak.formatJSONForLogging(JSONObject.view(this.toMap())));
         } catch (Exception ignored) {
             return super.toString();
         }
@@ -2,16 +2,22 @@ package io.teak.sdk.configuration;
 
 import android.app.ActivityManager;
 import android.content.Context;
+import android.os.Build;
 
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import io.teak.sdk.IObjectFactory;
 import io.teak.sdk.Teak;
 import io.teak.sdk.TeakEvent;
+import io.teak.sdk.core.Executors;
+import io.teak.sdk.core.IKeyValueStore;
+import io.teak.sdk.core.KeyValueStore;
 import io.teak.sdk.event.AdvertisingInfoEvent;
 import io.teak.sdk.event.PushRegistrationEvent;
 import io.teak.sdk.io.IAndroidDeviceInfo;
@@ -19,6 +25,8 @@ import io.teak.sdk.json.JSONObject;
 import io.teak.sdk.push.IPushProvider;
 
 public class DeviceConfiguration {
+    private static final String PREFERENCE_DEVICE_FACTS = "io.teak.sdk.Preferences.DeviceFacts";
+
     public Map<String, String> pushRegistration;
 
     public final String deviceId;
@@ -49,18 +57,12 @@ public class DeviceConfiguration {
             this.platformString = "android_" + android.os.Build.VERSION.RELEASE;
         }
 
-        // Heap size (kind of)
-        {
-            ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
-            this.memoryClass = am == null ? 0 : am.getMemoryClass();
-        }
-
-        // System information
-        {
-            this.numCores = androidDeviceInfo.getNumCores();
-            this.memoryInBytes = androidDeviceInfo.totalMemoryInBytes();
-            this.displayMetrics = Collections.unmodifiableMap(androidDeviceInfo.displayMetrics());
-        }
+        // Heap size (kind of) and system information
+        final JSONObject deviceFacts = getDeviceFacts(Build.FINGERPRINT, KeyValueStore.get(), context, androidDeviceInfo, Executors.sharedExecutor());
+        this.memoryClass = deviceFacts.optInt("memoryClass", 0);
+        this.numCores = deviceFacts.optInt("numCores", 1);
+        this.memoryInBytes = deviceFacts.optLong("memoryInBytes", 0);
+        this.displayMetrics = Collections.unmodifiableMap(androidDeviceInfo.displayMetrics());
 
         // Device model/manufacturer
         {
@@ -72,7 +74,8 @@ public class DeviceConfiguration {
             this.deviceProduct = deviceInfo.get("deviceProduct");
         }
 
-        // Device id
+        // Device id, which is never taken from stored facts: a backup of them can be restored
+        // onto another device with the same build
         this.deviceId = androidDeviceInfo.getDeviceId();
         if (this.deviceId == null) {
             return;
@@ -107,6 +110,61 @@ public class DeviceConfiguration {
         //        });
     }
 
+    /**
+     * Facts about the device which are slow to collect, and do not change unless the OS does.
+     *
+     * They are stored along with the build fingerprint, and later launches use the stored facts
+     * while collecting them again in the background for the next launch.
+     *
+     * @param fingerprint       The build fingerprint, which stored facts must match to be used.
+     * @param store             Where facts are stored, or null to always collect them.
+     * @param context           Any Context.
+     * @param androidDeviceInfo Source of the facts.
+     * @param executor          Runs the background collection when stored facts are used.
+     * @return The facts.
+     */
+    public static JSONObject getDeviceFacts(@Nullable final String fingerprint, @Nullable final IKeyValueStore store, @NonNull final Context context,
+        @NonNull final IAndroidDeviceInfo androidDeviceInfo, @NonNull Executor executor) {
+        if (store != null && fingerprint != null) {
+            try {
+                final String storedFacts = store.getString(PREFERENCE_DEVICE_FACTS);
+                if (storedFacts != null) {
+                    final JSONObject deviceFacts = new JSONObject(storedFacts);
+                    if (fingerprint.equals(deviceFacts.optString("fingerprint"))) {
+                        executor.execute(() -> storeDeviceFacts(store, collectDeviceFacts(fingerprint, context, androidDeviceInfo)));
+                        return deviceFacts;
+                    }
+                }
+            } catch (Exception e) {
+                Teak.log.exception(e, false);
+            }
+        }
+
+        final JSONObject deviceFacts = collectDeviceFacts(fingerprint, context, androidDeviceInfo);
+        if (store != null) {
+            storeDeviceFacts(store, deviceFacts);
+        }
+        return deviceFacts;
+    }
+
+    private static JSONObject collectDeviceFacts(@Nullable String fingerprint, @NonNull Context context, @NonNull IAndroidDeviceInfo androidDeviceInfo) {
+        final ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+
+        final JSONObject deviceFacts = new JSONObject();
+        deviceFacts.put("fingerprint", fingerprint);
+        deviceFacts.put("memoryClass", am == null ? 0 : am.getMemoryClass());
+        deviceFacts.put("numCores", androidDeviceInfo.getNumCores());
+        deviceFacts.put("memoryInBytes", androidDeviceInfo.totalMemoryInBytes());
+        return deviceFacts;
+    }
+
+    private static void storeDeviceFacts(@NonNull IKeyValueStore store, @NonNull JSONObject deviceFacts) {
+        // Without a fingerprint there is no telling when the facts are out of date
+        if (deviceFacts.has("fingerprint")) {
+            store.putString(PREFERENCE_DEVICE_FACTS, deviceFacts.toString());
+        }
+    }
+
     public void requestNewPushToken() {
         if (this.pushProvider != null) {
             this.pushProvider.requestPushKey();
@@ -140,7 +198,7 @@ public class DeviceConfiguration {
     @NonNull
     public String toString() {
         try {
-            return String.format(Locale.US, "%s: %s", super.toString(), Teak.formatJSONForLogging(new JSONObject(this.toMap())));
+            return String.format(Locale.US, "%s: %s", super.toString(), Teak.formatJSONForLogging(JSONObject.view(this.toMap())));
         } catch (Exception ignored) {
             return super.toString();
         }
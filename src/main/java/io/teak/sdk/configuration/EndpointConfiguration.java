@@ -0,0 +1,47 @@
+package io.teak.sdk.configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * The part of the remote configuration which {@link io.teak.sdk.Request} uses: the hostname to
+ * send requests to, and how each endpoint is batched and retried.
+ */
+public class EndpointConfiguration {
+    public static final String DefaultHostname = "gocarrot.com";
+
+    @SuppressWarnings("WeakerAccess")
+    public final String hostname;
+    @SuppressWarnings("WeakerAccess")
+    public final Map<String, Object> endpointConfigurations;
+    @SuppressWarnings("WeakerAccess")
+    public final Map<String, Object> dynamicParameters;
+    @SuppressWarnings("WeakerAccess")
+    public final boolean isMocked;
+
+    /**
+     * @param hostname               Hostname for endpoints which do not name their own.
+     * @param endpointConfigurations Batch and retry configuration, by hostname and then endpoint.
+     * @param dynamicParameters      Values added to every request.
+     * @param isMocked               True to send requests to a local mock server, unsigned.
+     */
+    public EndpointConfiguration(@NonNull String hostname, @Nullable Map<String, Object> endpointConfigurations,
+        @Nullable Map<String, Object> dynamicParameters, boolean isMocked) {
+        this.hostname = hostname;
+        this.endpointConfigurations = endpointConfigurations == null ? new HashMap<String, Object>() : endpointConfigurations;
+        this.dynamicParameters = dynamicParameters == null ? new HashMap<String, Object>() : dynamicParameters;
+        this.isMocked = isMocked;
+    }
+
+    public static String getHostnameForEndpoint(@NonNull String endpoint, @Nullable EndpointConfiguration endpointConfiguration) {
+        if (endpointConfiguration != null) {
+            return endpointConfiguration.hostname;
+        }
+
+        // Defaults
+        return EndpointConfiguration.DefaultHostname;
+    }
+}
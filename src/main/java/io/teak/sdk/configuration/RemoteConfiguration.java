@@ -1,19 +1,26 @@
 package io.teak.sdk.configuration;
 
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import io.teak.sdk.Helpers;
 import io.teak.sdk.Request;
 import io.teak.sdk.Teak;
 import io.teak.sdk.TeakConfiguration;
 import io.teak.sdk.TeakEvent;
 import io.teak.sdk.core.DeepLink;
 import io.teak.sdk.core.Session;
+import io.teak.sdk.core.StartupTimeline;
 import io.teak.sdk.event.DeepLinksReadyEvent;
 import io.teak.sdk.event.RemoteConfigurationEvent;
 import io.teak.sdk.io.AndroidResources;
@@ -47,8 +54,10 @@ public class RemoteConfiguration {
     public final ArrayList<Teak.Channel.Category> categories;
     @SuppressWarnings("WeakerAccess")
     public final boolean isMocked;
+    @SuppressWarnings("WeakerAccess")
+    public final EndpointConfiguration endpointConfiguration;
 
-    private static final String defaultHostname = "gocarrot.com";
+    private static final String defaultHostname = EndpointConfiguration.DefaultHostname;
 
     private static final String defaultDynamicParameters = "{  \n"
                                                            +
@@ -161,6 +170,263 @@ public class RemoteConfiguration {
                 }
             }
         }
+
+        this.endpointConfiguration = new EndpointConfiguration(hostname, this.endpointConfigurations, this.dynamicParameters, isMocked);
+    }
+
+    private static final String PREFERENCE_REMOTE_CONFIGURATION = "io.teak.sdk.Preferences.RemoteConfiguration";
+
+    // The keys of the settings.json reply which are used, and so the only keys which are stored
+    private static final String[] SettingsKeys = new String[] {
+        "auth",
+        "sdk_sentry_dsn",
+        "app_sentry_dsn",
+        "gcm_sender_id",
+        "firebase_app_id",
+        "ignore_default_firebase_configuration",
+        "enhanced_integration_checks",
+        "endpoint_configurations",
+        "dynamic_parameters",
+        "heartbeat_interval",
+        "available_categories"};
+
+    // The settings, and their ETag, which were used to create the active RemoteConfiguration, and
+    // a hash of the request the ETag was issued for. Guarded by RemoteConfiguration.class
+    private static JSONObject appliedSettings;
+    private static String appliedSettingsETag;
+    private static String appliedSettingsRequestHash;
+
+    private static class ResponseHelper {
+        final JSONObject json;
+        private ResponseHelper(JSONObject json) {
+            this.json = json;
+        }
+        private String nullInsteadOfEmpty(String input) {
+            if (input != null && !input.trim().isEmpty()) {
+                return input;
+            }
+            return null;
+        }
+        private String strOrNull(String key) {
+            return nullInsteadOfEmpty(this.json.isNull(key) ? null : this.json.getString(key));
+        }
+        private boolean boolOrFalse(String key) {
+            return this.json.optBoolean(key, false);
+        }
+        private JSONObject jsonOrNull(String key) {
+            return this.json.has(key) ? this.json.getJSONObject(key) : null;
+        }
+    }
+
+    private static RemoteConfiguration fromSettingsResponse(@NonNull AppConfiguration appConfiguration, @NonNull JSONObject response) {
+        final ResponseHelper helper = new ResponseHelper(response);
+
+        final JSONObject availableCategories = helper.jsonOrNull("available_categories");
+        final ArrayList<Teak.Channel.Category> categories = new ArrayList<>();
+        if (availableCategories != null) {
+            final Iterator<String> keys = availableCategories.keys();
+            while (keys.hasNext()) {
+                final String key = keys.next();
+                final JSONObject categoryJson = availableCategories.getJSONObject(key);
+                final ResponseHelper categoryJsonHelper = new ResponseHelper(categoryJson);
+                categories.add(new Teak.Channel.Category(
+                    key,
+                    categoryJson.getString("name"),
+                    categoryJsonHelper.strOrNull("description"),
+                    categoryJsonHelper.strOrNull("sound"),
+                    categoryJson.optBoolean("show_badge", false)));
+            }
+        }
+
+        // Future-Ezri: This looks ugly, the reason we aren't moving it into the constructor itself is
+        // so that it can be easily mocked for the functional tests.
+        return new RemoteConfiguration(appConfiguration,
+            response.isNull("auth") ? RemoteConfiguration.defaultHostname : response.getString("auth"),
+            helper.strOrNull("sdk_sentry_dsn"),
+            helper.strOrNull("app_sentry_dsn"),
+            helper.strOrNull("gcm_sender_id"),
+            helper.strOrNull("firebase_app_id"),
+            helper.boolOrFalse("ignore_default_firebase_configuration"),
+            helper.boolOrFalse("enhanced_integration_checks"),
+            helper.jsonOrNull("endpoint_configurations"),
+            helper.jsonOrNull("dynamic_parameters"),
+            response.optInt("heartbeat_interval", 60),
+            categories,
+            false);
+    }
+
+    /**
+     * Apply the configuration from the last successful reply to settings.json, if one is stored.
+     *
+     * The configuration is applied by posting a {@link RemoteConfigurationEvent}, and will be
+     * revalidated when settings.json is next requested.
+     *
+     * @param appConfiguration The current AppConfiguration.
+     * @return true if a stored configuration was applied.
+     */
+    public static boolean applyLastKnown(@NonNull AppConfiguration appConfiguration) {
+        try {
+            final SharedPreferences preferences = appConfiguration.applicationContext.getSharedPreferences(Teak.PREFERENCES_FILE, Context.MODE_PRIVATE);
+            final String serialized = preferences == null ? null : preferences.getString(PREFERENCE_REMOTE_CONFIGURATION, null);
+            if (serialized == null) return false;
+
+            final JSONObject stored = new JSONObject(serialized);
+            if (!appConfiguration.appId.equals(stored.optString("app_id", null))) return false;
+
+            final JSONObject settings = stored.getJSONObject("settings");
+            final RemoteConfiguration configuration = fromSettingsResponse(appConfiguration, settings);
+            synchronized (RemoteConfiguration.class) {
+                // A reply from the server has already been applied
+                if (appliedSettings != null) return false;
+
+                appliedSettings = settings;
+                appliedSettingsETag = stored.optString("etag", null);
+                appliedSettingsRequestHash = stored.optString("request_hash", null);
+
+                StartupTimeline.mark("remote_configuration.last_known");
+                Teak.log.i("configuration.remote.last_known", configuration.toHash());
+                TeakEvent.postEvent(new RemoteConfigurationEvent(configuration));
+            }
+            return true;
+        } catch (Exception e) {
+            Teak.log.exception(e, false);
+        }
+        return false;
+    }
+
+    private static JSONObject compactSettings(@NonNull JSONObject response) {
+        final JSONObject settings = new JSONObject();
+        for (String key : SettingsKeys) {
+            if (!response.isNull(key)) {
+                settings.put(key, response.get(key));
+            }
+        }
+        return settings;
+    }
+
+    private static void persistSettings(@NonNull AppConfiguration appConfiguration, @NonNull JSONObject settings, @Nullable String etag, @NonNull String requestHash) {
+        try {
+            final SharedPreferences preferences = appConfiguration.applicationContext.getSharedPreferences(Teak.PREFERENCES_FILE, Context.MODE_PRIVATE);
+            if (preferences == null) return;
+
+            final JSONObject stored = new JSONObject();
+            stored.put("app_id", appConfiguration.appId);
+            stored.put("settings", settings);
+            if (etag != null) {
+                stored.put("etag", etag);
+                stored.put("request_hash", requestHash);
+            }
+
+            synchronized (Teak.PREFERENCES_FILE) {
+                SharedPreferences.Editor editor = preferences.edit();
+                editor.putString(PREFERENCE_REMOTE_CONFIGURATION, stored.toString());
+                editor.apply();
+            }
+        } catch (Exception e) {
+            Teak.log.exception(e);
+        }
+    }
+
+    @Nullable
+    private static String headerValue(@Nullable Map<String, List<String>> headers, @NonNull String name) {
+        if (headers == null) return null;
+
+        // Header names are case-insensitive, and the status line has a null name
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey()) && header.getValue() != null && !header.getValue().isEmpty()) {
+                return header.getValue().get(0);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return A hash of the parts of a settings request which the reply depends on.
+     */
+    @NonNull
+    private static String settingsRequestHash(@NonNull Map<String, Object> payload) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Helpers.bytesToHex(digest.digest(JSONObject.view(payload).toString().getBytes("UTF-8")));
+        } catch (Exception ignored) {
+            return "";
+        }
+    }
+
+    private static void requestSettings(@NonNull final AppConfiguration appConfiguration, @NonNull final Map<String, Object> payload, boolean revalidate) {
+        final String requestHash = settingsRequestHash(payload);
+
+        // Revalidate the last known settings, but only if they were requested with the same
+        // locale and deep link routes, because the ETag does not cover the request
+        final HashMap<String, String> headers = new HashMap<>();
+        synchronized (RemoteConfiguration.class) {
+            if (revalidate && appliedSettingsETag != null && requestHash.equals(appliedSettingsRequestHash)) {
+                headers.put("If-None-Match", appliedSettingsETag);
+            }
+        }
+
+        StartupTimeline.mark("remote_configuration.request");
+        Request.submit("gocarrot.com", "POST", "/games/" + appConfiguration.appId + "/settings.json", payload, Session.NullSession, headers,
+            (responseCode, responseBody, responseHeaders) -> {
+                try {
+                    if (responseCode == 412) {
+                        // The precondition failed, so drop the ETag and request the settings in full
+                        synchronized (RemoteConfiguration.class) {
+                            appliedSettingsETag = null;
+                            appliedSettingsRequestHash = null;
+                        }
+                        Teak.log.i("configuration.remote.precondition_failed", Helpers.mm.h("revalidated", !headers.isEmpty()));
+                        if (!headers.isEmpty()) {
+                            requestSettings(appConfiguration, payload, false);
+                            return;
+                        }
+                    }
+                    onSettingsReply(appConfiguration, requestHash, responseCode, responseBody, responseHeaders);
+                } catch (Exception e) {
+                    Teak.log.exception(e);
+                }
+            });
+    }
+
+    private static void onSettingsReply(@NonNull AppConfiguration appConfiguration, @NonNull String requestHash, int responseCode, String responseBody, Map<String, List<String>> responseHeaders) {
+        StartupTimeline.mark("remote_configuration.reply");
+
+        final boolean isSuccess = responseCode >= 200 && responseCode < 300 &&
+                                  responseBody != null && !responseBody.trim().isEmpty();
+        synchronized (RemoteConfiguration.class) {
+            if (responseCode == 304 && appliedSettings != null) {
+                Teak.log.i("configuration.remote.not_modified", Helpers.mm.h("etag", appliedSettingsETag));
+                return;
+            }
+
+            // Keep using the configuration which is already applied, rather than falling back to defaults
+            if (!isSuccess && appliedSettings != null) {
+                Teak.log.w("configuration.remote.revalidate_failed", "Continuing to use last known remote configuration.", Helpers.mm.h("response_code", responseCode));
+                return;
+            }
+
+            final JSONObject settings = compactSettings(new JSONObject(isSuccess ? responseBody : "{}"));
+            final String etag = isSuccess ? headerValue(responseHeaders, "ETag") : null;
+            if (isSuccess) {
+                persistSettings(appConfiguration, settings, etag, requestHash);
+            }
+
+            // Nothing that is used has changed, so there is nothing to apply
+            if (appliedSettings != null && appliedSettings.similar(settings)) {
+                appliedSettingsETag = etag;
+                appliedSettingsRequestHash = requestHash;
+                Teak.log.i("configuration.remote.unchanged", Helpers.mm.h("etag", String.valueOf(etag)));
+                return;
+            }
+
+            final RemoteConfiguration configuration = fromSettingsResponse(appConfiguration, settings);
+            appliedSettings = isSuccess ? settings : null;
+            appliedSettingsETag = etag;
+            appliedSettingsRequestHash = requestHash;
+
+            Teak.log.i("configuration.remote", configuration.toHash());
+            TeakEvent.postEvent(new RemoteConfigurationEvent(configuration));
+        }
     }
 
     public static void registerStaticEventListeners() {
@@ -176,75 +442,10 @@ public class RemoteConfiguration {
                 final String locale = Locale.getDefault().toString();
                 payload.put("locale", locale);
 
-                Request.submit("gocarrot.com", "/games/" + teakConfiguration.appConfiguration.appId + "/settings.json", payload, Session.NullSession,
-                    (responseCode, responseBody) -> {
-                        try {
-                            final JSONObject response = new JSONObject((responseBody == null || responseBody.trim().isEmpty()) ? "{}" : responseBody);
-
-                            class ResponseHelper {
-                                final JSONObject json;
-                                private ResponseHelper(JSONObject json) {
-                                    this.json = json;
-                                }
-                                private String nullInsteadOfEmpty(String input) {
-                                    if (input != null && !input.trim().isEmpty()) {
-                                        return input;
-                                    }
-                                    return null;
-                                }
-                                private String strOrNull(String key) {
-                                    return nullInsteadOfEmpty(this.json.isNull(key) ? null : this.json.getString(key));
-                                }
-                                private boolean boolOrFalse(String key) {
-                                    return this.json.optBoolean(key, false);
-                                }
-                                private JSONObject jsonOrNull(String key) {
-                                    return this.json.has(key) ? this.json.getJSONObject(key) : null;
-                                }
-                            }
-                            final ResponseHelper helper = new ResponseHelper(response);
-
-                            final JSONObject availableCategories = helper.jsonOrNull("available_categories");
-                            final ArrayList<Teak.Channel.Category> categories = new ArrayList<>();
-                            if (availableCategories != null) {
-                                final Iterator<String> keys = availableCategories.keys();
-                                while (keys.hasNext()) {
-                                    final String key = keys.next();
-                                    final JSONObject categoryJson = availableCategories.getJSONObject(key);
-                                    final ResponseHelper categoryJsonHelper = new ResponseHelper(categoryJson);
-                                    categories.add(new Teak.Channel.Category(
-                                        key,
-                                        categoryJson.getString("name"),
-                                        categoryJsonHelper.strOrNull("description"),
-                                        categoryJsonHelper.strOrNull("sound"),
-                                        categoryJson.optBoolean("show_badge", false)));
-                                }
-                            }
-
-                            // Future-Ezri: This looks ugly, the reason we aren't moving it into the constructor itself is
-                            // so that it can be easily mocked for the functional tests.
-                            final RemoteConfiguration configuration = new RemoteConfiguration(teakConfiguration.appConfiguration,
-                                response.isNull("auth") ? RemoteConfiguration.defaultHostname : response.getString("auth"),
-                                helper.strOrNull("sdk_sentry_dsn"),
-                                helper.strOrNull("app_sentry_dsn"),
-                                helper.strOrNull("gcm_sender_id"),
-                                helper.strOrNull("firebase_app_id"),
-                                helper.boolOrFalse("ignore_default_firebase_configuration"),
-                                helper.boolOrFalse("enhanced_integration_checks"),
-                                helper.jsonOrNull("endpoint_configurations"),
-                                helper.jsonOrNull("dynamic_parameters"),
-                                response.optInt("heartbeat_interval", 60),
-                                categories,
-                                false);
-
-                            Teak.log.i("configuration.remote", configuration.toHash());
-                            TeakEvent.postEvent(new RemoteConfigurationEvent(configuration));
-                        } catch (Exception e) {
-                            Teak.log.exception(e);
-                        }
-                    });
+                requestSettings(teakConfiguration.appConfiguration, payload, true);
             } else if (event.eventType.equals(RemoteConfigurationEvent.Type)) {
                 RemoteConfiguration.activeRemoteConfiguration = ((RemoteConfigurationEvent) event).remoteConfiguration;
+                Request.setEndpointConfiguration(RemoteConfiguration.activeRemoteConfiguration.endpointConfiguration);
             }
         });
     }
@@ -280,7 +481,7 @@ public class RemoteConfiguration {
     @NonNull
     public String toString() {
         try {
-            return String.format(Locale.US, "%s: %s", super.toString(), Teak.formatJSONForLogging(new JSONObject(this.toHash())));
+            return String.format(Locale.US, "%s: %s", super.toString(), Teak.formatJSONForLogging(JSONObject.view(this.toHash())));
         } catch (Exception ignored) {
             return super.toString();
         }
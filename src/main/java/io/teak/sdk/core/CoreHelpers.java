@@ -0,0 +1,26 @@
+package io.teak.sdk.core;
+
+import androidx.annotation.Nullable;
+
+/**
+ * The helpers which core logic uses, kept apart from {@link io.teak.sdk.Helpers} because they need
+ * nothing from Android.
+ */
+public class CoreHelpers {
+    public static boolean is_equal(final @Nullable Object a, final @Nullable Object b) {
+        return (a == b) ||
+            (a != null && a.equals(b)) ||
+            (b != null && b.equals(a));
+    }
+
+    private static final char[] HEX_ARRAY = "0123456789abcdef".toCharArray();
+    public static String bytesToHex(byte[] bytes) {
+        char[] hexChars = new char[bytes.length * 2];
+        for (int j = 0; j < bytes.length; j++) {
+            int v = bytes[j] & 0xFF;
+            hexChars[j * 2] = HEX_ARRAY[v >>> 4];
+            hexChars[j * 2 + 1] = HEX_ARRAY[v & 0x0F];
+        }
+        return new String(hexChars);
+    }
+}
@@ -0,0 +1,425 @@
+package io.teak.sdk.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Set of compiled deep link routes.
+ *
+ * Routes are compiled once, when they are added, into an immutable trie of path segments. Lookups
+ * read the current trie through a volatile reference, without locking, and never compile a regular
+ * expression. Adding a route is synchronized on the router, and publishes a new trie which copies
+ * only the nodes on the new route's path, so registering many routes stays cheap.
+ *
+ * When more than one route matches a path, the route which matches the most literal segments
+ * first wins: at each segment a literal segment is preferred over a segment which mixes literal
+ * text and variables, which is preferred over a segment which is a single variable. Routes which
+ * use regular expression syntax ('?' or '\') are not split into segments, and are tried, in the
+ * order they were registered, only if nothing in the trie matches.
+ *
+ * @param <T> The type of value associated with each route.
+ */
+public class DeepLinkRouter<T> {
+    // https://github.com/rkh/mustermann/blob/master/mustermann-simple/lib/mustermann/simple.rb
+    private static final Pattern EscapePattern = Pattern.compile("[^\\?\\%\\\\/\\:\\*\\w]");
+    private static final Pattern VariablePattern = Pattern.compile("((:\\w+)|\\*)");
+    private static final String VariableCapture = "([^/]+)";
+
+    /**
+     * The result of a successful lookup.
+     *
+     * @param <T> The type of value associated with each route.
+     */
+    public static class Match<T> {
+        /**
+         * The value associated with the matching route.
+         */
+        public final T value;
+
+        /**
+         * The route, as registered, which matched.
+         */
+        public final String route;
+
+        /**
+         * Variables captured from the path, keyed by name.
+         */
+        public final Map<String, Object> parameters;
+
+        Match(T value, String route, Map<String, Object> parameters) {
+            this.value = value;
+            this.route = route;
+            this.parameters = parameters;
+        }
+    }
+
+    private static class Segment {
+        final String literal;
+        final String patternString;
+        final Pattern pattern;
+        final boolean isVariable;
+
+        Segment(String segment) {
+            final Matcher matcher = VariablePattern.matcher(segment);
+            if (!matcher.find()) {
+                this.literal = segment;
+                this.patternString = null;
+                this.pattern = null;
+                this.isVariable = false;
+            } else if (matcher.start() == 0 && matcher.end() == segment.length()) {
+                this.literal = null;
+                this.patternString = null;
+                this.pattern = null;
+                this.isVariable = true;
+            } else {
+                this.literal = null;
+                this.patternString = compileSegment(segment);
+                this.pattern = Pattern.compile(this.patternString);
+                this.isVariable = false;
+            }
+        }
+    }
+
+    private static class Route<T> {
+        final String route;
+        final String key;
+        final List<String> groupNames;
+        final Segment[] segments;
+        final Pattern pattern;
+        final T value;
+        final int order;
+
+        Route(String route, String key, List<String> groupNames, Segment[] segments, T value, int order) {
+            this.route = route;
+            this.key = key;
+            this.groupNames = groupNames;
+            this.segments = segments;
+            this.pattern = segments == null ? Pattern.compile(key) : null;
+            this.value = value;
+            this.order = order;
+        }
+    }
+
+    /**
+     * An immutable trie node. Adding a route copies only the nodes on its path, and shares the rest.
+     *
+     * Literal children are kept in sorted arrays rather than a map, so that copying a node with
+     * many children is a pair of array copies rather than a rehash of every child.
+     */
+    private static class Node<T> {
+        private static final String[] NoLiterals = new String[0];
+        private static final Node<?>[] NoChildren = new Node<?>[0];
+
+        final Pattern pattern;
+        final String[] literalKeys;
+        final Node<?>[] literalChildren;
+        final Map<String, Node<T>> mixed;
+        final Node<T> variable;
+        final Route<T> terminal;
+
+        Node(Pattern pattern, String[] literalKeys, Node<?>[] literalChildren, Map<String, Node<T>> mixed, Node<T> variable, Route<T> terminal) {
+            this.pattern = pattern;
+            this.literalKeys = literalKeys;
+            this.literalChildren = literalChildren;
+            this.mixed = mixed;
+            this.variable = variable;
+            this.terminal = terminal;
+        }
+
+        static <T> Node<T> empty(Pattern pattern) {
+            return new Node<>(pattern, NoLiterals, NoChildren, Collections.<String, Node<T>>emptyMap(), null, null);
+        }
+
+        @SuppressWarnings("unchecked")
+        Node<T> literal(String key) {
+            final int index = Arrays.binarySearch(this.literalKeys, key);
+            return index < 0 ? null : (Node<T>) this.literalChildren[index];
+        }
+
+        Route<T> terminalAt(Segment[] segments, int index) {
+            if (index == segments.length) return this.terminal;
+
+            final Segment segment = segments[index];
+            final Node<T> child;
+            if (segment.literal != null) {
+                child = this.literal(segment.literal);
+            } else if (segment.isVariable) {
+                child = this.variable;
+            } else {
+                child = this.mixed.get(segment.patternString);
+            }
+            return child == null ? null : child.terminalAt(segments, index + 1);
+        }
+
+        Node<T> with(Segment[] segments, int index, Route<T> route) {
+            if (index == segments.length) {
+                return new Node<>(this.pattern, this.literalKeys, this.literalChildren, this.mixed, this.variable, route);
+            }
+
+            final Segment segment = segments[index];
+            if (segment.literal != null) {
+                final int position = Arrays.binarySearch(this.literalKeys, segment.literal);
+                if (position >= 0) {
+                    final Node<?>[] children = this.literalChildren.clone();
+                    children[position] = this.literal(segment.literal).with(segments, index + 1, route);
+                    return new Node<>(this.pattern, this.literalKeys, children, this.mixed, this.variable, this.terminal);
+                }
+
+                final int insertAt = -position - 1;
+                final int count = this.literalKeys.length;
+                final String[] keys = new String[count + 1];
+                final Node<?>[] children = new Node<?>[count + 1];
+                System.arraycopy(this.literalKeys, 0, keys, 0, insertAt);
+                System.arraycopy(this.literalChildren, 0, children, 0, insertAt);
+                keys[insertAt] = segment.literal;
+                children[insertAt] = Node.<T>empty(null).with(segments, index + 1, route);
+                System.arraycopy(this.literalKeys, insertAt, keys, insertAt + 1, count - insertAt);
+                System.arraycopy(this.literalChildren, insertAt, children, insertAt + 1, count - insertAt);
+                return new Node<>(this.pattern, keys, children, this.mixed, this.variable, this.terminal);
+            }
+
+            if (segment.isVariable) {
+                final Node<T> child = this.variable == null ? Node.<T>empty(null) : this.variable;
+                return new Node<>(this.pattern, this.literalKeys, this.literalChildren, this.mixed, child.with(segments, index + 1, route), this.terminal);
+            }
+
+            final Node<T> child = this.mixed.get(segment.patternString);
+            final Map<String, Node<T>> mixed = new LinkedHashMap<>(this.mixed);
+            mixed.put(segment.patternString, (child == null ? Node.<T>empty(segment.pattern) : child).with(segments, index + 1, route));
+            return new Node<>(this.pattern, this.literalKeys, this.literalChildren, mixed, this.variable, this.terminal);
+        }
+
+        void collect(List<Route<T>> routes) {
+            if (this.terminal != null) routes.add(this.terminal);
+            for (String key : this.literalKeys) this.literal(key).collect(routes);
+            for (Node<T> child : this.mixed.values()) child.collect(routes);
+            if (this.variable != null) this.variable.collect(routes);
+        }
+    }
+
+    private static class Snapshot<T> {
+        final Node<T> root;
+        final List<Route<T>> patternRoutes;
+
+        Snapshot(Node<T> root, List<Route<T>> patternRoutes) {
+            this.root = root;
+            this.patternRoutes = patternRoutes;
+        }
+    }
+
+    private static final Comparator<Route<?>> RegistrationOrder = new Comparator<Route<?>>() {
+        @Override
+        public int compare(Route<?> a, Route<?> b) {
+            return a.order < b.order ? -1 : (a.order == b.order ? 0 : 1);
+        }
+    };
+
+    // Written only while synchronized on the router, read without locking
+    private volatile Snapshot<T> snapshot = new Snapshot<>(Node.<T>empty(null), Collections.<Route<T>>emptyList());
+    private int nextOrder;
+
+    /**
+     * Add a route to this router.
+     *
+     * A route which is equivalent to one already in this router replaces it, and keeps its place
+     * in registration order.
+     *
+     * @param route The route, for example "/store/:sku".
+     * @param value The value to associate with the route.
+     * @throws IllegalArgumentException if the route uses a 'splat' or repeats a variable name.
+     */
+    public synchronized void add(@NonNull String route, T value) {
+        final List<String> groupNames = new ArrayList<>();
+        final String key = compileRoute(route, groupNames);
+        final Segment[] segments = compileSegments(route);
+        final Snapshot<T> current = this.snapshot;
+
+        if (segments == null) {
+            final List<Route<T>> patternRoutes = new ArrayList<>(current.patternRoutes);
+            for (int i = 0; i < patternRoutes.size(); i++) {
+                final Route<T> replaced = patternRoutes.get(i);
+                if (replaced.key.equals(key)) {
+                    patternRoutes.set(i, new Route<>(route, key, groupNames, null, value, replaced.order));
+                    this.snapshot = new Snapshot<>(current.root, Collections.unmodifiableList(patternRoutes));
+                    return;
+                }
+            }
+            patternRoutes.add(new Route<>(route, key, groupNames, null, value, this.nextOrder++));
+            this.snapshot = new Snapshot<>(current.root, Collections.unmodifiableList(patternRoutes));
+            return;
+        }
+
+        final Route<T> replaced = current.root.terminalAt(segments, 0);
+        final Route<T> compiled = new Route<>(route, key, groupNames, segments, value, replaced == null ? this.nextOrder++ : replaced.order);
+        this.snapshot = new Snapshot<>(current.root.with(segments, 0, compiled), current.patternRoutes);
+    }
+
+    /**
+     * @return The values associated with every route, in registration order.
+     */
+    @NonNull
+    public List<T> values() {
+        final Snapshot<T> snapshot = this.snapshot;
+        final List<Route<T>> routes = new ArrayList<>(snapshot.patternRoutes);
+        snapshot.root.collect(routes);
+        Collections.sort(routes, RegistrationOrder);
+
+        final List<T> values = new ArrayList<>(routes.size());
+        for (Route<T> route : routes) {
+            values.add(route.value);
+        }
+        return Collections.unmodifiableList(values);
+    }
+
+    /**
+     * Find the route which matches the provided path.
+     *
+     * @param path The path component of a URI.
+     * @return The match, or null if no route matches.
+     */
+    @Nullable
+    public Match<T> match(@Nullable String path) {
+        if (path == null) return null;
+
+        final Snapshot<T> snapshot = this.snapshot;
+        final String[] segments = path.split("/", -1);
+        final ArrayList<String> captures = new ArrayList<>();
+        final Route<T> route = find(snapshot.root, segments, 0, captures);
+        if (route != null) {
+            return new Match<>(route.value, route.route, parameters(route.groupNames, captures));
+        }
+
+        for (Route<T> patternRoute : snapshot.patternRoutes) {
+            final Matcher matcher = patternRoute.pattern.matcher(path);
+            if (matcher.matches()) {
+                captures.clear();
+                for (int i = 1; i <= matcher.groupCount(); i++) {
+                    captures.add(matcher.group(i));
+                }
+                return new Match<>(patternRoute.value, patternRoute.route, parameters(patternRoute.groupNames, captures));
+            }
+        }
+
+        return null;
+    }
+
+    private static <T> Route<T> find(Node<T> node, String[] segments, int index, ArrayList<String> captures) {
+        if (index == segments.length) {
+            return node.terminal;
+        }
+
+        final String segment = segments[index];
+
+        final Node<T> literal = node.literal(segment);
+        if (literal != null) {
+            final Route<T> route = find(literal, segments, index + 1, captures);
+            if (route != null) return route;
+        }
+
+        for (Map.Entry<String, Node<T>> entry : node.mixed.entrySet()) {
+            final Matcher matcher = entry.getValue().pattern.matcher(segment);
+            if (!matcher.matches()) continue;
+
+            final int mark = captures.size();
+            for (int i = 1; i <= matcher.groupCount(); i++) {
+                captures.add(matcher.group(i));
+            }
+            final Route<T> route = find(entry.getValue(), segments, index + 1, captures);
+            if (route != null) return route;
+            truncate(captures, mark);
+        }
+
+        if (node.variable != null && !segment.isEmpty()) {
+            final int mark = captures.size();
+            captures.add(segment);
+            final Route<T> route = find(node.variable, segments, index + 1, captures);
+            if (route != null) return route;
+            truncate(captures, mark);
+        }
+
+        return null;
+    }
+
+    private static void truncate(ArrayList<String> list, int size) {
+        while (list.size() > size) {
+            list.remove(list.size() - 1);
+        }
+    }
+
+    private static Map<String, Object> parameters(List<String> names, List<String> values) {
+        final Map<String, Object> parameters = new HashMap<>();
+        for (int i = 0; i < names.size() && i < values.size(); i++) {
+            parameters.put(names.get(i), values.get(i));
+        }
+        return parameters;
+    }
+
+    private static Segment[] compileSegments(String route) {
+        // Routes which contain regular expression syntax can't be matched a segment at a time
+        if (route.indexOf('?') >= 0 || route.indexOf('\\') >= 0) {
+            return null;
+        }
+
+        final String[] segments = route.split("/", -1);
+        final Segment[] compiled = new Segment[segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            compiled[i] = new Segment(segments[i]);
+        }
+        return compiled;
+    }
+
+    private static String escape(String route) {
+        final StringBuffer patternString = new StringBuffer();
+        final Matcher matcher = EscapePattern.matcher(route);
+        while (matcher.find()) {
+            matcher.appendReplacement(patternString, Matcher.quoteReplacement(Pattern.quote(matcher.group())));
+        }
+        matcher.appendTail(patternString);
+        return patternString.toString();
+    }
+
+    private static String compileSegment(String segment) {
+        final StringBuffer patternString = new StringBuffer();
+        final Matcher matcher = VariablePattern.matcher(escape(segment));
+        while (matcher.find()) {
+            matcher.appendReplacement(patternString, Matcher.quoteReplacement(VariableCapture));
+        }
+        matcher.appendTail(patternString);
+        return patternString.toString();
+    }
+
+    private static String compileRoute(String route, List<String> groupNames) {
+        final StringBuffer patternString = new StringBuffer();
+        final Matcher matcher = VariablePattern.matcher(escape(route));
+        while (matcher.find()) {
+            if (matcher.group().equals("*")) {
+                // 'splat' behavior could be bad to support from a debugging standpoint
+                throw new IllegalArgumentException("'splat' functionality is not supported by TeakLinks. Route: " + route);
+            }
+            groupNames.add(matcher.group().substring(1));
+            matcher.appendReplacement(patternString, Matcher.quoteReplacement(VariableCapture));
+        }
+        matcher.appendTail(patternString);
+
+        // Check for duplicate capture group names
+        final Set<String> set = new HashSet<>(groupNames);
+        if (set.size() < groupNames.size()) {
+            throw new IllegalArgumentException("Duplicate variable names in TeakLink for route: " + route);
+        }
+
+        return patternString.toString();
+    }
+}
@@ -1,11 +1,22 @@
 package io.teak.sdk.core;
 
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class Executors {
+    private static ExecutorService sharedExecutor;
+
+    // Unlike java.util.concurrent.Executors, these are not wrapped, so that their queues can be measured
+
     public static ExecutorService newSingleThreadExecutor() {
-        return java.util.concurrent.Executors.newSingleThreadExecutor(ThreadFactory.autonamed(5, "singleThreadExecutor"));
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), ThreadFactory.autonamed(5, "singleThreadExecutor"));
+        // An idle thread exits, so that an executor which is no longer used can be collected
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     public static ExecutorService newCachedThreadPool() {
@@ -13,6 +24,24 @@ public class Executors {
     }
 
     public static ScheduledExecutorService newSingleThreadScheduledExecutor() {
-        return java.util.concurrent.Executors.newSingleThreadScheduledExecutor(ThreadFactory.autonamed(5, "singleThreadScheduledExecutor"));
+        return new ScheduledThreadPoolExecutor(1, ThreadFactory.autonamed(5, "singleThreadScheduledExecutor"));
+    }
+
+    /**
+     * @param executor An executor created by this class.
+     * @return The number of tasks waiting to run on the executor.
+     */
+    public static int queueDepth(ExecutorService executor) {
+        return executor instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) executor).getQueue().size() : 0;
+    }
+
+    /**
+     * @return A cached thread pool shared by SDK work which would otherwise start its own thread.
+     */
+    public static synchronized ExecutorService sharedExecutor() {
+        if (sharedExecutor == null) {
+            sharedExecutor = java.util.concurrent.Executors.newCachedThreadPool(ThreadFactory.autonamed(3, "sharedExecutor"));
+        }
+        return sharedExecutor;
     }
 }
@@ -0,0 +1,50 @@
+package io.teak.sdk.core;
+
+import java.util.List;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Small key-value store for SDK state.
+ */
+public interface IKeyValueStore {
+    /**
+     * @param key The key.
+     * @return The value, or null if there is no value for the key.
+     */
+    @Nullable
+    String getString(@NonNull String key);
+
+    /**
+     * @param key   The key.
+     * @param value The value, or null to remove the key.
+     */
+    void putString(@NonNull String key, @Nullable String value);
+
+    /**
+     * @param key The key to remove, along with its value or list.
+     */
+    void remove(@NonNull String key);
+
+    /**
+     * @param key The key.
+     * @return A copy of the list, which is empty if there is no list for the key.
+     */
+    @NonNull
+    List<String> getList(@NonNull String key);
+
+    /**
+     * Add a value to the end of a list.
+     *
+     * @param key        The key.
+     * @param value      The value to add.
+     * @param maxEntries The maximum length of the list; the oldest entries are dropped.
+     */
+    void appendToList(@NonNull String key, @NonNull String value, int maxEntries);
+
+    /**
+     * Write any changes which are waiting to be written, and wait until they are stored.
+     */
+    void flushAndWait();
+}
@@ -0,0 +1,14 @@
+package io.teak.sdk.core;
+
+import androidx.annotation.Nullable;
+
+/**
+ * What a {@link io.teak.sdk.Request} needs to know about the Session it is sent for.
+ */
+public interface ISession {
+    /**
+     * @return The user id, or null if the session does not have one yet.
+     */
+    @Nullable
+    String userId();
+}
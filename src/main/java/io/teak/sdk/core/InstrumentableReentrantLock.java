@@ -1,13 +1,70 @@
 package io.teak.sdk.core;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
+import io.teak.sdk.io.ILogSink;
+import io.teak.sdk.io.Platform;
+import io.teak.sdk.metrics.Counter;
+import io.teak.sdk.metrics.Histogram;
+import io.teak.sdk.metrics.Metrics;
+
 @SuppressWarnings("WeakerAccess")
 public class InstrumentableReentrantLock extends ReentrantLock {
     public static boolean interruptLongLocksAndReport = false;
     public static long interruptTimeoutMS = 2;
 
+    ///// Contention profiling
+
+    private static volatile boolean profileContention = false;
+
+    // Capture the call site of one in this many contended acquisitions
+    private static final int CallSiteSampleInterval = 8;
+
+    // Most distinct call sites counted for each lock
+    private static final int MaxCallSitesPerLock = 16;
+
+    private final String name;
+    private final Histogram waitTimes;
+    private final Histogram holdTimes;
+    private final Counter contentions;
+    private final Map<String, Counter> callSites = new ConcurrentHashMap<>();
+    private int contendedAcquisitions;
+    private long holdStartNanos;
+
+    /**
+     * Profile lock contention in this process with the given probability.
+     *
+     * While profiling, contended acquisitions record how long they waited and, for a sample of
+     * them, where they were called from; and every lock records how long it is held. Results are
+     * reported as metrics named for each lock.
+     *
+     * @param sampleRate Chance, from 0 to 1, that this process is profiled.
+     * @return True if this process is profiled.
+     */
+    public static boolean setContentionProfileRate(double sampleRate) {
+        profileContention = sampleRate > 0.0 && Math.random() < sampleRate;
+        return profileContention;
+    }
+
+    public InstrumentableReentrantLock() {
+        this("lock");
+    }
+
+    /**
+     * @param name Name of the lock, used to name its metrics; locks which share a name share metrics.
+     */
+    public InstrumentableReentrantLock(String name) {
+        this.name = name;
+        this.waitTimes = Metrics.histogram("lock.wait_us." + name);
+        this.holdTimes = Metrics.histogram("lock.hold_us." + name);
+        this.contentions = Metrics.counter("lock.contended." + name);
+    }
+
     @Override
     public void lock() {
         if (interruptLongLocksAndReport) {
@@ -24,7 +81,7 @@ public class InstrumentableReentrantLock extends ReentrantLock {
                             backTrace.append("\n\t").append(element.toString());
                         }
                         lockRequestTrace = backTrace.toString();
-                        android.util.Log.v("Teak.Instrumentation", lockRequestTrace);
+                        Platform.logSink().println(ILogSink.VERBOSE, "Teak.Instrumentation", lockRequestTrace);
                     }
 
                     {
@@ -36,7 +93,7 @@ public class InstrumentableReentrantLock extends ReentrantLock {
                             backTrace.append("\n\t").append(element.toString());
                         }
                         lockHoldTrace = backTrace.toString();
-                        android.util.Log.v("Teak.Instrumentation", lockHoldTrace);
+                        Platform.logSink().println(ILogSink.VERBOSE, "Teak.Instrumentation", lockHoldTrace);
                     }
                 }
                 if (!this.tryLock(interruptTimeoutMS, TimeUnit.MILLISECONDS)) {
@@ -44,13 +101,68 @@ public class InstrumentableReentrantLock extends ReentrantLock {
                 }
             } catch (Exception e) {
                 String debugMessage = "Waited longer than " + interruptTimeoutMS + "ms to acquire lock.";
-                android.util.Log.e("Teak.Instrumentaiton", debugMessage, e);
-                android.util.Log.e("Teak.Instrumentaiton", lockRequestTrace, e);
-                android.util.Log.e("Teak.Instrumentaiton", lockHoldTrace, e);
+                final StringWriter stackTrace = new StringWriter();
+                e.printStackTrace(new PrintWriter(stackTrace));
+                Platform.logSink().println(ILogSink.ERROR, "Teak.Instrumentaiton", debugMessage + "\n" + stackTrace);
+                Platform.logSink().println(ILogSink.ERROR, "Teak.Instrumentaiton", lockRequestTrace + "\n" + stackTrace);
+                Platform.logSink().println(ILogSink.ERROR, "Teak.Instrumentaiton", lockHoldTrace + "\n" + stackTrace);
                 throw new RuntimeException(debugMessage);
             }
+        } else if (profileContention) {
+            this.profiledLock();
         } else {
             super.lock();
         }
     }
+
+    @Override
+    public void unlock() {
+        // Only the outermost unlock ends the hold, and only the owner reads or writes holdStartNanos
+        if (this.holdStartNanos != 0 && this.isHeldByCurrentThread() && this.getHoldCount() == 1) {
+            this.holdTimes.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - this.holdStartNanos));
+            this.holdStartNanos = 0;
+        }
+        super.unlock();
+    }
+
+    private void profiledLock() {
+        if (!super.tryLock()) {
+            final long waitStartNanos = System.nanoTime();
+            super.lock();
+            this.waitTimes.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - waitStartNanos));
+            this.contentions.increment();
+
+            // The lock is held, so this count needs no further synchronization
+            if (this.contendedAcquisitions++ % CallSiteSampleInterval == 0) {
+                this.countCallSite();
+            }
+        }
+
+        if (this.getHoldCount() == 1) {
+            this.holdStartNanos = System.nanoTime();
+        }
+    }
+
+    private void countCallSite() {
+        try {
+            String callSite = null;
+            for (StackTraceElement element : new Throwable().getStackTrace()) {
+                if (!InstrumentableReentrantLock.class.getName().equals(element.getClassName())) {
+                    final String className = element.getClassName();
+                    callSite = className.substring(className.lastIndexOf('.') + 1) + "." + element.getMethodName() + ":" + element.getLineNumber();
+                    break;
+                }
+            }
+            if (callSite == null) return;
+
+            Counter counter = this.callSites.get(callSite);
+            if (counter == null) {
+                if (this.callSites.size() >= MaxCallSitesPerLock) return;
+                counter = Metrics.counter("lock.call_site." + this.name + "." + callSite);
+                this.callSites.put(callSite, counter);
+            }
+            counter.increment();
+        } catch (Exception ignored) {
+        }
+    }
 }
@@ -0,0 +1,413 @@
+package io.teak.sdk.core;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.teak.sdk.Log;
+
+/**
+ * Small key-value store for SDK state, kept as an append-only binary log in the app's files
+ * directory.
+ *
+ * Each change is a single record, so updating one key never rewrites any other, and a record which
+ * was cut short by the process ending is discarded when the log is loaded. Once the log holds
+ * several times more records than there are live values, it is rewritten with only the live values.
+ *
+ * The log is loaded on a background thread; reads and writes wait for the load to finish.
+ */
+public class KeyValueStore implements IKeyValueStore {
+    private static final String STORE_FILE = "io.teak.sdk.KeyValueStore";
+    private static final byte OP_PUT = 1;
+    private static final byte OP_REMOVE = 2;
+    private static final byte OP_APPEND = 3;
+    private static final long FLUSH_DELAY_MS = 50;
+    private static final int MIN_RECORDS_BEFORE_COMPACTION = 64;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static IKeyValueStore Instance;
+
+    /**
+     * Start loading the store.
+     *
+     * @param directory Directory to keep the store in, such as the app's files directory.
+     */
+    public static synchronized void init(@NonNull File directory) {
+        if (Instance == null) {
+            Instance = new KeyValueStore(new File(directory, STORE_FILE));
+        }
+    }
+
+    /**
+     * Use another store, such as an in-memory one, instead of the one {@link #init(File)} loads.
+     *
+     * @param store The store, or null to have {@link #init(File)} load one again.
+     */
+    public static synchronized void set(@Nullable IKeyValueStore store) {
+        Instance = store;
+    }
+
+    @Nullable
+    public static synchronized IKeyValueStore get() {
+        return Instance;
+    }
+
+    private final File file;
+    private final Map<String, String> values = new HashMap<>();
+    private final Map<String, ArrayList<String>> lists = new HashMap<>();
+    private final ByteArrayOutputStream unflushed = new ByteArrayOutputStream();
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor();
+    private final CountDownLatch loaded = new CountDownLatch(1);
+    private boolean flushScheduled;
+    private int recordCount;
+
+    /**
+     * @param file The file which holds the log; it is created if it does not exist.
+     */
+    public KeyValueStore(@NonNull File file) {
+        this.file = file;
+        this.writer.execute(this::load);
+    }
+
+    @Override
+    @Nullable
+    public String getString(@NonNull String key) {
+        this.awaitLoaded();
+        synchronized (this) {
+            return this.values.get(key);
+        }
+    }
+
+    @Override
+    public void putString(@NonNull String key, @Nullable String value) {
+        if (value == null) {
+            this.remove(key);
+            return;
+        }
+
+        this.awaitLoaded();
+        synchronized (this) {
+            if (value.equals(this.values.get(key))) return;
+
+            this.apply(OP_PUT, key, value, 0);
+            this.append(OP_PUT, key, value, 0);
+        }
+    }
+
+    @Override
+    public void remove(@NonNull String key) {
+        this.awaitLoaded();
+        synchronized (this) {
+            if (!this.values.containsKey(key) && !this.lists.containsKey(key)) return;
+
+            this.apply(OP_REMOVE, key, null, 0);
+            this.append(OP_REMOVE, key, null, 0);
+        }
+    }
+
+    @Override
+    @NonNull
+    public List<String> getList(@NonNull String key) {
+        this.awaitLoaded();
+        synchronized (this) {
+            final List<String> list = this.lists.get(key);
+            return list == null ? new ArrayList<String>() : new ArrayList<>(list);
+        }
+    }
+
+    @Override
+    public void appendToList(@NonNull String key, @NonNull String value, int maxEntries) {
+        this.awaitLoaded();
+        synchronized (this) {
+            this.apply(OP_APPEND, key, value, maxEntries);
+            this.append(OP_APPEND, key, value, maxEntries);
+        }
+    }
+
+    @Override
+    public void flushAndWait() {
+        this.awaitLoaded();
+        try {
+            this.writer.submit(this::flush).get();
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Log.Shared.exception(e);
+        }
+    }
+
+    private void awaitLoaded() {
+        try {
+            this.loaded.await();
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Must hold 'this'
+    private void apply(byte op, String key, String value, int maxEntries) {
+        switch (op) {
+            case OP_PUT: {
+                this.lists.remove(key);
+                this.values.put(key, value);
+            } break;
+            case OP_REMOVE: {
+                this.lists.remove(key);
+                this.values.remove(key);
+            } break;
+            case OP_APPEND: {
+                this.values.remove(key);
+                ArrayList<String> list = this.lists.get(key);
+                if (list == null) {
+                    list = new ArrayList<>();
+                    this.lists.put(key, list);
+                }
+                list.add(value);
+                while (list.size() > maxEntries) {
+                    list.remove(0);
+                }
+            } break;
+        }
+    }
+
+    // Must hold 'this'
+    private void append(byte op, String key, String value, int maxEntries) {
+        try {
+            writeRecord(this.unflushed, op, key, value, maxEntries);
+            this.recordCount++;
+        } catch (IOException e) {
+            Log.Shared.exception(e);
+            return;
+        }
+
+        if (this.flushScheduled) return;
+
+        // Coalesce writes which happen close together
+        this.flushScheduled = true;
+        this.writer.schedule(this::flush, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void flush() {
+        final byte[] records;
+        final byte[] compacted;
+        synchronized (this) {
+            this.flushScheduled = false;
+            if (this.needsCompaction()) {
+                // The snapshot already contains the unflushed records
+                compacted = this.snapshot();
+                records = null;
+            } else {
+                compacted = null;
+                records = this.unflushed.toByteArray();
+            }
+            this.unflushed.reset();
+        }
+
+        if (compacted != null) {
+            this.writeCompacted(compacted);
+        } else if (records.length > 0) {
+            FileOutputStream out = null;
+            try {
+                out = new FileOutputStream(this.file, true);
+                out.write(records);
+                out.getFD().sync();
+            } catch (Exception e) {
+                Log.Shared.exception(e);
+            } finally {
+                closeQuietly(out);
+            }
+        }
+    }
+
+    private void load() {
+        boolean truncated = false;
+        DataInputStream in = null;
+        try {
+            synchronized (this) {
+                if (!this.file.exists()) return;
+
+                in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.file)));
+                final long fileLength = this.file.length();
+                while (true) {
+                    final int length;
+                    try {
+                        length = in.readInt();
+                    } catch (EOFException ignored) {
+                        break;
+                    }
+
+                    if (length <= 0 || length > fileLength) {
+                        truncated = true;
+                        break;
+                    }
+
+                    final byte[] record = new byte[length];
+                    try {
+                        in.readFully(record);
+                        this.readRecord(record);
+                        this.recordCount++;
+                    } catch (IOException ignored) {
+                        // A write which was interrupted by the process ending
+                        truncated = true;
+                        break;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            Log.Shared.exception(e, false);
+        } finally {
+            closeQuietly(in);
+            this.loaded.countDown();
+        }
+
+        final byte[] compacted;
+        synchronized (this) {
+            if (truncated || this.needsCompaction()) {
+                // The snapshot contains anything written since the load finished
+                compacted = this.snapshot();
+                this.unflushed.reset();
+            } else {
+                compacted = null;
+            }
+        }
+        if (compacted != null) {
+            this.writeCompacted(compacted);
+        }
+    }
+
+    // Must hold 'this'
+    private void readRecord(byte[] record) throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        final byte op = in.readByte();
+        final String key = readString(in);
+        switch (op) {
+            case OP_PUT:
+                this.apply(op, key, readString(in), 0);
+                break;
+            case OP_REMOVE:
+                this.apply(op, key, null, 0);
+                break;
+            case OP_APPEND: {
+                final int maxEntries = in.readInt();
+                this.apply(op, key, readString(in), maxEntries);
+            } break;
+            default:
+                throw new IOException("Unknown KeyValueStore op: " + op);
+        }
+    }
+
+    // Must hold 'this'
+    private boolean needsCompaction() {
+        return this.recordCount > MIN_RECORDS_BEFORE_COMPACTION && this.recordCount > this.liveRecordCount() * 4;
+    }
+
+    // Must hold 'this'
+    private int liveRecordCount() {
+        int count = this.values.size();
+        for (List<String> list : this.lists.values()) {
+            count += list.size();
+        }
+        return count;
+    }
+
+    // Must hold 'this'
+    private byte[] snapshot() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            for (Map.Entry<String, String> entry : this.values.entrySet()) {
+                writeRecord(out, OP_PUT, entry.getKey(), entry.getValue(), 0);
+            }
+            for (Map.Entry<String, ArrayList<String>> entry : this.lists.entrySet()) {
+                for (String value : entry.getValue()) {
+                    writeRecord(out, OP_APPEND, entry.getKey(), value, Integer.MAX_VALUE);
+                }
+            }
+        } catch (IOException e) {
+            Log.Shared.exception(e);
+        }
+        this.recordCount = this.liveRecordCount();
+        return out.toByteArray();
+    }
+
+    private void writeCompacted(byte[] compacted) {
+        final File temp = new File(this.file.getPath() + ".tmp");
+        FileOutputStream out = null;
+        try {
+            out = new FileOutputStream(temp);
+            out.write(compacted);
+            out.getFD().sync();
+        } catch (Exception e) {
+            Log.Shared.exception(e, false);
+            return;
+        } finally {
+            closeQuietly(out);
+        }
+
+        if (!temp.renameTo(this.file)) {
+            Log.Shared.e("key_value_store", "Failed to compact key value store.");
+        }
+    }
+
+    private static void writeRecord(ByteArrayOutputStream out, byte op, String key, String value, int maxEntries) throws IOException {
+        final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+        final DataOutputStream record = new DataOutputStream(recordBytes);
+        record.writeByte(op);
+        writeString(record, key);
+        if (op == OP_APPEND) {
+            record.writeInt(maxEntries);
+        }
+        if (op != OP_REMOVE) {
+            writeString(record, value);
+        }
+        record.flush();
+
+        final DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(recordBytes.size());
+        header.flush();
+        recordBytes.writeTo(out);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        final byte[] bytes = value.getBytes(UTF8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0 || length > in.available()) {
+            throw new EOFException();
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    private static void closeQuietly(@Nullable Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+}
@@ -5,14 +5,13 @@ import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
 
-import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.URL;
 import java.util.Locale;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
-import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
@@ -106,10 +105,13 @@ public class LaunchDataSource implements Future<Teak.LaunchData> {
 
     ////// Create a Future which will contain AttributionData from a resolved link
 
+    private static final Pattern SchemePattern = Pattern.compile("^[a-zA-Z0-9+.\\-_]*:");
+    private static final int LINK_RESOLUTION_TIMEOUT_MS = 5000;
+
     protected static Future<Teak.LaunchData> futureFromLinkResolution(@NonNull final Future<String> futureForUriOrNull) {
         final TeakConfiguration teakConfiguration = TeakConfiguration.get();
 
-        final FutureTask<Teak.LaunchData> returnTask = new FutureTask<Teak.LaunchData>(() -> {
+        return Executors.sharedExecutor().submit(() -> {
             Uri httpsUri = null;
 
             // Wait on the incoming Future
@@ -125,72 +127,92 @@ public class LaunchDataSource implements Future<Teak.LaunchData> {
 
             // Try and resolve any Teak links
             if (uri.getScheme() != null && (uri.getScheme().equals("http") || uri.getScheme().equals("https"))) {
-                HttpsURLConnection connection = null;
-                try {
-                    httpsUri = uri.buildUpon().scheme("https").build();
-                    URL url = new URL(httpsUri.toString());
-
-                    Teak.log.i("deep_link.request.send", url.toString());
-
-                    connection = (HttpsURLConnection) url.openConnection();
-                    connection.setUseCaches(false);
-                    connection.setRequestProperty("Accept-Charset", "UTF-8");
-                    connection.setRequestProperty("X-Teak-DeviceType", "API");
-                    connection.setRequestProperty("X-Teak-Supports-Templates", "TRUE");
-
-                    // Get Response
-                    InputStream is;
-                    if (connection.getResponseCode() < 400) {
-                        is = connection.getInputStream();
-                    } else {
-                        is = connection.getErrorStream();
-                    }
-                    BufferedReader rd = new BufferedReader(new InputStreamReader(is));
-                    String line;
-                    StringBuilder response = new StringBuilder();
-                    while ((line = rd.readLine()) != null) {
-                        response.append(line);
-                        response.append('\r');
-                    }
-                    rd.close();
-
-                    Teak.log.i("deep_link.request.reply", response.toString());
-
-                    try {
-                        JSONObject teakData = new JSONObject(response.toString());
-                        if (teakData.getString("AndroidPath") != null) {
-                            final String androidPath = teakData.getString("AndroidPath");
-                            final Pattern pattern = Pattern.compile("^[a-zA-Z0-9+.\\-_]*:");
-                            final Matcher matcher = pattern.matcher(androidPath);
-                            if (matcher.find()) {
-                                uri = Uri.parse(androidPath);
-                            } else {
-                                uri = Uri.parse(String.format(Locale.US, "teak%s://%s", teakConfiguration.appConfiguration.appId, androidPath));
-                            }
-                        } else {
-                            // Clear httpsUri, so that it won't get sent along to the AttributionData constructor
-                            httpsUri = null;
-                        }
-
-                        Teak.log.i("deep_link.request.resolve", uri.toString());
-                    } catch (Exception e) {
-                        Teak.log.exception(e);
-                    }
-                } catch (Exception e) {
-                    Teak.log.exception(e);
-                } finally {
-                    if (connection != null) {
-                        connection.disconnect();
-                    }
+                httpsUri = uri.buildUpon().scheme("https").build();
+
+                final ResolvedLinkCache cache = ResolvedLinkCache.get(teakConfiguration.appConfiguration.applicationContext);
+                final String appId = teakConfiguration.appConfiguration.appId;
+                final String link = httpsUri.toString();
+                ResolvedLinkCache.Entry resolved = cache.get(link);
+                if (resolved != null) {
+                    Teak.log.i("deep_link.request.cached", Helpers.mm.h("url", link, "resolved", resolved.resolvedUri));
+
+                    // Still let the server know about the click, but off of the launch path
+                    Executors.sharedExecutor().execute(() -> resolveTeakLink(link, appId, cache));
+                } else {
+                    resolved = resolveTeakLink(link, appId, cache);
+                }
+
+                if (resolved != null) {
+                    uri = Uri.parse(resolved.resolvedUri);
                 }
             }
 
             return launchDataFromUriPair(uri, httpsUri);
         });
+    }
+
+    private static ResolvedLinkCache.Entry resolveTeakLink(@NonNull final String link, final String appId, @NonNull final ResolvedLinkCache cache) {
+        HttpsURLConnection connection = null;
+        boolean responseRead = false;
+        try {
+            URL url = new URL(link);
+
+            Teak.log.i("deep_link.request.send", url.toString());
+
+            connection = (HttpsURLConnection) url.openConnection();
+            connection.setUseCaches(false);
+            connection.setConnectTimeout(LINK_RESOLUTION_TIMEOUT_MS);
+            connection.setReadTimeout(LINK_RESOLUTION_TIMEOUT_MS);
+            connection.setRequestProperty("Accept-Charset", "UTF-8");
+            connection.setRequestProperty("X-Teak-DeviceType", "API");
+            connection.setRequestProperty("X-Teak-Supports-Templates", "TRUE");
+
+            // Get Response
+            InputStream is;
+            if (connection.getResponseCode() < 400) {
+                is = connection.getInputStream();
+            } else {
+                is = connection.getErrorStream();
+            }
+            final Reader rd = new InputStreamReader(is, "UTF-8");
+            final StringBuilder response = new StringBuilder();
+            final char[] buffer = new char[1024];
+            int read;
+            while ((read = rd.read(buffer)) != -1) {
+                response.append(buffer, 0, read);
+            }
+            rd.close();
+            responseRead = true;
+
+            Teak.log.i("deep_link.request.reply", response.toString());
 
-        // Start it running, and return the Future
-        ThreadFactory.autoStart(returnTask);
-        return returnTask;
+            try {
+                final JSONObject teakData = new JSONObject(response.toString());
+                final String androidPath = teakData.getString("AndroidPath");
+
+                final String resolvedUri;
+                final Matcher matcher = SchemePattern.matcher(androidPath);
+                if (matcher.find()) {
+                    resolvedUri = androidPath;
+                } else {
+                    resolvedUri = String.format(Locale.US, "teak%s://%s", appId, androidPath);
+                }
+
+                Teak.log.i("deep_link.request.resolve", resolvedUri);
+
+                return cache.put(link, resolvedUri);
+            } catch (Exception e) {
+                Teak.log.exception(e);
+            }
+        } catch (Exception e) {
+            Teak.log.exception(e);
+        } finally {
+            // If the response was fully read, leave the connection to be reused
+            if (connection != null && !responseRead) {
+                connection.disconnect();
+            }
+        }
+        return null;
     }
 
     ////// implements Future
@@ -0,0 +1,325 @@
+package io.teak.sdk.core;
+
+import android.content.Context;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.teak.sdk.Request;
+import io.teak.sdk.Teak;
+import io.teak.sdk.json.JSONObject;
+
+/**
+ * Append-only, on-disk journal of purchase reports which the server has not yet acknowledged.
+ *
+ * Purchases are keyed by purchase token and product id, so a purchase which is reported more than
+ * once is only sent once. Reports which are still pending when the process ends are sent again
+ * the next time the journal is initialized.
+ *
+ * The journal is loaded on a background thread; calls which read or change it wait for the load
+ * to finish.
+ */
+public class PurchaseJournal {
+    private static final String JOURNAL_FILE = "io.teak.sdk.PurchaseJournal";
+    private static final int MAX_ACKNOWLEDGED_KEYS = 256;
+    private static final long FLUSH_DELAY_MS = 50;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static PurchaseJournal Instance;
+
+    /**
+     * Start loading the journal, and then re-send any purchases which were not acknowledged by the server.
+     *
+     * @param context Any Context.
+     */
+    public static synchronized void init(@NonNull Context context) {
+        if (Instance == null) {
+            Instance = new PurchaseJournal(new File(context.getFilesDir(), JOURNAL_FILE));
+            Instance.writer.execute(() -> Session.whenUserIdIsReadyRun(Instance::replay));
+        }
+    }
+
+    @Nullable
+    public static synchronized PurchaseJournal get() {
+        return Instance;
+    }
+
+    private final File file;
+    private final LinkedHashMap<String, Map<String, Object>> pending = new LinkedHashMap<>();
+    private final LinkedHashSet<String> acknowledged = new LinkedHashSet<>();
+    private final StringBuilder unflushed = new StringBuilder();
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor();
+    private final CountDownLatch loaded = new CountDownLatch(1);
+    private boolean flushScheduled;
+
+    /**
+     * @param file The journal file, which is created if it does not exist.
+     */
+    public PurchaseJournal(@NonNull File file) {
+        this.file = file;
+        this.writer.execute(this::load);
+    }
+
+    /**
+     * @param payload The payload for '/me/purchase'.
+     * @return A key which identifies the purchase; the same purchase always has the same key.
+     */
+    @NonNull
+    public static String keyFor(@NonNull Map<String, Object> payload) {
+        final Object purchaseToken = payload.get("purchase_token");
+        if (purchaseToken == null) {
+            return UUID.randomUUID().toString();
+        }
+        return purchaseToken + ":" + payload.get("product_id");
+    }
+
+    /**
+     * Add a purchase to the journal.
+     *
+     * @param key     The key of the purchase, from {@link #keyFor(Map)}.
+     * @param payload The payload for '/me/purchase'.
+     * @return false if the purchase is already pending, or has already been acknowledged.
+     */
+    public boolean record(@NonNull String key, @NonNull Map<String, Object> payload) {
+        this.awaitLoaded();
+        synchronized (this) {
+            if (this.pending.containsKey(key) || this.acknowledged.contains(key)) {
+                return false;
+            }
+
+            this.pending.put(key, payload);
+
+            final JSONObject line = new JSONObject();
+            line.put("key", key);
+            line.put("payload", new JSONObject(payload));
+            this.append(line);
+            return true;
+        }
+    }
+
+    /**
+     * Send a purchase to the server, and remove it from the journal once the server has replied.
+     *
+     * @param key     The key of the purchase.
+     * @param payload The payload for '/me/purchase'.
+     * @param session The Session to send it with.
+     */
+    public void submit(@NonNull final String key, @NonNull Map<String, Object> payload, @NonNull ISession session) {
+        Request.submit("/me/purchase", payload, session, (responseCode, responseBody) -> {
+            // Server errors and network failures are sent again on the next launch, any other
+            // reply means the server has seen the purchase.
+            if (responseCode >= 200 && responseCode < 500) {
+                this.acknowledge(key);
+            }
+        });
+    }
+
+    void acknowledge(@NonNull String key) {
+        this.awaitLoaded();
+        synchronized (this) {
+            if (this.pending.remove(key) == null) return;
+
+            this.addAcknowledged(key);
+
+            final JSONObject line = new JSONObject();
+            line.put("ack", key);
+            this.append(line);
+        }
+    }
+
+    /**
+     * @return The number of purchases which have not been acknowledged by the server.
+     */
+    public int getPendingCount() {
+        this.awaitLoaded();
+        synchronized (this) {
+            return this.pending.size();
+        }
+    }
+
+    /**
+     * Write anything recorded or acknowledged so far to the journal file, and wait for the write.
+     */
+    public void flushAndWait() {
+        this.awaitLoaded();
+        try {
+            this.writer.submit(this::flush).get();
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Teak.log.exception(e);
+        }
+    }
+
+    private void awaitLoaded() {
+        try {
+            this.loaded.await();
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Send every purchase which has not been acknowledged by the server again.
+     *
+     * @param session The Session to send them with.
+     */
+    public void replay(@NonNull ISession session) {
+        this.awaitLoaded();
+        final Map<String, Map<String, Object>> toReplay;
+        synchronized (this) {
+            toReplay = new LinkedHashMap<>(this.pending);
+        }
+
+        for (Map.Entry<String, Map<String, Object>> entry : toReplay.entrySet()) {
+            Teak.log.i("purchase.replay", entry.getValue());
+            this.submit(entry.getKey(), entry.getValue(), session);
+        }
+    }
+
+    private void addAcknowledged(String key) {
+        this.acknowledged.add(key);
+        final Iterator<String> iterator = this.acknowledged.iterator();
+        while (this.acknowledged.size() > MAX_ACKNOWLEDGED_KEYS && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private void append(JSONObject line) {
+        this.unflushed.append(line.toString()).append('\n');
+        if (this.flushScheduled) return;
+
+        // Coalesce writes which happen close together
+        this.flushScheduled = true;
+        this.writer.schedule(this::flush, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void flush() {
+        final String lines;
+        synchronized (this) {
+            lines = this.unflushed.toString();
+            this.unflushed.setLength(0);
+            this.flushScheduled = false;
+        }
+
+        if (lines.isEmpty()) return;
+
+        FileOutputStream out = null;
+        try {
+            out = new FileOutputStream(this.file, true);
+            out.write(lines.getBytes(UTF8));
+            out.getFD().sync();
+        } catch (Exception e) {
+            Teak.log.exception(e);
+        } finally {
+            closeQuietly(out);
+        }
+    }
+
+    private void load() {
+        BufferedReader reader = null;
+        try {
+            synchronized (this) {
+                if (!this.file.exists()) return;
+
+                reader = new BufferedReader(new InputStreamReader(new FileInputStream(this.file), UTF8));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    try {
+                        final JSONObject json = new JSONObject(line);
+                        if (json.has("ack")) {
+                            final String key = json.getString("ack");
+                            this.pending.remove(key);
+                            this.addAcknowledged(key);
+                        } else {
+                            final String key = json.getString("key");
+                            if (!this.acknowledged.contains(key)) {
+                                this.pending.put(key, new HashMap<>(json.getJSONObject("payload").toMap()));
+                            }
+                        }
+                    } catch (Exception ignored) {
+                        // A write which was interrupted by the process ending
+                    }
+                }
+            }
+        } catch (Exception e) {
+            Teak.log.exception(e, false);
+            return;
+        } finally {
+            closeQuietly(reader);
+            this.loaded.countDown();
+        }
+
+        this.compact();
+    }
+
+    // Runs on the writer, so no flush can append to the journal while it is replaced
+    private void compact() {
+        final List<String> lines = new ArrayList<>();
+        synchronized (this) {
+            for (String key : this.acknowledged) {
+                final JSONObject line = new JSONObject();
+                line.put("ack", key);
+                lines.add(line.toString());
+            }
+            for (Map.Entry<String, Map<String, Object>> entry : this.pending.entrySet()) {
+                final JSONObject line = new JSONObject();
+                line.put("key", entry.getKey());
+                line.put("payload", new JSONObject(entry.getValue()));
+                lines.add(line.toString());
+            }
+
+            // The compacted journal contains anything recorded since the load finished
+            this.unflushed.setLength(0);
+        }
+
+        final File compacted = new File(this.file.getPath() + ".tmp");
+        FileOutputStream out = null;
+        try {
+            out = new FileOutputStream(compacted);
+            for (String line : lines) {
+                out.write(line.getBytes(UTF8));
+                out.write('\n');
+            }
+            out.getFD().sync();
+        } catch (Exception e) {
+            Teak.log.exception(e, false);
+            return;
+        } finally {
+            closeQuietly(out);
+        }
+
+        if (!compacted.renameTo(this.file)) {
+            Teak.log.e("purchase.journal", "Failed to compact purchase journal.");
+        }
+    }
+
+    private static void closeQuietly(@Nullable Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package io.teak.sdk.core;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.teak.sdk.Teak;
+import io.teak.sdk.json.JSONObject;
+
+/**
+ * Small, persisted, time-limited cache of Teak links which have been resolved to deep links.
+ */
+public class ResolvedLinkCache {
+    private static final String PREFERENCE_RESOLVED_LINK_CACHE = "io.teak.sdk.Preferences.ResolvedLinkCache";
+    private static final int MAX_ENTRIES = 16;
+    private static final long TTL_MS = 24 * 60 * 60 * 1000L;
+
+    public static class Entry {
+        /**
+         * The deep link which the Teak link resolved to.
+         */
+        public final String resolvedUri;
+
+        final long expiresAt;
+
+        Entry(@NonNull String resolvedUri, long expiresAt) {
+            this.resolvedUri = resolvedUri;
+            this.expiresAt = expiresAt;
+        }
+
+        JSONObject toJson() {
+            final JSONObject json = new JSONObject();
+            json.put("resolved_uri", this.resolvedUri);
+            json.put("expires_at", this.expiresAt);
+            return json;
+        }
+    }
+
+    private static ResolvedLinkCache Instance;
+    public static synchronized ResolvedLinkCache get(@NonNull Context context) {
+        if (Instance == null) {
+            Instance = new ResolvedLinkCache(context);
+        }
+        return Instance;
+    }
+
+    private final SharedPreferences preferences;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(MAX_ENTRIES, 0.75f, true);
+
+    private ResolvedLinkCache(@NonNull Context context) {
+        SharedPreferences tempPreferences = null;
+        try {
+            tempPreferences = context.getSharedPreferences(Teak.PREFERENCES_FILE, Context.MODE_PRIVATE);
+            final String serialized = tempPreferences.getString(PREFERENCE_RESOLVED_LINK_CACHE, null);
+            if (serialized != null) {
+                final JSONObject json = new JSONObject(serialized);
+                final long now = System.currentTimeMillis();
+                for (String link : json.keySet()) {
+                    final JSONObject entry = json.getJSONObject(link);
+                    final long expiresAt = entry.getLong("expires_at");
+                    if (expiresAt > now) {
+                        this.entries.put(link, new Entry(entry.getString("resolved_uri"), expiresAt));
+                    }
+                }
+            }
+        } catch (Exception e) {
+            Teak.log.exception(e, false);
+        }
+        this.preferences = tempPreferences;
+    }
+
+    /**
+     * @param link The https Teak link.
+     * @return The cached resolution of the link, or null if it is not cached or has expired.
+     */
+    @Nullable
+    public synchronized Entry get(@NonNull String link) {
+        final Entry entry = this.entries.get(link);
+        if (entry == null) return null;
+
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            this.entries.remove(link);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Add, or replace, the resolution of a link and persist the cache.
+     *
+     * @param link        The https Teak link.
+     * @param resolvedUri The deep link the Teak link resolved to.
+     * @return The new cache entry.
+     */
+    @NonNull
+    public Entry put(@NonNull String link, @NonNull String resolvedUri) {
+        final Entry newEntry = new Entry(resolvedUri, System.currentTimeMillis() + TTL_MS);
+        final JSONObject json = new JSONObject();
+        synchronized (this) {
+            this.entries.put(link, newEntry);
+
+            // Evict the least recently used entries
+            final Iterator<Map.Entry<String, Entry>> iterator = this.entries.entrySet().iterator();
+            while (this.entries.size() > MAX_ENTRIES && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+
+            for (Map.Entry<String, Entry> entry : this.entries.entrySet()) {
+                json.put(entry.getKey(), entry.getValue().toJson());
+            }
+        }
+
+        if (this.preferences == null) return newEntry;
+        try {
+            synchronized (Teak.PREFERENCES_FILE) {
+                SharedPreferences.Editor editor = this.preferences.edit();
+                editor.putString(PREFERENCE_RESOLVED_LINK_CACHE, json.toString());
+                editor.apply();
+            }
+        } catch (Exception e) {
+            Teak.log.exception(e);
+        }
+        return newEntry;
+    }
+}
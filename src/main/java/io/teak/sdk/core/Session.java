@@ -4,9 +4,6 @@ import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Build;
-import android.os.Handler;
-import android.os.Looper;
-import android.os.SystemClock;
 
 import org.greenrobot.eventbus.EventBus;
 
@@ -45,10 +42,11 @@ import io.teak.sdk.event.PushRegistrationEvent;
 import io.teak.sdk.event.RemoteConfigurationEvent;
 import io.teak.sdk.event.SessionStateEvent;
 import io.teak.sdk.event.UserIdEvent;
+import io.teak.sdk.io.Platform;
 import io.teak.sdk.json.JSONObject;
 import io.teak.sdk.push.PushState;
 
-public class Session {
+public class Session implements ISession {
 
     @SuppressWarnings({"FieldCanBeLocal", "FieldMayBeFinal"}) // This can be changed by tests
     private static long SAME_SESSION_TIME_DELTA = 120000;
@@ -96,7 +94,7 @@ public class Session {
 
     private State state = State.Allocated;
     private State previousState = null;
-    private final InstrumentableReentrantLock stateLock = new InstrumentableReentrantLock();
+    private final InstrumentableReentrantLock stateLock = new InstrumentableReentrantLock("Session.stateLock");
     private final ExecutorService executionQueue = Executors.newSingleThreadExecutor();
     // endregion
 
@@ -142,7 +140,7 @@ public class Session {
 
     // Used specifically for creating the "null session" which is just used for code-intent clarity
     private Session(@NonNull String nullSessionId) {
-        this.startTimeMillis = SystemClock.elapsedRealtime();
+        this.startTimeMillis = Platform.clock().elapsedRealtime();
         this.sessionId = nullSessionId;
     }
 
@@ -156,7 +154,7 @@ public class Session {
         // - startTimeMillis
         // - appConfiguration
         // - deviceConfiguration
-        this.startTimeMillis = SystemClock.elapsedRealtime();
+        this.startTimeMillis = Platform.clock().elapsedRealtime();
         this.sessionId = UUID.randomUUID().toString().replace("-", "");
         this.serverSessionId = null;
         this.sessionVectorClock = 0;
@@ -175,7 +173,7 @@ public class Session {
         this.stateLock.lock();
         try {
             if (this.state == State.Expiring &&
-                (SystemClock.elapsedRealtime() - this.endTimeMillis > SAME_SESSION_TIME_DELTA)) {
+                (Platform.clock().elapsedRealtime() - this.endTimeMillis > SAME_SESSION_TIME_DELTA)) {
                 setState(State.Expired);
             }
             return (this.state == State.Expired);
@@ -252,7 +250,7 @@ public class Session {
                     }
 
                     // Run EventBus on the main thread
-                    new Handler(Looper.getMainLooper()).post(() -> {
+                    Platform.mainThread().post(() -> {
                         userIdReadyEventBusQueueLock.lock();
                         try {
                             for (Object event : userIdReadyEventBusQueue) {
@@ -281,7 +279,7 @@ public class Session {
                 } break;
 
                 case Expiring: {
-                    this.endTimeMillis = SystemClock.elapsedRealtime();
+                    this.endTimeMillis = Platform.clock().elapsedRealtime();
 
                     // Stop heartbeat, Expiring->Expiring is possible, so no invalid data here
                     if (this.heartbeatService != null) {
@@ -291,7 +289,7 @@ public class Session {
 
                     // Send UserProfile to server
                     if (this.userProfile != null) {
-                        TeakCore.operationQueue.execute(this.userProfile);
+                        TeakCore.operationQueue.execute(this.userProfile::sendChanges);
                     }
 
                     if(this.serverSessionId != null) {
@@ -333,6 +331,12 @@ public class Session {
             Teak.log.i("session.state", Helpers.mm.h("state", this.state.name, "old_state", this.previousState.name, "session_id", this.sessionId));
             TeakEvent.postEvent(new SessionStateEvent(this, this.state, this.previousState));
 
+            if (this.state == State.UserIdentified) {
+                StartupTimeline.complete("session." + this.state.name);
+            } else {
+                StartupTimeline.mark("session." + this.state.name);
+            }
+
             TeakConfiguration teakConfiguration = TeakConfiguration.get();
             //noinspection all - Seriously, that is not a simplification
             if (this.state == State.Created && teakConfiguration != null && teakConfiguration.remoteConfiguration != null) {
@@ -827,7 +831,7 @@ public class Session {
         }
     }
 
-    private static final InstrumentableReentrantLock userIdReadyEventBusQueueLock = new InstrumentableReentrantLock();
+    private static final InstrumentableReentrantLock userIdReadyEventBusQueueLock = new InstrumentableReentrantLock("Session.userIdReadyEventBusQueueLock");
     private static final ArrayList<Object> userIdReadyEventBusQueue = new ArrayList<>();
 
     public static void whenUserIdIsReadyPost(@NonNull Object event) {
@@ -846,7 +850,7 @@ public class Session {
                 try {
                     if (currentSession.state == State.UserIdentified) {
                         // Run EventBus on the main thread
-                        new Handler(Looper.getMainLooper()).post(() -> {
+                        Platform.mainThread().post(() -> {
                             EventBus.getDefault().post(event);
                         });
                     } else {
@@ -866,7 +870,7 @@ public class Session {
         }
     }
 
-    private static final InstrumentableReentrantLock userIdReadyRunnableQueueLock = new InstrumentableReentrantLock();
+    private static final InstrumentableReentrantLock userIdReadyRunnableQueueLock = new InstrumentableReentrantLock("Session.userIdReadyRunnableQueueLock");
     private static final ArrayList<WhenUserIdIsReadyRun> userIdReadyRunnableQueue = new ArrayList<>();
 
     public static void whenUserIdIsReadyRun(@NonNull SessionRunnable runnable) {
@@ -1072,6 +1076,7 @@ public class Session {
     }
 
     // region Accessors
+    @Override
     public String userId() {
         return userId;
     }
@@ -1079,7 +1084,7 @@ public class Session {
 
     // region Current Session
     private static Session currentSession;
-    private static final InstrumentableReentrantLock currentSessionLock = new InstrumentableReentrantLock();
+    private static final InstrumentableReentrantLock currentSessionLock = new InstrumentableReentrantLock("Session.currentSessionLock");
 
     private static void getCurrentSession() {
         currentSessionLock.lock();
@@ -1127,7 +1132,7 @@ public class Session {
     @NonNull
     public String toString() {
         try {
-            return String.format(Locale.US, "%s: %s", super.toString(), Teak.formatJSONForLogging(new JSONObject(this.toMap())));
+            return String.format(Locale.US, "%s: %s", super.toString(), Teak.formatJSONForLogging(JSONObject.view(this.toMap())));
         } catch (Exception ignored) {
             return super.toString();
         }
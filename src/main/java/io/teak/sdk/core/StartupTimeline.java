@@ -0,0 +1,56 @@
+package io.teak.sdk.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import io.teak.sdk.PackageMetadata;
+import io.teak.sdk.Teak;
+import io.teak.sdk.io.Platform;
+
+/**
+ * Records how long each step of SDK startup took, relative to the first step, and logs the
+ * result once as 'startup.timeline' when the first user is identified.
+ */
+public class StartupTimeline {
+    private static final Object mutex = new Object();
+    private static final LinkedHashMap<String, Long> marks = new LinkedHashMap<>();
+    private static long startTime = -1;
+    private static boolean reported = false;
+
+    /**
+     * Record the time at which a startup step completed. Only the first occurrence of each step is kept.
+     *
+     * @param step The name of the step.
+     */
+    public static void mark(@NonNull String step) {
+        final long now = Platform.clock().elapsedRealtime();
+        synchronized (mutex) {
+            if (reported || marks.containsKey(step)) return;
+
+            if (startTime < 0) {
+                startTime = now;
+            }
+            marks.put(step, now - startTime);
+        }
+    }
+
+    /**
+     * Record the final step of startup and log the timeline. Does nothing after the first call.
+     *
+     * @param step The name of the step.
+     */
+    public static void complete(@NonNull String step) {
+        mark(step);
+
+        final Map<String, Object> timeline = new LinkedHashMap<>();
+        synchronized (mutex) {
+            if (reported) return;
+            reported = true;
+
+            timeline.putAll(marks);
+        }
+        timeline.put("package_manager_calls", PackageMetadata.getBinderCallCount());
+        Teak.log.i("startup.timeline", timeline);
+    }
+}
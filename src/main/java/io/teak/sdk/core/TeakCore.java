@@ -6,18 +6,18 @@ import android.content.Intent;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 
 import org.greenrobot.eventbus.EventBus;
 
+import java.io.File;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.HttpsURLConnection;
 
@@ -43,7 +43,10 @@ import io.teak.sdk.event.RemoteConfigurationEvent;
 import io.teak.sdk.event.TrackEventEvent;
 import io.teak.sdk.io.DefaultAndroidNotification;
 import io.teak.sdk.io.DefaultAndroidResources;
-import io.teak.sdk.json.JSONObject;
+import io.teak.sdk.io.Platform;
+import io.teak.sdk.metrics.Metrics;
+import io.teak.sdk.metrics.Trace;
+import io.teak.sdk.push.PushPayload;
 
 public class TeakCore {
     private static TeakCore Instance = null;
@@ -72,7 +75,54 @@ public class TeakCore {
     private void registerStaticTeakEventListeners() {
         RemoteConfiguration.registerStaticEventListeners();
         Session.registerStaticEventListeners();
-        Request.registerStaticEventListeners();
+
+        // Request has no Android dependencies, so it is given its configuration from here
+        Request.setClientErrorListener(IntegrationChecker::addErrorToReport);
+        TeakConfiguration.addEventListener(configuration -> {
+            Request.setTeakApiKey(configuration.appConfiguration.apiKey);
+
+            final Map<String, Object> configurationPayload = new HashMap<>();
+            configurationPayload.put("sdk_version", Teak.Version);
+            configurationPayload.put("game_id", configuration.appConfiguration.appId);
+            configurationPayload.put("app_version", String.valueOf(configuration.appConfiguration.appVersion));
+            configurationPayload.put("app_version_name", String.valueOf(configuration.appConfiguration.appVersionName));
+            configurationPayload.put("bundle_id", configuration.appConfiguration.bundleId);
+            configurationPayload.put("appstore_name", configuration.appConfiguration.storeId);
+            if (configuration.appConfiguration.installerPackage != null) {
+                configurationPayload.put("installer_package", configuration.appConfiguration.installerPackage);
+            }
+
+            configurationPayload.put("device_id", configuration.deviceConfiguration.deviceId);
+            configurationPayload.put("sdk_platform", configuration.deviceConfiguration.platformString);
+            configurationPayload.put("device_manufacturer", configuration.deviceConfiguration.deviceManufacturer);
+            configurationPayload.put("device_model", configuration.deviceConfiguration.deviceModel);
+            configurationPayload.put("device_fallback", configuration.deviceConfiguration.deviceFallback);
+            configurationPayload.put("device_memory_class", configuration.deviceConfiguration.memoryClass);
+
+            if (configuration.debugConfiguration.isDebug()) {
+                configurationPayload.put("debug", true);
+            }
+            Request.addConfigurationPayload(configurationPayload);
+        });
+    }
+
+    private void submitPurchase(@NonNull Map<String, Object> payload) {
+        final PurchaseJournal journal = PurchaseJournal.get();
+        if (journal == null) {
+            asyncExecutor.execute(() -> Session.whenUserIdIsReadyRun(session -> Request.submit("/me/purchase", payload, session)));
+            return;
+        }
+
+        // Journal the purchase so that it survives the process ending before the server has it,
+        // off this thread because recording waits for the journal to finish loading
+        final String key = PurchaseJournal.keyFor(payload);
+        asyncExecutor.execute(() -> {
+            if (!journal.record(key, payload)) {
+                Teak.log.i("purchase.duplicate", Helpers.mm.h("key", key));
+                return;
+            }
+            Session.whenUserIdIsReadyRun(session -> journal.submit(key, payload, session));
+        });
     }
 
     @SuppressWarnings("FieldCanBeLocal")
@@ -85,19 +135,33 @@ public class TeakCore {
                     if (!intent.getBooleanExtra("teakProcessedForPush", false)) {
                         intent.putExtra("teakProcessedForPush", true);
                     }
+                    startMetricsReports();
+                    break;
+                }
+                case LifecycleEvent.Paused: {
+                    stopMetricsReports();
+                    if (Trace.isEnabled()) {
+                        final File traceFile = new File(((LifecycleEvent) event).context.getCacheDir(), "teak-trace.json");
+                        asyncExecutor.execute(() -> {
+                            if (Trace.exportChromeTrace(traceFile)) {
+                                Teak.log.i("trace.exported", Helpers.mm.h("path", traceFile.getAbsolutePath()));
+                            }
+                        });
+                    }
                     break;
                 }
                 case TrackEventEvent.Type: {
                     final Map<String, Object> payload = ((TrackEventEvent) event).payload;
+                    final long spanId = event.spanId;
 
-                    asyncExecutor.execute(() -> Session.whenUserIdIsReadyRun(session -> Request.submit("/me/events", payload, session)));
+                    asyncExecutor.execute(() -> Trace.run(spanId, "TeakCore.async", () -> Session.whenUserIdIsReadyRun(session -> Trace.run(spanId, "Session.userIdReady", () -> Request.submit("/me/events", payload, session)))));
                     break;
                 }
                 case PurchaseEvent.Type: {
                     final Map<String, Object> payload = ((PurchaseEvent) event).payload;
                     Teak.log.i("purchase.succeeded", payload);
 
-                    asyncExecutor.execute(() -> Session.whenUserIdIsReadyRun(session -> Request.submit("/me/purchase", payload, session)));
+                    submitPurchase(payload);
                     break;
                 }
                 case PurchaseFailedEvent.Type: {
@@ -105,13 +169,13 @@ public class TeakCore {
                     payload.put("errorCode", ((PurchaseFailedEvent) event).errorCode);
                     Teak.log.i("purchase.failed", payload);
 
-                    asyncExecutor.execute(() -> Session.whenUserIdIsReadyRun(session -> Request.submit("/me/purchase", payload, session)));
+                    submitPurchase(payload);
                     break;
                 }
                 case RemoteConfigurationEvent.Type: {
                     final RemoteConfiguration configuration = ((RemoteConfigurationEvent) event).remoteConfiguration;
                     final Teak.ConfigurationDataEvent sdkEvent = new Teak.ConfigurationDataEvent(configuration);
-                    new Handler(Looper.getMainLooper()).post(() -> {
+                    Platform.mainThread().post(() -> {
                         EventBus.getDefault().post(sdkEvent);
                     });
                     break;
@@ -125,21 +189,9 @@ public class TeakCore {
 
                     final boolean isUnitTest = bundle.getBoolean("teakUnitTest");
 
-                    // Debug output
-                    HashMap<String, Object> debugHash = new HashMap<>();
-                    Set<String> keys = bundle.keySet();
-                    for (String key : keys) {
-                        Object o = bundle.get(key);
-                        if (o instanceof String) {
-                            try {
-                                JSONObject jsonObject = new JSONObject(o.toString());
-                                o = jsonObject.toMap();
-                            } catch (Exception ignored) {
-                            }
-                        }
-                        debugHash.put(key, o);
-                    }
-                    Teak.log.i("notification.received", debugHash);
+                    // Decode once, shared by debug output, TeakNotification and NotificationBuilder
+                    final PushPayload pushPayload = new PushPayload(bundle);
+                    Teak.log.i("notification.received", pushPayload.toDebugMap());
 
                     // If the session is not expiring or expired, we are in the foreground
                     // If we're not supposed to show notifications in the foreground, trigger the
@@ -186,7 +238,7 @@ public class TeakCore {
                     }
 
                     // Create Teak Notification
-                    final TeakNotification teakNotification = new TeakNotification(bundle, gameIsInForeground);
+                    final TeakNotification teakNotification = new TeakNotification(pushPayload, gameIsInForeground);
 
                     // Create & display native notification asynchronously, image downloads etc
                     asyncExecutor.submit(new RetriableTask<>(3, 2000L, 2, () -> {
@@ -282,4 +334,49 @@ public class TeakCore {
     private final ExecutorService asyncExecutor = Executors.newCachedThreadPool();
 
     static final ScheduledExecutorService operationQueue = Executors.newSingleThreadScheduledExecutor();
+
+    ///// Metrics
+
+    private static final long MetricsReportIntervalMinutes = 5;
+
+    private static ScheduledFuture<?> metricsReports;
+
+    static {
+        Metrics.registerGauge("operation.queue_depth", () -> Executors.queueDepth(operationQueue));
+    }
+
+    // Reports are only sent while the app is in the foreground
+    private static synchronized void startMetricsReports() {
+        if (metricsReports == null) {
+            metricsReports = operationQueue.scheduleWithFixedDelay(TeakCore::reportMetrics, MetricsReportIntervalMinutes, MetricsReportIntervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    private static synchronized void stopMetricsReports() {
+        if (metricsReports != null) {
+            metricsReports.cancel(false);
+            metricsReports = null;
+        }
+    }
+
+    private static void reportMetrics() {
+        try {
+            // Taking the snapshot starts a new interval, so leave it until the report can be sent
+            if (!Request.hasTeakApiKey()) {
+                return;
+            }
+
+            final Map<String, Object> metrics = Metrics.snapshotSinceLastReport();
+            if (metrics.isEmpty()) {
+                return;
+            }
+
+            final Map<String, Object> payload = new HashMap<>();
+            payload.put("metrics", metrics);
+            payload.put("interval_minutes", MetricsReportIntervalMinutes);
+            Request.submit("parsnip.gocarrot.com", Request.METRICS_REPORT_ENDPOINT, payload, Session.NullSession);
+        } catch (Exception e) {
+            Teak.log.exception(e, false);
+        }
+    }
 }
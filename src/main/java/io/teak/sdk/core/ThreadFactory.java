@@ -2,6 +2,8 @@ package io.teak.sdk.core;
 
 import androidx.annotation.NonNull;
 import io.teak.sdk.BuildConfig;
+import io.teak.sdk.io.ILogSink;
+import io.teak.sdk.io.Platform;
 
 public class ThreadFactory implements java.util.concurrent.ThreadFactory {
     public final String threadNamePrefix;
@@ -23,7 +25,7 @@ public class ThreadFactory implements java.util.concurrent.ThreadFactory {
                 final String logOut = String.format("%s :: Total Created %d",
                     name,
                     currentThreadsCreated);
-                android.util.Log.e("Teak#ThreadFactory", logOut);
+                Platform.logSink().println(ILogSink.ERROR, "Teak#ThreadFactory", logOut);
             } catch (Exception ignored) {
             }
         }
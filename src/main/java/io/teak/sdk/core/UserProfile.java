@@ -1,6 +1,7 @@
 package io.teak.sdk.core;
 
 import java.security.InvalidParameterException;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ScheduledFuture;
@@ -8,21 +9,46 @@ import java.util.concurrent.TimeUnit;
 
 import androidx.annotation.NonNull;
 import io.teak.sdk.Request;
-import io.teak.sdk.TeakEvent;
-import io.teak.sdk.configuration.RemoteConfiguration;
-import io.teak.sdk.event.RemoteConfigurationEvent;
+import io.teak.sdk.configuration.EndpointConfiguration;
 import io.teak.sdk.json.JSONObject;
 
+/**
+ * The user's profile attributes, sent to '/me/profile' as they change.
+ *
+ * Changes are collected for the '/me/profile' batch time and then sent together; each send
+ * carries only the attributes which changed, and a profile_version which increases with every
+ * send. A send which fails is retried with the same payload, on the retry schedule configured for
+ * '/me/profile'. Once its retries are exhausted, its attributes are marked as changed again and go
+ * out with the next send, which is made on the next change or when the session ends. Only one send
+ * is in flight at a time; changes made meanwhile are sent once it is answered.
+ */
 public class UserProfile extends Request {
-    private final Map<String, Object> stringAttributes;
-    private final Map<String, Object> numberAttributes;
     private final String context;
 
+    // Attribute keys are fixed by the server, so values are stored by index
+    private final Map<String, Integer> stringIndex = new HashMap<>();
+    private final String[] stringKeys;
+    private final Object[] stringValues;
+    private final BitSet dirtyStrings;
+
+    private final Map<String, Integer> numberIndex = new HashMap<>();
+    private final String[] numberKeys;
+    private final double[] numberValues;
+    private final boolean[] numberIsNull;
+    private final BitSet dirtyNumbers;
+
+    // Guarded by 'this'
+    private long version = 0L;
     private long firstSetTime = 0L;
     private ScheduledFuture<?> scheduledSend;
 
+    // The send which is in flight, and its attributes
+    private boolean sending;
+    private BitSet sentStrings;
+    private BitSet sentNumbers;
+
     UserProfile(@NonNull Session session, @NonNull Map<String, Object> userProfile) {
-        super(RemoteConfiguration.getHostnameForEndpoint("/me/profile", Request.remoteConfiguration), "/me/profile", new HashMap<>(), session, null, true);
+        super(EndpointConfiguration.getHostnameForEndpoint("/me/profile", Request.endpointConfiguration), "/me/profile", new HashMap<>(), session, null, true);
 
         if (!(userProfile.get("context") instanceof String)) {
             throw new InvalidParameterException("User Profile value 'context' is not a String");
@@ -34,89 +60,161 @@ public class UserProfile extends Request {
             throw new InvalidParameterException("User Profile value 'number_attributes' is not a Map");
         }
 
-        // Insert JSONObject.NULL so that we feed the server what it wants
         @SuppressWarnings("unchecked")
         Map<String, Object> string_attributes = (Map<String, Object>) userProfile.get("string_attributes");
-        for (String key : string_attributes.keySet()) {
-            if (string_attributes.get(key) == null) {
-                string_attributes.put(key, JSONObject.NULL);
-            }
+        this.stringKeys = new String[string_attributes.size()];
+        this.stringValues = new Object[string_attributes.size()];
+        this.dirtyStrings = new BitSet(string_attributes.size());
+        int i = 0;
+        for (Map.Entry<String, Object> entry : string_attributes.entrySet()) {
+            this.stringIndex.put(entry.getKey(), i);
+            this.stringKeys[i] = entry.getKey();
+            // Insert JSONObject.NULL so that we feed the server what it wants
+            this.stringValues[i] = entry.getValue() == null ? JSONObject.NULL : entry.getValue();
+            i++;
         }
 
         @SuppressWarnings("unchecked")
         Map<String, Object> number_attributes = (Map<String, Object>) userProfile.get("number_attributes");
-        for (String key : number_attributes.keySet()) {
-            if (number_attributes.get(key) == null) {
-                number_attributes.put(key, JSONObject.NULL);
+        this.numberKeys = new String[number_attributes.size()];
+        this.numberValues = new double[number_attributes.size()];
+        this.numberIsNull = new boolean[number_attributes.size()];
+        this.dirtyNumbers = new BitSet(number_attributes.size());
+        i = 0;
+        for (Map.Entry<String, Object> entry : number_attributes.entrySet()) {
+            this.numberIndex.put(entry.getKey(), i);
+            this.numberKeys[i] = entry.getKey();
+            if (entry.getValue() instanceof Number) {
+                this.numberValues[i] = ((Number) entry.getValue()).doubleValue();
+            } else {
+                this.numberIsNull[i] = true;
             }
+            i++;
         }
 
-        this.stringAttributes = string_attributes;
-        this.numberAttributes = number_attributes;
         this.context = (String) userProfile.get("context");
     }
 
+    /**
+     * Send the attributes which have changed; Request also runs this to retry a send.
+     */
     @Override
     public void run() {
-        // If this has no scheduledSend then it has no pending updates
-        if (this.scheduledSend != null) {
-            this.scheduledSend.cancel(false);
-            this.scheduledSend = null;
+        final boolean retrying;
+        synchronized (this) {
+            retrying = this.sending;
+        }
 
-            this.payload.put("context", this.context);
-            this.payload.put("string_attributes", this.stringAttributes);
-            this.payload.put("number_attributes", this.numberAttributes);
+        if (retrying) {
+            super.run();
+        } else {
+            this.sendChanges();
+        }
+    }
 
-            final long msElapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.firstSetTime);
-            this.payload.put("ms_since_first_event", msElapsed);
+    void sendChanges() {
+        final Map<String, Object> stringAttributes = new HashMap<>();
+        final Map<String, Object> numberAttributes = new HashMap<>();
+        final long msElapsed;
+        final long version;
+        synchronized (this) {
+            // Changes wait for the send in flight, or nothing has changed since the last send
+            if (this.sending) return;
+            if (this.dirtyStrings.isEmpty() && this.dirtyNumbers.isEmpty()) return;
+
+            if (this.scheduledSend != null) {
+                this.scheduledSend.cancel(false);
+                this.scheduledSend = null;
+            }
 
-            super.run();
+            for (int i = this.dirtyStrings.nextSetBit(0); i >= 0; i = this.dirtyStrings.nextSetBit(i + 1)) {
+                stringAttributes.put(this.stringKeys[i], this.stringValues[i]);
+            }
+            for (int i = this.dirtyNumbers.nextSetBit(0); i >= 0; i = this.dirtyNumbers.nextSetBit(i + 1)) {
+                numberAttributes.put(this.numberKeys[i], this.numberIsNull[i] ? JSONObject.NULL : this.numberValues[i]);
+            }
+            this.sentStrings = (BitSet) this.dirtyStrings.clone();
+            this.sentNumbers = (BitSet) this.dirtyNumbers.clone();
+            this.dirtyStrings.clear();
+            this.dirtyNumbers.clear();
+            this.sending = true;
 
+            msElapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.firstSetTime);
             this.firstSetTime = 0;
+            version = ++this.version;
         }
-    }
 
-    public void setNumericAttribute(@NonNull String key, double value) {
-        setAttribute(this.numberAttributes, key, value);
-    }
+        // Only the attributes which changed are sent
+        this.payload.put("context", this.context);
+        this.payload.put("string_attributes", stringAttributes);
+        this.payload.put("number_attributes", numberAttributes);
+        this.payload.put("profile_version", version);
+        this.payload.put("ms_since_first_event", msElapsed);
 
-    public void setStringAttribute(@NonNull String key, String value) {
-        setAttribute(this.stringAttributes, key, value);
+        this.resetRetries();
+        super.run();
     }
 
-    private void setAttribute(@NonNull final Map<String, Object> map, @NonNull final String key, @NonNull final Object value) {
-        if (map.containsKey(key)) {
-            if (this.firstSetTime == 0) {
-                this.firstSetTime = System.nanoTime();
-            }
+    @Override
+    protected void onRequestCompleted(int responseCode, String responseBody) {
+        if (!this.willRetry(responseCode)) {
+            synchronized (this) {
+                final boolean changedWhileSending = !this.dirtyStrings.isEmpty() || !this.dirtyNumbers.isEmpty();
+
+                // Retries are exhausted, so send these attributes again with the next send
+                if (responseCode >= 500) {
+                    this.dirtyStrings.or(this.sentStrings);
+                    this.dirtyNumbers.or(this.sentNumbers);
+                }
+                this.sending = false;
+                this.sentStrings = null;
+                this.sentNumbers = null;
 
-            TeakCore.operationQueue.execute(() -> {
-                boolean safeNotEqual = true;
-                try {
-                    safeNotEqual = !value.equals(map.get(key));
-                } catch (Exception ignored) {
+                if (changedWhileSending) {
+                    this.scheduleSend();
                 }
+            }
+        }
 
-                if (safeNotEqual) {
-                    if (UserProfile.this.scheduledSend != null) {
-                        UserProfile.this.scheduledSend.cancel(false);
-                    }
+        super.onRequestCompleted(responseCode, responseBody);
+    }
 
-                    // Update value
-                    map.put(key, value);
+    public void setNumericAttribute(@NonNull String key, double value) {
+        final Integer index = this.numberIndex.get(key);
+        if (index == null) return;
 
-                    UserProfile.this.scheduledSend = TeakCore.operationQueue.schedule(UserProfile.this,
-                        (long) (UserProfile.this.batch.time * 1000.0f), TimeUnit.MILLISECONDS);
-                }
-            });
+        synchronized (this) {
+            if (!this.numberIsNull[index] && this.numberValues[index] == value) return;
+
+            this.numberValues[index] = value;
+            this.numberIsNull[index] = false;
+            this.dirtyNumbers.set(index);
+            this.scheduleSend();
         }
     }
 
-    static {
-        TeakEvent.addEventListener(event -> {
-            if (event.eventType.equals(RemoteConfigurationEvent.Type)) {
-                RemoteConfiguration remoteConfiguration = ((RemoteConfigurationEvent) event).remoteConfiguration;
-            }
-        });
+    public void setStringAttribute(@NonNull String key, String value) {
+        final Integer index = this.stringIndex.get(key);
+        if (index == null) return;
+
+        final Object newValue = value == null ? JSONObject.NULL : value;
+        synchronized (this) {
+            if (newValue.equals(this.stringValues[index])) return;
+
+            this.stringValues[index] = newValue;
+            this.dirtyStrings.set(index);
+            this.scheduleSend();
+        }
+    }
+
+    // Must hold 'this'. One timer covers every change until the next send.
+    private void scheduleSend() {
+        if (this.firstSetTime == 0) {
+            this.firstSetTime = System.nanoTime();
+        }
+
+        if (this.scheduledSend == null || this.scheduledSend.isDone()) {
+            this.scheduledSend = TeakCore.operationQueue.schedule(this::sendChanges, (long) (this.batch.time * 1000.0f), TimeUnit.MILLISECONDS);
+        }
     }
 }
@@ -2,8 +2,8 @@ package io.teak.sdk.event;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import io.teak.sdk.Helpers;
 import io.teak.sdk.TeakEvent;
+import io.teak.sdk.core.CoreHelpers;
 import java.math.BigInteger;
 import java.util.HashMap;
 import java.util.Map;
@@ -27,8 +27,8 @@ public class TrackEventEvent extends TeakEvent {
     public static boolean payloadEquals(@NonNull Map<String, Object> a, @Nullable Map<String, Object> b) {
         if (b == null) return false;
         if (!a.get(ActionIdKey).equals(b.get(ActionIdKey))) return false;
-        if (!Helpers.is_equal(a.get(ObjectIdKey), b.get(ObjectIdKey))) return false;
-        return Helpers.is_equal(a.get(ObjectInstanceIdKey), b.get(ObjectInstanceIdKey));
+        if (!CoreHelpers.is_equal(a.get(ObjectIdKey), b.get(ObjectIdKey))) return false;
+        return CoreHelpers.is_equal(a.get(ObjectInstanceIdKey), b.get(ObjectInstanceIdKey));
     }
 
     public static Map<String, Object> payloadForEvent(final @NonNull String actionId, final @Nullable String objectTypeId, final @Nullable String objectInstanceId, final long duration) {
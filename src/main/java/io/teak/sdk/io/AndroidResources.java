@@ -1,23 +1,16 @@
 package io.teak.sdk.io;
 
 import android.content.Context;
-import android.content.pm.ApplicationInfo;
-import android.content.pm.PackageManager;
 import android.os.Bundle;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import io.teak.sdk.PackageMetadata;
 
 public class AndroidResources implements IAndroidResources {
     public AndroidResources(@NonNull Context context, @NonNull IAndroidResources androidResources) {
         this.androidResources = androidResources;
 
-        Bundle tempMetaData = null;
-        try {
-            final ApplicationInfo appInfo = context.getPackageManager().getApplicationInfo(context.getPackageName(), PackageManager.GET_META_DATA);
-            tempMetaData = appInfo.metaData;
-        } catch (Exception ignored) {
-        }
-        this.metaData = tempMetaData;
+        this.metaData = PackageMetadata.get(context).getMetaData(context);
     }
 
     private final IAndroidResources androidResources;
@@ -21,7 +21,6 @@ import java.io.InputStreamReader;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.FutureTask;
 import java.util.regex.Pattern;
 
 import androidx.annotation.NonNull;
@@ -31,7 +30,7 @@ import io.teak.sdk.IntegrationChecker;
 import io.teak.sdk.RetriableTask;
 import io.teak.sdk.Teak;
 import io.teak.sdk.TeakEvent;
-import io.teak.sdk.core.ThreadFactory;
+import io.teak.sdk.core.Executors;
 import io.teak.sdk.event.AdvertisingInfoEvent;
 
 public class DefaultAndroidDeviceInfo implements IAndroidDeviceInfo {
@@ -148,17 +147,17 @@ public class DefaultAndroidDeviceInfo implements IAndroidDeviceInfo {
         // First try to use Google Play
         boolean usingGooglePlayForAdId = false;
         try {
-            final FutureTask<AdvertisingIdClient.Info> adInfoFuture = new FutureTask<>(new RetriableTask<>(10, 7000L, () -> {
-                if (isGooglePlayServicesAvailable()) {
-                    return AdvertisingIdClient.getAdvertisingIdInfo(context);
-                }
-                throw new Exception("Retrying GooglePlayServicesUtil.isGooglePlayServicesAvailable()");
-            }));
-
             if (isGooglePlayServicesAvailable()) {
-                ThreadFactory.autoStart(() -> {
+                final RetriableTask<AdvertisingIdClient.Info> adInfoTask = new RetriableTask<>(10, 7000L, () -> {
+                    if (isGooglePlayServicesAvailable()) {
+                        return AdvertisingIdClient.getAdvertisingIdInfo(context);
+                    }
+                    throw new Exception("Retrying GooglePlayServicesUtil.isGooglePlayServicesAvailable()");
+                });
+
+                Executors.sharedExecutor().execute(() -> {
                     try {
-                        final AdvertisingIdClient.Info adInfo = adInfoFuture.get();
+                        final AdvertisingIdClient.Info adInfo = adInfoTask.call();
                         if (adInfo != null) {
                             final String advertisingId = adInfo.getId();
                             final boolean limitAdTracking = adInfo.isLimitAdTrackingEnabled();
@@ -170,9 +169,6 @@ public class DefaultAndroidDeviceInfo implements IAndroidDeviceInfo {
                     }
                 });
 
-                // Only start running the future if we get this far
-                ThreadFactory.autoStart(adInfoFuture);
-
                 // And we're good
                 usingGooglePlayForAdId = true;
             }
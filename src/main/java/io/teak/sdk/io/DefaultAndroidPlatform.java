@@ -0,0 +1,38 @@
+package io.teak.sdk.io;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import io.teak.sdk.Unobfuscable;
+
+// Unobfuscable, because Platform loads it by name
+public class DefaultAndroidPlatform implements IClock, IMainThread, ILogSink, Unobfuscable {
+    private Handler mainThreadHandler;
+
+    @Override
+    public long elapsedRealtime() {
+        return SystemClock.elapsedRealtime();
+    }
+
+    @Override
+    public void post(@NonNull Runnable runnable) {
+        synchronized (this) {
+            if (this.mainThreadHandler == null) {
+                this.mainThreadHandler = new Handler(Looper.getMainLooper());
+            }
+        }
+        this.mainThreadHandler.post(runnable);
+    }
+
+    @Override
+    public boolean isLoggable(@NonNull String tag, int priority) {
+        return android.util.Log.isLoggable(tag, priority);
+    }
+
+    @Override
+    public void println(int priority, @NonNull String tag, @NonNull String message) {
+        android.util.Log.println(priority, tag, message);
+    }
+}
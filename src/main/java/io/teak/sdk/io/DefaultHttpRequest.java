@@ -13,14 +13,20 @@ import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.net.UnknownHostException;
+import java.util.Map;
 
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLException;
 
 public class DefaultHttpRequest implements IHttpRequest {
     @Override
-    @SuppressWarnings("TryWithIdenticalCatches")
     public Response synchronousRequest(final URL url, final String method, final String requestBody, final String sig) throws IOException {
+        return synchronousRequest(url, method, requestBody, sig, null);
+    }
+
+    @Override
+    @SuppressWarnings("TryWithIdenticalCatches")
+    public Response synchronousRequest(final URL url, final String method, final String requestBody, final String sig, final Map<String, String> headers) throws IOException {
         Response ret = Response.ERROR_RESPONSE;
 
         HttpURLConnection connection = null;
@@ -41,6 +47,11 @@ public class DefaultHttpRequest implements IHttpRequest {
             connection.setRequestProperty("Content-Type", "application/json");
             connection.setRequestProperty("Content-Length",
                 "" + requestBody.getBytes().length);
+            if (headers != null) {
+                for (Map.Entry<String, String> header : headers.entrySet()) {
+                    connection.setRequestProperty(header.getKey(), header.getValue());
+                }
+            }
 
             // Send request
             DataOutputStream wr = new DataOutputStream(connection.getOutputStream());
@@ -55,14 +66,17 @@ public class DefaultHttpRequest implements IHttpRequest {
             } else {
                 is = connection.getErrorStream();
             }
-            rd = new BufferedReader(new InputStreamReader(is));
-            String line;
             StringBuilder response = new StringBuilder();
-            while ((line = rd.readLine()) != null) {
-                response.append(line);
-                response.append('\r');
+            // A 304 Not Modified has no body
+            if (is != null) {
+                rd = new BufferedReader(new InputStreamReader(is));
+                String line;
+                while ((line = rd.readLine()) != null) {
+                    response.append(line);
+                    response.append('\r');
+                }
+                rd.close();
             }
-            rd.close();
             ret = new Response(connection.getResponseCode(), response.toString(), connection.getHeaderFields());
         } catch (UnknownHostException uh_e) {
             // Ignored, Sentry issue 'TEAK-SDK-F', 'TEAK-SDK-M', 'TEAK-SDK-X'
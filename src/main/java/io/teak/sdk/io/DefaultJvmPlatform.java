@@ -0,0 +1,41 @@
+package io.teak.sdk.io;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import io.teak.sdk.core.Executors;
+
+/**
+ * Platform services for a plain JVM, used when the Android classes are not available.
+ *
+ * There is no main thread, so work posted to it runs in order on a single background thread.
+ */
+public class DefaultJvmPlatform implements IClock, IMainThread, ILogSink {
+    private ExecutorService mainThreadExecutor;
+
+    @Override
+    public long elapsedRealtime() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    @Override
+    public void post(@NonNull Runnable runnable) {
+        synchronized (this) {
+            if (this.mainThreadExecutor == null) {
+                this.mainThreadExecutor = Executors.newSingleThreadExecutor();
+            }
+        }
+        this.mainThreadExecutor.execute(runnable);
+    }
+
+    @Override
+    public boolean isLoggable(@NonNull String tag, int priority) {
+        return priority >= ILogSink.INFO;
+    }
+
+    @Override
+    public void println(int priority, @NonNull String tag, @NonNull String message) {
+        System.err.println(tag + ": " + message);
+    }
+}
@@ -0,0 +1,8 @@
+package io.teak.sdk.io;
+
+public interface IClock {
+    /**
+     * @return Milliseconds since an arbitrary point, which never goes backwards and keeps counting while the device sleeps.
+     */
+    long elapsedRealtime();
+}
@@ -13,7 +13,7 @@ public interface IHttpRequest {
         public final String body;
         public final Map<String, List<String>> headers;
 
-        Response(int statusCode, String body, Map<String, List<String>> headers) {
+        public Response(int statusCode, String body, Map<String, List<String>> headers) {
             this.statusCode = statusCode;
             this.body = body;
             this.headers = headers;
@@ -24,4 +24,14 @@ public interface IHttpRequest {
 
     @Nullable
     Response synchronousRequest(final URL url, final String method, final String requestBody, final String sig) throws IOException;
+
+    /**
+     * Make a request with extra headers, such as the If-None-Match used to revalidate settings.
+     *
+     * Implementations which predate headers ignore them, and make the request without them.
+     */
+    @Nullable
+    default Response synchronousRequest(final URL url, final String method, final String requestBody, final String sig, @Nullable final Map<String, String> headers) throws IOException {
+        return synchronousRequest(url, method, requestBody, sig);
+    }
 }
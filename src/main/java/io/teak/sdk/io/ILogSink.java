@@ -0,0 +1,15 @@
+package io.teak.sdk.io;
+
+import androidx.annotation.NonNull;
+
+public interface ILogSink {
+    // Priorities, with the same values as android.util.Log
+    int VERBOSE = 2;
+    int INFO = 4;
+    int WARN = 5;
+    int ERROR = 6;
+
+    boolean isLoggable(@NonNull String tag, int priority);
+
+    void println(int priority, @NonNull String tag, @NonNull String message);
+}
@@ -0,0 +1,7 @@
+package io.teak.sdk.io;
+
+import androidx.annotation.NonNull;
+
+public interface IMainThread {
+    void post(@NonNull Runnable runnable);
+}
@@ -1,48 +1,152 @@
 package io.teak.sdk.io;
 
 import android.app.Activity;
+import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.content.res.AssetManager;
 import android.content.res.XmlResourceParser;
 
 import org.xmlpull.v1.XmlPullParser;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Stack;
+import java.util.regex.Pattern;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import io.teak.sdk.PackageMetadata;
 import io.teak.sdk.Teak;
 
+/**
+ * The tags of the app's AndroidManifest.xml, indexed by tag type and by 'android:name'.
+ *
+ * The parsed tags are cached in the app's cache directory, keyed on the time the app was last
+ * updated, so the binary XML is only walked once per install or update.
+ */
 public class ManifestParser {
+    private static final String CACHE_FILE = "io.teak.sdk.ManifestCache";
+    private static final int CACHE_VERSION = 1;
+
     public final XmlTag tags;
+    private final Map<String, List<XmlTag>> tagsByType = new HashMap<>();
+    private final Map<String, List<XmlTag>> tagsByName = new HashMap<>();
 
     public ManifestParser(@NonNull Activity activity) throws IOException, PackageManager.NameNotFoundException {
-        AssetManager assetManager = activity.createPackageContext(activity.getPackageName(), 0).getAssets();
-        XmlResourceParser xmlResourceParser = assetManager.openXmlResourceParser(0, "AndroidManifest.xml");
+        final PackageInfo packageInfo = PackageMetadata.get(activity).getPackageInfo(activity);
+        final long lastUpdateTime = packageInfo == null ? 0 : packageInfo.lastUpdateTime;
+        final File cacheFile = activity.getCacheDir() == null ? null : new File(activity.getCacheDir(), CACHE_FILE);
+
+        XmlTag tempTags = null;
+        if (cacheFile != null && lastUpdateTime != 0) {
+            tempTags = readCache(cacheFile, lastUpdateTime);
+        }
+
+        if (tempTags == null) {
+            AssetManager assetManager = activity.createPackageContext(activity.getPackageName(), 0).getAssets();
+            XmlResourceParser xmlResourceParser = assetManager.openXmlResourceParser(0, "AndroidManifest.xml");
+
+            // Parse manifest
+            tempTags = parseManifest(xmlResourceParser);
+            if (tempTags != null && cacheFile != null && lastUpdateTime != 0) {
+                writeCache(cacheFile, lastUpdateTime, tempTags);
+            }
+        }
+        this.tags = tempTags;
+
+        if (this.tags != null) {
+            this.index(this.tags);
+        }
+    }
 
-        // Parse manifest
-        this.tags = parseManifest(xmlResourceParser);
+    /**
+     * @param type The tag type, for example "uses-permission".
+     * @return Every tag of that type, anywhere in the manifest.
+     */
+    @NonNull
+    public List<XmlTag> getTagsOfType(@NonNull String type) {
+        final List<XmlTag> ret = this.tagsByType.get(type);
+        return ret == null ? Collections.<XmlTag>emptyList() : ret;
+    }
+
+    /**
+     * @param name The value of 'android:name'.
+     * @return Every tag with that name, anywhere in the manifest.
+     */
+    @NonNull
+    public List<XmlTag> getTagsNamed(@NonNull String name) {
+        final List<XmlTag> ret = this.tagsByName.get(name);
+        return ret == null ? Collections.<XmlTag>emptyList() : ret;
+    }
+
+    private void index(@NonNull XmlTag tag) {
+        addToIndex(this.tagsByType, tag.type, tag);
+        final String name = tag.getAttribute("name");
+        if (name != null) {
+            addToIndex(this.tagsByName, name, tag);
+        }
+        for (XmlTag child : tag.tags) {
+            this.index(child);
+        }
+    }
+
+    private static void addToIndex(Map<String, List<XmlTag>> index, String key, XmlTag tag) {
+        List<XmlTag> list = index.get(key);
+        if (list == null) {
+            list = new ArrayList<>();
+            index.put(key, list);
+        }
+        list.add(tag);
     }
 
     public static class XmlTag {
-        public final Map<String, String> attributes = new HashMap<>();
         public final ArrayList<XmlTag> tags = new ArrayList<>();
         public final String type;
+        private final String[] attributeNames;
+        private final String[] attributeValues;
 
         XmlTag(@NonNull XmlResourceParser xmlResourceParser) {
             this.type = xmlResourceParser.getName();
 
             // Attributes
-            for (int i = 0; i < xmlResourceParser.getAttributeCount(); i++) {
-                final String name = xmlResourceParser.getAttributeName(i);
-                final String value = xmlResourceParser.getAttributeValue(i);
-                this.attributes.put(name, value);
+            final int attributeCount = xmlResourceParser.getAttributeCount();
+            this.attributeNames = new String[attributeCount];
+            this.attributeValues = new String[attributeCount];
+            for (int i = 0; i < attributeCount; i++) {
+                this.attributeNames[i] = xmlResourceParser.getAttributeName(i);
+                this.attributeValues[i] = xmlResourceParser.getAttributeValue(i);
+            }
+        }
+
+        XmlTag(@NonNull String type, @NonNull String[] attributeNames, @NonNull String[] attributeValues) {
+            this.type = type;
+            this.attributeNames = attributeNames;
+            this.attributeValues = attributeValues;
+        }
+
+        /**
+         * @param name The attribute name, without a namespace.
+         * @return The value of the attribute, or null if the tag does not have it.
+         */
+        @Nullable
+        public String getAttribute(@NonNull String name) {
+            for (int i = 0; i < this.attributeNames.length; i++) {
+                if (name.equals(this.attributeNames[i])) {
+                    return this.attributeValues[i];
+                }
             }
+            return null;
         }
 
         public String toString(@NonNull String prefix) {
@@ -50,16 +154,12 @@ public class ManifestParser {
             builder.append("<");
             builder.append(this.type);
             builder.append(" ");
-            boolean firstEntry = true;
-            for (Map.Entry<String, String> entry : attributes.entrySet()) {
-                if (firstEntry)
-                    firstEntry = false;
-                else
-                    builder.append(", ");
-
-                builder.append(entry.getKey());
+            for (int i = 0; i < this.attributeNames.length; i++) {
+                if (i > 0) builder.append(", ");
+
+                builder.append(this.attributeNames[i]);
                 builder.append("=");
-                builder.append(entry.getValue());
+                builder.append(this.attributeValues[i]);
             }
             builder.append(">");
             for (XmlTag tag : this.tags) {
@@ -75,54 +175,119 @@ public class ManifestParser {
         }
 
         public List<XmlTag> find(@NonNull String path) {
-            return find(path, null);
+            return Query.compile(path).find(this);
         }
 
         public List<XmlTag> find(@NonNull String path, @Nullable Map.Entry<String, String> match) {
+            return match == null ? Query.compile(path).find(this) : Query.compile(path, match.getKey(), match.getValue()).find(this);
+        }
+    }
+
+    /**
+     * A compiled path, like "service.intent-filter.action", which can be reused for any number of
+     * searches. Each segment of the path is a regular expression that the tag type must match;
+     * segments without any regular expression syntax are compared directly.
+     */
+    public static class Query {
+        private final String[] literalSegments;
+        private final Pattern[] patternSegments;
+        private final String matchAttribute;
+        private final Pattern matchValue;
+
+        /**
+         * @param path The path to find, relative to the tag searched.
+         * @return The compiled query.
+         */
+        @NonNull
+        public static Query compile(@NonNull String path) {
+            return new Query(path, null, null);
+        }
+
+        /**
+         * @param path           The path to find, relative to the tag searched.
+         * @param matchAttribute The attribute which the last tag in the path must have.
+         * @param matchValue     A regular expression which the value of the attribute must match.
+         * @return The compiled query.
+         */
+        @NonNull
+        public static Query compile(@NonNull String path, @NonNull String matchAttribute, @NonNull String matchValue) {
+            return new Query(path, matchAttribute, Pattern.compile(matchValue));
+        }
+
+        private Query(@NonNull String path, @Nullable String matchAttribute, @Nullable Pattern matchValue) {
             final String[] pathSplit = path.split("\\.");
             final int startIndex = ("$".equals(pathSplit[0]) || "manifest".equals(pathSplit[0])) ? 1 : 0;
-            return findInternal(pathSplit, startIndex, match);
+            final int length = pathSplit.length - startIndex;
+
+            this.literalSegments = new String[length];
+            this.patternSegments = new Pattern[length];
+            for (int i = 0; i < length; i++) {
+                final String segment = pathSplit[startIndex + i];
+                final String unescaped = segment.replace("\\", "");
+                if (unescaped.matches("[A-Za-z0-9_\\-]*")) {
+                    this.literalSegments[i] = unescaped;
+                } else {
+                    this.patternSegments[i] = Pattern.compile(segment);
+                }
+            }
+            this.matchAttribute = matchAttribute;
+            this.matchValue = matchValue;
         }
 
-        private List<XmlTag> findInternal(@NonNull String[] path, int index, @Nullable Map.Entry<String, String> match) {
+        /**
+         * @param root The tag to search from.
+         * @return The children of the root which begin a matching path.
+         */
+        @NonNull
+        public List<XmlTag> find(@NonNull XmlTag root) {
+            return this.findInternal(root, 0);
+        }
+
+        private List<XmlTag> findInternal(@NonNull XmlTag tag, int index) {
             final List<XmlTag> ret = new ArrayList<>();
-            if (index == path.length) {
-                if (match == null) {
-                    ret.add(this);
-                } else if (this.attributes.get(match.getKey()) != null) {
-                    if (this.attributes.get(match.getKey()).matches(match.getValue())) {
-                        ret.add(this);
-                    }
+            if (index == this.literalSegments.length) {
+                if (this.matches(tag)) {
+                    ret.add(tag);
                 }
             } else {
-                for (XmlTag tag : this.tags) {
-                    if (tag.type.matches(path[index])) {
-                        final List<XmlTag> recurse = tag.findInternal(path, index + 1, match);
-                        if (recurse.size() > 0) {
-                            ret.add(tag);
-                        }
+                for (XmlTag child : tag.tags) {
+                    if (this.segmentMatches(index, child.type) && this.findInternal(child, index + 1).size() > 0) {
+                        ret.add(child);
                     }
                 }
             }
             return ret;
         }
+
+        private boolean segmentMatches(int index, String type) {
+            if (this.literalSegments[index] != null) {
+                return this.literalSegments[index].equals(type);
+            }
+            return type != null && this.patternSegments[index].matcher(type).matches();
+        }
+
+        private boolean matches(XmlTag tag) {
+            if (this.matchAttribute == null) return true;
+
+            final String value = tag.getAttribute(this.matchAttribute);
+            return value != null && this.matchValue.matcher(value).matches();
+        }
     }
 
     private static XmlTag parseManifest(@NonNull XmlResourceParser xmlResourceParser) {
         XmlTag ret = null;
         try {
-            final Stack<XmlTag> xmlTagStack = new Stack<>();
+            final ArrayList<XmlTag> xmlTagStack = new ArrayList<>();
             int xmlEventType = xmlResourceParser.getEventType();
             while (xmlEventType != XmlPullParser.END_DOCUMENT) {
                 // If this is a start tag, we may be interested in the tag
                 if (xmlEventType == XmlPullParser.START_TAG) {
                     // Push tag
-                    final XmlTag tag = new XmlTag(xmlResourceParser);
-                    xmlTagStack.push(tag);
+                    xmlTagStack.add(new XmlTag(xmlResourceParser));
                 } else if (xmlEventType == XmlPullParser.END_TAG) {
-                    ret = xmlTagStack.pop();
-                    if (!xmlTagStack.empty()) {
-                        xmlTagStack.peek().tags.add(ret);
+                    ret = xmlTagStack.remove(xmlTagStack.size() - 1);
+                    if (!xmlTagStack.isEmpty()) {
+                        xmlTagStack.get(xmlTagStack.size() - 1).tags.add(ret);
                     }
                 }
 
@@ -137,4 +302,89 @@ public class ManifestParser {
 
         return ret;
     }
+
+    ///// Cache
+
+    @Nullable
+    private static XmlTag readCache(@NonNull File cacheFile, long lastUpdateTime) {
+        if (!cacheFile.exists()) return null;
+
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+            if (in.readInt() != CACHE_VERSION || in.readLong() != lastUpdateTime) {
+                return null;
+            }
+            return readTag(in);
+        } catch (Exception ignored) {
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    private static XmlTag readTag(@NonNull DataInputStream in) throws IOException {
+        final String type = in.readUTF();
+        final int attributeCount = in.readInt();
+        final String[] attributeNames = new String[attributeCount];
+        final String[] attributeValues = new String[attributeCount];
+        for (int i = 0; i < attributeCount; i++) {
+            attributeNames[i] = in.readUTF();
+            attributeValues[i] = in.readBoolean() ? in.readUTF() : null;
+        }
+
+        final XmlTag tag = new XmlTag(type, attributeNames, attributeValues);
+        final int childCount = in.readInt();
+        for (int i = 0; i < childCount; i++) {
+            tag.tags.add(readTag(in));
+        }
+        return tag;
+    }
+
+    private static void writeCache(@NonNull File cacheFile, long lastUpdateTime, @NonNull XmlTag tags) {
+        boolean written = false;
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cacheFile)));
+            out.writeInt(CACHE_VERSION);
+            out.writeLong(lastUpdateTime);
+            writeTag(out, tags);
+            out.flush();
+            written = true;
+        } catch (Exception e) {
+            Teak.log.exception(e, false);
+        } finally {
+            closeQuietly(out);
+        }
+
+        if (!written) {
+            //noinspection ResultOfMethodCallIgnored
+            cacheFile.delete();
+        }
+    }
+
+    private static void writeTag(@NonNull DataOutputStream out, @NonNull XmlTag tag) throws IOException {
+        out.writeUTF(tag.type);
+        out.writeInt(tag.attributeNames.length);
+        for (int i = 0; i < tag.attributeNames.length; i++) {
+            out.writeUTF(tag.attributeNames[i]);
+            out.writeBoolean(tag.attributeValues[i] != null);
+            if (tag.attributeValues[i] != null) {
+                out.writeUTF(tag.attributeValues[i]);
+            }
+        }
+        out.writeInt(tag.tags.size());
+        for (XmlTag child : tag.tags) {
+            writeTag(out, child);
+        }
+    }
+
+    private static void closeQuietly(@Nullable Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (Exception ignored) {
+            }
+        }
+    }
 }
@@ -0,0 +1,68 @@
+package io.teak.sdk.io;
+
+import androidx.annotation.NonNull;
+
+/**
+ * The platform services used by the SDK's core logic: Session state, TeakEvent, Request
+ * batching and logging reach the device only through these.
+ *
+ * They default to the Android implementations, or to {@link DefaultJvmPlatform} when the Android
+ * classes are not available. Replacing them before the SDK is used lets that logic run on a plain
+ * JVM, for unit tests, load tests and benchmarks.
+ */
+public class Platform {
+    private static volatile IClock clock;
+    private static volatile IMainThread mainThread;
+    private static volatile ILogSink logSink;
+    private static volatile IHttpRequest httpRequest = new DefaultHttpRequest();
+
+    static {
+        // Loaded by name, so that this class, and the core logic using it, compiles without android.jar
+        Object defaultPlatform;
+        try {
+            Class.forName("android.os.Looper");
+            defaultPlatform = Class.forName("io.teak.sdk.io.DefaultAndroidPlatform").newInstance();
+        } catch (Exception | LinkageError ignored) {
+            defaultPlatform = new DefaultJvmPlatform();
+        }
+        clock = (IClock) defaultPlatform;
+        mainThread = (IMainThread) defaultPlatform;
+        logSink = (ILogSink) defaultPlatform;
+    }
+
+    @NonNull
+    public static IClock clock() {
+        return clock;
+    }
+
+    @NonNull
+    public static IMainThread mainThread() {
+        return mainThread;
+    }
+
+    @NonNull
+    public static ILogSink logSink() {
+        return logSink;
+    }
+
+    @NonNull
+    public static IHttpRequest httpRequest() {
+        return httpRequest;
+    }
+
+    public static void setClock(@NonNull IClock clock) {
+        Platform.clock = clock;
+    }
+
+    public static void setMainThread(@NonNull IMainThread mainThread) {
+        Platform.mainThread = mainThread;
+    }
+
+    public static void setLogSink(@NonNull ILogSink logSink) {
+        Platform.logSink = logSink;
+    }
+
+    public static void setHttpRequest(@NonNull IHttpRequest httpRequest) {
+        Platform.httpRequest = httpRequest;
+    }
+}
@@ -25,13 +25,13 @@ package io.teak.sdk.json;
  */
 
 import java.io.IOException;
-import java.io.StringWriter;
 import java.io.Writer;
 import java.lang.reflect.Array;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -85,7 +85,12 @@ public class JSONArray implements Iterable<Object> {
     /**
      * The arrayList where the JSONArray's properties are kept.
      */
-    private final ArrayList<Object> myArrayList;
+    private final List<Object> myArrayList;
+
+    /**
+     * True if the list is an unwrapped, read-only view created by {@link #view(Collection)}.
+     */
+    private boolean isView;
 
     /**
      * Construct an empty JSONArray.
@@ -94,6 +99,31 @@ public class JSONArray implements Iterable<Object> {
         this.myArrayList = new ArrayList<Object>();
     }
 
+    private JSONArray(List<Object> list, boolean isView) {
+        this.myArrayList = list;
+        this.isView = isView;
+    }
+
+    /**
+     * Construct a read-only JSONArray which is a view of a Collection, rather
+     * than a copy of it. Elements are wrapped only as they are read, and nested
+     * maps and collections are serialized directly, so nothing is copied. The
+     * view is not a snapshot; the Collection must not be changed while the view
+     * is in use.
+     *
+     * @param collection
+     *            The collection to view.
+     * @return A JSONArray which throws UnsupportedOperationException if it is
+     *         modified.
+     */
+    public static JSONArray view(Collection<?> collection) {
+        if (collection == null) {
+            return new JSONArray(Collections.<Object>emptyList(), true);
+        }
+        final List<?> list = collection instanceof List ? (List<?>) collection : new ArrayList<Object>(collection);
+        return new JSONArray(Collections.<Object>unmodifiableList(list), true);
+    }
+
     /**
      * Construct a JSONArray from a JSONTokener.
      *
@@ -188,7 +218,7 @@ public class JSONArray implements Iterable<Object> {
         this();
         if (array.getClass().isArray()) {
             int length = Array.getLength(array);
-            this.myArrayList.ensureCapacity(length);
+            ((ArrayList<Object>) this.myArrayList).ensureCapacity(length);
             for (int i = 0; i < length; i += 1) {
                 this.put(JSONObject.wrap(Array.get(array, i)));
             }
@@ -514,7 +544,14 @@ public class JSONArray implements Iterable<Object> {
      * @return An object value, or null if there is no object at that index.
      */
     public Object opt(int index) {
-        return (index < 0 || index >= this.length()) ? null : this.myArrayList.get(index);
+        if (index < 0 || index >= this.length()) {
+            return null;
+        }
+        final Object value = this.myArrayList.get(index);
+        if (this.isView) {
+            return value == null ? JSONObject.NULL : JSONObject.viewOf(value);
+        }
+        return value;
     }
 
     /**
@@ -1166,7 +1203,9 @@ public class JSONArray implements Iterable<Object> {
         } else {
             // if we are inserting past the length, we want to grow the array all at once
             // instead of incrementally.
-            this.myArrayList.ensureCapacity(index + 1);
+            if (this.myArrayList instanceof ArrayList) {
+                ((ArrayList<Object>) this.myArrayList).ensureCapacity(index + 1);
+            }
             while (index != this.length()) {
                 this.put(JSONObject.NULL);
             }
@@ -1195,7 +1234,7 @@ public class JSONArray implements Iterable<Object> {
      * @return the item matched by the JSONPointer, otherwise null
      */
     public Object query(String jsonPointer) {
-        return query(new JSONPointer(jsonPointer));
+        return query(JSONPointer.compile(jsonPointer));
     }
 
     /**
@@ -1230,7 +1269,7 @@ public class JSONArray implements Iterable<Object> {
      * @throws IllegalArgumentException if {@code jsonPointer} has invalid syntax
      */
     public Object optQuery(String jsonPointer) {
-        return optQuery(new JSONPointer(jsonPointer));
+        return optQuery(JSONPointer.compile(jsonPointer));
     }
 
     /**
@@ -1242,11 +1281,7 @@ public class JSONArray implements Iterable<Object> {
      * @throws IllegalArgumentException if {@code jsonPointer} has invalid syntax
      */
     public Object optQuery(JSONPointer jsonPointer) {
-        try {
-            return jsonPointer.queryFrom(this);
-        } catch (JSONPointerException e) {
-            return null;
-        }
+        return jsonPointer.optQueryFrom(this);
     }
 
     /**
@@ -1374,10 +1409,7 @@ public class JSONArray implements Iterable<Object> {
      * @throws JSONException
      */
     public String toString(int indentFactor) throws JSONException {
-        StringWriter sw = new StringWriter();
-        synchronized (sw.getBuffer()) {
-            return this.write(sw, indentFactor, 0).toString();
-        }
+        return this.write(new JSONStringWriter(), indentFactor, 0).toString();
     }
 
     /**
@@ -1424,37 +1456,46 @@ public class JSONArray implements Iterable<Object> {
      */
     public Writer write(Writer writer, int indentFactor, int indent)
         throws JSONException {
+        return writeCollection(writer, this.myArrayList, this.isView, indentFactor, indent);
+    }
+
+    /**
+     * Write the elements of a collection as a JSON array. If the collection is
+     * unwrapped, the elements are written as if they had been wrapped, so the
+     * result is the same as for a copy made by {@link #JSONArray(Collection)}.
+     */
+    static Writer writeCollection(Writer writer, Collection<?> collection, boolean unwrapped,
+        int indentFactor, int indent) throws JSONException {
         try {
             boolean commanate = false;
-            int length = this.length();
+            final int length = collection.size();
             writer.write('[');
 
-            if (length == 1) {
-                try {
-                    JSONObject.writeValue(writer, this.myArrayList.get(0),
-                        indentFactor, indent);
-                } catch (Exception e) {
-                    throw new JSONException("Unable to write JSONArray value at index: 0", e);
+            final int newindent = length == 1 ? indent : indent + indentFactor;
+            int i = 0;
+            for (final Object value : collection) {
+                if (commanate) {
+                    writer.write(',');
                 }
-            } else if (length != 0) {
-                final int newindent = indent + indentFactor;
-
-                for (int i = 0; i < length; i += 1) {
-                    if (commanate) {
-                        writer.write(',');
-                    }
+                if (length > 1) {
                     if (indentFactor > 0) {
                         writer.write('\n');
                     }
                     JSONObject.indent(writer, newindent);
-                    try {
-                        JSONObject.writeValue(writer, this.myArrayList.get(i),
-                            indentFactor, newindent);
-                    } catch (Exception e) {
-                        throw new JSONException("Unable to write JSONArray value at index: " + i, e);
+                }
+                try {
+                    if (unwrapped) {
+                        JSONObject.writeUnwrappedValue(writer, value, indentFactor, newindent);
+                    } else {
+                        JSONObject.writeValue(writer, value, indentFactor, newindent);
                     }
-                    commanate = true;
+                } catch (Exception e) {
+                    throw new JSONException("Unable to write JSONArray value at index: " + i, e);
                 }
+                commanate = true;
+                i += 1;
+            }
+            if (length > 1) {
                 if (indentFactor > 0) {
                     writer.write('\n');
                 }
@@ -0,0 +1,25 @@
+package io.teak.sdk.json;
+
+import java.util.Map;
+
+/**
+ * A <code>JSONCodec</code> converts objects of one class into the properties
+ * of a JSONObject. A codec registered with
+ * <code>JSONObject.registerCodec</code> is used instead of reflecting on the
+ * getters of the object when it is wrapped by <code>JSONObject.wrap</code> or
+ * passed to <code>new JSONObject(Object)</code>.
+ *
+ * @param <T> The class of object the codec converts.
+ */
+public interface JSONCodec<T> {
+    /**
+     * Put the properties of an object into a map. Values are wrapped by the
+     * caller, and null values are ignored.
+     *
+     * @param object
+     *            The object to convert.
+     * @param properties
+     *            The map to put the properties into.
+     */
+    public void encode(T object, Map<String, Object> properties);
+}
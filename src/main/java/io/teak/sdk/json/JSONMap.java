@@ -0,0 +1,332 @@
+package io.teak.sdk.json;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The map which holds the properties of a JSONObject.
+ * <p>
+ * Entries are kept in flat arrays in insertion order, and found through an
+ * open-addressing table of positions in those arrays, so a map allocates a
+ * fixed handful of arrays no matter how many keys it holds, and iterates (and
+ * so serializes) its keys in the order they were put. Removed entries leave a
+ * hole in the arrays, which is closed up the next time the arrays fill.
+ * <p>
+ * Keys may not be null.
+ */
+final class JSONMap extends AbstractMap<String, Object> {
+    private static final int MIN_CAPACITY = 4;
+
+    private String[] keys;
+    private Object[] values;
+    private int[] hashes;
+
+    /**
+     * Open-addressing table of entry positions plus one; zero marks an empty
+     * slot. The table is at most half full.
+     */
+    private int[] table;
+
+    /**
+     * Number of positions used in the entry arrays, including removed entries.
+     */
+    private int used;
+    private int size;
+    private int modCount;
+
+    private Set<Entry<String, Object>> entrySet;
+
+    JSONMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize
+     *            The number of keys the map will hold before it needs to grow.
+     */
+    JSONMap(int expectedSize) {
+        this.allocate(Math.max(expectedSize, MIN_CAPACITY));
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new String[capacity];
+        this.values = new Object[capacity];
+        this.hashes = new int[capacity];
+        int tableSize = MIN_CAPACITY * 2;
+        while (tableSize < capacity * 2) {
+            tableSize <<= 1;
+        }
+        this.table = new int[tableSize];
+    }
+
+    private static int hash(Object key) {
+        final int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return The table slot which holds the key, or the complement of the
+     *         empty slot where it would go.
+     */
+    private int find(Object key, int hash) {
+        final int mask = this.table.length - 1;
+        for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+            final int position = this.table[slot] - 1;
+            if (position < 0) {
+                return ~slot;
+            }
+            if (this.hashes[position] == hash && key.equals(this.keys[position])) {
+                return slot;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key != null && this.find(key, hash(key)) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (key == null) {
+            return null;
+        }
+        final int slot = this.find(key, hash(key));
+        return slot < 0 ? null : this.values[this.table[slot] - 1];
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        if (key == null) {
+            throw new NullPointerException("Null key.");
+        }
+        final int hash = hash(key);
+        int slot = this.find(key, hash);
+        if (slot >= 0) {
+            final int position = this.table[slot] - 1;
+            final Object old = this.values[position];
+            this.values[position] = value;
+            return old;
+        }
+
+        if (this.used == this.keys.length) {
+            this.resize();
+            slot = this.find(key, hash);
+        }
+        final int position = this.used++;
+        this.keys[position] = key;
+        this.values[position] = value;
+        this.hashes[position] = hash;
+        this.table[~slot] = position + 1;
+        this.size++;
+        this.modCount++;
+        return null;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        if (key == null) {
+            return null;
+        }
+        final int slot = this.find(key, hash(key));
+        if (slot < 0) {
+            return null;
+        }
+        final int position = this.table[slot] - 1;
+        final Object old = this.values[position];
+        this.removeSlot(slot);
+        this.keys[position] = null;
+        this.values[position] = null;
+        this.size--;
+        this.modCount++;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(this.keys, 0, this.used, null);
+        Arrays.fill(this.values, 0, this.used, null);
+        Arrays.fill(this.table, 0);
+        this.used = 0;
+        this.size = 0;
+        this.modCount++;
+    }
+
+    /**
+     * Empty a table slot, moving back any later entries in its probe run that
+     * would no longer be found past the gap.
+     */
+    private void removeSlot(int slot) {
+        final int mask = this.table.length - 1;
+        int hole = slot;
+        for (int i = (slot + 1) & mask; this.table[i] != 0; i = (i + 1) & mask) {
+            final int home = this.hashes[this.table[i] - 1] & mask;
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                this.table[hole] = this.table[i];
+                hole = i;
+            }
+        }
+        this.table[hole] = 0;
+    }
+
+    /**
+     * Make room for another entry, closing up removed entries, and growing the
+     * arrays if that does not free enough space.
+     */
+    private void resize() {
+        final String[] oldKeys = this.keys;
+        final Object[] oldValues = this.values;
+        final int[] oldHashes = this.hashes;
+        final int oldUsed = this.used;
+
+        this.allocate(this.size < oldKeys.length / 2 ? oldKeys.length : oldKeys.length * 2);
+        final int mask = this.table.length - 1;
+        int position = 0;
+        for (int i = 0; i < oldUsed; i++) {
+            if (oldKeys[i] == null) {
+                continue;
+            }
+            this.keys[position] = oldKeys[i];
+            this.values[position] = oldValues[i];
+            this.hashes[position] = oldHashes[i];
+            int slot = oldHashes[i] & mask;
+            while (this.table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            this.table[slot] = position + 1;
+            position++;
+        }
+        this.used = position;
+        this.modCount++;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        if (this.entrySet == null) {
+            this.entrySet = new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return JSONMap.this.size;
+                }
+
+                @Override
+                public void clear() {
+                    JSONMap.this.clear();
+                }
+            };
+        }
+        return this.entrySet;
+    }
+
+    private final class EntryIterator implements Iterator<Entry<String, Object>> {
+        private int next;
+        private int last = -1;
+        private int expectedModCount = JSONMap.this.modCount;
+
+        EntryIterator() {
+            this.next = this.skipRemoved(0);
+        }
+
+        private int skipRemoved(int position) {
+            while (position < JSONMap.this.used && JSONMap.this.keys[position] == null) {
+                position++;
+            }
+            return position;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next < JSONMap.this.used;
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (JSONMap.this.modCount != this.expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (this.next >= JSONMap.this.used) {
+                throw new NoSuchElementException();
+            }
+            this.last = this.next;
+            this.next = this.skipRemoved(this.next + 1);
+            return new MapEntry(this.last);
+        }
+
+        @Override
+        public void remove() {
+            if (this.last < 0) {
+                throw new IllegalStateException();
+            }
+            if (JSONMap.this.modCount != this.expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            // Removing leaves a hole, so positions after it do not move
+            JSONMap.this.remove(JSONMap.this.keys[this.last]);
+            this.expectedModCount = JSONMap.this.modCount;
+            this.last = -1;
+        }
+    }
+
+    private final class MapEntry implements Entry<String, Object> {
+        private final int position;
+        private final String key;
+
+        MapEntry(int position) {
+            this.position = position;
+            this.key = JSONMap.this.keys[position];
+        }
+
+        @Override
+        public String getKey() {
+            return this.key;
+        }
+
+        @Override
+        public Object getValue() {
+            // The entry may have been removed, or moved by a resize
+            return this.key == JSONMap.this.keys[this.position] ? JSONMap.this.values[this.position] : JSONMap.this.get(this.key);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            return JSONMap.this.put(this.key, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            final Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+            final Object value = this.getValue();
+            return this.key.equals(other.getKey()) && (value == null ? other.getValue() == null : value.equals(other.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            final Object value = this.getValue();
+            return this.key.hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return this.key + "=" + this.getValue();
+        }
+    }
+}
@@ -21,8 +21,8 @@ import java.io.Closeable;
  SOFTWARE.
  */
 import java.io.IOException;
-import java.io.StringWriter;
 import java.io.Writer;
+import java.lang.ref.SoftReference;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -30,6 +30,7 @@ import java.lang.reflect.Modifier;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -38,6 +39,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 /**
  * A JSONObject is an unordered collection of name/value pairs. Its external
@@ -149,6 +151,11 @@ public class JSONObject {
      */
     private final Map<String, Object> map;
 
+    /**
+     * True if the map is an unwrapped, read-only view created by {@link #view(Map)}.
+     */
+    private boolean isView;
+
     /**
      * It is sometimes more convenient and less ambiguous to have a
      * <code>NULL</code> object than to use Java's <code>null</code> value.
@@ -161,13 +168,10 @@ public class JSONObject {
      * Construct an empty JSONObject.
      */
     public JSONObject() {
-        // HashMap is used on purpose to ensure that elements are unordered by
-        // the specification.
-        // JSON tends to be a portable transfer format to allows the container
-        // implementations to rearrange their items for a faster element
-        // retrieval based on associative access.
-        // Therefore, an implementation mustn't rely on the order of the item.
-        this.map = new HashMap<String, Object>();
+        // Elements are unordered by the specification, but JSONMap keeps
+        // them in insertion order anyway, so that output is deterministic.
+        // An implementation still mustn't rely on the order of the items.
+        this.map = new JSONMap();
     }
 
     /**
@@ -268,9 +272,9 @@ public class JSONObject {
      */
     public JSONObject(Map<?, ?> m) {
         if (m == null) {
-            this.map = new HashMap<String, Object>();
+            this.map = new JSONMap();
         } else {
-            this.map = new HashMap<String, Object>(m.size());
+            this.map = new JSONMap(m.size());
             for (final Entry<?, ?> e : m.entrySet()) {
                 final Object value = e.getValue();
                 if (value != null) {
@@ -280,6 +284,30 @@ public class JSONObject {
         }
     }
 
+    private JSONObject(Map<String, Object> map, boolean isView) {
+        this.map = map;
+        this.isView = isView;
+    }
+
+    /**
+     * Construct a read-only JSONObject which is a view of a Map, rather than a
+     * copy of it. Values are wrapped only as they are read, and nested maps and
+     * collections are serialized directly, so nothing is copied. The view is not
+     * a snapshot; the Map must not be changed while the view is in use. As with
+     * {@link #JSONObject(Map)}, entries with null values are not serialized.
+     *
+     * @param m
+     *            The map to view.
+     * @return A JSONObject which throws UnsupportedOperationException if it is
+     *         modified.
+     */
+    public static JSONObject view(Map<String, ?> m) {
+        if (m == null) {
+            return new JSONObject(Collections.<String, Object>emptyMap(), true);
+        }
+        return new JSONObject(Collections.<String, Object>unmodifiableMap(m), true);
+    }
+
     /**
      * Construct a JSONObject from an Object using bean getters. It reflects on
      * all of the public methods of the object. For each of the methods with no
@@ -402,7 +430,7 @@ public class JSONObject {
      * @param initialCapacity initial capacity of the internal map.
      */
     protected JSONObject(int initialCapacity) {
-        this.map = new HashMap<String, Object>(initialCapacity);
+        this.map = new JSONMap(initialCapacity);
     }
 
     /**
@@ -480,20 +508,34 @@ public class JSONObject {
             return "null";
         }
 
-        // Shave off trailing zeros and decimal point, if possible.
+        return trimDecimal(Double.toString(d));
+    }
 
-        String string = Double.toString(d);
+    /**
+     * Shave off trailing zeros and decimal point, if possible.
+     */
+    private static String trimDecimal(String string) {
         if (string.indexOf('.') > 0 && string.indexOf('e') < 0 && string.indexOf('E') < 0) {
-            while (string.endsWith("0")) {
-                string = string.substring(0, string.length() - 1);
+            int end = string.length();
+            while (string.charAt(end - 1) == '0') {
+                end--;
             }
-            if (string.endsWith(".")) {
-                string = string.substring(0, string.length() - 1);
+            if (string.charAt(end - 1) == '.') {
+                end--;
             }
+            return string.substring(0, end);
         }
         return string;
     }
 
+    /**
+     * @return True if the Number is of a type whose toString() is always a
+     *         valid JSON number with nothing to shave off.
+     */
+    private static boolean isIntegral(Object number) {
+        return number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte;
+    }
+
     /**
      * Get the value object associated with a key.
      *
@@ -922,20 +964,11 @@ public class JSONObject {
         if (number == null) {
             throw new JSONException("Null pointer");
         }
-        testValidity(number);
-
-        // Shave off trailing zeros and decimal point, if possible.
-
-        String string = number.toString();
-        if (string.indexOf('.') > 0 && string.indexOf('e') < 0 && string.indexOf('E') < 0) {
-            while (string.endsWith("0")) {
-                string = string.substring(0, string.length() - 1);
-            }
-            if (string.endsWith(".")) {
-                string = string.substring(0, string.length() - 1);
-            }
+        if (isIntegral(number)) {
+            return number.toString();
         }
-        return string;
+        testValidity(number);
+        return trimDecimal(number.toString());
     }
 
     /**
@@ -946,7 +979,25 @@ public class JSONObject {
      * @return An object which is the value, or null if there is no value.
      */
     public Object opt(String key) {
-        return key == null ? null : this.map.get(key);
+        if (key == null) {
+            return null;
+        }
+        final Object value = this.map.get(key);
+        return this.isView ? viewOf(value) : value;
+    }
+
+    /**
+     * Wrap a value read from a view, viewing nested maps and collections
+     * instead of copying them.
+     */
+    @SuppressWarnings("unchecked")
+    static Object viewOf(Object value) {
+        if (value instanceof Map) {
+            return view((Map<String, ?>) value);
+        } else if (value instanceof Collection) {
+            return JSONArray.view((Collection<?>) value);
+        }
+        return value == null ? null : wrap(value);
     }
 
     /**
@@ -1393,52 +1444,159 @@ public class JSONObject {
      *            the bean
      */
     private void populateMap(Object bean) {
-        Class<?> klass = bean.getClass();
+        final JSONCodec<Object> codec = codecFor(bean.getClass());
+        if (codec instanceof BeanCodec) {
+            // Already wraps its values
+            codec.encode(bean, this.map);
+            return;
+        }
+
+        final Map<String, Object> properties = new HashMap<String, Object>();
+        codec.encode(bean, properties);
+        for (final Entry<String, Object> entry : properties.entrySet()) {
+            final Object value = entry.getValue();
+            if (value != null) {
+                this.map.put(entry.getKey(), wrap(value));
+            }
+        }
+    }
+
+    /**
+     * Codecs registered by {@link #registerCodec}, by the class they were
+     * registered for. Guarded by codecCache.
+     */
+    private static final Map<Class<?>, JSONCodec<?>> registeredCodecs = new HashMap<Class<?>, JSONCodec<?>>();
+
+    /**
+     * The codec used for each class which has been wrapped, so that each class
+     * is only reflected on once. Classes are weakly held, and codecs softly
+     * held, so that caching a codec does not keep its class loaded.
+     */
+    private static final Map<Class<?>, SoftReference<JSONCodec<Object>>> codecCache = new WeakHashMap<Class<?>, SoftReference<JSONCodec<Object>>>();
+
+    /**
+     * Register a codec to convert objects of a class, and its subclasses, to
+     * JSON instead of reflecting on their getters.
+     *
+     * @param klass
+     *            The class the codec converts.
+     * @param codec
+     *            The codec.
+     */
+    public static <T> void registerCodec(Class<T> klass, JSONCodec<? super T> codec) {
+        synchronized (codecCache) {
+            registeredCodecs.put(klass, codec);
+            codecCache.clear();
+        }
+    }
+
+    private static JSONCodec<Object> codecFor(Class<?> klass) {
+        synchronized (codecCache) {
+            final SoftReference<JSONCodec<Object>> cached = codecCache.get(klass);
+            final JSONCodec<Object> codec = cached == null ? null : cached.get();
+            if (codec != null) {
+                return codec;
+            }
+            final JSONCodec<Object> registered = registeredCodecFor(klass);
+            if (registered != null) {
+                codecCache.put(klass, new SoftReference<JSONCodec<Object>>(registered));
+                return registered;
+            }
+        }
+
+        // Reflect outside of the lock, then look again, in case a codec was registered meanwhile
+        final JSONCodec<Object> beanCodec = new BeanCodec(klass);
+        synchronized (codecCache) {
+            final JSONCodec<Object> registered = registeredCodecFor(klass);
+            final JSONCodec<Object> codec = registered != null ? registered : beanCodec;
+            codecCache.put(klass, new SoftReference<JSONCodec<Object>>(codec));
+            return codec;
+        }
+    }
+
+    /**
+     * The codec registered for a class, or its nearest superclass; or null.
+     * Must be called holding the lock on codecCache.
+     */
+    @SuppressWarnings("unchecked")
+    private static JSONCodec<Object> registeredCodecFor(Class<?> klass) {
+        for (Class<?> c = klass; c != null; c = c.getSuperclass()) {
+            final JSONCodec<?> registered = registeredCodecs.get(c);
+            if (registered != null) {
+                return (JSONCodec<Object>) registered;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Converts beans using their getters, which are found once per class.
+     */
+    private static final class BeanCodec implements JSONCodec<Object> {
+        private final Method[] getters;
+        private final String[] keys;
 
-        // If klass is a System class then set includeSuperClass to false.
+        BeanCodec(Class<?> klass) {
+            // If klass is a System class then set includeSuperClass to false.
 
-        boolean includeSuperClass = klass.getClassLoader() != null;
+            boolean includeSuperClass = klass.getClassLoader() != null;
 
-        Method[] methods = includeSuperClass ? klass.getMethods() : klass.getDeclaredMethods();
-        for (final Method method : methods) {
-            final int modifiers = method.getModifiers();
-            if (Modifier.isPublic(modifiers) && !Modifier.isStatic(modifiers) && method.getParameterTypes().length == 0 && !method.isBridge() && method.getReturnType() != Void.TYPE) {
-                final String name = method.getName();
-                String key;
-                if (name.startsWith("get")) {
-                    if ("getClass".equals(name) || "getDeclaringClass".equals(name)) {
+            final Method[] methods = includeSuperClass ? klass.getMethods() : klass.getDeclaredMethods();
+            final Method[] getters = new Method[methods.length];
+            final String[] keys = new String[methods.length];
+            int count = 0;
+            for (final Method method : methods) {
+                final int modifiers = method.getModifiers();
+                if (Modifier.isPublic(modifiers) && !Modifier.isStatic(modifiers) && method.getParameterTypes().length == 0 && !method.isBridge() && method.getReturnType() != Void.TYPE) {
+                    final String name = method.getName();
+                    String key;
+                    if (name.startsWith("get")) {
+                        if ("getClass".equals(name) || "getDeclaringClass".equals(name)) {
+                            continue;
+                        }
+                        key = name.substring(3);
+                    } else if (name.startsWith("is")) {
+                        key = name.substring(2);
+                    } else {
                         continue;
                     }
-                    key = name.substring(3);
-                } else if (name.startsWith("is")) {
-                    key = name.substring(2);
-                } else {
-                    continue;
-                }
-                if (key.length() > 0 && Character.isUpperCase(key.charAt(0))) {
-                    if (key.length() == 1) {
-                        key = key.toLowerCase(Locale.ROOT);
-                    } else if (!Character.isUpperCase(key.charAt(1))) {
-                        key = key.substring(0, 1).toLowerCase(Locale.ROOT) + key.substring(1);
+                    if (key.length() > 0 && Character.isUpperCase(key.charAt(0))) {
+                        if (key.length() == 1) {
+                            key = key.toLowerCase(Locale.ROOT);
+                        } else if (!Character.isUpperCase(key.charAt(1))) {
+                            key = key.substring(0, 1).toLowerCase(Locale.ROOT) + key.substring(1);
+                        }
+                        getters[count] = method;
+                        keys[count] = key;
+                        count++;
                     }
+                }
+            }
+            this.getters = new Method[count];
+            this.keys = new String[count];
+            System.arraycopy(getters, 0, this.getters, 0, count);
+            System.arraycopy(keys, 0, this.keys, 0, count);
+        }
 
-                    try {
-                        final Object result = method.invoke(bean);
-                        if (result != null) {
-                            this.map.put(key, wrap(result));
-                            // we don't use the result anywhere outside of wrap
-                            // if it's a resource we should be sure to close it after calling toString
-                            if (result instanceof Closeable) {
-                                try {
-                                    ((Closeable) result).close();
-                                } catch (IOException ignore) {
-                                }
+        @Override
+        public void encode(Object bean, Map<String, Object> properties) {
+            for (int i = 0; i < this.getters.length; i++) {
+                try {
+                    final Object result = this.getters[i].invoke(bean);
+                    if (result != null) {
+                        properties.put(this.keys[i], wrap(result));
+                        // we don't use the result anywhere outside of wrap
+                        // if it's a resource we should be sure to close it after calling toString
+                        if (result instanceof Closeable) {
+                            try {
+                                ((Closeable) result).close();
+                            } catch (IOException ignore) {
                             }
                         }
-                    } catch (IllegalAccessException ignore) {
-                    } catch (IllegalArgumentException ignore) {
-                    } catch (InvocationTargetException ignore) {
                     }
+                } catch (IllegalAccessException ignore) {
+                } catch (IllegalArgumentException ignore) {
+                } catch (InvocationTargetException ignore) {
                 }
             }
         }
@@ -1645,7 +1803,7 @@ public class JSONObject {
      * @return the item matched by the JSONPointer, otherwise null
      */
     public Object query(String jsonPointer) {
-        return query(new JSONPointer(jsonPointer));
+        return query(JSONPointer.compile(jsonPointer));
     }
     /**
      * Uses a user initialized JSONPointer  and tries to 
@@ -1679,7 +1837,7 @@ public class JSONObject {
      * @throws IllegalArgumentException if {@code jsonPointer} has invalid syntax
      */
     public Object optQuery(String jsonPointer) {
-        return optQuery(new JSONPointer(jsonPointer));
+        return optQuery(JSONPointer.compile(jsonPointer));
     }
 
     /**
@@ -1691,11 +1849,7 @@ public class JSONObject {
      * @throws IllegalArgumentException if {@code jsonPointer} has invalid syntax
      */
     public Object optQuery(JSONPointer jsonPointer) {
-        try {
-            return jsonPointer.queryFrom(this);
-        } catch (JSONPointerException e) {
-            return null;
-        }
+        return jsonPointer.optQueryFrom(this);
     }
 
     /**
@@ -1709,72 +1863,25 @@ public class JSONObject {
      * @return A String correctly formatted for insertion in a JSON text.
      */
     public static String quote(String string) {
-        StringWriter sw = new StringWriter();
-        synchronized (sw.getBuffer()) {
-            try {
-                return quote(string, sw).toString();
-            } catch (IOException ignored) {
-                // will never happen - we are writing to a string writer
-                return "";
-            }
+        if (string == null || string.length() == 0) {
+            return "\"\"";
         }
+        final JSONStringWriter sw = new JSONStringWriter(string.length() + 16);
+        sw.writeQuoted(string);
+        return sw.toString();
     }
 
     public static Writer quote(String string, Writer w) throws IOException {
         if (string == null || string.length() == 0) {
             w.write("\"\"");
-            return w;
-        }
-
-        char b;
-        char c = 0;
-        String hhhh;
-        int i;
-        int len = string.length();
-
-        w.write('"');
-        for (i = 0; i < len; i += 1) {
-            b = c;
-            c = string.charAt(i);
-            switch (c) {
-                case '\\':
-                case '"':
-                    w.write('\\');
-                    w.write(c);
-                    break;
-                case '/':
-                    if (b == '<') {
-                        w.write('\\');
-                    }
-                    w.write(c);
-                    break;
-                case '\b':
-                    w.write("\\b");
-                    break;
-                case '\t':
-                    w.write("\\t");
-                    break;
-                case '\n':
-                    w.write("\\n");
-                    break;
-                case '\f':
-                    w.write("\\f");
-                    break;
-                case '\r':
-                    w.write("\\r");
-                    break;
-                default:
-                    if (c < ' ' || (c >= '\u0080' && c < '\u00a0') || (c >= '\u2000' && c < '\u2100')) {
-                        w.write("\\u");
-                        hhhh = Integer.toHexString(c);
-                        w.write("0000", 0, 4 - hhhh.length());
-                        w.write(hhhh);
-                    } else {
-                        w.write(c);
-                    }
-            }
+        } else if (w instanceof JSONStringWriter) {
+            ((JSONStringWriter) w).writeQuoted(string);
+        } else {
+            // Escape in bulk, rather than making a call to the Writer per character
+            final JSONStringWriter sw = new JSONStringWriter(string.length() + 16);
+            sw.writeQuoted(string);
+            sw.writeTo(w);
         }
-        w.write('"');
         return w;
     }
 
@@ -2057,10 +2164,7 @@ public class JSONObject {
      *             If the object contains an invalid number.
      */
     public String toString(int indentFactor) throws JSONException {
-        StringWriter w = new StringWriter();
-        synchronized (w.getBuffer()) {
-            return this.write(w, indentFactor, 0).toString();
-        }
+        return this.write(new JSONStringWriter(), indentFactor, 0).toString();
     }
 
     /**
@@ -2112,7 +2216,7 @@ public class JSONObject {
             if (object == null) {
                 return NULL;
             }
-            if (object instanceof JSONObject || object instanceof JSONArray || NULL.equals(object) || object instanceof JSONString || object instanceof Byte || object instanceof Character || object instanceof Short || object instanceof Integer || object instanceof Long || object instanceof Boolean || object instanceof Float || object instanceof Double || object instanceof String || object instanceof BigInteger || object instanceof BigDecimal || object instanceof Enum) {
+            if (isWrapped(object)) {
                 return object;
             }
 
@@ -2140,6 +2244,10 @@ public class JSONObject {
         }
     }
 
+    private static boolean isWrapped(Object object) {
+        return object instanceof JSONObject || object instanceof JSONArray || NULL.equals(object) || object instanceof JSONString || object instanceof Byte || object instanceof Character || object instanceof Short || object instanceof Integer || object instanceof Long || object instanceof Boolean || object instanceof Float || object instanceof Double || object instanceof String || object instanceof BigInteger || object instanceof BigDecimal || object instanceof Enum;
+    }
+
     /**
      * Write the contents of the JSONObject as JSON text to a writer. For
      * compactness, no whitespace is added.
@@ -2166,6 +2274,21 @@ public class JSONObject {
                 throw new JSONException(e);
             }
             writer.write(o != null ? o.toString() : quote(value.toString()));
+        } else if (isIntegral(value)) {
+            if (writer instanceof JSONStringWriter) {
+                ((JSONStringWriter) writer).writeLong(((Number) value).longValue());
+            } else {
+                writer.write(value.toString());
+            }
+        } else if (value instanceof Double || value instanceof Float) {
+            final double d = ((Number) value).doubleValue();
+            if (writer instanceof JSONStringWriter && d == (long) d && Math.abs(d) < 1e7 && (d != 0 || 1 / d > 0)) {
+                // Whole numbers print as integers once their ".0" is shaved off
+                ((JSONStringWriter) writer).writeLong((long) d);
+            } else {
+                // Finite doubles always print as valid JSON numbers
+                writer.write(numberToString((Number) value));
+            }
         } else if (value instanceof Number) {
             // not all Numbers may match actual JSON Numbers. i.e. fractions or Imaginary
             final String numberAsString = numberToString((Number) value);
@@ -2183,17 +2306,16 @@ public class JSONObject {
         } else if (value instanceof Boolean) {
             writer.write(value.toString());
         } else if (value instanceof Enum<?>) {
-            writer.write(quote(((Enum<?>) value).name()));
+            quote(((Enum<?>) value).name(), writer);
         } else if (value instanceof JSONObject) {
             ((JSONObject) value).write(writer, indentFactor, indent);
         } else if (value instanceof JSONArray) {
             ((JSONArray) value).write(writer, indentFactor, indent);
         } else if (value instanceof Map) {
-            Map<?, ?> map = (Map<?, ?>) value;
-            new JSONObject(map).write(writer, indentFactor, indent);
+            // Same output as new JSONObject(map), without the copy
+            writeMap(writer, (Map<?, ?>) value, true, indentFactor, indent);
         } else if (value instanceof Collection) {
-            Collection<?> coll = (Collection<?>) value;
-            new JSONArray(coll).write(writer, indentFactor, indent);
+            JSONArray.writeCollection(writer, (Collection<?>) value, true, indentFactor, indent);
         } else if (value.getClass().isArray()) {
             new JSONArray(value).write(writer, indentFactor, indent);
         } else {
@@ -2202,6 +2324,19 @@ public class JSONObject {
         return writer;
     }
 
+    /**
+     * Write a value of a map or collection which has not been wrapped, with the
+     * same result as writing wrap(value).
+     */
+    static final void writeUnwrappedValue(Writer writer, Object value,
+        int indentFactor, int indent) throws JSONException, IOException {
+        if (value == null || value instanceof Map || value instanceof Collection || isWrapped(value) || value.getClass().isArray()) {
+            writeValue(writer, value, indentFactor, indent);
+        } else {
+            writeValue(writer, wrap(value), indentFactor, indent);
+        }
+    }
+
     static final void indent(Writer writer, int indent) throws IOException {
         for (int i = 0; i < indent; i += 1) {
             writer.write(' ');
@@ -2236,47 +2371,62 @@ public class JSONObject {
      */
     public Writer write(Writer writer, int indentFactor, int indent)
         throws JSONException {
+        return writeMap(writer, this.map, this.isView, indentFactor, indent);
+    }
+
+    /**
+     * Write the entries of a map as a JSON object. If the map is unwrapped,
+     * entries with null values are skipped and the other values are written as
+     * if they had been wrapped, so the result is the same as for a copy made by
+     * {@link #JSONObject(Map)}.
+     */
+    static final Writer writeMap(Writer writer, Map<?, ?> map, boolean unwrapped,
+        int indentFactor, int indent) throws JSONException {
         try {
             boolean commanate = false;
-            final int length = this.length();
+            int length = map.size();
+            if (unwrapped) {
+                for (final Object value : map.values()) {
+                    if (value == null) {
+                        length--;
+                    }
+                }
+            }
             writer.write('{');
 
-            if (length == 1) {
-                final Entry<String, ?> entry = this.entrySet().iterator().next();
-                final String key = entry.getKey();
-                writer.write(quote(key));
-                writer.write(':');
-                if (indentFactor > 0) {
-                    writer.write(' ');
+            final int newindent = length == 1 ? indent : indent + indentFactor;
+            for (final Entry<?, ?> entry : map.entrySet()) {
+                final Object value = entry.getValue();
+                if (unwrapped && value == null) {
+                    continue;
                 }
-                try {
-                    writeValue(writer, entry.getValue(), indentFactor, indent);
-                } catch (Exception e) {
-                    throw new JSONException("Unable to write JSONObject value for key: " + key, e);
+                if (commanate) {
+                    writer.write(',');
                 }
-            } else if (length != 0) {
-                final int newindent = indent + indentFactor;
-                for (final Entry<String, ?> entry : this.entrySet()) {
-                    if (commanate) {
-                        writer.write(',');
-                    }
+                if (length > 1) {
                     if (indentFactor > 0) {
                         writer.write('\n');
                     }
                     indent(writer, newindent);
-                    final String key = entry.getKey();
-                    writer.write(quote(key));
-                    writer.write(':');
-                    if (indentFactor > 0) {
-                        writer.write(' ');
-                    }
-                    try {
-                        writeValue(writer, entry.getValue(), indentFactor, newindent);
-                    } catch (Exception e) {
-                        throw new JSONException("Unable to write JSONObject value for key: " + key, e);
+                }
+                final String key = String.valueOf(entry.getKey());
+                quote(key, writer);
+                writer.write(':');
+                if (indentFactor > 0) {
+                    writer.write(' ');
+                }
+                try {
+                    if (unwrapped) {
+                        writeUnwrappedValue(writer, value, indentFactor, newindent);
+                    } else {
+                        writeValue(writer, value, indentFactor, newindent);
                     }
-                    commanate = true;
+                } catch (Exception e) {
+                    throw new JSONException("Unable to write JSONObject value for key: " + key, e);
                 }
+                commanate = true;
+            }
+            if (length > 1) {
                 if (indentFactor > 0) {
                     writer.write('\n');
                 }
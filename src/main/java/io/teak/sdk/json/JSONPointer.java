@@ -6,8 +6,9 @@ import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /*
 Copyright (c) 2002 JSON.org
@@ -56,6 +57,41 @@ public class JSONPointer {
     // used for URL encoding and decoding
     private static final String ENCODING = "utf-8";
 
+    // The number of compiled pointers kept by compile()
+    private static final int MAX_COMPILED_POINTERS = 64;
+
+    private static final Map<String, JSONPointer> compiled = new LinkedHashMap<String, JSONPointer>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, JSONPointer> eldest) {
+            return this.size() > MAX_COMPILED_POINTERS;
+        }
+    };
+
+    /**
+     * Returns the {@code JSONPointer} for a JSON pointer string, parsing it only
+     * the first time it is seen. The most recently used pointers are kept.
+     *
+     * @param pointer the JSON String or URI Fragment representation of the JSON pointer.
+     * @return the pointer
+     * @throws IllegalArgumentException if {@code pointer} is not a valid JSON pointer
+     */
+    public static JSONPointer compile(final String pointer) {
+        if (pointer == null) {
+            throw new NullPointerException("pointer cannot be null");
+        }
+        synchronized (compiled) {
+            final JSONPointer cached = compiled.get(pointer);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        final JSONPointer jsonPointer = new JSONPointer(pointer);
+        synchronized (compiled) {
+            compiled.put(pointer, jsonPointer);
+        }
+        return jsonPointer;
+    }
+
     /**
      * This class allows the user to build a JSONPointer in steps, using
      * exactly one segment in each step.
@@ -125,13 +161,18 @@ public class JSONPointer {
         return new Builder();
     }
 
-    // Segments for the JSONPointer string
-    private final List<String> refTokens;
+    // Segments for the JSONPointer string, unescaped
+    private final String[] refTokens;
+
+    // Each segment parsed as an array index, or NOT_AN_INDEX
+    private final int[] indices;
+    private static final int NOT_AN_INDEX = -1;
 
     /**
      * Pre-parses and initializes a new {@code JSONPointer} instance. If you want to
      * evaluate the same JSON Pointer on different JSON documents then it is recommended
-     * to keep the {@code JSONPointer} instances due to performance considerations.
+     * to keep the {@code JSONPointer} instances due to performance considerations, or
+     * to use {@link #compile(String)}.
      * 
      * @param pointer the JSON String or URI Fragment representation of the JSON pointer.
      * @throws IllegalArgumentException if {@code pointer} is not a valid JSON pointer
@@ -141,7 +182,8 @@ public class JSONPointer {
             throw new NullPointerException("pointer cannot be null");
         }
         if (pointer.isEmpty() || pointer.equals("#")) {
-            this.refTokens = Collections.emptyList();
+            this.refTokens = new String[0];
+            this.indices = new int[0];
             return;
         }
         String refs;
@@ -157,20 +199,39 @@ public class JSONPointer {
         } else {
             throw new IllegalArgumentException("a JSON pointer should start with '/' or '#/'");
         }
-        this.refTokens = new ArrayList<String>();
-        for (String token : refs.split("/")) {
-            this.refTokens.add(unescape(token));
+        final String[] tokens = refs.split("/");
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = unescape(tokens[i]);
         }
+        this.refTokens = tokens;
+        this.indices = parseIndices(tokens);
     }
 
     public JSONPointer(List<String> refTokens) {
-        this.refTokens = new ArrayList<String>(refTokens);
+        this.refTokens = refTokens.toArray(new String[refTokens.size()]);
+        this.indices = parseIndices(this.refTokens);
     }
 
-    private String unescape(String token) {
+    private static String unescape(String token) {
+        if (token.indexOf('~') < 0 && token.indexOf('\\') < 0) {
+            return token;
+        }
         return token.replace("~1", "/").replace("~0", "~").replace("\\\"", "\"").replace("\\\\", "\\");
     }
 
+    private static int[] parseIndices(String[] tokens) {
+        final int[] indices = new int[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            try {
+                final int index = Integer.parseInt(tokens[i]);
+                indices[i] = index < 0 ? NOT_AN_INDEX : index;
+            } catch (NumberFormatException e) {
+                indices[i] = NOT_AN_INDEX;
+            }
+        }
+        return indices;
+    }
+
     /**
      * Evaluates this JSON Pointer on the given {@code document}. The {@code document}
      * is usually a {@link JSONObject} or a {@link JSONArray} instance, but the empty
@@ -182,19 +243,38 @@ public class JSONPointer {
      * @throws JSONPointerException if an error occurs during evaluation
      */
     public Object queryFrom(Object document) throws JSONPointerException {
-        if (this.refTokens.isEmpty()) {
-            return document;
-        }
         Object current = document;
-        for (String token : this.refTokens) {
+        for (int i = 0; i < this.refTokens.length; i++) {
             if (current instanceof JSONObject) {
-                current = ((JSONObject) current).opt(unescape(token));
+                current = ((JSONObject) current).opt(this.refTokens[i]);
             } else if (current instanceof JSONArray) {
-                current = readByIndexToken(current, token);
+                current = readByIndexToken((JSONArray) current, i);
             } else {
                 throw new JSONPointerException(format(
                     "value [%s] is not an array or object therefore its key %s cannot be resolved", current,
-                    token));
+                    this.refTokens[i]));
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Evaluates this JSON Pointer on the given {@code document}, returning null
+     * instead of throwing if the pointer does not match anything.
+     *
+     * @param document the JSON document which should be the subject of querying.
+     * @return the result of the evaluation, or null
+     */
+    public Object optQueryFrom(Object document) {
+        Object current = document;
+        for (int i = 0; i < this.refTokens.length; i++) {
+            if (current instanceof JSONObject) {
+                current = ((JSONObject) current).opt(this.refTokens[i]);
+            } else if (current instanceof JSONArray) {
+                final int index = this.indices[i];
+                current = index == NOT_AN_INDEX ? null : ((JSONArray) current).opt(index);
+            } else {
+                return null;
             }
         }
         return current;
@@ -202,26 +282,24 @@ public class JSONPointer {
 
     /**
      * Matches a JSONArray element by ordinal position
-     * @param current the JSONArray to be evaluated
-     * @param indexToken the array index in string form
+     * @param currentArr the JSONArray to be evaluated
+     * @param i the position of the index token
      * @return the matched object. If no matching item is found a
      * @throws JSONPointerException is thrown if the index is out of bounds
      */
-    private Object readByIndexToken(Object current, String indexToken) throws JSONPointerException {
+    private Object readByIndexToken(JSONArray currentArr, int i) throws JSONPointerException {
+        final int index = this.indices[i];
+        if (index == NOT_AN_INDEX) {
+            throw new JSONPointerException(format("%s is not an array index", this.refTokens[i]));
+        }
+        if (index >= currentArr.length()) {
+            throw new JSONPointerException(format("index %d is out of bounds - the array has %d elements", index,
+                currentArr.length()));
+        }
         try {
-            int index = Integer.parseInt(indexToken);
-            JSONArray currentArr = (JSONArray) current;
-            if (index >= currentArr.length()) {
-                throw new JSONPointerException(format("index %d is out of bounds - the array has %d elements", index,
-                    currentArr.length()));
-            }
-            try {
-                return currentArr.get(index);
-            } catch (JSONException e) {
-                throw new JSONPointerException("Error reading value at index position " + index, e);
-            }
-        } catch (NumberFormatException e) {
-            throw new JSONPointerException(format("%s is not an array index", indexToken), e);
+            return currentArr.get(index);
+        } catch (JSONException e) {
+            throw new JSONPointerException("Error reading value at index position " + index, e);
         }
     }
 
@@ -0,0 +1,157 @@
+package io.teak.sdk.json;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * An unsynchronized Writer into a growable char array, used to build JSON
+ * text. Unlike StringWriter, which locks its StringBuffer on every write, it
+ * does no locking, and it can escape strings and print integers straight into
+ * its buffer.
+ */
+final class JSONStringWriter extends Writer {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * The escape sequence for each ASCII character which needs one, or null.
+     */
+    private static final String[] ESCAPES = new String[128];
+
+    static {
+        for (int c = 0; c < ' '; c++) {
+            ESCAPES[c] = "\\u00" + HEX_DIGITS[c >> 4] + HEX_DIGITS[c & 0xf];
+        }
+        ESCAPES['\b'] = "\\b";
+        ESCAPES['\t'] = "\\t";
+        ESCAPES['\n'] = "\\n";
+        ESCAPES['\f'] = "\\f";
+        ESCAPES['\r'] = "\\r";
+        ESCAPES['"'] = "\\\"";
+        ESCAPES['\\'] = "\\\\";
+    }
+
+    private char[] buffer;
+    private int count;
+
+    JSONStringWriter() {
+        this(128);
+    }
+
+    JSONStringWriter(int capacity) {
+        this.buffer = new char[capacity];
+    }
+
+    private void ensureCapacity(int extra) {
+        if (this.count + extra > this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.count + extra));
+        }
+    }
+
+    @Override
+    public void write(int c) {
+        this.ensureCapacity(1);
+        this.buffer[this.count++] = (char) c;
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) {
+        this.ensureCapacity(length);
+        System.arraycopy(chars, offset, this.buffer, this.count, length);
+        this.count += length;
+    }
+
+    @Override
+    public void write(String string) {
+        this.write(string, 0, string.length());
+    }
+
+    @Override
+    public void write(String string, int offset, int length) {
+        this.ensureCapacity(length);
+        string.getChars(offset, offset + length, this.buffer, this.count);
+        this.count += length;
+    }
+
+    /**
+     * Write the contents of this writer to another writer.
+     */
+    void writeTo(Writer writer) throws IOException {
+        writer.write(this.buffer, 0, this.count);
+    }
+
+    /**
+     * Write a long in decimal, without making a String of it.
+     */
+    void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            this.write("-9223372036854775808");
+            return;
+        }
+
+        this.ensureCapacity(20);
+        if (value < 0) {
+            this.buffer[this.count++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        int position = this.count + digits;
+        this.count = position;
+        do {
+            this.buffer[--position] = (char) ('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+    }
+
+    /**
+     * Write a string in double quotes, escaped as described by
+     * {@link JSONObject#quote(String)}.
+     */
+    void writeQuoted(String string) {
+        final int length = string.length();
+        this.ensureCapacity(length + 2);
+        this.buffer[this.count++] = '"';
+        char previous = 0;
+        for (int i = 0; i < length; i++) {
+            final char c = string.charAt(i);
+            if (c < 128) {
+                final String escape = ESCAPES[c];
+                if (escape != null) {
+                    this.write(escape);
+                } else if (c == '/' && previous == '<') {
+                    this.write("\\/");
+                } else {
+                    this.write(c);
+                }
+            } else if (c < 0xa0 || (c >= 0x2000 && c < 0x2100)) {
+                this.ensureCapacity(6);
+                this.buffer[this.count++] = '\\';
+                this.buffer[this.count++] = 'u';
+                this.buffer[this.count++] = HEX_DIGITS[c >> 12];
+                this.buffer[this.count++] = HEX_DIGITS[(c >> 8) & 0xf];
+                this.buffer[this.count++] = HEX_DIGITS[(c >> 4) & 0xf];
+                this.buffer[this.count++] = HEX_DIGITS[c & 0xf];
+            } else {
+                this.write(c);
+            }
+            previous = c;
+        }
+        this.write('"');
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public String toString() {
+        return new String(this.buffer, 0, this.count);
+    }
+}
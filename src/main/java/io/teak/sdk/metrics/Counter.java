@@ -0,0 +1,29 @@
+package io.teak.sdk.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A count which only goes up, such as the number of requests sent.
+ */
+public class Counter {
+    private final AtomicLong value = new AtomicLong();
+
+    Counter() {
+    }
+
+    public void increment() {
+        this.value.incrementAndGet();
+    }
+
+    public void add(long amount) {
+        this.value.addAndGet(amount);
+    }
+
+    public long get() {
+        return this.value.get();
+    }
+
+    long getAndReset() {
+        return this.value.getAndSet(0);
+    }
+}
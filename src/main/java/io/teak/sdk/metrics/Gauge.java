@@ -0,0 +1,8 @@
+package io.teak.sdk.metrics;
+
+/**
+ * A value which is read when a snapshot is taken, such as the depth of a queue.
+ */
+public interface Gauge {
+    long getValue();
+}
@@ -0,0 +1,103 @@
+package io.teak.sdk.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Distribution of recorded values, such as latencies, with fixed relative precision.
+ *
+ * Values are counted in log-linear buckets, in the style of HdrHistogram: each power of two is
+ * split into eight equal buckets, so any reported percentile is within 12.5% of the true value,
+ * no matter how large. Recording is a handful of atomic adds, with no locking or allocation.
+ */
+public class Histogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    Histogram() {
+    }
+
+    /**
+     * @param value The value to record; negative values are recorded as zero.
+     */
+    public void record(long value) {
+        if (value < 0) value = 0;
+
+        this.buckets.incrementAndGet(bucketIndex(value));
+        this.count.incrementAndGet();
+        this.sum.addAndGet(value);
+
+        long currentMax;
+        while (value > (currentMax = this.max.get())) {
+            if (this.max.compareAndSet(currentMax, value)) break;
+        }
+    }
+
+    public long getCount() {
+        return this.count.get();
+    }
+
+    /**
+     * @param reset True to clear the histogram as it is read.
+     * @return The count, sum, max and 50th, 90th and 99th percentiles of the recorded values.
+     */
+    Map<String, Object> snapshot(boolean reset) {
+        final long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = reset ? this.buckets.getAndSet(i, 0) : this.buckets.get(i);
+            total += counts[i];
+        }
+        final long sum = reset ? this.sum.getAndSet(0) : this.sum.get();
+        final long max = reset ? this.max.getAndSet(0) : this.max.get();
+        if (reset) {
+            this.count.addAndGet(-total);
+        }
+
+        final Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("count", total);
+        snapshot.put("sum", sum);
+        snapshot.put("max", max);
+        snapshot.put("p50", Math.min(max, valueAtPercentile(counts, total, 0.50)));
+        snapshot.put("p90", Math.min(max, valueAtPercentile(counts, total, 0.90)));
+        snapshot.put("p99", Math.min(max, valueAtPercentile(counts, total, 0.99)));
+        return snapshot;
+    }
+
+    private static long valueAtPercentile(long[] counts, long total, double percentile) {
+        final long target = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target && seen > 0) {
+                return highestValueInBucket(i);
+            }
+        }
+        return 0;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long highestValueInBucket(int index) {
+        if (index < SUB_BUCKETS) return index;
+
+        final int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        final int shift = exponent - SUB_BUCKET_BITS;
+        final long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowest + ((1L << shift) - 1);
+    }
+}
@@ -0,0 +1,116 @@
+package io.teak.sdk.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+
+/**
+ * In-process registry of the SDK's counters, gauges and histograms.
+ *
+ * Metrics are created the first time they are asked for by name, and live for the life of the
+ * process. Callers on hot paths should keep the metric rather than looking it up each time.
+ */
+public class Metrics {
+    private static final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Gauge> gauges = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * @param name The name of the counter.
+     * @return The counter with that name.
+     */
+    @NonNull
+    public static Counter counter(@NonNull String name) {
+        Counter counter = counters.get(name);
+        if (counter == null) {
+            final Counter created = new Counter();
+            counter = counters.putIfAbsent(name, created);
+            if (counter == null) counter = created;
+        }
+        return counter;
+    }
+
+    /**
+     * @param name The name of the histogram.
+     * @return The histogram with that name.
+     */
+    @NonNull
+    public static Histogram histogram(@NonNull String name) {
+        Histogram histogram = histograms.get(name);
+        if (histogram == null) {
+            final Histogram created = new Histogram();
+            histogram = histograms.putIfAbsent(name, created);
+            if (histogram == null) histogram = created;
+        }
+        return histogram;
+    }
+
+    /**
+     * Register a gauge, replacing any gauge which already has the name.
+     *
+     * @param name  The name of the gauge.
+     * @param gauge The gauge.
+     */
+    public static void registerGauge(@NonNull String name, @NonNull Gauge gauge) {
+        gauges.put(name, gauge);
+    }
+
+    /**
+     * Record the time since a start time, in microseconds.
+     *
+     * @param name      The name of the histogram.
+     * @param startNanos The start time, from {@link System#nanoTime()}.
+     */
+    public static void recordMicrosSince(@NonNull String name, long startNanos) {
+        histogram(name).record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * @return The current value of every metric, by name.
+     */
+    @NonNull
+    public static Map<String, Object> snapshot() {
+        return snapshot(false);
+    }
+
+    /**
+     * Take a snapshot for reporting, which leaves out metrics that have not changed, and starts
+     * counters and histograms over so that each report covers only the time since the last.
+     *
+     * @return The metrics which changed since the last report, and every gauge, by name; or an
+     *         empty map if no counter or histogram changed.
+     */
+    @NonNull
+    public static Map<String, Object> snapshotSinceLastReport() {
+        return snapshot(true);
+    }
+
+    private static Map<String, Object> snapshot(boolean reset) {
+        final Map<String, Object> snapshot = new TreeMap<>();
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            final long value = reset ? entry.getValue().getAndReset() : entry.getValue().get();
+            if (!reset || value != 0) {
+                snapshot.put(entry.getKey(), value);
+            }
+        }
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            if (!reset || entry.getValue().getCount() != 0) {
+                snapshot.put(entry.getKey(), entry.getValue().snapshot(reset));
+            }
+        }
+        // Nothing happened, so there is nothing to report
+        if (reset && snapshot.isEmpty()) return snapshot;
+
+        for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+            try {
+                snapshot.put(entry.getKey(), entry.getValue().getValue());
+            } catch (Exception ignored) {
+            }
+        }
+        return snapshot;
+    }
+}
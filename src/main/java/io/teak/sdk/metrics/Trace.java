@@ -0,0 +1,200 @@
+package io.teak.sdk.metrics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.NonNull;
+import io.teak.sdk.json.JSONObject;
+
+/**
+ * Sampled span tracing, for following one call through the SDK's threads and queues.
+ *
+ * A span is a 64-bit id which is carried along with the work, and marked with a monotonic
+ * timestamp at each handoff. Unsampled work carries {@link #NoSpan}, and marking it costs a
+ * single comparison. Marks go into a fixed-size ring, so tracing never grows without bound, and
+ * the ring can be exported as a Chrome trace (chrome://tracing or ui.perfetto.dev).
+ */
+public class Trace {
+    public static final long NoSpan = 0L;
+
+    private static final int Capacity = 4096;
+
+    private static final AtomicLong nextSpanId = new AtomicLong();
+    private static final AtomicInteger nextMark = new AtomicInteger();
+    private static final long[] markSpanIds = new long[Capacity];
+    private static final long[] markTimes = new long[Capacity];
+    private static final long[] markThreadIds = new long[Capacity];
+    private static final String[] markNames = new String[Capacity];
+    private static final Map<Long, String> threadNames = new HashMap<>();
+
+    private static volatile double sampleRate = 0.0;
+
+    private static final ThreadLocal<long[]> currentSpan = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[] {NoSpan};
+        }
+    };
+
+    /**
+     * @param rate The fraction of spans to trace, from 0 (none, the default) to 1 (all).
+     */
+    public static void setSampleRate(double rate) {
+        Trace.sampleRate = Math.max(0.0, Math.min(1.0, rate));
+    }
+
+    public static boolean isEnabled() {
+        return Trace.sampleRate > 0.0;
+    }
+
+    /**
+     * Start a span, if it is sampled.
+     *
+     * @param name Name of the first step of the span.
+     * @return The new span, or {@link #NoSpan} if it was not sampled.
+     */
+    public static long begin(@NonNull String name) {
+        final double rate = Trace.sampleRate;
+        if (rate <= 0.0 || (rate < 1.0 && Math.random() >= rate)) {
+            return NoSpan;
+        }
+
+        final long spanId = nextSpanId.incrementAndGet();
+        mark(spanId, name);
+        return spanId;
+    }
+
+    /**
+     * Mark the start of the next step of a span.
+     *
+     * @param spanId The span, which may be {@link #NoSpan}.
+     * @param name   Name of the step.
+     */
+    public static void mark(long spanId, @NonNull String name) {
+        if (spanId == NoSpan) return;
+
+        final Thread thread = Thread.currentThread();
+        final long threadId = thread.getId();
+        synchronized (threadNames) {
+            if (!threadNames.containsKey(threadId)) {
+                threadNames.put(threadId, thread.getName());
+            }
+        }
+
+        final int index = nextMark.getAndIncrement() & (Capacity - 1);
+        synchronized (markNames) {
+            markSpanIds[index] = spanId;
+            markTimes[index] = System.nanoTime();
+            markThreadIds[index] = threadId;
+            markNames[index] = name;
+        }
+    }
+
+    /**
+     * @return The span of the work running on this thread, or {@link #NoSpan}.
+     */
+    public static long current() {
+        return currentSpan.get()[0];
+    }
+
+    /**
+     * Mark a span and run work as part of it, so that anything it starts, such as a
+     * {@link io.teak.sdk.TeakEvent} or {@link io.teak.sdk.Request}, carries the span.
+     *
+     * @param spanId   The span, which may be {@link #NoSpan}.
+     * @param name     Name of the step.
+     * @param runnable The work.
+     */
+    public static void run(long spanId, @NonNull String name, @NonNull Runnable runnable) {
+        if (spanId == NoSpan) {
+            runnable.run();
+            return;
+        }
+
+        mark(spanId, name);
+        final long[] current = currentSpan.get();
+        final long previous = current[0];
+        current[0] = spanId;
+        try {
+            runnable.run();
+        } finally {
+            current[0] = previous;
+        }
+    }
+
+    /**
+     * Write the traced spans as a Chrome trace, with one complete event for each step.
+     *
+     * @param file File to write.
+     * @return True if the trace was written.
+     */
+    public static boolean exportChromeTrace(@NonNull File file) {
+        final List<long[]> marks = new ArrayList<>();
+        final List<String> names = new ArrayList<>();
+        synchronized (markNames) {
+            for (int i = 0; i < Capacity; i++) {
+                if (markNames[i] == null) continue;
+                marks.add(new long[] {markSpanIds[i], markTimes[i], markThreadIds[i], names.size()});
+                names.add(markNames[i]);
+            }
+        }
+        final Map<Long, String> threads;
+        synchronized (threadNames) {
+            threads = new HashMap<>(threadNames);
+        }
+
+        final long[][] sorted = marks.toArray(new long[marks.size()][]);
+        Arrays.sort(sorted, new Comparator<long[]>() {
+            @Override
+            public int compare(long[] a, long[] b) {
+                if (a[0] != b[0]) return a[0] < b[0] ? -1 : 1;
+                return a[1] < b[1] ? -1 : (a[1] == b[1] ? 0 : 1);
+            }
+        });
+
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+            writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+            boolean first = true;
+            for (Map.Entry<Long, String> entry : threads.entrySet()) {
+                if (!first) writer.write(',');
+                first = false;
+                writer.write("{\"ph\":\"M\",\"name\":\"thread_name\",\"pid\":1,\"tid\":" + entry.getKey() +
+                             ",\"args\":{\"name\":" + JSONObject.quote(entry.getValue()) + "}}");
+            }
+            for (int i = 0; i < sorted.length; i++) {
+                final long[] mark = sorted[i];
+                final boolean hasNext = i + 1 < sorted.length && sorted[i + 1][0] == mark[0];
+                if (!first) writer.write(',');
+                first = false;
+                writer.write("{\"ph\":\"" + (hasNext ? "X" : "i") + "\",\"name\":" + JSONObject.quote(names.get((int) mark[3])) +
+                             ",\"pid\":1,\"tid\":" + mark[2] + ",\"ts\":" + TimeUnit.NANOSECONDS.toMicros(mark[1]) +
+                             (hasNext ? ",\"dur\":" + TimeUnit.NANOSECONDS.toMicros(sorted[i + 1][1] - mark[1]) : ",\"s\":\"t\"") +
+                             ",\"args\":{\"span\":" + mark[0] + "}}");
+            }
+            writer.write("]}");
+            return true;
+        } catch (Exception ignored) {
+            return false;
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (Exception ignored) {
+                }
+            }
+        }
+    }
+}
@@ -6,7 +6,6 @@ import android.content.ContentProvider;
 import android.content.ContentValues;
 import android.content.Context;
 import android.content.pm.ActivityInfo;
-import android.content.pm.PackageManager;
 import android.content.pm.ProviderInfo;
 import android.database.Cursor;
 import android.net.Uri;
@@ -14,6 +13,7 @@ import android.os.Bundle;
 import android.util.Log;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import io.teak.sdk.PackageMetadata;
 import io.teak.sdk.Teak;
 import io.teak.sdk.wrapper.cocos2dx.TeakCocos2dx;
 import io.teak.sdk.wrapper.unity.TeakUnity;
@@ -52,12 +52,8 @@ public class TeakInitProvider extends ContentProvider {
     }
 
     private boolean shouldAttachToActivity(Activity activity) {
-        Bundle activityMetaData = null;
-        try {
-            ActivityInfo info = activity.getPackageManager().getActivityInfo(activity.getComponentName(), PackageManager.GET_META_DATA);
-            activityMetaData = info.metaData;
-        } catch (Exception ignored) {
-        }
+        final ActivityInfo info = PackageMetadata.get(activity).getActivityInfo(activity, activity.getComponentName());
+        final Bundle activityMetaData = info == null ? null : info.metaData;
 
         return activityMetaData != null && activityMetaData.getBoolean(IO_TEAK_INITIALIZE, false);
     }
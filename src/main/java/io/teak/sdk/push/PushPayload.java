@@ -0,0 +1,200 @@
+package io.teak.sdk.push;
+
+import android.os.Bundle;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.teak.sdk.Teak;
+import io.teak.sdk.json.JSONArray;
+import io.teak.sdk.json.JSONObject;
+
+/**
+ * Decoded contents of a Teak push notification.
+ *
+ * Each JSON-bearing field of the push is parsed at most once, the first time it is asked for,
+ * and the parsed value is shared by logging, {@link io.teak.sdk.TeakNotification} and
+ * {@link io.teak.sdk.NotificationBuilder}.
+ */
+public class PushPayload {
+    private static final Pattern VersionPattern = Pattern.compile("(\\d+)\\.(\\d+)\\.(\\d+).*");
+
+    public final Bundle bundle;
+
+    private final Object lock = new Object();
+    private boolean extrasDecoded;
+    private JSONObject extras;
+    private boolean displayDecoded;
+    private JSONObject display;
+    private boolean displayIsInvalid;
+    private boolean rawDisplayDecoded;
+    private JSONObject rawDisplay;
+    private Map<String, Object> debugMap;
+
+    public PushPayload(@NonNull Bundle bundle) {
+        this.bundle = bundle;
+    }
+
+    /**
+     * @return The decoded 'extras' field, or null if it is missing or is not valid JSON.
+     */
+    @Nullable
+    public JSONObject getExtras() {
+        synchronized (this.lock) {
+            if (!this.extrasDecoded) {
+                this.extras = parseObject(this.bundle.getString("extras"));
+                this.extrasDecoded = true;
+            }
+            return this.extras;
+        }
+    }
+
+    /**
+     * @return The display configuration for this SDK version, taken from 'versioned_content' if it
+     *         contains a compatible entry, otherwise from 'display'; or null if neither is usable.
+     */
+    @Nullable
+    public JSONObject getDisplay() {
+        synchronized (this.lock) {
+            decodeDisplay();
+            return this.display;
+        }
+    }
+
+    /**
+     * @return true if the push contained a 'display' field which could not be parsed.
+     */
+    public boolean isDisplayInvalid() {
+        synchronized (this.lock) {
+            decodeRawDisplay();
+            return this.displayIsInvalid;
+        }
+    }
+
+    /**
+     * @return A map of the push contents suitable for logging, with JSON object fields expanded.
+     */
+    @NonNull
+    public Map<String, Object> toDebugMap() {
+        synchronized (this.lock) {
+            if (this.debugMap == null) {
+                final HashMap<String, Object> map = new HashMap<>();
+                for (String key : this.bundle.keySet()) {
+                    Object o = this.bundle.get(key);
+                    if ("extras".equals(key)) {
+                        final JSONObject json = getExtras();
+                        if (json != null) o = json.toMap();
+                    } else if ("display".equals(key)) {
+                        final JSONObject json = decodeRawDisplay();
+                        if (json != null) o = json.toMap();
+                    } else if (o instanceof String && looksLikeObject((String) o)) {
+                        final JSONObject json = parseObject((String) o);
+                        if (json != null) o = json.toMap();
+                    }
+                    map.put(key, o);
+                }
+                this.debugMap = map;
+            }
+            return this.debugMap;
+        }
+    }
+
+    private void decodeDisplay() {
+        if (this.displayDecoded) return;
+        this.displayDecoded = true;
+
+        // Check for content specified by SDK version
+        final String versionedContentString = this.bundle.getString("versioned_content");
+        if (versionedContentString != null) {
+            try {
+                final JSONArray versionedContent = new JSONArray(versionedContentString);
+                for (Object content : versionedContent) {
+                    if (!(content instanceof JSONObject)) continue;
+                    final JSONObject jsonContent = (JSONObject) content;
+
+                    final int[] contentMajorMinorRevision = parseMajorMinorRevision(jsonContent.optString("version", null));
+                    if (contentMajorMinorRevision == null) continue;
+
+                    if (compareMajorMinorRevision(Teak.MajorMinorRevision, contentMajorMinorRevision) >= 0) {
+                        this.display = jsonContent;
+                    } else {
+                        break;
+                    }
+                }
+            } catch (Exception e) {
+                Teak.log.exception(e);
+            }
+        }
+
+        // Fall back to display
+        if (this.display == null) {
+            this.display = decodeRawDisplay();
+        }
+    }
+
+    private JSONObject decodeRawDisplay() {
+        if (!this.rawDisplayDecoded) {
+            this.rawDisplayDecoded = true;
+            final String displayString = this.bundle.getString("display");
+            if (displayString != null) {
+                try {
+                    this.rawDisplay = new JSONObject(displayString);
+                } catch (Exception e) {
+                    Teak.log.exception(e);
+                    this.displayIsInvalid = true;
+                }
+            }
+        }
+        return this.rawDisplay;
+    }
+
+    private static boolean looksLikeObject(String string) {
+        for (int i = 0; i < string.length(); i++) {
+            final char c = string.charAt(i);
+            if (!Character.isWhitespace(c)) return c == '{';
+        }
+        return false;
+    }
+
+    private static JSONObject parseObject(String string) {
+        if (string == null) return null;
+        try {
+            return new JSONObject(string);
+        } catch (Exception ignored) {
+        }
+        return null;
+    }
+
+    static int[] parseMajorMinorRevision(String versionString) {
+        if (versionString == null) return null;
+
+        final Matcher m = VersionPattern.matcher(versionString);
+        if (!m.matches()) return null;
+
+        return new int[] {
+            Integer.parseInt(m.group(1)), // major
+            Integer.parseInt(m.group(2)), // minor
+            Integer.parseInt(m.group(3))  // revision
+        };
+    }
+
+    static int compareMajorMinorRevision(int[] version, int[] otherVersion) {
+        if (version[0] != otherVersion[0]) {
+            return version[0] - otherVersion[0];
+        }
+
+        if (version[1] != otherVersion[1]) {
+            return version[1] - otherVersion[1];
+        }
+
+        if (version[2] != otherVersion[2]) {
+            return version[2] - otherVersion[2];
+        }
+
+        return 0;
+    }
+}
@@ -21,12 +21,15 @@ import io.teak.sdk.NotificationBuilder;
 import io.teak.sdk.Teak;
 import io.teak.sdk.TeakEvent;
 import io.teak.sdk.core.Executors;
+import io.teak.sdk.core.IKeyValueStore;
+import io.teak.sdk.core.KeyValueStore;
 import io.teak.sdk.event.LifecycleEvent;
 import io.teak.sdk.json.JSONArray;
 import io.teak.sdk.json.JSONObject;
 
 public class PushState {
     private static final String PUSH_STATE_CHAIN_KEY = "io.teak.sdk.Preferences.PushStateChain";
+    private static final int MAX_STATE_CHAIN_LENGTH = 50;
 
     public enum State {
         Unknown("unknown"),
@@ -121,9 +124,10 @@ public class PushState {
         }
     }
 
-    private List<StateChainEntry> stateChain = new ArrayList<>();
+    private volatile List<StateChainEntry> stateChain = new ArrayList<>();
     private final NotificationManagerCompat notificationManager;
     private final ExecutorService executionQueue = Executors.newSingleThreadExecutor();
+    private final Future<?> stateChainLoaded;
 
     private static PushState Instance;
     public static void init(@NonNull Context context) {
@@ -139,20 +143,8 @@ public class PushState {
     private PushState(@NonNull Context context) {
         this.notificationManager = NotificationManagerCompat.from(context);
 
-        // Try and load serialized state chain
-        final SharedPreferences preferences = context.getSharedPreferences(Teak.PREFERENCES_FILE, Context.MODE_PRIVATE);
-        final String pushStateChainJson = preferences.getString(PUSH_STATE_CHAIN_KEY, null);
-        try {
-            if (pushStateChainJson != null) {
-                List<StateChainEntry> tempStateChain = new ArrayList<>();
-                JSONArray stateChainJsonArray = new JSONArray(pushStateChainJson);
-                for (Object jsonEntry : stateChainJsonArray) {
-                    tempStateChain.add(new StateChainEntry((JSONObject) jsonEntry));
-                }
-                this.stateChain = Collections.unmodifiableList(tempStateChain);
-            }
-        } catch (Exception ignored) {
-        }
+        // Load the serialized state chain off of the calling thread
+        this.stateChainLoaded = this.executionQueue.submit(() -> PushState.this.loadStateChain(context));
 
         // Event listener - When onResume is called, update the state chain
         TeakEvent.addEventListener(event -> {
@@ -165,6 +157,46 @@ public class PushState {
         });
     }
 
+    private void loadStateChain(@NonNull Context context) {
+        final IKeyValueStore store = KeyValueStore.get();
+        try {
+            List<StateChainEntry> tempStateChain = new ArrayList<>();
+            if (store != null) {
+                for (String jsonEntry : store.getList(PUSH_STATE_CHAIN_KEY)) {
+                    tempStateChain.add(new StateChainEntry(new JSONObject(jsonEntry)));
+                }
+            }
+
+            // Move a state chain written by an older SDK version into the store
+            if (tempStateChain.isEmpty()) {
+                final SharedPreferences preferences = context.getSharedPreferences(Teak.PREFERENCES_FILE, Context.MODE_PRIVATE);
+                final String pushStateChainJson = preferences.getString(PUSH_STATE_CHAIN_KEY, null);
+                if (pushStateChainJson != null) {
+                    JSONArray stateChainJsonArray = new JSONArray(pushStateChainJson);
+                    for (Object jsonEntry : stateChainJsonArray) {
+                        tempStateChain.add(new StateChainEntry((JSONObject) jsonEntry));
+                    }
+
+                    if (store != null) {
+                        for (StateChainEntry entry : tempStateChain) {
+                            store.appendToList(PUSH_STATE_CHAIN_KEY, entry.toJson().toString(), MAX_STATE_CHAIN_LENGTH);
+                        }
+
+                        // The old copy is only removed once the new one is on disk
+                        store.flushAndWait();
+                        synchronized (Teak.PREFERENCES_FILE) {
+                            SharedPreferences.Editor editor = preferences.edit();
+                            editor.remove(PUSH_STATE_CHAIN_KEY);
+                            editor.apply();
+                        }
+                    }
+                }
+            }
+            this.stateChain = Collections.unmodifiableList(tempStateChain);
+        } catch (Exception ignored) {
+        }
+    }
+
     private Future<State> updateStateChain(@NonNull final Context context) {
         return this.executionQueue.submit(() -> {
             final State currentState = PushState.this.getCurrentStateFromChain();
@@ -176,12 +208,12 @@ public class PushState {
                 newChain.add(newStateEntry);
 
                 // Trim state chain to 50 max
-                while (newChain.size() > 50) {
+                while (newChain.size() > MAX_STATE_CHAIN_LENGTH) {
                     newChain.remove(0);
                 }
 
                 PushState.this.stateChain = Collections.unmodifiableList(newChain);
-                PushState.this.writeSerialzedStateChain(context, PushState.this.stateChain);
+                PushState.this.writeStateChainEntry(context, newStateEntry);
                 return newStateEntry.state;
             }
             return PushState.this.getCurrentStateFromChain();
@@ -195,21 +227,25 @@ public class PushState {
         return currentEntry.state;
     }
 
-    private void writeSerialzedStateChain(@NonNull final Context context, List<StateChainEntry> stateChain) {
-        final JSONArray jsonStateChain = new JSONArray();
-        for (StateChainEntry entry : stateChain) {
-            jsonStateChain.put(entry.toJson());
+    private void writeStateChainEntry(@NonNull final Context context, StateChainEntry entry) {
+        final IKeyValueStore store = KeyValueStore.get();
+        if (store != null) {
+            // Only the new entry is written, not the whole chain
+            store.appendToList(PUSH_STATE_CHAIN_KEY, entry.toJson().toString(), MAX_STATE_CHAIN_LENGTH);
+            return;
         }
 
-        this.executionQueue.submit(() -> {
-            synchronized (Teak.PREFERENCES_FILE) {
-                SharedPreferences preferences = context.getSharedPreferences(Teak.PREFERENCES_FILE, Context.MODE_PRIVATE);
-                SharedPreferences.Editor editor = preferences.edit();
-                editor.putString(PUSH_STATE_CHAIN_KEY, jsonStateChain.toString());
-                editor.apply();
+        final JSONArray jsonStateChain = new JSONArray();
+        for (StateChainEntry chainEntry : this.stateChain) {
+            jsonStateChain.put(chainEntry.toJson());
+        }
+        synchronized (Teak.PREFERENCES_FILE) {
+            SharedPreferences preferences = context.getSharedPreferences(Teak.PREFERENCES_FILE, Context.MODE_PRIVATE);
+            SharedPreferences.Editor editor = preferences.edit();
+            editor.putString(PUSH_STATE_CHAIN_KEY, jsonStateChain.toString());
+            editor.apply();
+        }
     }
-});
-}
 
 public int getNotificationStatus() {
     return this.notificationManager.areNotificationsEnabled() ? Teak.TEAK_NOTIFICATIONS_ENABLED : Teak.TEAK_NOTIFICATIONS_DISABLED;
@@ -249,6 +285,15 @@ private StateChainEntry determineStateFromSystem(@NonNull Context context) {
 }
 
 public Map<String, Object> toMap() {
+    // The state chain is loaded asynchronously, and must not be reported before it is
+    try {
+        this.stateChainLoaded.get();
+    } catch (InterruptedException ignored) {
+        Thread.currentThread().interrupt();
+    } catch (Exception e) {
+        Teak.log.exception(e, false);
+    }
+
     List<StateChainEntry> currentStateChain = this.stateChain;
     List<Map<String, Object>> genericStateChain = new ArrayList<>();
     for (StateChainEntry entry : currentStateChain) {
@@ -221,66 +221,11 @@ public class Raven implements Thread.UncaughtExceptionHandler {
     }
 
     public static boolean shouldSuppressThrowable(Throwable t) {
-        final String message = t.getMessage();
-        if (message == null) {
-            return false;
-        }
-        return message.startsWith("signal");
+        return Throwables.shouldSuppressThrowable(t);
     }
 
     public static Map<String, Object> throwableToMap(Throwable t) {
-        Throwable throwable = t;
-        if (throwable instanceof InvocationTargetException && throwable.getCause() != null) {
-            throwable = throwable.getCause();
-        }
-
-        if (Raven.shouldSuppressThrowable(throwable)) {
-            return null;
-        }
-
-        HashMap<String, Object> exception = new HashMap<>();
-
-        exception.put("type", throwable.getClass().getSimpleName());
-        exception.put("value", throwable.getMessage());
-        exception.put("module", throwable.getClass().getPackage().getName());
-
-        HashMap<String, Object> stacktrace = new HashMap<>();
-        ArrayList<Object> stackFrames = new ArrayList<>();
-
-        StackTraceElement[] steArray = throwable.getStackTrace();
-        for (int i = steArray.length - 1; i >= 0; i--) {
-            StackTraceElement ste = steArray[i];
-            HashMap<String, Object> frame = new HashMap<>();
-
-            frame.put("filename", ste.getFileName());
-
-            String method = ste.getMethodName();
-            if (method.length() != 0) {
-                frame.put("function", method);
-            }
-
-            int lineno = ste.getLineNumber();
-            if (!ste.isNativeMethod() && lineno >= 0) {
-                frame.put("lineno", lineno);
-            }
-
-            String module = ste.getClassName();
-            frame.put("module", module);
-
-            boolean in_app = true;
-            if (module.startsWith("android.") || module.startsWith("java.") || module.startsWith("dalvik.") || module.startsWith("com.android.")) {
-                in_app = false;
-            }
-
-            frame.put("in_app", in_app);
-
-            stackFrames.add(frame);
-        }
-        stacktrace.put("frames", stackFrames);
-
-        exception.put("stacktrace", stacktrace);
-
-        return exception;
+        return Throwables.throwableToMap(t);
     }
 
     public void reportException(Throwable t, Map<String, Object> extras) {
@@ -330,7 +275,7 @@ public class Raven implements Thread.UncaughtExceptionHandler {
     @NonNull
     public String toString() {
         try {
-            return String.format(Locale.US, "%s: %s", super.toString(), Teak.formatJSONForLogging(new JSONObject(this.toMap())));
+            return String.format(Locale.US, "%s: %s", super.toString(), Teak.formatJSONForLogging(JSONObject.view(this.toMap())));
         } catch (Exception ignored) {
             return super.toString();
         }
@@ -392,7 +337,7 @@ public class Raven implements Thread.UncaughtExceptionHandler {
             try {
                 Data.Builder data = new Data.Builder()
                                         .putLong(Sender.TIMESTAMP_KEY, this.timestamp.getTime() / 1000L)
-                                        .putString(Sender.PAYLOAD_KEY, new JSONObject(this.payload).toString())
+                                        .putString(Sender.PAYLOAD_KEY, JSONObject.view(this.payload).toString())
                                         .putString(Sender.ENDPOINT_KEY, Raven.this.endpoint.toString())
                                         .putString(Sender.SENTRY_KEY_KEY, Raven.this.SENTRY_KEY)
                                         .putString(Sender.SENTRY_SECRET_KEY, Raven.this.SENTRY_SECRET);
@@ -415,7 +360,7 @@ public class Raven implements Thread.UncaughtExceptionHandler {
         @NonNull
         public String toString() {
             try {
-                return String.format(Locale.US, "%s: %s", super.toString(), Teak.formatJSONForLogging(new JSONObject(this.toMap())));
+                return String.format(Locale.US, "%s: %s", super.toString(), Teak.formatJSONForLogging(JSONObject.view(this.toMap())));
             } catch (Exception ignored) {
                 return super.toString();
             }
@@ -0,0 +1,74 @@
+package io.teak.sdk.raven;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Exceptions in the form Sentry reports them, which the SDK log uses as well.
+ */
+public class Throwables {
+    public static boolean shouldSuppressThrowable(Throwable t) {
+        final String message = t.getMessage();
+        if (message == null) {
+            return false;
+        }
+        return message.startsWith("signal");
+    }
+
+    public static Map<String, Object> throwableToMap(Throwable t) {
+        Throwable throwable = t;
+        if (throwable instanceof InvocationTargetException && throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+
+        if (Throwables.shouldSuppressThrowable(throwable)) {
+            return null;
+        }
+
+        HashMap<String, Object> exception = new HashMap<>();
+
+        exception.put("type", throwable.getClass().getSimpleName());
+        exception.put("value", throwable.getMessage());
+        exception.put("module", throwable.getClass().getPackage().getName());
+
+        HashMap<String, Object> stacktrace = new HashMap<>();
+        ArrayList<Object> stackFrames = new ArrayList<>();
+
+        StackTraceElement[] steArray = throwable.getStackTrace();
+        for (int i = steArray.length - 1; i >= 0; i--) {
+            StackTraceElement ste = steArray[i];
+            HashMap<String, Object> frame = new HashMap<>();
+
+            frame.put("filename", ste.getFileName());
+
+            String method = ste.getMethodName();
+            if (method.length() != 0) {
+                frame.put("function", method);
+            }
+
+            int lineno = ste.getLineNumber();
+            if (!ste.isNativeMethod() && lineno >= 0) {
+                frame.put("lineno", lineno);
+            }
+
+            String module = ste.getClassName();
+            frame.put("module", module);
+
+            boolean in_app = true;
+            if (module.startsWith("android.") || module.startsWith("java.") || module.startsWith("dalvik.") || module.startsWith("com.android.")) {
+                in_app = false;
+            }
+
+            frame.put("in_app", in_app);
+
+            stackFrames.add(frame);
+        }
+        stacktrace.put("frames", stackFrames);
+
+        exception.put("stacktrace", stacktrace);
+
+        return exception;
+    }
+}
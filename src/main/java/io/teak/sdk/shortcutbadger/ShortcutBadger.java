@@ -4,6 +4,7 @@ import android.app.Notification;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.content.pm.ResolveInfo;
 import android.os.Build;
@@ -11,8 +12,11 @@ import android.util.Log;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import io.teak.sdk.shortcutbadger.impl.AdwHomeBadger;
 import io.teak.sdk.shortcutbadger.impl.ApexHomeBadger;
@@ -38,6 +42,16 @@ public final class ShortcutBadger {
     private static final String LOG_TAG = "ShortcutBadger";
     private static final int SUPPORTED_CHECK_ATTEMPTS = 3;
 
+    // The badger chosen for the default launcher is remembered between launches
+    private static final String PREFERENCES_FILE = "io.teak.sdk.shortcutbadger.ShortcutBadger";
+    private static final String PREFERENCE_BADGER = "badger";
+    private static final String PREFERENCE_LAUNCHER = "launcher";
+    private static final String PREFERENCE_COMPONENT = "component";
+
+    // Upper bounds, in milliseconds, of the badge latency histogram buckets; the last bucket is unbounded
+    private static final long[] LATENCY_BUCKETS_MS = {1, 5, 10, 50, 100, 500};
+    private static final Map<String, long[]> sLatencyCounts = new HashMap<String, long[]>();
+
     private static final List<Class<? extends Badger>> BADGERS = new LinkedList<Class<? extends Badger>>();
 
     private volatile static Boolean sIsBadgeCounterSupported;
@@ -63,6 +77,9 @@ public final class ShortcutBadger {
     private static Badger sShortcutBadger;
     private static ComponentName sComponentName;
 
+    // Whether the most recent attempt to apply a count failed
+    private volatile static boolean sLastApplyFailed;
+
     /**
      * Tries to update the notification count
      *
@@ -92,14 +109,66 @@ public final class ShortcutBadger {
         if (sShortcutBadger == null) {
             boolean launcherReady = initBadger(context);
 
-            if (!launcherReady)
+            if (!launcherReady) {
+                sLastApplyFailed = true;
                 throw new ShortcutBadgeException("No default launcher available");
+            }
         }
 
+        final long startTime = System.nanoTime();
         try {
             sShortcutBadger.executeBadge(context, sComponentName, badgeCount);
+            sLastApplyFailed = false;
         } catch (Exception e) {
+            sLastApplyFailed = true;
             throw new ShortcutBadgeException("Unable to execute badge", e);
+        } finally {
+            recordLatency(sShortcutBadger, (System.nanoTime() - startTime) / 1000000L);
+        }
+    }
+
+    /**
+     * @return true if the most recent attempt to apply a count failed, because there is no
+     *         launcher or the launcher does not support badges; false if it succeeded, or if no
+     *         count has been applied yet.
+     */
+    public static boolean isKnownToBeUnsupported() {
+        return sLastApplyFailed;
+    }
+
+    /**
+     * @return For each badger which has been used, the number of badge updates which completed
+     *         within each latency bucket, keyed by the bucket's upper bound.
+     */
+    public static Map<String, Map<String, Long>> getLatencyHistogram() {
+        final Map<String, Map<String, Long>> ret = new HashMap<String, Map<String, Long>>();
+        synchronized (sLatencyCounts) {
+            for (Map.Entry<String, long[]> entry : sLatencyCounts.entrySet()) {
+                final Map<String, Long> buckets = new LinkedHashMap<String, Long>();
+                for (int i = 0; i < entry.getValue().length; i++) {
+                    final String bound = i < LATENCY_BUCKETS_MS.length ? LATENCY_BUCKETS_MS[i] + "ms" : "inf";
+                    buckets.put(bound, entry.getValue()[i]);
+                }
+                ret.put(entry.getKey(), buckets);
+            }
+        }
+        return ret;
+    }
+
+    private static void recordLatency(Badger badger, long latencyMs) {
+        int bucket = 0;
+        while (bucket < LATENCY_BUCKETS_MS.length && latencyMs > LATENCY_BUCKETS_MS[bucket]) {
+            bucket++;
+        }
+
+        final String name = badger.getClass().getSimpleName();
+        synchronized (sLatencyCounts) {
+            long[] counts = sLatencyCounts.get(name);
+            if (counts == null) {
+                counts = new long[LATENCY_BUCKETS_MS.length + 1];
+                sLatencyCounts.put(name, counts);
+            }
+            counts[bucket]++;
         }
     }
 
@@ -197,6 +266,24 @@ public final class ShortcutBadger {
 
         sComponentName = launchIntent.getComponent();
 
+        // If neither the default launcher nor the launch component has changed, use the badger
+        // which was chosen for them last time
+        final String defaultHomePackage = getDefaultHomePackage(context);
+        SharedPreferences preferences = null;
+        try {
+            preferences = context.getSharedPreferences(PREFERENCES_FILE, Context.MODE_PRIVATE);
+        } catch (Exception ignored) {
+        }
+        if (preferences != null && defaultHomePackage != null && sComponentName != null &&
+            defaultHomePackage.equals(preferences.getString(PREFERENCE_LAUNCHER, null)) &&
+            sComponentName.flattenToString().equals(preferences.getString(PREFERENCE_COMPONENT, null))) {
+            final Badger cachedBadger = badgerNamed(preferences.getString(PREFERENCE_BADGER, null));
+            if (cachedBadger != null) {
+                sShortcutBadger = cachedBadger;
+                return true;
+            }
+        }
+
         Intent intent = new Intent(Intent.ACTION_MAIN);
         intent.addCategory(Intent.CATEGORY_HOME);
         List<ResolveInfo> resolveInfos = context.getPackageManager().queryIntentActivities(intent, PackageManager.MATCH_DEFAULT_ONLY);
@@ -233,9 +320,48 @@ public final class ShortcutBadger {
                 sShortcutBadger = new DefaultBadger();
         }
 
+        if (preferences != null && defaultHomePackage != null && sComponentName != null) {
+            preferences.edit()
+                .putString(PREFERENCE_LAUNCHER, defaultHomePackage)
+                .putString(PREFERENCE_BADGER, sShortcutBadger.getClass().getName())
+                .putString(PREFERENCE_COMPONENT, sComponentName.flattenToString())
+                .apply();
+        }
+
         return true;
     }
 
+    // The package of the launcher which handles the home intent, or null if the user has not chosen one
+    private static String getDefaultHomePackage(Context context) {
+        try {
+            Intent intent = new Intent(Intent.ACTION_MAIN);
+            intent.addCategory(Intent.CATEGORY_HOME);
+            ResolveInfo resolveInfo = context.getPackageManager().resolveActivity(intent, PackageManager.MATCH_DEFAULT_ONLY);
+            if (resolveInfo == null || resolveInfo.activityInfo == null || "android".equals(resolveInfo.activityInfo.packageName)) {
+                return null;
+            }
+            return resolveInfo.activityInfo.packageName;
+        } catch (Exception ignored) {
+            return null;
+        }
+    }
+
+    private static Badger badgerNamed(String className) {
+        if (className == null) return null;
+
+        // Only badgers from the list may be instantiated from stored preferences
+        for (Class<? extends Badger> badger : BADGERS) {
+            if (badger.getName().equals(className)) {
+                try {
+                    return badger.newInstance();
+                } catch (Exception ignored) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
     // Avoid anybody to instantiate this class
     private ShortcutBadger() {
 
@@ -9,7 +9,6 @@ import com.android.billingclient.api.Purchase;
 import com.android.billingclient.api.PurchasesUpdatedListener;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,8 +24,10 @@ import io.teak.sdk.event.PurchaseEvent;
 @SuppressWarnings("deprecation")
 public class GooglePlayBillingV4 implements Unobfuscable, IStore, PurchasesUpdatedListener, BillingClientStateListener {
     private final BillingClient billingClient;
+    private final ProductDetailsCache productDetailsCache;
 
     public GooglePlayBillingV4(Context context) {
+        this.productDetailsCache = new ProductDetailsCache(context);
         this.billingClient = BillingClient.newBuilder(context)
                                  .setListener(this)
                                  .enablePendingPurchases()
@@ -38,12 +39,43 @@ public class GooglePlayBillingV4 implements Unobfuscable, IStore, PurchasesUpdat
 
     @Override
     public void onBillingSetupFinished(@NonNull BillingResult billingResult) {
+        if (billingResult.getResponseCode() != BillingClient.BillingResponseCode.OK) return;
+
+        // Warm the cache with every product seen before, in one query
+        final List<String> knownProductIds = this.productDetailsCache.getKnownProductIds();
+        if (!knownProductIds.isEmpty()) {
+            this.querySkuDetails(knownProductIds, null);
+        }
     }
 
     @Override
     public void onBillingServiceDisconnected() {
     }
 
+    private void querySkuDetails(@NonNull List<String> skus, @Nullable Runnable onComplete) {
+        final com.android.billingclient.api.SkuDetailsParams params = com.android.billingclient.api.SkuDetailsParams
+                                                                          .newBuilder()
+                                                                          .setType(BillingClient.SkuType.INAPP)
+                                                                          .setSkusList(skus)
+                                                                          .build();
+
+        this.billingClient.querySkuDetailsAsync(params, (ignored, skuDetailsList) -> {
+            try {
+                if (skuDetailsList != null) {
+                    for (com.android.billingclient.api.SkuDetails skuDetails : skuDetailsList) {
+                        this.productDetailsCache.put(skuDetails.getSku(), skuDetails.getPriceAmountMicros(), skuDetails.getPriceCurrencyCode());
+                    }
+                }
+            } catch (Exception e) {
+                Teak.log.exception(e);
+            } finally {
+                if (onComplete != null) {
+                    onComplete.run();
+                }
+            }
+        });
+    }
+
     @Override
     public void onPurchasesUpdated(@NonNull BillingResult billingResult, @Nullable List<Purchase> purchaseList) {
         if (purchaseList == null) {
@@ -51,6 +83,8 @@ public class GooglePlayBillingV4 implements Unobfuscable, IStore, PurchasesUpdat
         }
 
         try {
+            final List<Map<String, Object>> payloadsMissingDetails = new ArrayList<>();
+            final List<String> skusMissingDetails = new ArrayList<>();
             for (Purchase purchase : purchaseList) {
                 final ArrayList<String> skusInPurchase = purchase.getSkus();
                 for (String purchaseSku : skusInPurchase) {
@@ -60,31 +94,40 @@ public class GooglePlayBillingV4 implements Unobfuscable, IStore, PurchasesUpdat
                     payload.put("product_id", purchaseSku);
                     payload.put("order_id", purchase.getOrderId());
 
-                    final com.android.billingclient.api.SkuDetailsParams params = com.android.billingclient.api.SkuDetailsParams
-                                                                                      .newBuilder()
-                                                                                      .setType(BillingClient.SkuType.INAPP)
-                                                                                      .setSkusList(Collections.singletonList(purchaseSku))
-                                                                                      .build();
-
-                    this.billingClient.querySkuDetailsAsync(params, (ignored, skuDetailsList) -> {
-                        try {
-                            if (skuDetailsList != null && !skuDetailsList.isEmpty()) {
-                                final com.android.billingclient.api.SkuDetails skuDetails = skuDetailsList.get(0);
-                                payload.put("price_amount_micros", skuDetails.getPriceAmountMicros());
-                                payload.put("price_currency_code", skuDetails.getPriceCurrencyCode());
-
-                                Teak.log.i("billing.google.v4.sku", "SKU Details retrieved.", Helpers.mm.h(purchaseSku, skuDetails.getPriceAmountMicros()));
-                            } else {
-                                Teak.log.e("billing.google.v4.sku", "SKU Details query failed.");
-                            }
-
-                            TeakEvent.postEvent(new PurchaseEvent(payload));
-                        } catch (Exception e) {
-                            Teak.log.exception(e);
+                    final ProductDetailsCache.Entry details = this.productDetailsCache.get(purchaseSku);
+                    if (details != null) {
+                        details.addTo(payload);
+                        TeakEvent.postEvent(new PurchaseEvent(payload));
+                    } else {
+                        payloadsMissingDetails.add(payload);
+                        if (!skusMissingDetails.contains(purchaseSku)) {
+                            skusMissingDetails.add(purchaseSku);
                         }
-                    });
+                    }
                 }
             }
+
+            if (payloadsMissingDetails.isEmpty()) return;
+
+            // One query for every SKU which was not cached
+            this.querySkuDetails(skusMissingDetails, () -> {
+                for (Map<String, Object> payload : payloadsMissingDetails) {
+                    try {
+                        final String purchaseSku = (String) payload.get("product_id");
+                        final ProductDetailsCache.Entry details = this.productDetailsCache.get(purchaseSku);
+                        if (details != null) {
+                            details.addTo(payload);
+                            Teak.log.i("billing.google.v4.sku", "SKU Details retrieved.", Helpers.mm.h(purchaseSku, details.priceAmountMicros));
+                        } else {
+                            Teak.log.e("billing.google.v4.sku", "SKU Details query failed.");
+                        }
+
+                        TeakEvent.postEvent(new PurchaseEvent(payload));
+                    } catch (Exception e) {
+                        Teak.log.exception(e);
+                    }
+                }
+            });
         } catch (Exception e) {
             Teak.log.exception(e);
         }
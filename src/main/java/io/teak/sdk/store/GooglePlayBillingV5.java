@@ -10,7 +10,7 @@ import com.android.billingclient.api.Purchase;
 import com.android.billingclient.api.PurchasesUpdatedListener;
 import com.android.billingclient.api.QueryProductDetailsParams;
 
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,8 +25,10 @@ import io.teak.sdk.event.PurchaseEvent;
 
 public class GooglePlayBillingV5 implements Unobfuscable, IStore, PurchasesUpdatedListener, BillingClientStateListener {
     private final BillingClient billingClient;
+    private final ProductDetailsCache productDetailsCache;
 
     public GooglePlayBillingV5(Context context) {
+        this.productDetailsCache = new ProductDetailsCache(context);
         this.billingClient = BillingClient.newBuilder(context)
                                  .setListener(this)
                                  .enablePendingPurchases()
@@ -38,12 +40,47 @@ public class GooglePlayBillingV5 implements Unobfuscable, IStore, PurchasesUpdat
 
     @Override
     public void onBillingSetupFinished(@NonNull BillingResult billingResult) {
+        if (billingResult.getResponseCode() != BillingClient.BillingResponseCode.OK) return;
+
+        // Warm the cache with every product seen before, in one query
+        final List<String> knownProductIds = this.productDetailsCache.getKnownProductIds();
+        if (!knownProductIds.isEmpty()) {
+            this.queryProductDetails(knownProductIds, null);
+        }
     }
 
     @Override
     public void onBillingServiceDisconnected() {
     }
 
+    private void queryProductDetails(@NonNull List<String> productIds, @Nullable Runnable onComplete) {
+        final List<QueryProductDetailsParams.Product> products = new ArrayList<>();
+        for (String productId : productIds) {
+            products.add(QueryProductDetailsParams.Product.newBuilder()
+                             .setProductId(productId)
+                             .setProductType(BillingClient.ProductType.INAPP)
+                             .build());
+        }
+        final QueryProductDetailsParams params = QueryProductDetailsParams.newBuilder().setProductList(products).build();
+
+        this.billingClient.queryProductDetailsAsync(params, (ignored, productDetailsList) -> {
+            try {
+                for (ProductDetails productDetails : productDetailsList) {
+                    final ProductDetails.OneTimePurchaseOfferDetails otpDetails = productDetails.getOneTimePurchaseOfferDetails();
+                    if (otpDetails != null) {
+                        this.productDetailsCache.put(productDetails.getProductId(), otpDetails.getPriceAmountMicros(), otpDetails.getPriceCurrencyCode());
+                    }
+                }
+            } catch (Exception e) {
+                Teak.log.exception(e);
+            } finally {
+                if (onComplete != null) {
+                    onComplete.run();
+                }
+            }
+        });
+    }
+
     @Override
     public void onPurchasesUpdated(@NonNull BillingResult billingResult, @Nullable List<Purchase> purchaseList) {
         if (purchaseList == null) {
@@ -51,6 +88,8 @@ public class GooglePlayBillingV5 implements Unobfuscable, IStore, PurchasesUpdat
         }
 
         try {
+            final List<Map<String, Object>> payloadsMissingDetails = new ArrayList<>();
+            final List<String> productIdsMissingDetails = new ArrayList<>();
             for (Purchase purchase : purchaseList) {
                 final List<String> skusInPurchase = purchase.getProducts();
                 for (String purchaseSku : skusInPurchase) {
@@ -60,34 +99,40 @@ public class GooglePlayBillingV5 implements Unobfuscable, IStore, PurchasesUpdat
                     payload.put("product_id", purchaseSku);
                     payload.put("order_id", purchase.getOrderId());
 
-                    final QueryProductDetailsParams params = QueryProductDetailsParams
-                                                                 .newBuilder()
-                                                                 .setProductList(Collections.singletonList(QueryProductDetailsParams.Product.newBuilder()
-                                                                                                               .setProductId(purchaseSku)
-                                                                                                               .setProductType(BillingClient.ProductType.SUBS)
-                                                                                                               .build()))
-                                                                 .build();
-
-                    this.billingClient.queryProductDetailsAsync(params, (ignored, productDetailsList) -> {
-                        try {
-                            if (!productDetailsList.isEmpty()) {
-                                final ProductDetails productDetails = productDetailsList.get(0);
-                                final ProductDetails.OneTimePurchaseOfferDetails otpDetails = productDetails.getOneTimePurchaseOfferDetails();
-                                payload.put("price_amount_micros", otpDetails.getPriceAmountMicros());
-                                payload.put("price_currency_code", otpDetails.getPriceCurrencyCode());
-
-                                Teak.log.i("billing.google.v5.sku", "SKU Details retrieved.", Helpers.mm.h(purchaseSku, otpDetails.getPriceAmountMicros()));
-                            } else {
-                                Teak.log.e("billing.google.v5.sku", "SKU Details query failed.");
-                            }
-
-                            TeakEvent.postEvent(new PurchaseEvent(payload));
-                        } catch (Exception e) {
-                            Teak.log.exception(e);
+                    final ProductDetailsCache.Entry details = this.productDetailsCache.get(purchaseSku);
+                    if (details != null) {
+                        details.addTo(payload);
+                        TeakEvent.postEvent(new PurchaseEvent(payload));
+                    } else {
+                        payloadsMissingDetails.add(payload);
+                        if (!productIdsMissingDetails.contains(purchaseSku)) {
+                            productIdsMissingDetails.add(purchaseSku);
                         }
-                    });
+                    }
                 }
             }
+
+            if (payloadsMissingDetails.isEmpty()) return;
+
+            // One query for every product which was not cached
+            this.queryProductDetails(productIdsMissingDetails, () -> {
+                for (Map<String, Object> payload : payloadsMissingDetails) {
+                    try {
+                        final String purchaseSku = (String) payload.get("product_id");
+                        final ProductDetailsCache.Entry details = this.productDetailsCache.get(purchaseSku);
+                        if (details != null) {
+                            details.addTo(payload);
+                            Teak.log.i("billing.google.v5.sku", "SKU Details retrieved.", Helpers.mm.h(purchaseSku, details.priceAmountMicros));
+                        } else {
+                            Teak.log.e("billing.google.v5.sku", "SKU Details query failed.");
+                        }
+
+                        TeakEvent.postEvent(new PurchaseEvent(payload));
+                    } catch (Exception e) {
+                        Teak.log.exception(e);
+                    }
+                }
+            });
         } catch (Exception e) {
             Teak.log.exception(e);
         }
@@ -0,0 +1,116 @@
+package io.teak.sdk.store;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.teak.sdk.Teak;
+
+/**
+ * Prices of store products, keyed by product id, so that a purchase can be reported without
+ * first querying the store.
+ *
+ * The ids of products which have been seen are persisted, so that the cache can be warmed with a
+ * single query when the billing client connects.
+ */
+class ProductDetailsCache {
+    private static final String PREFERENCE_KNOWN_PRODUCT_IDS = "io.teak.sdk.Preferences.KnownProductIds";
+    private static final int MAX_KNOWN_PRODUCT_IDS = 64;
+    private static final long TTL_MS = 60 * 60 * 1000L;
+
+    static class Entry {
+        final long priceAmountMicros;
+        final String priceCurrencyCode;
+        final long expiresAt;
+
+        Entry(long priceAmountMicros, @NonNull String priceCurrencyCode, long expiresAt) {
+            this.priceAmountMicros = priceAmountMicros;
+            this.priceCurrencyCode = priceCurrencyCode;
+            this.expiresAt = expiresAt;
+        }
+
+        void addTo(@NonNull Map<String, Object> payload) {
+            payload.put("price_amount_micros", this.priceAmountMicros);
+            payload.put("price_currency_code", this.priceCurrencyCode);
+        }
+    }
+
+    private final SharedPreferences preferences;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Set<String> knownProductIds = new HashSet<>();
+
+    ProductDetailsCache(@NonNull Context context) {
+        SharedPreferences tempPreferences = null;
+        try {
+            tempPreferences = context.getSharedPreferences(Teak.PREFERENCES_FILE, Context.MODE_PRIVATE);
+            final Set<String> stored = tempPreferences.getStringSet(PREFERENCE_KNOWN_PRODUCT_IDS, null);
+            if (stored != null) {
+                this.knownProductIds.addAll(stored);
+            }
+        } catch (Exception e) {
+            Teak.log.exception(e, false);
+        }
+        this.preferences = tempPreferences;
+    }
+
+    /**
+     * @return The ids of every product which has been cached, on this or a previous run.
+     */
+    @NonNull
+    synchronized List<String> getKnownProductIds() {
+        return new ArrayList<>(this.knownProductIds);
+    }
+
+    /**
+     * @param productId The product id.
+     * @return The cached details of the product, or null if they are not cached or have expired.
+     */
+    @Nullable
+    synchronized Entry get(@NonNull String productId) {
+        final Entry entry = this.entries.get(productId);
+        if (entry == null) return null;
+
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            this.entries.remove(productId);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Cache the details of a product.
+     *
+     * @param productId         The product id.
+     * @param priceAmountMicros The price of the product, in micro-units of the currency.
+     * @param priceCurrencyCode The ISO 4217 currency code of the price.
+     */
+    void put(@NonNull String productId, long priceAmountMicros, @NonNull String priceCurrencyCode) {
+        final Set<String> toPersist;
+        synchronized (this) {
+            this.entries.put(productId, new Entry(priceAmountMicros, priceCurrencyCode, System.currentTimeMillis() + TTL_MS));
+
+            if (this.knownProductIds.contains(productId) || this.knownProductIds.size() >= MAX_KNOWN_PRODUCT_IDS) return;
+            this.knownProductIds.add(productId);
+            toPersist = new HashSet<>(this.knownProductIds);
+        }
+
+        if (this.preferences == null) return;
+        try {
+            synchronized (Teak.PREFERENCES_FILE) {
+                SharedPreferences.Editor editor = this.preferences.edit();
+                editor.putStringSet(PREFERENCE_KNOWN_PRODUCT_IDS, toPersist);
+                editor.apply();
+            }
+        } catch (Exception e) {
+            Teak.log.exception(e);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package io.teak.sdk.wrapper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.teak.sdk.Teak;
+import io.teak.sdk.json.JSONObject;
+
+/**
+ * Queue of messages from the SDK to a game engine, delivered at most once per frame.
+ *
+ * Messages for methods the game has not subscribed to are dropped before they are queued. When
+ * batching is enabled, every message queued during a frame is delivered as a single message
+ * whose data is a JSON array of {"method": ..., "data": ...} objects.
+ *
+ * Only log messages are ever dropped for lack of room: once {@link #MaxQueuedLogMessages} are
+ * waiting, the oldest is dropped to make room for the newest. Every other message, such as a
+ * notification launch, reward or deep link, is always queued.
+ */
+public class BridgeChannel {
+    public static final long FrameIntervalMillis = 16;
+    public static final int MaxQueuedLogMessages = 256;
+
+    public static class Message {
+        public final String method;
+        public final String data;
+
+        public Message(@NonNull String method, @NonNull String data) {
+            this.method = method;
+            this.data = data;
+        }
+    }
+
+    public interface Sink {
+        /**
+         * Deliver a message to the game engine.
+         *
+         * @param message The message.
+         * @throws Exception Exceptions are logged, the message is not retried, and delivery
+         *                   continues with the next message.
+         */
+        void send(@NonNull Message message) throws Exception;
+    }
+
+    public interface Dispatcher {
+        /**
+         * Run the delivery of one frame's messages, for example on the game engine's thread.
+         *
+         * @param delivery Delivers every message in the frame.
+         * @throws Exception Exceptions are logged, and the messages are not retried.
+         */
+        void dispatch(@NonNull Runnable delivery) throws Exception;
+    }
+
+    private final String batchMethod;
+    private final String logMethod;
+    private final Dispatcher dispatcher;
+    private final Sink sink;
+    private final ScheduledExecutorService executor;
+
+    private final List<Message> queue = new ArrayList<>();
+    private Set<String> subscriptions;
+    private boolean batchingEnabled;
+    private boolean flushScheduled;
+    private int queuedLogCount;
+    private long droppedCount;
+
+    /**
+     * @param batchMethod The method used to deliver a batch of messages.
+     * @param logMethod   The method used to deliver log messages, which may be dropped.
+     * @param sink        Delivers messages to the game engine.
+     * @param executor    Executor on which messages are delivered.
+     */
+    public BridgeChannel(@NonNull String batchMethod, @NonNull String logMethod, @NonNull Sink sink, @NonNull ScheduledExecutorService executor) {
+        this(batchMethod, logMethod, Runnable::run, sink, executor);
+    }
+
+    /**
+     * @param batchMethod The method used to deliver a batch of messages.
+     * @param logMethod   The method used to deliver log messages, which may be dropped.
+     * @param dispatcher  Runs each frame's delivery.
+     * @param sink        Delivers messages to the game engine.
+     * @param executor    Executor on which messages are delivered.
+     */
+    public BridgeChannel(@NonNull String batchMethod, @NonNull String logMethod, @NonNull Dispatcher dispatcher, @NonNull Sink sink, @NonNull ScheduledExecutorService executor) {
+        this.batchMethod = batchMethod;
+        this.logMethod = logMethod;
+        this.dispatcher = dispatcher;
+        this.sink = sink;
+        this.executor = executor;
+    }
+
+    /**
+     * Only deliver messages for the provided methods.
+     *
+     * @param methods The methods to deliver, or null to deliver everything.
+     */
+    public synchronized void subscribe(@Nullable Collection<String> methods) {
+        this.subscriptions = methods == null ? null : Collections.unmodifiableSet(new HashSet<>(methods));
+    }
+
+    /**
+     * @param method The method a message would be delivered to.
+     * @return true if messages for the method will be delivered.
+     */
+    public synchronized boolean isSubscribed(@Nullable String method) {
+        return method != null && (this.subscriptions == null || this.subscriptions.contains(method));
+    }
+
+    /**
+     * Deliver all messages queued during a frame as a single message. The game engine must
+     * handle the batch method before enabling this.
+     *
+     * @param batchingEnabled true to deliver batches.
+     */
+    public synchronized void setBatchingEnabled(boolean batchingEnabled) {
+        this.batchingEnabled = batchingEnabled;
+    }
+
+    /**
+     * @return The number of messages waiting to be delivered.
+     */
+    public synchronized int getQueuedCount() {
+        return this.queue.size();
+    }
+
+    /**
+     * @return The number of messages which were dropped because they were not subscribed to, or
+     *         log messages which were dropped because too many were already waiting.
+     */
+    public synchronized long getDroppedCount() {
+        return this.droppedCount;
+    }
+
+    /**
+     * Queue a message for delivery at the end of the current frame.
+     *
+     * @param method The method to deliver the message to.
+     * @param data   The message data.
+     * @return true if the message was queued.
+     */
+    public boolean enqueue(@Nullable String method, @NonNull String data) {
+        synchronized (this) {
+            if (!this.isSubscribed(method)) {
+                this.droppedCount++;
+                return false;
+            }
+
+            if (this.logMethod.equals(method)) {
+                // Make room by dropping the oldest log message
+                if (this.queuedLogCount >= MaxQueuedLogMessages) {
+                    for (int i = 0; i < this.queue.size(); i++) {
+                        if (this.logMethod.equals(this.queue.get(i).method)) {
+                            this.queue.remove(i);
+                            break;
+                        }
+                    }
+                    this.queuedLogCount--;
+                    this.droppedCount++;
+                }
+                this.queuedLogCount++;
+            }
+
+            this.queue.add(new Message(method, data));
+            if (this.flushScheduled) return true;
+            this.flushScheduled = true;
+        }
+
+        this.executor.schedule(this::flush, FrameIntervalMillis, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    void flush() {
+        List<Message> messages;
+        synchronized (this) {
+            messages = new ArrayList<>(this.queue);
+            this.queue.clear();
+            this.queuedLogCount = 0;
+            this.flushScheduled = false;
+
+            if (this.batchingEnabled && messages.size() > 1) {
+                messages = Collections.singletonList(new Message(this.batchMethod, toBatch(messages)));
+            }
+        }
+
+        if (messages.isEmpty()) return;
+
+        final List<Message> frame = messages;
+        try {
+            this.dispatcher.dispatch(() -> {
+                for (Message message : frame) {
+                    try {
+                        this.sink.send(message);
+                    } catch (Exception e) {
+                        Teak.log.exception(e);
+                    }
+                }
+            });
+        } catch (Exception e) {
+            Teak.log.exception(e);
+        }
+    }
+
+    private static String toBatch(List<Message> messages) {
+        final StringBuilder batch = new StringBuilder("[");
+        for (Message message : messages) {
+            if (batch.length() > 1) {
+                batch.append(',');
+            }
+            batch.append("{\"method\":")
+                .append(JSONObject.quote(message.method))
+                .append(",\"data\":")
+                .append(JSONObject.quote(message.data))
+                .append('}');
+        }
+        return batch.append(']').toString();
+    }
+}
@@ -0,0 +1,155 @@
+package io.teak.sdk.wrapper;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Single-producer, single-consumer ring of events in a direct ByteBuffer, which a game engine
+ * can read in place once per frame instead of receiving one message per event.
+ *
+ * Each record is a little-endian int32 length, followed by that many bytes: one byte which is the
+ * ordinal of the {@link ISDKWrapper.EventType}, then the event data as UTF-8 JSON. A length of
+ * {@link #WrapMarker} means the rest of the buffer is unused, and the next record is at offset 0,
+ * as do fewer than four bytes remaining before the end of the buffer. Records never wrap around
+ * the end of the buffer. Whenever the ring is empty the next record is written at offset 0.
+ *
+ * Once per frame the consumer calls {@link #acquire()} to get the number of bytes it can read
+ * starting at {@link #getReadOffset()}, reads them, and then calls {@link #release(int)}.
+ * Producers may be on any thread; they, and the consumer's calls, are serialized by this object.
+ *
+ * When an event does not fit, {@link #offer} refuses it and every later event until the consumer
+ * has drained the ring, so that callers which send refused events some other way never deliver
+ * a newer event through the ring ahead of an older one sent the other way. Every event in the
+ * ring is older than every event refused since it last filled.
+ */
+public class EventRing implements ISDKWrapper {
+    public static final int WrapMarker = -1;
+    private static final int HeaderSize = 4;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final ByteBuffer buffer;
+    private final ByteBuffer writeView;
+    private final int capacity;
+
+    // Byte counts, reset to 0 when the ring is empty; the offset in the buffer is the count modulo capacity
+    private long writeIndex;
+    private long readIndex;
+    private boolean overflowing;
+    private long droppedCount;
+
+    /**
+     * @param capacity The size of the ring in bytes.
+     */
+    public EventRing(int capacity) {
+        if (capacity < HeaderSize * 2) {
+            throw new IllegalArgumentException("EventRing capacity must be at least " + (HeaderSize * 2) + " bytes.");
+        }
+        this.capacity = capacity;
+        this.buffer = ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+        this.writeView = this.buffer.duplicate();
+    }
+
+    /**
+     * @return The direct buffer which holds the ring.
+     */
+    @NonNull
+    public ByteBuffer getBuffer() {
+        return this.buffer;
+    }
+
+    /**
+     * @return The number of events which were refused because the ring was full, or had not yet
+     *         drained since it was full.
+     */
+    public synchronized long getDroppedCount() {
+        return this.droppedCount;
+    }
+
+    @Override
+    public void sdkSendMessage(@NonNull EventType eventType, @NonNull String eventData) {
+        this.offer(eventType, eventData);
+    }
+
+    /**
+     * Write an event to the ring.
+     *
+     * @param eventType The type of event.
+     * @param eventData The event data, as JSON.
+     * @return false if the event did not fit in the ring, or the ring has not drained since an
+     *         earlier event did not fit.
+     */
+    public synchronized boolean offer(@NonNull EventType eventType, @NonNull String eventData) {
+        final byte[] data = eventData.getBytes(UTF8);
+        final int recordSize = HeaderSize + 1 + data.length;
+
+        // An empty ring starts over at offset 0, so no space is lost to skipping the end of the buffer
+        if (this.writeIndex == this.readIndex) {
+            this.writeIndex = 0;
+            this.readIndex = 0;
+            this.overflowing = false;
+        }
+
+        long write = this.writeIndex;
+        final long free = this.capacity - (write - this.readIndex);
+        int offset = (int) (write % this.capacity);
+        final int untilEnd = this.capacity - offset;
+
+        // If the record would wrap, the rest of the buffer is skipped
+        final int needed = recordSize <= untilEnd ? recordSize : untilEnd + recordSize;
+        if (this.overflowing || recordSize > this.capacity || needed > free) {
+            this.overflowing = true;
+            this.droppedCount++;
+            return false;
+        }
+
+        if (recordSize > untilEnd) {
+            if (untilEnd >= HeaderSize) {
+                this.buffer.putInt(offset, WrapMarker);
+            }
+            write += untilEnd;
+            offset = 0;
+        }
+
+        this.buffer.putInt(offset, recordSize - HeaderSize);
+        this.buffer.put(offset + HeaderSize, (byte) eventType.ordinal());
+        this.writeView.position(offset + HeaderSize + 1);
+        this.writeView.put(data);
+
+        // Publish the record
+        this.writeIndex = write + recordSize;
+        return true;
+    }
+
+    /**
+     * @return The offset in the buffer of the first unread byte.
+     */
+    public synchronized int getReadOffset() {
+        return (int) (this.readIndex % this.capacity);
+    }
+
+    /**
+     * @return The number of bytes, starting at {@link #getReadOffset()}, which can be read without
+     *         passing the end of the buffer. Reading them may reveal a wrap marker.
+     */
+    public synchronized int acquire() {
+        final long read = this.readIndex;
+        final long available = this.writeIndex - read;
+        final int untilEnd = this.capacity - (int) (read % this.capacity);
+        return (int) Math.min(available, untilEnd);
+    }
+
+    /**
+     * Give bytes which have been read back to the producer.
+     *
+     * @param byteCount The number of bytes read, at most the value returned by {@link #acquire()}.
+     */
+    public synchronized void release(int byteCount) {
+        if (byteCount < 0 || byteCount > this.acquire()) {
+            throw new IllegalArgumentException("Released " + byteCount + " bytes, but only " + this.acquire() + " were acquired.");
+        }
+        this.readIndex = this.readIndex + byteCount;
+    }
+}
@@ -3,6 +3,7 @@ package io.teak.sdk.wrapper;
 import androidx.annotation.NonNull;
 
 public interface ISDKWrapper {
+    // The ordinal of each EventType is part of the EventRing encoding, only add new values at the end
     enum EventType {
         NotificationLaunch,
         RewardClaim,
@@ -13,5 +14,13 @@ public interface ISDKWrapper {
         UserData,
         ConfigurationData
     }
+
+    /**
+     * Lets a wrapper skip serializing events which it will not send to the game.
+     */
+    interface EventFilter {
+        boolean isSubscribed(@NonNull EventType eventType);
+    }
+
     void sdkSendMessage(@NonNull EventType eventType, @NonNull String eventData);
 }
@@ -3,20 +3,33 @@ package io.teak.sdk.wrapper;
 import org.greenrobot.eventbus.EventBus;
 import org.greenrobot.eventbus.Subscribe;
 
+import androidx.annotation.Nullable;
 import io.teak.sdk.Teak;
 import io.teak.sdk.Unobfuscable;
 
 public class TeakInterface implements Unobfuscable {
     private final ISDKWrapper sdkWrapper;
+    private final ISDKWrapper.EventFilter eventFilter;
 
     public TeakInterface(ISDKWrapper sdkWrapper) {
+        this(sdkWrapper, null);
+    }
+
+    public TeakInterface(ISDKWrapper sdkWrapper, @Nullable ISDKWrapper.EventFilter eventFilter) {
         this.sdkWrapper = sdkWrapper;
+        this.eventFilter = eventFilter;
 
         EventBus.getDefault().register(this);
     }
 
+    private boolean isSubscribed(ISDKWrapper.EventType eventType) {
+        return this.eventFilter == null || this.eventFilter.isSubscribed(eventType);
+    }
+
     @Subscribe
     public void onConfigurationData(Teak.ConfigurationDataEvent event) {
+        if (!this.isSubscribed(ISDKWrapper.EventType.ConfigurationData)) return;
+
         String eventData = "{}";
         try {
             // The toString with an indentFactor argument can throw an exception
@@ -32,19 +45,24 @@ public class TeakInterface implements Unobfuscable {
 
     @Subscribe
     public void onNotification(Teak.NotificationEvent event) {
+        final ISDKWrapper.EventType eventType = event.isForeground ? ISDKWrapper.EventType.ForegroundNotification : ISDKWrapper.EventType.NotificationLaunch;
+        if (!this.isSubscribed(eventType)) return;
+
         String eventData = "{}";
         try {
             eventData = event.toJSON().toString(0);
         } catch (Exception e) {
             Teak.log.exception(e);
         } finally {
-            sdkWrapper.sdkSendMessage(event.isForeground ? ISDKWrapper.EventType.ForegroundNotification : ISDKWrapper.EventType.NotificationLaunch, eventData);
+            sdkWrapper.sdkSendMessage(eventType, eventData);
         }
     }
 
     @Subscribe
     @SuppressWarnings("deprecation")
     public void onAdditionalData(Teak.AdditionalDataEvent event) {
+        if (!this.isSubscribed(ISDKWrapper.EventType.AdditionalData)) return;
+
         String eventData = "{}";
         try {
             // The toString with an indentFactor argument can throw an exception
@@ -60,6 +78,8 @@ public class TeakInterface implements Unobfuscable {
 
     @Subscribe
     public void onLaunchedFromLink(Teak.LaunchFromLinkEvent event) {
+        if (!this.isSubscribed(ISDKWrapper.EventType.LaunchedFromLink)) return;
+
         String eventData = "{}";
         try {
             eventData = event.toJSON().toString(0);
@@ -72,6 +92,8 @@ public class TeakInterface implements Unobfuscable {
 
     @Subscribe
     public void onRewardClaim(Teak.RewardClaimEvent event) {
+        if (!this.isSubscribed(ISDKWrapper.EventType.RewardClaim)) return;
+
         try {
             final String eventData = event.toJSON().toString(0);
             sdkWrapper.sdkSendMessage(ISDKWrapper.EventType.RewardClaim, eventData);
@@ -82,6 +104,8 @@ public class TeakInterface implements Unobfuscable {
 
     @Subscribe
     public void onPostLaunchSummary(Teak.PostLaunchSummaryEvent event) {
+        if (!this.isSubscribed(ISDKWrapper.EventType.PostLaunchSummary)) return;
+
         try {
             final String eventData = event.toJSON().toString(0);
             sdkWrapper.sdkSendMessage(ISDKWrapper.EventType.PostLaunchSummary, eventData);
@@ -92,6 +116,8 @@ public class TeakInterface implements Unobfuscable {
 
     @Subscribe
     public void onUserData(Teak.UserDataEvent event) {
+        if (!this.isSubscribed(ISDKWrapper.EventType.UserData)) return;
+
         try {
             final String eventData = event.toJSON().toString(0);
             sdkWrapper.sdkSendMessage(ISDKWrapper.EventType.UserData, eventData);
@@ -1,19 +1,27 @@
 package io.teak.sdk.wrapper.cocos2dx;
 
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.Map;
 
 import io.teak.sdk.Teak;
 import io.teak.sdk.Unobfuscable;
+import io.teak.sdk.core.Executors;
 import io.teak.sdk.json.JSONObject;
 import io.teak.sdk.raven.Raven;
+import io.teak.sdk.wrapper.BridgeChannel;
+import io.teak.sdk.wrapper.EventRing;
+import io.teak.sdk.wrapper.ISDKWrapper;
 import io.teak.sdk.wrapper.TeakInterface;
 
 // Future-Pat: Prefix all Cocos2dx events with 'Teak' since they seem to use global event dispatch
 
 public class TeakCocos2dx implements Unobfuscable {
     private static TeakInterface teakInterface;
+    private static volatile EventRing eventRing;
     private static Method runOnGLThread;
+    private static final BridgeChannel channel = new BridgeChannel("TeakEventBatch", "TeakLogEvent", TeakCocos2dx::runOnGLThread,
+        message -> TeakCocos2dx.nativeSendMessage(message.method, message.data), Executors.newSingleThreadScheduledExecutor());
 
     static {
         try {
@@ -23,7 +31,10 @@ public class TeakCocos2dx implements Unobfuscable {
             Teak.setLogListener(new Teak.LogListener() {
                 @Override
                 public void logEvent(String logEvent, String logLevel, Map<String, Object> logData) {
-                    TeakCocos2dx.sendMessage("TeakLogEvent", new JSONObject(logData).toString());
+                    // Only serialize log events if the game wants them
+                    if (TeakCocos2dx.channel.isSubscribed("TeakLogEvent")) {
+                        TeakCocos2dx.sendMessage("TeakLogEvent", new JSONObject(logData).toString());
+                    }
                 }
             });
         } catch (Exception ignored) {
@@ -33,26 +44,75 @@ public class TeakCocos2dx implements Unobfuscable {
     @SuppressWarnings("WeakerAccess")
     public static void initialize() {
         teakInterface = new TeakInterface((eventType, eventData) -> {
-            String eventName = null;
-            switch (eventType) {
-                case NotificationLaunch: {
-                    eventName = "TeakNotificationLaunch";
-                } break;
-                case RewardClaim: {
-                    eventName = "TeakRewardClaimAttempt";
-                } break;
-                case ForegroundNotification: {
-                    eventName = "TeakForegroundNotification";
-                } break;
-                case AdditionalData: {
-                    eventName = "TeakAdditionalData";
-                } break;
-                case LaunchedFromLink: {
-                    eventName = "TeakLaunchedFromLink";
-                } break;
+            // Events the ring refuses are sent as messages instead; once it refuses one it refuses
+            // every event until it drains, so each event in the ring is older than those sent this way
+            final EventRing ring = TeakCocos2dx.eventRing;
+            if (ring == null || !ring.offer(eventType, eventData)) {
+                TeakCocos2dx.sendMessage(eventNameFor(eventType), eventData);
             }
-            TeakCocos2dx.sendMessage(eventName, eventData);
-        });
+        },
+            eventType -> TeakCocos2dx.channel.isSubscribed(eventNameFor(eventType)));
+    }
+
+    private static String eventNameFor(ISDKWrapper.EventType eventType) {
+        switch (eventType) {
+            case NotificationLaunch:
+                return "TeakNotificationLaunch";
+            case RewardClaim:
+                return "TeakRewardClaimAttempt";
+            case ForegroundNotification:
+                return "TeakForegroundNotification";
+            case AdditionalData:
+                return "TeakAdditionalData";
+            case LaunchedFromLink:
+                return "TeakLaunchedFromLink";
+        }
+        return null;
+    }
+
+    /**
+     * Only dispatch the named events, for example "TeakNotificationLaunch" or "TeakLogEvent".
+     *
+     * @param eventNames The events to dispatch, or null to dispatch every event.
+     */
+    @SuppressWarnings("unused")
+    public static void setEventSubscriptions(String[] eventNames) {
+        TeakCocos2dx.channel.subscribe(eventNames == null ? null : Arrays.asList(eventNames));
+    }
+
+    /**
+     * Dispatch the events from each frame as a single "TeakEventBatch" event, whose data is a
+     * JSON array of {"method": ..., "data": ...} objects.
+     *
+     * @param batchingEnabled true to dispatch events in batches.
+     */
+    @SuppressWarnings("unused")
+    public static void setEventBatchingEnabled(boolean batchingEnabled) {
+        TeakCocos2dx.channel.setBatchingEnabled(batchingEnabled);
+    }
+
+    /**
+     * Deliver TeakInterface events through a shared-memory {@link EventRing}, which the game polls
+     * once per frame, instead of as messages. Log events and deep links are still sent as messages.
+     *
+     * @param capacity The size of the ring in bytes.
+     * @return The ring.
+     */
+    @SuppressWarnings("unused")
+    public static EventRing openEventRing(int capacity) {
+        final EventRing ring = new EventRing(capacity);
+        TeakCocos2dx.eventRing = ring;
+        return ring;
+    }
+
+    @SuppressWarnings("unused")
+    public static int getQueuedEventCount() {
+        return TeakCocos2dx.channel.getQueuedCount();
+    }
+
+    @SuppressWarnings("unused")
+    public static long getDroppedEventCount() {
+        return TeakCocos2dx.channel.getDroppedCount();
     }
 
     public static boolean isAvailable() {
@@ -90,10 +150,13 @@ public class TeakCocos2dx implements Unobfuscable {
     private static native void nativeSendMessage(String event, String json);
 
     private static void sendMessage(final String event, final String eventData) {
-        try {
-            TeakCocos2dx.runOnGLThread.invoke(null, (Runnable) () -> TeakCocos2dx.nativeSendMessage(event, eventData));
-        } catch (Exception e) {
-            Teak.log.exception(e);
+        if (TeakCocos2dx.isAvailable()) {
+            TeakCocos2dx.channel.enqueue(event, eventData);
         }
     }
+
+    private static void runOnGLThread(final Runnable delivery) throws Exception {
+        // One trip to the GL thread for every message in the frame
+        TeakCocos2dx.runOnGLThread.invoke(null, delivery);
+    }
 }
@@ -1,20 +1,35 @@
 package io.teak.sdk.wrapper.unity;
 
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
 
 import io.teak.sdk.Teak;
 import io.teak.sdk.Unobfuscable;
 import io.teak.sdk.core.Executors;
 import io.teak.sdk.json.JSONObject;
 import io.teak.sdk.raven.Raven;
+import io.teak.sdk.wrapper.BridgeChannel;
+import io.teak.sdk.wrapper.EventRing;
+import io.teak.sdk.wrapper.ISDKWrapper;
 import io.teak.sdk.wrapper.TeakInterface;
 
 public class TeakUnity implements Unobfuscable {
     private static Method unitySendMessage;
     private static TeakInterface teakInterface;
-    private static final ExecutorService unitySendMessageExecutor = Executors.newSingleThreadExecutor();
+    private static volatile EventRing eventRing;
+    private static final BridgeChannel channel = new BridgeChannel("EventBatch", "LogEvent", message -> {
+        if (TeakUnity.isAvailable()) {
+            try {
+                TeakUnity.unitySendMessage.invoke(null, "TeakGameObject", message.method, message.data);
+            } catch (UnsatisfiedLinkError ignored) {
+                // TEAK-ANDROID-SDK-K4
+                // TEAK-ANDROID-SDK-K5
+                // TEAK-ANDROID-SDK-K6
+                // TEAK-ANDROID-SDK-K9
+            }
+        }
+    }, Executors.newSingleThreadScheduledExecutor());
 
     static {
         try {
@@ -24,7 +39,10 @@ public class TeakUnity implements Unobfuscable {
             Teak.setLogListener(new Teak.LogListener() {
                 @Override
                 public void logEvent(String logEvent, String logLevel, Map<String, Object> logData) {
-                    unitySendMessage("LogEvent", new JSONObject(logData).toString());
+                    // Only serialize log events if the game wants them
+                    if (TeakUnity.channel.isSubscribed("LogEvent")) {
+                        unitySendMessage("LogEvent", new JSONObject(logData).toString());
+                    }
                 }
             });
         } catch (Exception ignored) {
@@ -34,35 +52,36 @@ public class TeakUnity implements Unobfuscable {
     @SuppressWarnings("WeakerAccess")
     public static void initialize() {
         teakInterface = new TeakInterface((eventType, eventData) -> {
-            String eventName = null;
-            switch (eventType) {
-                case NotificationLaunch: {
-                    eventName = "NotificationLaunch";
-                } break;
-                case RewardClaim: {
-                    eventName = "RewardClaimAttempt";
-                } break;
-                case ForegroundNotification: {
-                    eventName = "ForegroundNotification";
-                } break;
-                case AdditionalData: {
-                    eventName = "AdditionalData";
-                } break;
-                case LaunchedFromLink: {
-                    eventName = "LaunchedFromLink";
-                } break;
-                case PostLaunchSummary: {
-                    eventName = "PostLaunchSummary";
-                } break;
-                case UserData: {
-                    eventName = "UserDataEvent";
-                } break;
-                case ConfigurationData: {
-                    eventName = "InConfigurationData";
-                } break;
+            // Events the ring refuses are sent as messages instead; once it refuses one it refuses
+            // every event until it drains, so each event in the ring is older than those sent this way
+            final EventRing ring = TeakUnity.eventRing;
+            if (ring == null || !ring.offer(eventType, eventData)) {
+                unitySendMessage(eventNameFor(eventType), eventData);
             }
-            unitySendMessage(eventName, eventData);
-        });
+        },
+            eventType -> TeakUnity.channel.isSubscribed(eventNameFor(eventType)));
+    }
+
+    private static String eventNameFor(ISDKWrapper.EventType eventType) {
+        switch (eventType) {
+            case NotificationLaunch:
+                return "NotificationLaunch";
+            case RewardClaim:
+                return "RewardClaimAttempt";
+            case ForegroundNotification:
+                return "ForegroundNotification";
+            case AdditionalData:
+                return "AdditionalData";
+            case LaunchedFromLink:
+                return "LaunchedFromLink";
+            case PostLaunchSummary:
+                return "PostLaunchSummary";
+            case UserData:
+                return "UserDataEvent";
+            case ConfigurationData:
+                return "InConfigurationData";
+        }
+        return null;
     }
 
     public static boolean isAvailable() {
@@ -70,20 +89,54 @@ public class TeakUnity implements Unobfuscable {
     }
 
     private static void unitySendMessage(final String method, final String message) {
-        TeakUnity.unitySendMessageExecutor.submit(() -> {
-            if (TeakUnity.isAvailable()) {
-                try {
-                    TeakUnity.unitySendMessage.invoke(null, "TeakGameObject", method, message);
-                } catch (UnsatisfiedLinkError ignored) {
-                    // TEAK-ANDROID-SDK-K4
-                    // TEAK-ANDROID-SDK-K5
-                    // TEAK-ANDROID-SDK-K6
-                    // TEAK-ANDROID-SDK-K9
-                } catch (Exception e) {
-                    Teak.log.exception(e);
-                }
-            }
-        });
+        if (TeakUnity.isAvailable()) {
+            TeakUnity.channel.enqueue(method, message);
+        }
+    }
+
+    /**
+     * Only send the named events to the TeakGameObject, for example "NotificationLaunch" or "LogEvent".
+     *
+     * @param eventNames The events to send, or null to send every event.
+     */
+    @SuppressWarnings("unused")
+    public static void setEventSubscriptions(String[] eventNames) {
+        TeakUnity.channel.subscribe(eventNames == null ? null : Arrays.asList(eventNames));
+    }
+
+    /**
+     * Send the events from each frame to the TeakGameObject as a single "EventBatch" message,
+     * whose data is a JSON array of {"method": ..., "data": ...} objects.
+     *
+     * @param batchingEnabled true to send events in batches.
+     */
+    @SuppressWarnings("unused")
+    public static void setEventBatchingEnabled(boolean batchingEnabled) {
+        TeakUnity.channel.setBatchingEnabled(batchingEnabled);
+    }
+
+    /**
+     * Deliver TeakInterface events through a shared-memory {@link EventRing}, which the game polls
+     * once per frame, instead of as messages. Log events and deep links are still sent as messages.
+     *
+     * @param capacity The size of the ring in bytes.
+     * @return The ring.
+     */
+    @SuppressWarnings("unused")
+    public static EventRing openEventRing(int capacity) {
+        final EventRing ring = new EventRing(capacity);
+        TeakUnity.eventRing = ring;
+        return ring;
+    }
+
+    @SuppressWarnings("unused")
+    public static int getQueuedEventCount() {
+        return TeakUnity.channel.getQueuedCount();
+    }
+
+    @SuppressWarnings("unused")
+    public static long getDroppedEventCount() {
+        return TeakUnity.channel.getDroppedCount();
     }
 
     @SuppressWarnings("unused")
@@ -0,0 +1,262 @@
+package io.teak.app.test;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import io.teak.sdk.Helpers;
+import io.teak.sdk.io.IHttpRequest;
+import io.teak.sdk.json.JSONArray;
+import io.teak.sdk.json.JSONObject;
+
+/**
+ * In-process stand-in for the Teak servers, installed with
+ * {@link io.teak.sdk.io.Platform#setHttpRequest(IHttpRequest)}.
+ *
+ * Every request has its TeakV2-HMAC-SHA256 signature checked against the API key. The backend can
+ * be told to add latency, fail with a 5xx, or time out, for some fraction of requests; a timeout
+ * waits and then replies the way DefaultHttpRequest does when its socket times out.
+ *
+ * It can also lose the reply to a request it has already processed, by failing or timing out after
+ * counting it, as when a connection drops on the way back. The client cannot tell this apart from
+ * a request which never arrived, so it sends it again and the backend counts it twice.
+ */
+class MockTeakBackend implements IHttpRequest {
+    private static final Pattern SettingsPath = Pattern.compile("^/games/[0-9]+/settings\\.json$");
+    private static final Pattern UsersPath = Pattern.compile("^/games/[0-9]+/users\\.json$");
+
+    private final String apiKey;
+    private final Random random = new Random(1136371193L);
+
+    private volatile long minLatencyMillis = 0;
+    private volatile long maxLatencyMillis = 0;
+    private volatile double errorRate = 0.0;
+    private volatile double timeoutRate = 0.0;
+    private volatile long timeoutMillis = 0;
+    private volatile double lostReplyRate = 0.0;
+
+    final AtomicLong requests = new AtomicLong();
+    final AtomicLong bytesReceived = new AtomicLong();
+    final AtomicLong bytesSent = new AtomicLong();
+    final AtomicLong badSignatures = new AtomicLong();
+    final AtomicLong injectedErrors = new AtomicLong();
+    final AtomicLong injectedTimeouts = new AtomicLong();
+    final AtomicLong trackedEvents = new AtomicLong();
+    final AtomicLong profileUpdates = new AtomicLong();
+    final AtomicLong purchases = new AtomicLong();
+    final AtomicLong lostReplies = new AtomicLong();
+    final AtomicLong eventsWithLostReplies = new AtomicLong();
+    final AtomicLong profileUpdatesWithLostReplies = new AtomicLong();
+    private final Map<String, AtomicLong> requestsByEndpoint = new TreeMap<>();
+    private final Map<String, Integer> fixedReplies = new ConcurrentHashMap<>();
+    private final List<JSONObject> profileRequests = new ArrayList<>();
+
+    MockTeakBackend(String apiKey) {
+        this.apiKey = apiKey;
+    }
+
+    MockTeakBackend withLatency(long minMillis, long maxMillis) {
+        this.minLatencyMillis = minMillis;
+        this.maxLatencyMillis = maxMillis;
+        return this;
+    }
+
+    MockTeakBackend withErrorRate(double rate) {
+        this.errorRate = rate;
+        return this;
+    }
+
+    MockTeakBackend withTimeouts(double rate, long afterMillis) {
+        this.timeoutRate = rate;
+        this.timeoutMillis = afterMillis;
+        return this;
+    }
+
+    /**
+     * @param rate Fraction of requests which are processed and then have their reply lost; half of
+     *             those fail with a 503, and half time out after the timeout given to {@link #withTimeouts(double, long)}.
+     */
+    MockTeakBackend withLostReplies(double rate) {
+        this.lostReplyRate = rate;
+        return this;
+    }
+
+    /**
+     * @param endpoint   Endpoint which should always reply with the given status, without processing the request.
+     * @param statusCode The status; 599 replies the way DefaultHttpRequest does when a request fails.
+     */
+    MockTeakBackend withReply(String endpoint, int statusCode) {
+        this.fixedReplies.put(endpoint, statusCode);
+        return this;
+    }
+
+    /**
+     * Wait until the backend has received at least this many requests to '/me/profile'.
+     *
+     * @return The body of every '/me/profile' request so far, including ones which were answered with an error.
+     */
+    List<JSONObject> awaitProfileRequests(int count, long timeoutMillis) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (this.profileRequests) {
+            long remaining = timeoutMillis;
+            while (this.profileRequests.size() < count && remaining > 0) {
+                this.profileRequests.wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
+            return new ArrayList<>(this.profileRequests);
+        }
+    }
+
+    Map<String, Long> requestsByEndpoint() {
+        final Map<String, Long> counts = new TreeMap<>();
+        synchronized (this.requestsByEndpoint) {
+            for (Map.Entry<String, AtomicLong> entry : this.requestsByEndpoint.entrySet()) {
+                counts.put(entry.getKey(), entry.getValue().get());
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public Response synchronousRequest(URL url, String method, String requestBody, String sig) {
+        return synchronousRequest(url, method, requestBody, sig, null);
+    }
+
+    @Override
+    public Response synchronousRequest(URL url, String method, String requestBody, String sig, Map<String, String> headers) {
+        final String endpoint = url.getPath();
+        this.requests.incrementAndGet();
+        this.bytesReceived.addAndGet(requestBody.getBytes().length);
+        synchronized (this.requestsByEndpoint) {
+            AtomicLong count = this.requestsByEndpoint.get(endpoint);
+            if (count == null) {
+                count = new AtomicLong();
+                this.requestsByEndpoint.put(endpoint, count);
+            }
+            count.incrementAndGet();
+        }
+
+        if (!sig.equals(this.signatureFor(method, url.getHost(), endpoint, requestBody))) {
+            this.badSignatures.incrementAndGet();
+            return this.reply(401, "{\"errors\":[\"signature\"]}");
+        }
+
+        if ("/me/profile".equals(endpoint)) {
+            synchronized (this.profileRequests) {
+                this.profileRequests.add(new JSONObject(requestBody));
+                this.profileRequests.notifyAll();
+            }
+        }
+
+        final Integer fixedReply = this.fixedReplies.get(endpoint);
+        if (fixedReply != null) {
+            return fixedReply == Response.ERROR_RESPONSE.statusCode ? Response.ERROR_RESPONSE : this.reply(fixedReply, "{}");
+        }
+
+        final double roll;
+        final long latency;
+        synchronized (this.random) {
+            roll = this.random.nextDouble();
+            latency = this.minLatencyMillis + (this.maxLatencyMillis > this.minLatencyMillis ? (long) (this.random.nextDouble() * (this.maxLatencyMillis - this.minLatencyMillis)) : 0);
+        }
+        if (roll < this.timeoutRate) {
+            this.injectedTimeouts.incrementAndGet();
+            sleep(this.timeoutMillis);
+            return Response.ERROR_RESPONSE;
+        }
+        sleep(latency);
+        if (roll < this.timeoutRate + this.errorRate) {
+            this.injectedErrors.incrementAndGet();
+            return this.reply(503, "{}");
+        }
+
+        final double lostReplyRoll = roll - this.timeoutRate - this.errorRate;
+        final boolean loseReply = lostReplyRoll >= 0.0 && lostReplyRoll < this.lostReplyRate;
+
+        final String body;
+        if ("/ping".equals(endpoint)) {
+            body = "{}";
+        } else if (SettingsPath.matcher(endpoint).matches()) {
+            body = "{\"auth\":\"gocarrot.com\",\"heartbeat_interval\":60}";
+        } else if (UsersPath.matcher(endpoint).matches()) {
+            body = "{\"id\":\"mock_user\",\"session_id\":\"mock_session\"}";
+        } else if ("/me/events".equals(endpoint)) {
+            final long events = countEvents(new JSONObject(requestBody).optJSONArray("batch"));
+            this.trackedEvents.addAndGet(events);
+            if (loseReply) this.eventsWithLostReplies.addAndGet(events);
+            body = "{}";
+        } else if ("/me/profile".equals(endpoint)) {
+            this.profileUpdates.incrementAndGet();
+            if (loseReply) this.profileUpdatesWithLostReplies.incrementAndGet();
+            body = "{}";
+        } else if ("/me/purchase".equals(endpoint)) {
+            this.purchases.incrementAndGet();
+            body = "{}";
+        } else if ("/batch".equals(endpoint)) {
+            body = "{}";
+        } else {
+            return this.reply(404, "{}");
+        }
+
+        if (loseReply) {
+            this.lostReplies.incrementAndGet();
+            if (lostReplyRoll < this.lostReplyRate / 2) {
+                sleep(this.timeoutMillis);
+                return Response.ERROR_RESPONSE;
+            }
+            return this.reply(503, "{}");
+        }
+        return this.reply(200, body);
+    }
+
+    private static long countEvents(JSONArray batch) {
+        long count = 0;
+        if (batch != null) {
+            for (int i = 0; i < batch.length(); i++) {
+                final JSONObject event = batch.optJSONObject(i);
+                count += event == null ? 0 : event.optLong("count", 1);
+            }
+        }
+        return count;
+    }
+
+    private Response reply(int statusCode, String body) {
+        this.bytesSent.addAndGet(body.getBytes().length);
+        return new Response(statusCode, body, new HashMap<>());
+    }
+
+    private String signatureFor(String method, String hostname, String endpoint, String requestBody) {
+        try {
+            final SecretKeySpec keySpec = new SecretKeySpec(this.apiKey.getBytes(), "HmacSHA256");
+            final Mac bodyMac = Mac.getInstance("HmacSHA256");
+            bodyMac.init(keySpec);
+            final String requestBodyHash = Helpers.bytesToHex(bodyMac.doFinal(requestBody.getBytes()));
+
+            final String stringToSign = "TeakV2-HMAC-SHA256\n" + method + "\n" + hostname + "\n" + endpoint + "\n" + requestBodyHash + "\n";
+            final Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(keySpec);
+            return Helpers.bytesToHex(mac.doFinal(stringToSign.getBytes()));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,11 +1,20 @@
 package io.teak.app.test;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Map;
 
 import io.teak.sdk.TeakConfiguration;
 import io.teak.sdk.TeakEvent;
+import io.teak.sdk.core.DeepLink;
+import io.teak.sdk.core.DeepLinkRouter;
+import io.teak.sdk.json.JSONObject;
 
 class TestHelpers {
     static void resetTeakEventListeners() throws NoSuchFieldException, IllegalAccessException {
@@ -28,4 +37,24 @@ class TestHelpers {
         f.setAccessible(true);
         f.set(null, null);
     }
+
+    static void resetDeepLinkRoutes() throws NoSuchFieldException, IllegalAccessException {
+        Field f = DeepLink.class.getDeclaredField("router");
+        f.setAccessible(true);
+        f.set(null, new DeepLinkRouter<DeepLink>());
+    }
+
+    // Load test reports go in build/reports, next to the test results, for comparing runs
+    static void writeLoadReport(String name, Map<String, Object> report) throws IOException {
+        final File file = new File("build/reports/load", name + ".json");
+        if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+            throw new IOException("Could not create " + file.getParentFile());
+        }
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(JSONObject.view(report).toString(2));
+        } finally {
+            writer.close();
+        }
+    }
 }
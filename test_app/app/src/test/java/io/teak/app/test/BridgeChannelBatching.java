@@ -0,0 +1,110 @@
+package io.teak.app.test;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import io.teak.sdk.json.JSONArray;
+import io.teak.sdk.wrapper.BridgeChannel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BridgeChannelBatching {
+    @Test
+    public void unsubscribedMessagesAreDropped() {
+        final BridgeChannel channel = new BridgeChannel("EventBatch", "LogEvent", message -> {}, Executors.newSingleThreadScheduledExecutor());
+        channel.subscribe(Collections.singletonList("NotificationLaunch"));
+
+        assertTrue(channel.isSubscribed("NotificationLaunch"));
+        assertFalse(channel.isSubscribed("LogEvent"));
+        assertFalse(channel.enqueue("LogEvent", "{}"));
+        assertEquals(1, channel.getDroppedCount());
+    }
+
+    @Test
+    public void messagesInAFrameAreBatched() throws InterruptedException {
+        final List<BridgeChannel.Message> sent = new ArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        final BridgeChannel channel = new BridgeChannel("EventBatch", "LogEvent", message -> {
+            sent.add(message);
+            latch.countDown();
+        }, Executors.newSingleThreadScheduledExecutor());
+        channel.setBatchingEnabled(true);
+
+        for (String method : Arrays.asList("NotificationLaunch", "RewardClaimAttempt", "LogEvent")) {
+            assertTrue(channel.enqueue(method, "{\"method\":\"" + method + "\"}"));
+        }
+
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertEquals(0, channel.getQueuedCount());
+        assertEquals(1, sent.size());
+        assertEquals("EventBatch", sent.get(0).method);
+
+        final JSONArray batch = new JSONArray(sent.get(0).data);
+        assertEquals(3, batch.length());
+        assertEquals("RewardClaimAttempt", batch.getJSONObject(1).getString("method"));
+        assertEquals("{\"method\":\"RewardClaimAttempt\"}", batch.getJSONObject(1).getString("data"));
+    }
+
+    @Test
+    public void onlyLogMessagesAreDroppedWhenFull() throws InterruptedException {
+        final List<BridgeChannel.Message> sent = Collections.synchronizedList(new ArrayList<BridgeChannel.Message>());
+        final CountDownLatch latch = new CountDownLatch(1);
+        final BridgeChannel channel = new BridgeChannel("EventBatch", "LogEvent", runnable -> {
+            runnable.run();
+            latch.countDown();
+        }, sent::add, Executors.newSingleThreadScheduledExecutor());
+
+        // Hold the frame open until everything is queued
+        synchronized (channel) {
+            for (int i = 0; i < BridgeChannel.MaxQueuedLogMessages + 10; i++) {
+                assertTrue(channel.enqueue("LogEvent", String.valueOf(i)));
+            }
+            assertTrue(channel.enqueue("NotificationLaunch", "launch"));
+            assertTrue(channel.enqueue("RewardClaimAttempt", "reward"));
+            assertTrue(channel.enqueue("LogEvent", "last"));
+        }
+
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertEquals(11, channel.getDroppedCount());
+        assertEquals(BridgeChannel.MaxQueuedLogMessages + 2, sent.size());
+
+        // The oldest log messages made room, and nothing else was dropped
+        assertEquals("11", sent.get(0).data);
+        assertEquals("launch", sent.get(sent.size() - 3).data);
+        assertEquals("reward", sent.get(sent.size() - 2).data);
+        assertEquals("last", sent.get(sent.size() - 1).data);
+    }
+
+    @Test
+    public void aFailedMessageDoesNotLoseTheRestOfTheFrame() throws InterruptedException {
+        final List<String> sent = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch latch = new CountDownLatch(1);
+        final BridgeChannel channel = new BridgeChannel("EventBatch", "LogEvent", runnable -> {
+            runnable.run();
+            latch.countDown();
+        }, message -> {
+            if ("RewardClaimAttempt".equals(message.method)) {
+                throw new IllegalStateException("engine rejected the message");
+            }
+            sent.add(message.method);
+        }, Executors.newSingleThreadScheduledExecutor());
+
+        synchronized (channel) {
+            for (String method : Arrays.asList("NotificationLaunch", "RewardClaimAttempt", "DeepLink")) {
+                assertTrue(channel.enqueue(method, "{}"));
+            }
+        }
+
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("NotificationLaunch", "DeepLink"), sent);
+    }
+}
@@ -1,6 +1,7 @@
 package io.teak.app.test;
 
 import org.junit.Test;
+import org.junit.experimental.categories.Category;
 import org.junit.runner.RunWith;
 import org.mockito.junit.MockitoJUnitRunner;
 
@@ -11,8 +12,10 @@ import java.util.regex.Pattern;
 
 import io.teak.sdk.Teak;
 import io.teak.sdk.core.DeepLink;
+import io.teak.sdk.core.DeepLinkRouter;
 
 import static junit.framework.Assert.assertNotNull;
+import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.timeout;
@@ -22,12 +25,10 @@ import static org.mockito.Mockito.verify;
 public class DeepLinkRoutes extends TeakUnitTest {
     @Test
     public void simple() throws Exception {
-        io.teak.sdk.core.DeepLink.routes.clear();
+        TestHelpers.resetDeepLinkRoutes();
 
         final Teak.DeepLink callback = mock(Teak.DeepLink.class);
         Teak.registerDeepLink("/foo/:bar/:baz", "Test", "Also test", callback);
-        Thread.sleep(10); // sleep to make sure the async happens
-        assertTrue(io.teak.sdk.core.DeepLink.routes.containsKey("/foo/([^/]+)/([^/]+)"));
 
         final URI uri = new URI("teak" + TestAppId + ":///foo/1234/abcd");
         assertNotNull(uri);
@@ -43,12 +44,10 @@ public class DeepLinkRoutes extends TeakUnitTest {
 
     @Test
     public void withQuery() throws Exception {
-        io.teak.sdk.core.DeepLink.routes.clear();
+        TestHelpers.resetDeepLinkRoutes();
 
         final Teak.DeepLink callback = mock(Teak.DeepLink.class);
         Teak.registerDeepLink("/foo/:bar/:baz", "", "", callback);
-        Thread.sleep(10);
-        assertTrue(io.teak.sdk.core.DeepLink.routes.containsKey("/foo/([^/]+)/([^/]+)"));
 
         final URI uri = new URI("teak" + TestAppId + ":///foo/1234/abcd?foo=bar");
         assertNotNull(uri);
@@ -65,12 +64,10 @@ public class DeepLinkRoutes extends TeakUnitTest {
 
     @Test
     public void queryOverwritesPath() throws Exception {
-        io.teak.sdk.core.DeepLink.routes.clear();
+        TestHelpers.resetDeepLinkRoutes();
 
         final Teak.DeepLink callback = mock(Teak.DeepLink.class);
         Teak.registerDeepLink("/foo/:bar/:baz", "", "", callback);
-        Thread.sleep(10);
-        assertTrue(io.teak.sdk.core.DeepLink.routes.containsKey("/foo/([^/]+)/([^/]+)"));
 
         final URI uri = new URI("teak" + TestAppId + ":///foo/1234/abcd?bar=barbar");
         assertNotNull(uri);
@@ -83,4 +80,98 @@ public class DeepLinkRoutes extends TeakUnitTest {
         arg.put(DeepLink.INCOMING_URL_KEY, uri.toString());
         verify(callback, timeout(100)).call(arg);
     }
+
+    @Test
+    public void literalSegmentsTakePrecedence() throws Exception {
+        TestHelpers.resetDeepLinkRoutes();
+
+        final Teak.DeepLink variableCallback = mock(Teak.DeepLink.class);
+        final Teak.DeepLink literalCallback = mock(Teak.DeepLink.class);
+        Teak.registerDeepLink("/foo/:bar", "", "", variableCallback);
+        Teak.registerDeepLink("/foo/store", "", "", literalCallback);
+
+        final URI uri = new URI("teak" + TestAppId + ":///foo/store");
+        assertTrue(io.teak.sdk.core.DeepLink.processUri(uri));
+
+        final Map<String, Object> arg = new HashMap<>();
+        arg.put(DeepLink.INCOMING_URL_PATH_KEY, uri.getPath());
+        arg.put(DeepLink.INCOMING_URL_KEY, uri.toString());
+        verify(literalCallback, timeout(100)).call(arg);
+    }
+
+    @Test
+    public void manyRoutes() throws Exception {
+        TestHelpers.resetDeepLinkRoutes();
+
+        final int routeCount = 500;
+        final Teak.DeepLink[] callbacks = new Teak.DeepLink[routeCount];
+        for (int i = 0; i < routeCount; i++) {
+            callbacks[i] = mock(Teak.DeepLink.class);
+            Teak.registerDeepLink("/route" + i + "/:bar/:baz", "", "", callbacks[i]);
+        }
+
+        for (int i = 0; i < routeCount; i++) {
+            assertTrue(io.teak.sdk.core.DeepLink.processUri(new URI("teak" + TestAppId + ":///route" + i + "/1234/abcd")));
+        }
+
+        final URI uri = new URI("teak" + TestAppId + ":///route" + (routeCount - 1) + "/1234/abcd");
+        final Map<String, Object> arg = new HashMap<>();
+        arg.put("bar", "1234");
+        arg.put("baz", "abcd");
+        arg.put(DeepLink.INCOMING_URL_PATH_KEY, uri.getPath());
+        arg.put(DeepLink.INCOMING_URL_KEY, uri.toString());
+        verify(callbacks[routeCount - 1], timeout(1000)).call(arg);
+    }
+
+    @Test
+    @Category(LoadTest.class)
+    public void manyRoutesBenchmark() throws Exception {
+        final int routeCount = 1000;
+        final int lookups = 200000;
+        final String[] paths = new String[routeCount];
+        for (int i = 0; i < routeCount; i++) {
+            paths[i] = "/route" + i + "/1234/abcd";
+        }
+
+        long startTime = System.nanoTime();
+        final DeepLinkRouter<Integer> router = new DeepLinkRouter<>();
+        for (int i = 0; i < routeCount; i++) {
+            router.add("/route" + i + "/:bar/:baz", i);
+        }
+        final double registerMicrosPerRoute = (System.nanoTime() - startTime) / 1e3 / routeCount;
+
+        // Warm up, then look up paths spread across the whole table
+        for (int i = 0; i < lookups; i++) {
+            router.match(paths[i % routeCount]);
+        }
+        startTime = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            assertEquals(i % routeCount, (int) router.match(paths[i % routeCount]).value);
+        }
+        final double lookupMicros = (System.nanoTime() - startTime) / 1e3 / lookups;
+
+        // Lookups before the trie compiled every route's pattern, in turn, until one matched
+        final String[] patterns = new String[routeCount];
+        for (int i = 0; i < routeCount; i++) {
+            patterns[i] = "/route" + i + "/([^/]+)/([^/]+)";
+        }
+        final int scanLookups = 200;
+        startTime = System.nanoTime();
+        for (int i = 0; i < scanLookups; i++) {
+            final String path = paths[(i * 7) % routeCount];
+            for (String pattern : patterns) {
+                if (Pattern.compile(pattern).matcher(path).matches()) break;
+            }
+        }
+        final double scanLookupMicros = (System.nanoTime() - startTime) / 1e3 / scanLookups;
+
+        final Map<String, Object> report = new HashMap<>();
+        report.put("routes", routeCount);
+        report.put("register_us_per_route", registerMicrosPerRoute);
+        report.put("lookup_us", lookupMicros);
+        report.put("compile_and_scan_lookup_us", scanLookupMicros);
+        TestHelpers.writeLoadReport("DeepLinkRouter", report);
+
+        assertTrue(lookupMicros * 10 < scanLookupMicros);
+    }
 }
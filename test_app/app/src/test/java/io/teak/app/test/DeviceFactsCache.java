@@ -0,0 +1,101 @@
+package io.teak.app.test;
+
+import android.content.Context;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import io.teak.sdk.configuration.DeviceConfiguration;
+import io.teak.sdk.core.KeyValueStore;
+import io.teak.sdk.io.IAndroidDeviceInfo;
+import io.teak.sdk.json.JSONObject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DeviceFactsCache {
+    private static final String Fingerprint = "google/walleye/walleye:8.1.0/OPM1.171019.011/4448085:user/release-keys";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private KeyValueStore store;
+    private Context context;
+    private IAndroidDeviceInfo androidDeviceInfo;
+
+    // Background collection is held here, so each test decides when it runs
+    private final List<Runnable> background = new ArrayList<>();
+    private final Executor executor = background::add;
+
+    @Before
+    public void setup() {
+        this.store = new KeyValueStore(new File(folder.getRoot(), "store"));
+        this.context = mock(Context.class);
+        this.androidDeviceInfo = mock(IAndroidDeviceInfo.class);
+        when(this.androidDeviceInfo.getNumCores()).thenReturn(4);
+        when(this.androidDeviceInfo.totalMemoryInBytes()).thenReturn(2048L);
+        when(this.androidDeviceInfo.getDeviceId()).thenReturn("device_a");
+    }
+
+    @Test
+    public void factsAreCollectedAndStoredOnFirstLaunch() {
+        final JSONObject facts = DeviceConfiguration.getDeviceFacts(Fingerprint, this.store, this.context, this.androidDeviceInfo, this.executor);
+        assertEquals(4, facts.getInt("numCores"));
+        assertTrue(this.background.isEmpty());
+
+        final JSONObject stored = storedFacts();
+        assertEquals(Fingerprint, stored.getString("fingerprint"));
+        assertEquals(4, stored.getInt("numCores"));
+
+        // The device id is read fresh every launch, so a restored backup cannot carry it to another device
+        assertFalse(stored.has("deviceId"));
+    }
+
+    @Test
+    public void storedFactsAreUsedWhenTheFingerprintMatches() {
+        DeviceConfiguration.getDeviceFacts(Fingerprint, this.store, this.context, this.androidDeviceInfo, this.executor);
+        when(this.androidDeviceInfo.getNumCores()).thenReturn(8);
+
+        final JSONObject facts = DeviceConfiguration.getDeviceFacts(Fingerprint, this.store, this.context, this.androidDeviceInfo, this.executor);
+        assertEquals(4, facts.getInt("numCores"));
+
+        // The facts are collected again in the background, for the next launch
+        assertEquals(1, this.background.size());
+        this.background.remove(0).run();
+        assertEquals(8, storedFacts().getInt("numCores"));
+    }
+
+    @Test
+    public void storedFactsAreIgnoredWhenTheFingerprintChanges() {
+        DeviceConfiguration.getDeviceFacts(Fingerprint, this.store, this.context, this.androidDeviceInfo, this.executor);
+        when(this.androidDeviceInfo.getNumCores()).thenReturn(8);
+
+        final String updated = Fingerprint.replace("8.1.0", "9");
+        final JSONObject facts = DeviceConfiguration.getDeviceFacts(updated, this.store, this.context, this.androidDeviceInfo, this.executor);
+        assertEquals(8, facts.getInt("numCores"));
+        assertTrue(this.background.isEmpty());
+        assertEquals(updated, storedFacts().getString("fingerprint"));
+    }
+
+    @Test
+    public void factsAreNotStoredWithoutAFingerprint() {
+        final JSONObject facts = DeviceConfiguration.getDeviceFacts(null, this.store, this.context, this.androidDeviceInfo, this.executor);
+        assertEquals(4, facts.getInt("numCores"));
+        assertNull(this.store.getString("io.teak.sdk.Preferences.DeviceFacts"));
+    }
+
+    private JSONObject storedFacts() {
+        return new JSONObject(this.store.getString("io.teak.sdk.Preferences.DeviceFacts"));
+    }
+}
@@ -0,0 +1,149 @@
+package io.teak.app.test;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.teak.sdk.wrapper.EventRing;
+import io.teak.sdk.wrapper.ISDKWrapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventRingConsumer {
+    /**
+     * Reads the ring the way a game engine would: straight out of the buffer, once per 'frame'.
+     */
+    static class Consumer {
+        final EventRing ring;
+        final ByteBuffer buffer;
+        final List<String> events = new ArrayList<>();
+
+        Consumer(EventRing ring) {
+            this.ring = ring;
+            this.buffer = ring.getBuffer().duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        void poll() {
+            int available = this.ring.acquire();
+            while (available > 0) {
+                final int start = this.ring.getReadOffset();
+                int offset = start;
+                final int end = start + available;
+                while (offset < end) {
+                    if (end - offset < 4) {
+                        offset = end;
+                        break;
+                    }
+
+                    final int length = this.buffer.getInt(offset);
+                    if (length == EventRing.WrapMarker) {
+                        offset = end;
+                        break;
+                    }
+
+                    final ISDKWrapper.EventType eventType = ISDKWrapper.EventType.values()[this.buffer.get(offset + 4)];
+                    final byte[] data = new byte[length - 1];
+                    for (int i = 0; i < data.length; i++) {
+                        data[i] = this.buffer.get(offset + 5 + i);
+                    }
+                    this.events.add(eventType.name() + ":" + new String(data, Charset.forName("UTF-8")));
+                    offset += 4 + length;
+                }
+                this.ring.release(offset - start);
+                available = this.ring.acquire();
+            }
+        }
+    }
+
+    @Test
+    public void eventsAreReadInOrder() {
+        final EventRing ring = new EventRing(64);
+        final Consumer consumer = new Consumer(ring);
+
+        // Fill and drain enough times to wrap the ring more than once
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final String data = "{\"i\":" + i + "}";
+            assertTrue(ring.offer(ISDKWrapper.EventType.RewardClaim, data));
+            expected.add("RewardClaim:" + data);
+            if (i % 3 == 2) consumer.poll();
+        }
+        consumer.poll();
+
+        assertEquals(expected, consumer.events);
+        assertEquals(0, ring.acquire());
+    }
+
+    @Test
+    public void fullRingDropsEvents() {
+        final EventRing ring = new EventRing(32);
+        assertTrue(ring.offer(ISDKWrapper.EventType.UserData, "{\"a\":\"0123456789\"}"));
+        assertFalse(ring.offer(ISDKWrapper.EventType.UserData, "{\"a\":\"0123456789\"}"));
+        assertEquals(1, ring.getDroppedCount());
+    }
+
+    @Test
+    public void emptyRingStartsOverAtTheBeginning() {
+        final EventRing ring = new EventRing(32);
+        final Consumer consumer = new Consumer(ring);
+        assertTrue(ring.offer(ISDKWrapper.EventType.UserData, "{\"a\":1}"));
+        consumer.poll();
+
+        // This record would not fit between the write offset and the end of the buffer
+        assertTrue(ring.offer(ISDKWrapper.EventType.UserData, "{\"a\":\"0123456789\"}"));
+        assertEquals(0, ring.getReadOffset());
+        consumer.poll();
+        assertEquals(2, consumer.events.size());
+        assertEquals("UserData:{\"a\":\"0123456789\"}", consumer.events.get(1));
+    }
+
+    @Test
+    public void fullRingRefusesEventsUntilDrained() {
+        final EventRing ring = new EventRing(32);
+        final Consumer consumer = new Consumer(ring);
+        assertTrue(ring.offer(ISDKWrapper.EventType.UserData, "{\"a\":\"0123456789\"}"));
+        assertFalse(ring.offer(ISDKWrapper.EventType.UserData, "{\"a\":\"0123456789\"}"));
+
+        // This one would fit, but would then be delivered ahead of the one refused above
+        assertFalse(ring.offer(ISDKWrapper.EventType.UserData, "{}"));
+        assertEquals(2, ring.getDroppedCount());
+
+        consumer.poll();
+        assertTrue(ring.offer(ISDKWrapper.EventType.UserData, "{}"));
+    }
+
+    @Test
+    public void concurrentProducerAndConsumer() throws InterruptedException {
+        final EventRing ring = new EventRing(256);
+        final Consumer consumer = new Consumer(ring);
+        final int eventCount = 2000;
+        final CountDownLatch done = new CountDownLatch(1);
+
+        new Thread(() -> {
+            for (int i = 0; i < eventCount; i++) {
+                while (!ring.offer(ISDKWrapper.EventType.NotificationLaunch, "{\"i\":" + i + "}")) {
+                    Thread.yield();
+                }
+            }
+            done.countDown();
+        }).start();
+
+        while (consumer.events.size() < eventCount) {
+            consumer.poll();
+            Thread.yield();
+        }
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+
+        for (int i = 0; i < eventCount; i++) {
+            assertEquals("NotificationLaunch:{\"i\":" + i + "}", consumer.events.get(i));
+        }
+    }
+}
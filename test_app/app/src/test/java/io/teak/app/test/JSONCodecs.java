@@ -0,0 +1,195 @@
+package io.teak.app.test;
+
+import android.net.Uri;
+
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.teak.sdk.Teak;
+import io.teak.sdk.core.ChannelStatus;
+import io.teak.sdk.json.JSONCodec;
+import io.teak.sdk.json.JSONObject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class JSONCodecs {
+    public static class Bean {
+        public String getName() {
+            return "teak";
+        }
+
+        public boolean isActive() {
+            return true;
+        }
+
+        public String getURL() {
+            return "https://teak.io";
+        }
+
+        public int getX() {
+            return 1;
+        }
+
+        public String getNothing() {
+            return null;
+        }
+
+        public static String getStatic() {
+            return "static";
+        }
+
+        public String getWithArgument(int argument) {
+            return "argument";
+        }
+
+        public String notAGetter() {
+            return "not a getter";
+        }
+    }
+
+    public static class RegisteredBean {
+        public String getName() {
+            return "from getter";
+        }
+    }
+
+    public static class RegisteredBeanSubclass extends RegisteredBean {
+    }
+
+    public static class LateRegisteredBean {
+        public String getName() {
+            return "from getter";
+        }
+    }
+
+    public static class ExtendedLaunchData extends Teak.LaunchData {
+        ExtendedLaunchData(Uri launchLink) {
+            super(launchLink);
+        }
+
+        @Override
+        public Map<String, Object> toMap() {
+            final Map<String, Object> map = super.toMap();
+            map.put("extra", "value");
+            return map;
+        }
+
+        public String getIgnored() {
+            return "not converted by getters";
+        }
+    }
+
+    @Test
+    public void beanGettersAreConverted() {
+        final JSONObject json = new JSONObject(new Bean());
+        assertEquals(4, json.length());
+        assertEquals("teak", json.getString("name"));
+        assertTrue(json.getBoolean("active"));
+        assertEquals("https://teak.io", json.getString("URL"));
+        assertEquals(1, json.getInt("x"));
+    }
+
+    @Test
+    public void codecsAreCachedPerClass() throws Exception {
+        final Object codec = codecFor(Bean.class);
+        assertSame(codec, codecFor(Bean.class));
+    }
+
+    @Test
+    public void registeredCodecsAreUsedForSubclasses() throws Exception {
+        final JSONCodec<RegisteredBean> codec = new JSONCodec<RegisteredBean>() {
+            @Override
+            public void encode(RegisteredBean object, Map<String, Object> properties) {
+                properties.put("name", "from codec");
+                properties.put("class", object.getClass().getSimpleName());
+                properties.put("ignored", null);
+            }
+        };
+        JSONObject.registerCodec(RegisteredBean.class, codec);
+
+        assertSame(codec, codecFor(RegisteredBean.class));
+        assertSame(codec, codecFor(RegisteredBeanSubclass.class));
+        assertEquals("{\"name\":\"from codec\",\"class\":\"RegisteredBeanSubclass\"}", new JSONObject(new RegisteredBeanSubclass()).toString());
+    }
+
+    @Test
+    public void registeringACodecReplacesACachedBeanCodec() throws Exception {
+        assertEquals("from getter", new JSONObject(new LateRegisteredBean()).getString("name"));
+
+        final JSONCodec<LateRegisteredBean> codec = new JSONCodec<LateRegisteredBean>() {
+            @Override
+            public void encode(LateRegisteredBean object, Map<String, Object> properties) {
+                properties.put("name", "from codec");
+            }
+        };
+        JSONObject.registerCodec(LateRegisteredBean.class, codec);
+        assertSame(codec, codecFor(LateRegisteredBean.class));
+        assertEquals("from codec", new JSONObject(new LateRegisteredBean()).getString("name"));
+    }
+
+    @Test
+    public void launchDataIsConvertedByItsMap() {
+        final Teak.LaunchData launchData = new Teak.LaunchData(uri("https://teak.io/launch"));
+        assertEquals("{\"launch_link\":\"https://teak.io/launch\"}", JSONObject.wrap(launchData).toString());
+
+        // Subclasses add to the map, and are converted by the same codec rather than by their getters
+        final JSONObject json = (JSONObject) JSONObject.wrap(new ExtendedLaunchData(uri("https://teak.io/extended")));
+        assertEquals(2, json.length());
+        assertEquals("https://teak.io/extended", json.getString("launch_link"));
+        assertEquals("value", json.getString("extra"));
+    }
+
+    @Test
+    public void eventsAreConvertedByTheirJSON() {
+        final Teak.Event event = new Teak.Event(new Teak.LaunchData(uri("https://teak.io/launch")), null);
+        final JSONObject json = (JSONObject) JSONObject.wrap(event);
+        assertEquals("{\"launch_link\":\"https://teak.io/launch\"}", json.toString());
+        assertTrue(json.similar(event.toJSON()));
+
+        final Teak.Event subclassEvent = new Teak.Event(Teak.LaunchData.Unattributed, null) {
+            @Override
+            public JSONObject toJSON() {
+                final JSONObject json = super.toJSON();
+                json.put("isSubclass", true);
+                return json;
+            }
+        };
+        assertEquals("{\"isSubclass\":true}", JSONObject.wrap(subclassEvent).toString());
+    }
+
+    @Test
+    public void userDataEventsAreConvertedByTheirJSON() {
+        final Map<String, String> pushRegistration = new HashMap<>();
+        pushRegistration.put("fcm_push_key", "token");
+        final Teak.UserDataEvent event = new Teak.UserDataEvent(new JSONObject("{\"level\":3}"),
+            ChannelStatus.fromJSON(new JSONObject("{\"state\":\"opt_in\"}")),
+            ChannelStatus.fromJSON(new JSONObject("{\"state\":\"opt_out\",\"delivery_fault\":true}")),
+            ChannelStatus.Unknown,
+            pushRegistration);
+
+        final JSONObject json = (JSONObject) JSONObject.wrap(event);
+        assertTrue(json.similar(event.toJSON()));
+        assertEquals(3, json.getJSONObject("additionalData").getInt("level"));
+        assertEquals("opt_out", json.getJSONObject("pushStatus").getString("state"));
+        assertEquals("token", json.getJSONObject("pushRegistration").getString("fcm_push_key"));
+    }
+
+    private static Uri uri(String link) {
+        final Uri uri = mock(Uri.class);
+        when(uri.toString()).thenReturn(link);
+        return uri;
+    }
+
+    private static Object codecFor(Class<?> klass) throws Exception {
+        final Method codecFor = JSONObject.class.getDeclaredMethod("codecFor", Class.class);
+        codecFor.setAccessible(true);
+        return codecFor.invoke(null, klass);
+    }
+}
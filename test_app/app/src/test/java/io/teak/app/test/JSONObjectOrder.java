@@ -0,0 +1,44 @@
+package io.teak.app.test;
+
+import org.junit.Test;
+
+import java.util.Iterator;
+
+import io.teak.sdk.json.JSONObject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class JSONObjectOrder {
+    @Test
+    public void keysKeepInsertionOrder() {
+        final JSONObject json = new JSONObject();
+        for (int i = 0; i < 40; i++) {
+            json.put("key" + i, i);
+        }
+        for (int i = 0; i < 40; i += 3) {
+            json.remove("key" + i);
+        }
+        json.put("key0", "again");
+
+        final Iterator<String> keys = json.keys();
+        for (int i = 1; i < 40; i++) {
+            if (i % 3 != 0) {
+                assertEquals("key" + i, keys.next());
+                assertEquals(i, json.getInt("key" + i));
+            }
+        }
+        assertEquals("key0", keys.next());
+        assertFalse(keys.hasNext());
+        assertEquals(27, json.length());
+    }
+
+    @Test
+    public void outputIsDeterministic() {
+        final JSONObject json = new JSONObject();
+        json.put("z", 1);
+        json.put("a", "two");
+        json.put("m", true);
+        assertEquals("{\"z\":1,\"a\":\"two\",\"m\":true}", json.toString());
+    }
+}
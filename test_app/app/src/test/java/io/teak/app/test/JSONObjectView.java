@@ -0,0 +1,57 @@
+package io.teak.app.test;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.teak.sdk.json.JSONArray;
+import io.teak.sdk.json.JSONObject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JSONObjectView {
+    private static Map<String, Object> payload() {
+        final Map<String, Object> nested = new HashMap<>();
+        nested.put("list", Arrays.asList(1, null, "two", new int[] {3, 4}));
+        nested.put("ignored", null);
+
+        final Map<String, Object> payload = new HashMap<>();
+        payload.put("string", "quote\"d");
+        payload.put("number", 1.5);
+        payload.put("nested", nested);
+        payload.put("empty", new ArrayList<>());
+        payload.put("null", null);
+        return payload;
+    }
+
+    @Test
+    public void viewSerializesLikeCopy() {
+        final Map<String, Object> payload = payload();
+        final JSONObject copy = new JSONObject(payload);
+        final JSONObject view = JSONObject.view(payload);
+
+        assertTrue(copy.similar(new JSONObject(view.toString())));
+        assertTrue(copy.similar(new JSONObject(view.toString(2))));
+    }
+
+    @Test
+    public void viewWrapsValuesWhenRead() {
+        final JSONObject view = JSONObject.view(payload());
+        final JSONArray list = view.getJSONObject("nested").getJSONArray("list");
+
+        assertEquals(JSONObject.NULL, list.get(1));
+        assertEquals(2, list.getJSONArray(3).length());
+        assertEquals("quote\"d", view.getString("string"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void viewIsReadOnly() {
+        final List<Object> list = new ArrayList<>();
+        JSONArray.view(list).put(1);
+    }
+}
@@ -0,0 +1,61 @@
+package io.teak.app.test;
+
+import org.junit.Test;
+
+import io.teak.sdk.json.JSONObject;
+import io.teak.sdk.json.JSONPointer;
+import io.teak.sdk.json.JSONPointerException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class JSONPointerQuery {
+    private static final JSONObject document = new JSONObject("{\"a/b\":1,\"m~n\":2,\"~1\":3,\"list\":[10,20,{\"x\":\"y\"}]}");
+
+    @Test
+    public void escapedTokensAreUnescapedOnce() {
+        assertEquals(1, document.query("/a~1b"));
+        assertEquals(2, document.query("/m~0n"));
+        assertEquals(3, document.query("/~01"));
+    }
+
+    @Test
+    public void builderTokensAreNotUnescaped() {
+        final JSONPointer pointer = JSONPointer.builder().append("~1").build();
+        assertEquals(3, pointer.queryFrom(document));
+        assertEquals("/~01", pointer.toString());
+        assertEquals(1, JSONPointer.builder().append("a/b").build().queryFrom(document));
+    }
+
+    @Test
+    public void arrayIndices() {
+        assertEquals(20, document.query("/list/1"));
+        assertEquals("y", document.query("/list/2/x"));
+        assertEquals(10, JSONPointer.builder().append("list").append(0).build().queryFrom(document));
+    }
+
+    @Test(expected = JSONPointerException.class)
+    public void indexOutOfRangeThrows() {
+        document.query("/list/5");
+    }
+
+    @Test(expected = JSONPointerException.class)
+    public void tokenWhichIsNotAnIndexThrows() {
+        document.query("/list/x");
+    }
+
+    @Test
+    public void optQueryMissesReturnNull() {
+        assertNull(document.optQuery("/missing"));
+        assertNull(document.optQuery("/missing/deeper"));
+        assertNull(document.optQuery("/list/5"));
+        assertNull(document.optQuery("/list/x"));
+        assertNull(document.optQuery("/a~1b/deeper"));
+    }
+
+    @Test
+    public void compiledPointersAreReused() {
+        assertSame(JSONPointer.compile("/list/2/x"), JSONPointer.compile("/list/2/x"));
+    }
+}
@@ -0,0 +1,151 @@
+package io.teak.app.test;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.teak.sdk.json.JSONArray;
+import io.teak.sdk.json.JSONException;
+import io.teak.sdk.json.JSONObject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class JSONSerialization {
+    @Test
+    public void controlCharactersAreEscaped() throws Exception {
+        assertQuoted("\"\\u0000\\u0001\\u001f\"", "\u0000\u0001\u001f");
+        assertQuoted("\"\\b\\t\\n\\f\\r\"", "\b\t\n\f\r");
+        assertQuoted("\"\\\\\\\"\"", "\\\"");
+
+        // DEL is not a control character as far as JSON is concerned
+        assertQuoted("\"\u007f\"", "\u007f");
+    }
+
+    @Test
+    public void slashIsEscapedOnlyAfterLessThan() throws Exception {
+        assertQuoted("\"<\\/script>\"", "</script>");
+        assertQuoted("\"<<\\//\"", "<<//");
+        assertQuoted("\"a/b\"", "a/b");
+    }
+
+    @Test
+    public void c1ControlsAndGeneralPunctuationAreEscaped() throws Exception {
+        assertQuoted("\"\\u0080\\u009f\u00a0\u00ff\"", "\u0080\u009f\u00a0\u00ff");
+        assertQuoted("\"\u1fff\\u2000\\u2028\\u2029\\u20ac\\u20ff\u2100\"", "\u1fff\u2000\u2028\u2029\u20ac\u20ff\u2100");
+    }
+
+    @Test
+    public void surrogatesArePassedThrough() throws Exception {
+        assertQuoted("\"\ud83d\ude00\"", "\ud83d\ude00");
+        assertQuoted("\"\ud83d\"", "\ud83d");
+        assertQuoted("\"\ude00x\"", "\ude00x");
+        assertQuoted("\"x\ud83d\"", "x\ud83d");
+    }
+
+    @Test
+    public void numbersAreFormatted() throws Exception {
+        assertNumber("-0", -0.0);
+        assertNumber("-0", -0.0f);
+        assertNumber("0", 0.0);
+        assertNumber("100", 100.0);
+        assertNumber("1.5", 1.5);
+        assertNumber("0.001", 0.001);
+
+        // Whole doubles print as integers up to 1e7, where Double.toString switches to exponents
+        assertNumber("9999999", 9999999.0);
+        assertNumber("-9999999", -9999999.0);
+        assertNumber("1.0E7", 1e7);
+        assertNumber("-1.0E7", -1e7);
+        assertNumber("1.0E7", 1e7f);
+
+        assertNumber("-9223372036854775808", Long.MIN_VALUE);
+        assertNumber("9223372036854775807", Long.MAX_VALUE);
+        assertNumber("-2147483648", Integer.MIN_VALUE);
+    }
+
+    @Test
+    public void nonFiniteNumbersAreRejected() {
+        for (Number number : new Number[] {Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Float.NaN, Float.POSITIVE_INFINITY}) {
+            try {
+                new JSONObject().put("n", number);
+                fail("put " + number);
+            } catch (JSONException ignored) {
+            }
+            try {
+                JSONObject.numberToString(number);
+                fail("numberToString " + number);
+            } catch (JSONException ignored) {
+            }
+
+            // Values which get in without being checked fail serialization instead
+            final Map<String, Object> map = new HashMap<>();
+            map.put("n", number);
+            assertNull(new JSONObject(map).toString());
+            assertNull(new JSONArray().put(number).toString());
+        }
+    }
+
+    @Test
+    @Category(LoadTest.class)
+    public void serializationBenchmark() throws Exception {
+        final JSONObject payload = new JSONObject();
+        for (int i = 0; i < 10; i++) {
+            payload.put("string_key_" + i, "value \"" + i + "\" </tag>\n\u00e9\u20ac");
+        }
+        for (int i = 0; i < 5; i++) {
+            payload.put("long_key_" + i, 1234567890123L * i);
+            payload.put("whole_double_key_" + i, 100.0 * i);
+            payload.put("double_key_" + i, 3.14159 * i);
+        }
+        final int iterations = 200000;
+
+        // Warm up, then serialize into the internal buffer, and then into a StringWriter
+        for (int i = 0; i < iterations; i++) {
+            payload.toString();
+        }
+        long startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            payload.toString();
+        }
+        final double toStringMicros = (System.nanoTime() - startTime) / 1e3 / iterations;
+
+        startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            payload.write(new StringWriter());
+        }
+        final double stringWriterMicros = (System.nanoTime() - startTime) / 1e3 / iterations;
+
+        final Map<String, Object> report = new HashMap<>();
+        report.put("keys", payload.length());
+        report.put("to_string_us", toStringMicros);
+        report.put("string_writer_us", stringWriterMicros);
+        TestHelpers.writeLoadReport("JSONSerialization", report);
+    }
+
+    // Every way of producing JSON text escapes the same way
+    private static void assertQuoted(String expected, String string) throws Exception {
+        assertEquals(expected, JSONObject.quote(string));
+        assertEquals(expected, JSONObject.quote(string, new StringWriter()).toString());
+
+        final JSONObject json = new JSONObject();
+        json.put("k", string);
+        assertEquals("{\"k\":" + expected + "}", json.toString());
+        assertEquals("{\"k\":" + expected + "}", json.write(new StringWriter()).toString());
+        assertEquals("[" + expected + "]", new JSONArray().put(string).toString());
+    }
+
+    private static void assertNumber(String expected, Number number) {
+        assertEquals(expected, JSONObject.numberToString(number));
+
+        final JSONObject json = new JSONObject();
+        json.put("n", number);
+        assertEquals("{\"n\":" + expected + "}", json.toString());
+        assertEquals("{\"n\":" + expected + "}", json.write(new StringWriter()).toString());
+        assertEquals("[" + expected + "]", new JSONArray().put(number).toString());
+    }
+}
@@ -0,0 +1,79 @@
+package io.teak.app.test;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.List;
+
+import io.teak.sdk.core.KeyValueStore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class KeyValueStoreLog {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void valuesSurviveReload() throws Exception {
+        final File file = new File(folder.getRoot(), "store");
+        final KeyValueStore store = new KeyValueStore(file);
+        store.putString("a", "1");
+        store.putString("b", "2");
+        store.remove("b");
+        for (int i = 0; i < 10; i++) {
+            store.appendToList("list", "entry" + i, 5);
+        }
+        store.flushAndWait();
+
+        final KeyValueStore reloaded = new KeyValueStore(file);
+        assertEquals("1", reloaded.getString("a"));
+        assertNull(reloaded.getString("b"));
+
+        final List<String> list = reloaded.getList("list");
+        assertEquals(5, list.size());
+        assertEquals("entry5", list.get(0));
+        assertEquals("entry9", list.get(4));
+    }
+
+    @Test
+    public void interruptedRecordIsDiscarded() throws Exception {
+        final File file = new File(folder.getRoot(), "store");
+        final KeyValueStore store = new KeyValueStore(file);
+        store.appendToList("list", "first", 50);
+        store.flushAndWait();
+
+        // Half of a record, as if the process ended mid-write
+        final FileOutputStream out = new FileOutputStream(file, true);
+        out.write(new byte[] {0, 0, 0, 32, 3, 0});
+        out.close();
+
+        final KeyValueStore reloaded = new KeyValueStore(file);
+        reloaded.appendToList("list", "second", 50);
+        reloaded.flushAndWait();
+
+        final List<String> list = new KeyValueStore(file).getList("list");
+        assertEquals(2, list.size());
+        assertEquals("first", list.get(0));
+        assertEquals("second", list.get(1));
+    }
+
+    @Test
+    public void logIsCompacted() throws Exception {
+        final File file = new File(folder.getRoot(), "store");
+        final KeyValueStore store = new KeyValueStore(file);
+        for (int i = 0; i < 500; i++) {
+            store.putString("counter", String.valueOf(i));
+        }
+        store.flushAndWait();
+        final long compactedLength = file.length();
+
+        final KeyValueStore reloaded = new KeyValueStore(file);
+        assertEquals("499", reloaded.getString("counter"));
+        assertTrue(compactedLength < 100);
+    }
+}
@@ -0,0 +1,8 @@
+package io.teak.app.test;
+
+/**
+ * JUnit category for load tests, which are too slow for every build; they run only when asked for,
+ * with ./gradlew testDebugUnitTest -PloadTests
+ */
+public interface LoadTest {
+}
@@ -0,0 +1,128 @@
+package io.teak.app.test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+import io.teak.sdk.core.InstrumentableReentrantLock;
+import io.teak.sdk.metrics.Metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LockContention {
+    @Before
+    public void profileEveryLock() {
+        assertTrue(InstrumentableReentrantLock.setContentionProfileRate(1.0));
+    }
+
+    @After
+    public void stopProfiling() {
+        InstrumentableReentrantLock.setContentionProfileRate(0.0);
+    }
+
+    /**
+     * Hold the lock while another thread asks for it, and release it only once that thread is
+     * queued, so the other thread's acquisition is always contended.
+     */
+    private static void contend(final InstrumentableReentrantLock lock, final int site) throws InterruptedException {
+        lock.lock();
+        final Thread waiter = new Thread(() -> {
+            acquireFrom(lock, site);
+            lock.unlock();
+        });
+        waiter.start();
+        while (!lock.hasQueuedThread(waiter)) {
+            Thread.yield();
+        }
+        lock.unlock();
+        waiter.join();
+    }
+
+    // Each case is a distinct call site
+    private static void acquireFrom(InstrumentableReentrantLock lock, int site) {
+        switch (site) {
+            case 0: lock.lock(); break;
+            case 1: lock.lock(); break;
+            case 2: lock.lock(); break;
+            case 3: lock.lock(); break;
+            case 4: lock.lock(); break;
+            case 5: lock.lock(); break;
+            case 6: lock.lock(); break;
+            case 7: lock.lock(); break;
+            case 8: lock.lock(); break;
+            case 9: lock.lock(); break;
+            case 10: lock.lock(); break;
+            case 11: lock.lock(); break;
+            case 12: lock.lock(); break;
+            case 13: lock.lock(); break;
+            case 14: lock.lock(); break;
+            case 15: lock.lock(); break;
+            case 16: lock.lock(); break;
+            case 17: lock.lock(); break;
+            default: lock.lock(); break;
+        }
+    }
+
+    @Test
+    public void contendedAcquisitionsAreMeasured() throws InterruptedException {
+        final InstrumentableReentrantLock lock = new InstrumentableReentrantLock("test.contended");
+        for (int i = 0; i < 3; i++) {
+            contend(lock, 0);
+        }
+
+        assertEquals(3, Metrics.counter("lock.contended.test.contended").get());
+        assertEquals(3, Metrics.histogram("lock.wait_us.test.contended").getCount());
+
+        // Both the holder and the waiter hold the lock each time
+        assertEquals(6, Metrics.histogram("lock.hold_us.test.contended").getCount());
+    }
+
+    @Test
+    public void uncontendedAcquisitionsOnlyMeasureHolds() {
+        final InstrumentableReentrantLock lock = new InstrumentableReentrantLock("test.uncontended");
+        lock.lock();
+        lock.unlock();
+
+        assertEquals(0, Metrics.counter("lock.contended.test.uncontended").get());
+        assertEquals(0, Metrics.histogram("lock.wait_us.test.uncontended").getCount());
+        assertEquals(1, Metrics.histogram("lock.hold_us.test.uncontended").getCount());
+    }
+
+    @Test
+    public void nestedHoldsAreMeasuredOnce() {
+        final InstrumentableReentrantLock lock = new InstrumentableReentrantLock("test.nested");
+        lock.lock();
+        lock.lock();
+        lock.unlock();
+        assertEquals(0, Metrics.histogram("lock.hold_us.test.nested").getCount());
+
+        lock.unlock();
+        assertEquals(1, Metrics.histogram("lock.hold_us.test.nested").getCount());
+    }
+
+    @Test
+    public void callSitesAreSampledAndCapped() throws InterruptedException {
+        final InstrumentableReentrantLock lock = new InstrumentableReentrantLock("test.sites");
+
+        // One in eight contended acquisitions is sampled, so each site is sampled exactly once
+        final int sites = 18;
+        for (int i = 0; i < sites * 8; i++) {
+            contend(lock, i / 8);
+        }
+
+        int callSiteCount = 0;
+        long sampleCount = 0;
+        for (Map.Entry<String, Object> entry : Metrics.snapshot().entrySet()) {
+            if (entry.getKey().startsWith("lock.call_site.test.sites.LockContention.acquireFrom:")) {
+                callSiteCount++;
+                sampleCount += (Long) entry.getValue();
+            }
+        }
+        assertEquals(16, callSiteCount);
+        assertEquals(16, sampleCount);
+        assertEquals(sites * 8, Metrics.counter("lock.contended.test.sites").get());
+    }
+}
@@ -0,0 +1,47 @@
+package io.teak.app.test;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import io.teak.sdk.metrics.Histogram;
+import io.teak.sdk.metrics.Metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsHistogram {
+    @Test
+    @SuppressWarnings("unchecked")
+    public void percentilesAreWithinBucketPrecision() {
+        final Histogram histogram = Metrics.histogram("test.percentiles");
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+
+        final Map<String, Object> snapshot = (Map<String, Object>) Metrics.snapshot().get("test.percentiles");
+        assertEquals(1000L, snapshot.get("count"));
+        assertEquals(500500L, snapshot.get("sum"));
+        assertEquals(1000L, snapshot.get("max"));
+        assertWithinPrecision(500, (Long) snapshot.get("p50"));
+        assertWithinPrecision(900, (Long) snapshot.get("p90"));
+        assertWithinPrecision(990, (Long) snapshot.get("p99"));
+    }
+
+    @Test
+    public void reportOnlyContainsChangedMetrics() {
+        Metrics.counter("test.report").increment();
+        Map<String, Object> report = Metrics.snapshotSinceLastReport();
+        assertEquals(1L, report.get("test.report"));
+
+        report = Metrics.snapshotSinceLastReport();
+        assertFalse(report.containsKey("test.report"));
+        assertEquals(0L, Metrics.counter("test.report").get());
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        assertTrue("expected about " + expected + " but was " + actual,
+            actual >= expected && actual <= expected + expected / 8);
+    }
+}
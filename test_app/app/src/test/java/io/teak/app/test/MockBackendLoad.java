@@ -0,0 +1,171 @@
+package io.teak.app.test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.teak.sdk.Request;
+import io.teak.sdk.configuration.EndpointConfiguration;
+import io.teak.sdk.core.Session;
+import io.teak.sdk.event.TrackEventEvent;
+import io.teak.sdk.io.DefaultHttpRequest;
+import io.teak.sdk.io.Platform;
+import io.teak.sdk.json.JSONObject;
+import io.teak.sdk.metrics.Metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MockBackendLoad {
+    private static final String ApiKey = "1f3850f794b9093864a0778009744d03";
+
+    // Enough retries that a request is all but certain to get through the injected failures
+    private static final String Retries = "\"retry\":{\"times\":[0.01,0.01,0.01,0.02,0.02,0.02,0.05,0.05,0.05,0.05],\"jitter\":0.0}";
+    private static final String EndpointConfigurations = "{\"gocarrot.com\":{" +
+                                                         "\"/me/events\":{\"batch\":{\"time\":0.05,\"count\":100}," + Retries + "}," +
+                                                         "\"/me/profile\":{" + Retries + "}}}";
+
+    private MockTeakBackend backend;
+
+    @Before
+    public void installMockBackend() {
+        this.backend = new MockTeakBackend(ApiKey);
+        Platform.setHttpRequest(this.backend);
+        Request.setTeakApiKey(ApiKey);
+
+        // Apply a configuration with batching and retries
+        Request.setEndpointConfiguration(new EndpointConfiguration("gocarrot.com",
+            new JSONObject(EndpointConfigurations).toMap(), null, false));
+    }
+
+    @After
+    public void removeMockBackend() {
+        Platform.setHttpRequest(new DefaultHttpRequest());
+    }
+
+    @Test
+    public void signedRequestsAreRouted() throws InterruptedException {
+        final String[] endpoints = {"/ping", "/games/1136371193060244/settings.json", "/games/1136371193060244/users.json", "/me/nope"};
+        final int[] statusCodes = new int[endpoints.length];
+        final CountDownLatch replies = new CountDownLatch(endpoints.length);
+        for (int i = 0; i < endpoints.length; i++) {
+            final int index = i;
+            Request.submit("gocarrot.com", "POST", endpoints[i], new HashMap<String, Object>(), Session.NullSession, (responseCode, responseBody) -> {
+                statusCodes[index] = responseCode;
+                replies.countDown();
+            });
+        }
+
+        assertTrue(replies.await(5, TimeUnit.SECONDS));
+        assertEquals(200, statusCodes[0]);
+        assertEquals(200, statusCodes[1]);
+        assertEquals(200, statusCodes[2]);
+        assertEquals(404, statusCodes[3]);
+        assertEquals(0, this.backend.badSignatures.get());
+    }
+
+    @Test
+    public void requestsWhoseRepliesAreLostAreDeliveredAgain() throws InterruptedException {
+        final int updates = 200;
+        this.backend.withTimeouts(0.0, 20).withLostReplies(0.2);
+
+        final AtomicLong succeeded = new AtomicLong();
+        final CountDownLatch replies = new CountDownLatch(updates);
+        for (int i = 0; i < updates; i++) {
+            Request.submit("/me/profile", profileUpdate(i), Session.NullSession, (responseCode, responseBody) -> {
+                if (responseCode == 200) succeeded.incrementAndGet();
+                replies.countDown();
+            });
+        }
+        assertTrue(replies.await(30, TimeUnit.SECONDS));
+
+        // Delivery is at least once: every update whose reply was lost was sent again, and is a duplicate
+        assertEquals(updates, succeeded.get());
+        assertTrue(this.backend.profileUpdatesWithLostReplies.get() > 0);
+        assertEquals(updates + this.backend.profileUpdatesWithLostReplies.get(), this.backend.profileUpdates.get());
+    }
+
+    @Test
+    @Category(LoadTest.class)
+    public void thousandsOfSessionsSurviveErrorsTimeoutsAndLostReplies() throws Exception {
+        final int sessions = 2000;
+        final int eventsPerSession = 10;
+        this.backend.withLatency(0, 2).withErrorRate(0.02).withTimeouts(0.01, 20).withLostReplies(0.02);
+
+        final AtomicLong failed = new AtomicLong();
+        final CountDownLatch replies = new CountDownLatch(sessions * (eventsPerSession + 1));
+        final Request.Callback callback = (responseCode, responseBody) -> {
+            if (responseCode != 200) failed.incrementAndGet();
+            replies.countDown();
+        };
+
+        final long startTime = System.nanoTime();
+        final ExecutorService players = Executors.newFixedThreadPool(8);
+        for (int s = 0; s < sessions; s++) {
+            final int session = s;
+            players.execute(() -> {
+                for (int e = 0; e < eventsPerSession; e++) {
+                    Request.submit("/me/events", TrackEventEvent.payloadForEvent("level_up", "level", String.valueOf(e % 5), 1), Session.NullSession, callback);
+                }
+                Request.submit("/me/profile", profileUpdate(session), Session.NullSession, callback);
+            });
+        }
+        players.shutdown();
+        assertTrue(players.awaitTermination(30, TimeUnit.SECONDS));
+
+        // Wait for the batches, and their retries, to be answered
+        assertTrue(replies.await(60, TimeUnit.SECONDS));
+        final double elapsedSeconds = (System.nanoTime() - startTime) / 1e9;
+        writeReport(sessions, elapsedSeconds);
+
+        final long expectedEvents = (long) sessions * eventsPerSession;
+        assertEquals(0, this.backend.badSignatures.get());
+        assertEquals(0, failed.get());
+
+        // Nothing is lost, and the only duplicates are the requests whose replies were lost
+        assertTrue(this.backend.eventsWithLostReplies.get() > 0);
+        assertEquals(expectedEvents + this.backend.eventsWithLostReplies.get(), this.backend.trackedEvents.get());
+        assertEquals(sessions + this.backend.profileUpdatesWithLostReplies.get(), this.backend.profileUpdates.get());
+
+        assertTrue(this.backend.requestsByEndpoint().get("/me/events") < expectedEvents / 10);
+        assertTrue(Metrics.counter("request.retries/me/events").get() + Metrics.counter("request.retries/me/profile").get() > 0);
+    }
+
+    private static Map<String, Object> profileUpdate(int coins) {
+        final Map<String, Object> numberAttributes = new HashMap<>();
+        numberAttributes.put("coins", (double) coins);
+        final Map<String, Object> profile = new HashMap<>();
+        profile.put("context", "load_test");
+        profile.put("string_attributes", new HashMap<String, Object>());
+        profile.put("number_attributes", numberAttributes);
+        return profile;
+    }
+
+    private void writeReport(int sessions, double elapsedSeconds) throws IOException {
+        final Map<String, Object> report = new HashMap<>();
+        report.put("sessions", sessions);
+        report.put("elapsed_seconds", elapsedSeconds);
+        report.put("requests", this.backend.requests.get());
+        report.put("requests_per_second", this.backend.requests.get() / elapsedSeconds);
+        report.put("requests_by_endpoint", this.backend.requestsByEndpoint());
+        report.put("bytes_received", this.backend.bytesReceived.get());
+        report.put("bytes_sent", this.backend.bytesSent.get());
+        report.put("injected_errors", this.backend.injectedErrors.get());
+        report.put("injected_timeouts", this.backend.injectedTimeouts.get());
+        report.put("lost_replies", this.backend.lostReplies.get());
+        report.put("tracked_events", this.backend.trackedEvents.get());
+        report.put("profile_updates", this.backend.profileUpdates.get());
+        report.put("metrics", Metrics.snapshot());
+        TestHelpers.writeLoadReport("MockBackendLoad", report);
+    }
+}
@@ -0,0 +1,183 @@
+package io.teak.app.test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.teak.sdk.Request;
+import io.teak.sdk.configuration.EndpointConfiguration;
+import io.teak.sdk.core.PurchaseJournal;
+import io.teak.sdk.core.Session;
+import io.teak.sdk.io.DefaultHttpRequest;
+import io.teak.sdk.io.Platform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PurchaseJournalReplay {
+    private static final String ApiKey = "1f3850f794b9093864a0778009744d03";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MockTeakBackend backend;
+    private File file;
+
+    @Before
+    public void installMockBackend() {
+        this.backend = new MockTeakBackend(ApiKey);
+        Platform.setHttpRequest(this.backend);
+        Request.setTeakApiKey(ApiKey);
+
+        // No retries, so each purchase is answered by a single reply
+        Request.setEndpointConfiguration(new EndpointConfiguration("gocarrot.com", new HashMap<String, Object>(), null, false));
+
+        this.file = new File(folder.getRoot(), "journal");
+    }
+
+    @After
+    public void removeMockBackend() {
+        Platform.setHttpRequest(new DefaultHttpRequest());
+    }
+
+    @Test
+    public void purchasesAreKeyedByTokenAndProduct() {
+        assertEquals(PurchaseJournal.keyFor(purchase("token", "gems")), PurchaseJournal.keyFor(purchase("token", "gems")));
+        assertNotEquals(PurchaseJournal.keyFor(purchase("token", "gems")), PurchaseJournal.keyFor(purchase("token", "coins")));
+        assertNotEquals(PurchaseJournal.keyFor(purchase("token", "gems")), PurchaseJournal.keyFor(purchase("other", "gems")));
+
+        // Without a token there is nothing to tell purchases apart by, so none are duplicates
+        assertNotEquals(PurchaseJournal.keyFor(purchase(null, "gems")), PurchaseJournal.keyFor(purchase(null, "gems")));
+    }
+
+    @Test
+    public void duplicatePurchasesAreRecordedOnce() {
+        final PurchaseJournal journal = new PurchaseJournal(this.file);
+        final Map<String, Object> payload = purchase("token", "gems");
+
+        assertTrue(journal.record(PurchaseJournal.keyFor(payload), payload));
+        assertFalse(journal.record(PurchaseJournal.keyFor(purchase("token", "gems")), purchase("token", "gems")));
+        assertEquals(1, journal.getPendingCount());
+    }
+
+    @Test
+    public void pendingPurchasesAreReplayedAfterRestart() throws Exception {
+        final PurchaseJournal journal = new PurchaseJournal(this.file);
+        record(journal, purchase("first", "gems"));
+        record(journal, purchase("second", "gems"));
+        journal.flushAndWait();
+
+        final PurchaseJournal restarted = new PurchaseJournal(this.file);
+        assertEquals(2, restarted.getPendingCount());
+        assertFalse(restarted.record(PurchaseJournal.keyFor(purchase("first", "gems")), purchase("first", "gems")));
+
+        restarted.replay(Session.NullSession);
+        awaitRequests();
+        assertEquals(2, this.backend.purchases.get());
+        assertEquals(0, restarted.getPendingCount());
+        restarted.flushAndWait();
+
+        // Acknowledged purchases are neither sent again nor recorded again
+        final PurchaseJournal restartedAgain = new PurchaseJournal(this.file);
+        assertEquals(0, restartedAgain.getPendingCount());
+        assertFalse(restartedAgain.record(PurchaseJournal.keyFor(purchase("second", "gems")), purchase("second", "gems")));
+    }
+
+    @Test
+    public void journalIsCompactedWhenLoaded() throws Exception {
+        final PurchaseJournal journal = new PurchaseJournal(this.file);
+        final String acknowledged = record(journal, purchase("first", "gems"));
+        record(journal, purchase("second", "gems"));
+        journal.submit(acknowledged, purchase("first", "gems"), Session.NullSession);
+        awaitRequests();
+        journal.flushAndWait();
+        assertEquals(3, lines(this.file).size());
+
+        // One record for the acknowledged purchase, and one for the pending purchase
+        final PurchaseJournal reloaded = new PurchaseJournal(this.file);
+        reloaded.flushAndWait();
+        final List<String> lines = lines(this.file);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).contains("\"ack\""));
+        assertTrue(lines.get(1).contains("second"));
+        assertEquals(1, reloaded.getPendingCount());
+    }
+
+    @Test
+    public void purchasesAreAcknowledgedByAnyReplyBelow500() throws Exception {
+        for (int statusCode : new int[] {200, 204, 400, 403, 404, 422}) {
+            assertEquals("Status " + statusCode, 0, pendingAfterReply(statusCode));
+        }
+    }
+
+    @Test
+    public void purchasesAreKeptAfterServerErrorsAndFailedRequests() throws Exception {
+        for (int statusCode : new int[] {500, 502, 503, 599}) {
+            assertEquals("Status " + statusCode, 1, pendingAfterReply(statusCode));
+        }
+    }
+
+    private int pendingAfterReply(int statusCode) throws Exception {
+        this.backend.withReply("/me/purchase", statusCode);
+
+        final PurchaseJournal journal = new PurchaseJournal(new File(folder.getRoot(), "journal" + statusCode));
+        final Map<String, Object> payload = purchase("token" + statusCode, "gems");
+        journal.submit(record(journal, payload), payload, Session.NullSession);
+        awaitRequests();
+        journal.flushAndWait();
+
+        // The reply has to survive a restart, too
+        return new PurchaseJournal(new File(folder.getRoot(), "journal" + statusCode)).getPendingCount();
+    }
+
+    private static String record(PurchaseJournal journal, Map<String, Object> payload) {
+        final String key = PurchaseJournal.keyFor(payload);
+        assertTrue(journal.record(key, payload));
+        return key;
+    }
+
+    // Requests, and their callbacks, run one at a time, so once this one is answered every earlier one has been
+    private static void awaitRequests() throws InterruptedException {
+        final CountDownLatch answered = new CountDownLatch(1);
+        Request.submit("/ping", new HashMap<String, Object>(), Session.NullSession, (responseCode, responseBody) -> answered.countDown());
+        assertTrue(answered.await(5, TimeUnit.SECONDS));
+    }
+
+    private static Map<String, Object> purchase(String purchaseToken, String productId) {
+        final Map<String, Object> payload = new HashMap<>();
+        if (purchaseToken != null) {
+            payload.put("purchase_token", purchaseToken);
+        }
+        payload.put("product_id", productId);
+        payload.put("price_string", "$0.99");
+        return payload;
+    }
+
+    private static List<String> lines(File file) throws Exception {
+        final List<String> lines = new ArrayList<>();
+        final BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        } finally {
+            reader.close();
+        }
+        return lines;
+    }
+}
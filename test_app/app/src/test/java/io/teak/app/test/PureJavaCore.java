@@ -0,0 +1,163 @@
+package io.teak.app.test;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import androidx.annotation.NonNull;
+import io.teak.sdk.BuildConfig;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The SDK core builds and runs on a plain JVM: it is compiled from source with only the androidx
+ * annotations and BuildConfig on the classpath, no android.jar, and then run in a class loader
+ * which cannot see any Android classes.
+ */
+public class PureJavaCore {
+    private static final File SourceRoot = new File("../../src/main/java");
+
+    private static final String[] CoreSources = {
+        "io/teak/sdk/Request.java",
+        "io/teak/sdk/TeakEvent.java",
+        "io/teak/sdk/core/ISession.java",
+        "io/teak/sdk/core/IKeyValueStore.java",
+        "io/teak/sdk/core/KeyValueStore.java",
+        "io/teak/sdk/io/Platform.java",
+    };
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static File classes;
+    private static URLClassLoader core;
+
+    @BeforeClass
+    public static void compileCore() throws Exception {
+        classes = folder.newFolder("classes");
+
+        // BuildConfig is generated by the build, so it is taken from the compiled SDK
+        final File buildConfig = folder.newFolder("buildconfig");
+        final File buildConfigClass = new File(buildConfig, "io/teak/sdk/BuildConfig.class");
+        assertTrue(buildConfigClass.getParentFile().mkdirs());
+        final InputStream in = BuildConfig.class.getResourceAsStream("BuildConfig.class");
+        try {
+            Files.copy(in, buildConfigClass.toPath());
+        } finally {
+            in.close();
+        }
+        final File annotations = new File(NonNull.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull("Tests must run on a JDK", compiler);
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        final StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null);
+        final List<File> sources = new ArrayList<>();
+        for (String source : CoreSources) {
+            sources.add(new File(SourceRoot, source));
+        }
+        final List<String> options = Arrays.asList(
+            "-d", classes.getPath(),
+            "-sourcepath", SourceRoot.getPath(),
+            "-classpath", annotations.getPath() + File.pathSeparator + buildConfig.getPath(),
+            "-implicit:class",
+            "-proc:none");
+        final boolean compiled = compiler.getTask(null, fileManager, diagnostics, options, null, fileManager.getJavaFileObjectsFromFiles(sources)).call();
+        fileManager.close();
+        assertTrue(diagnostics.getDiagnostics().toString(), compiled);
+
+        // No parent, so only the JDK, the annotations and the freshly compiled core are visible
+        core = new URLClassLoader(new URL[] {classes.toURI().toURL(), buildConfig.toURI().toURL(), annotations.toURI().toURL()}, null);
+    }
+
+    @Test
+    public void coreCompilesWithoutAndroid() {
+        assertTrue(new File(classes, "io/teak/sdk/Request.class").exists());
+        assertTrue(new File(classes, "io/teak/sdk/TeakEvent.class").exists());
+        assertTrue(new File(classes, "io/teak/sdk/core/KeyValueStore.class").exists());
+        assertTrue(new File(classes, "io/teak/sdk/io/DefaultJvmPlatform.class").exists());
+    }
+
+    @Test
+    public void keyValueStoreRunsWithoutAndroid() throws Exception {
+        final Class<?> store = core.loadClass("io.teak.sdk.core.KeyValueStore");
+        final File file = new File(folder.getRoot(), "store");
+
+        final Object written = store.getConstructor(File.class).newInstance(file);
+        store.getMethod("putString", String.class, String.class).invoke(written, "key", "value");
+        store.getMethod("flushAndWait").invoke(written);
+
+        final Object reloaded = store.getConstructor(File.class).newInstance(file);
+        assertEquals("value", store.getMethod("getString", String.class).invoke(reloaded, "key"));
+    }
+
+    @Test
+    public void requestRunsWithoutAndroid() throws Exception {
+        final Class<?> platform = core.loadClass("io.teak.sdk.io.Platform");
+        assertEquals("io.teak.sdk.io.DefaultJvmPlatform", platform.getMethod("clock").invoke(null).getClass().getName());
+
+        // Reply to every request, remembering where it went
+        final Class<?> httpRequest = core.loadClass("io.teak.sdk.io.IHttpRequest");
+        final Class<?> response = core.loadClass("io.teak.sdk.io.IHttpRequest$Response");
+        final AtomicReference<URL> sentTo = new AtomicReference<>();
+        final Object backend = implement(httpRequest, (proxy, method, args) -> {
+            sentTo.set((URL) args[0]);
+            return response.getConstructor(int.class, String.class, Map.class).newInstance(200, "{}", new HashMap<String, Object>());
+        });
+        platform.getMethod("setHttpRequest", httpRequest).invoke(null, backend);
+
+        final Class<?> session = core.loadClass("io.teak.sdk.core.ISession");
+        final Object nullSession = implement(session, (proxy, method, args) -> null);
+
+        final CountDownLatch replied = new CountDownLatch(1);
+        final AtomicInteger statusCode = new AtomicInteger();
+        final Class<?> callback = core.loadClass("io.teak.sdk.Request$Callback");
+        final Object onReply = implement(callback, (proxy, method, args) -> {
+            statusCode.set((Integer) args[0]);
+            replied.countDown();
+            return null;
+        });
+
+        final Class<?> request = core.loadClass("io.teak.sdk.Request");
+        request.getMethod("setTeakApiKey", String.class).invoke(null, "pure_java_core");
+        final Method submit = request.getMethod("submit", String.class, String.class, Map.class, session, callback);
+        submit.invoke(null, "gocarrot.com", "/ping", new HashMap<String, Object>(), nullSession, onReply);
+
+        assertTrue(replied.await(5, TimeUnit.SECONDS));
+        assertEquals(200, statusCode.get());
+        assertEquals("https://gocarrot.com:443/ping", sentTo.get().toString());
+    }
+
+    // Implements an interface loaded by the core class loader, with Object methods answered by the handler itself
+    private static Object implement(Class<?> type, InvocationHandler handler) {
+        return Proxy.newProxyInstance(core, new Class<?>[] {type}, (proxy, method, args) ->
+            method.getDeclaringClass() == Object.class ? method.invoke(handler, args) : handler.invoke(proxy, method, args));
+    }
+}
@@ -0,0 +1,85 @@
+package io.teak.app.test;
+
+import android.os.Bundle;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+
+import io.teak.sdk.json.JSONObject;
+import io.teak.sdk.push.PushPayload;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class PushPayloadDecoding {
+    private static final String Extras = "{\"foo\":\"bar\"}";
+    private static final String Display = "{\"contentView\":\"teak_notif_no_title\"}";
+    private static final String VersionedContent = "[{\"version\":\"0.0.0\",\"contentView\":\"versioned\"},{\"version\":\"999.0.0\",\"contentView\":\"too_new\"}]";
+
+    @Test
+    public void eachFieldIsParsedOnce() {
+        final Bundle bundle = mockBundle(Extras, Display, null);
+        final PushPayload payload = new PushPayload(bundle);
+
+        final Map<String, Object> debugMap = payload.toDebugMap();
+        assertEquals("bar", ((Map<?, ?>) debugMap.get("extras")).get("foo"));
+        assertEquals("not json", debugMap.get("message"));
+
+        final JSONObject extras = payload.getExtras();
+        assertNotNull(extras);
+        assertSame(extras, payload.getExtras());
+
+        final JSONObject display = payload.getDisplay();
+        assertNotNull(display);
+        assertSame(display, payload.getDisplay());
+        assertEquals("teak_notif_no_title", display.getString("contentView"));
+        assertFalse(payload.isDisplayInvalid());
+
+        verify(bundle, times(1)).getString("extras");
+        verify(bundle, times(1)).getString("display");
+    }
+
+    @Test
+    public void versionedContentPreferredOverDisplay() {
+        final PushPayload payload = new PushPayload(mockBundle(null, Display, VersionedContent));
+
+        final JSONObject display = payload.getDisplay();
+        assertNotNull(display);
+        assertEquals("versioned", display.getString("contentView"));
+        assertNull(payload.getExtras());
+    }
+
+    @Test
+    public void invalidDisplay() {
+        final PushPayload payload = new PushPayload(mockBundle(null, "{not json", null));
+
+        assertNull(payload.getDisplay());
+        assertTrue(payload.isDisplayInvalid());
+    }
+
+    private static Bundle mockBundle(String extras, String display, String versionedContent) {
+        final Bundle bundle = mock(Bundle.class);
+        when(bundle.keySet()).thenReturn(new HashSet<>(Arrays.asList("extras", "display", "message")));
+        when(bundle.get("extras")).thenReturn(extras);
+        when(bundle.get("display")).thenReturn(display);
+        when(bundle.get("message")).thenReturn("not json");
+        when(bundle.getString("extras")).thenReturn(extras);
+        when(bundle.getString("display")).thenReturn(display);
+        when(bundle.getString("versioned_content")).thenReturn(versionedContent);
+        return bundle;
+    }
+}
@@ -17,11 +17,9 @@ import java.util.Map;
 
 import io.teak.sdk.Request;
 import io.teak.sdk.Teak;
-import io.teak.sdk.TeakEvent;
 import io.teak.sdk.configuration.AppConfiguration;
 import io.teak.sdk.configuration.RemoteConfiguration;
 import io.teak.sdk.core.Session;
-import io.teak.sdk.event.RemoteConfigurationEvent;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
@@ -39,7 +37,6 @@ public class TeakHttpUnitTest extends TeakUnitTest {
     @BeforeClass
     public static void setupWireMock() {
         // RemoteConfiguration for mocking
-        Request.registerStaticEventListeners();
         final AppConfiguration appConfiguration = mock(AppConfiguration.class);
         final RemoteConfiguration remoteConfiguration =
                 new RemoteConfiguration(appConfiguration,
@@ -55,7 +52,7 @@ public class TeakHttpUnitTest extends TeakUnitTest {
                         600,
                         new ArrayList<Teak.Channel.Category>(),
                         true);
-        TeakEvent.postEvent(new RemoteConfigurationEvent(remoteConfiguration));
+        Request.setEndpointConfiguration(remoteConfiguration.endpointConfiguration);
     }
 
     @Before
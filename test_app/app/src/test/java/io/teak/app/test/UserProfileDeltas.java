@@ -0,0 +1,116 @@
+package io.teak.app.test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Constructor;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.teak.sdk.Request;
+import io.teak.sdk.configuration.EndpointConfiguration;
+import io.teak.sdk.core.Session;
+import io.teak.sdk.core.UserProfile;
+import io.teak.sdk.io.DefaultHttpRequest;
+import io.teak.sdk.io.Platform;
+import io.teak.sdk.json.JSONObject;
+
+import static org.junit.Assert.assertEquals;
+
+public class UserProfileDeltas {
+    private static final String ApiKey = "1f3850f794b9093864a0778009744d03";
+
+    // A short batch window, and two retries
+    private static final String EndpointConfigurations = "{\"gocarrot.com\":{" +
+                                                         "\"/me/profile\":{\"batch\":{\"time\":0.02},\"retry\":{\"times\":[0.01,0.01],\"jitter\":0.0}}}}";
+
+    private MockTeakBackend backend;
+
+    @Before
+    public void installMockBackend() {
+        this.backend = new MockTeakBackend(ApiKey);
+        Platform.setHttpRequest(this.backend);
+        Request.setTeakApiKey(ApiKey);
+        Request.setEndpointConfiguration(new EndpointConfiguration("gocarrot.com",
+            new JSONObject(EndpointConfigurations).toMap(), null, false));
+    }
+
+    @After
+    public void removeMockBackend() {
+        Platform.setHttpRequest(new DefaultHttpRequest());
+    }
+
+    @Test
+    public void onlyChangedAttributesAreSent() throws Exception {
+        final UserProfile profile = newUserProfile();
+        profile.setStringAttribute("last_level", "castle");
+        profile.setNumericAttribute("coins", 250.0);
+
+        final JSONObject first = this.backend.awaitProfileRequests(1, 5000).get(0);
+        assertEquals(keys("last_level"), first.getJSONObject("string_attributes").keySet());
+        assertEquals("castle", first.getJSONObject("string_attributes").getString("last_level"));
+        assertEquals(keys("coins"), first.getJSONObject("number_attributes").keySet());
+        assertEquals(250.0, first.getJSONObject("number_attributes").getDouble("coins"), 0.0);
+        assertEquals(1, first.getLong("profile_version"));
+
+        // Setting an attribute to the value it already has is not a change
+        profile.setStringAttribute("last_level", "castle");
+        profile.setNumericAttribute("gems", 3.0);
+
+        final JSONObject second = this.backend.awaitProfileRequests(2, 5000).get(1);
+        assertEquals(keys(), second.getJSONObject("string_attributes").keySet());
+        assertEquals(keys("gems"), second.getJSONObject("number_attributes").keySet());
+        assertEquals(2, second.getLong("profile_version"));
+    }
+
+    @Test
+    public void failedSendIsRetriedAndThenResentWithTheNextChange() throws Exception {
+        this.backend.withReply("/me/profile", 503);
+        final UserProfile profile = newUserProfile();
+        profile.setNumericAttribute("coins", 250.0);
+
+        // The send, and both of its retries, carry the same payload
+        final List<JSONObject> attempts = this.backend.awaitProfileRequests(3, 5000);
+        assertEquals(3, attempts.size());
+        for (JSONObject attempt : attempts) {
+            assertEquals(keys("coins"), attempt.getJSONObject("number_attributes").keySet());
+            assertEquals(1, attempt.getLong("profile_version"));
+        }
+
+        // Once retries are exhausted the attribute goes out again with the next change
+        profile.setNumericAttribute("gems", 3.0);
+        final JSONObject resend = this.backend.awaitProfileRequests(4, 5000).get(3);
+        assertEquals(keys("coins", "gems"), resend.getJSONObject("number_attributes").keySet());
+        assertEquals(250.0, resend.getJSONObject("number_attributes").getDouble("coins"), 0.0);
+        assertEquals(2, resend.getLong("profile_version"));
+    }
+
+    private static UserProfile newUserProfile() throws Exception {
+        final Map<String, Object> stringAttributes = new HashMap<>();
+        stringAttributes.put("last_level", null);
+        final Map<String, Object> numberAttributes = new HashMap<>();
+        numberAttributes.put("coins", 0.0);
+        numberAttributes.put("gems", 0.0);
+
+        final Map<String, Object> profile = new HashMap<>();
+        profile.put("context", "test");
+        profile.put("string_attributes", stringAttributes);
+        profile.put("number_attributes", numberAttributes);
+
+        final Constructor<UserProfile> constructor = UserProfile.class.getDeclaredConstructor(Session.class, Map.class);
+        constructor.setAccessible(true);
+        return constructor.newInstance(Session.NullSession, profile);
+    }
+
+    private static Set<String> keys(String... keys) {
+        final Set<String> set = new HashSet<>();
+        for (String key : keys) {
+            set.add(key);
+        }
+        return set;
+    }
+}